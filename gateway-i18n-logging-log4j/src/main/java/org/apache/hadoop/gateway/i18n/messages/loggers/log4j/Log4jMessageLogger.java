@@ -64,8 +64,9 @@ public class Log4jMessageLogger implements MessageLogger {
     return info;
   }
 
+  // Without a caller log4j would walk the stack itself and report this logger's invoker so report it as unavailable.
   private static final LocationInfo toLocationInfo( final StackTraceElement caller ) {
-    LocationInfo info = null;
+    LocationInfo info = LocationInfo.NA_LOCATION_INFO;
     if( caller != null ) {
         info = new LocationInfo( caller.getFileName(), caller.getClassName(), caller.getMethodName(), Integer.toString(caller.getLineNumber()) );
     }
@@ -23,15 +23,31 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
  */
 public class MessagesInvoker extends ResourcesInvoker implements InvocationHandler {
 
+  /**
+   * Controls when the caller's stack frame is captured for a logged message.
+   * One of "always", "never" or "debug".  The default "debug" only captures the caller when
+   * the logger is enabled for DEBUG since walking the stack is expensive in production.
+   */
+  public static final String CALLER_LOCATION_PROPERTY = "gateway.i18n.messages.caller";
+
+  static final String CALLER_LOCATION_ALWAYS = "always";
+  static final String CALLER_LOCATION_NEVER = "never";
+  static final String CALLER_LOCATION_DEBUG = "debug";
+
   private String codes;
   private MessageLogger logger;
   private String bundle;
+  private String callerLocation;
+  private ConcurrentHashMap<Method, MessageInfo> infos;
 
   public MessagesInvoker( Class<?> clazz, MessageLoggerFactory loggers ) {
     super( clazz );
@@ -39,28 +55,53 @@ public class MessagesInvoker extends ResourcesInvoker implements InvocationHandl
     codes = calcCodePattern( clazz, anno );
     bundle = calcBundleName( clazz, anno );
     logger = getLogger( clazz, anno, loggers );
+    callerLocation = System.getProperty( CALLER_LOCATION_PROPERTY, CALLER_LOCATION_DEBUG );
+    infos = new ConcurrentHashMap<Method, MessageInfo>();
   }
 
   @Override
   public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable {
     String message = null;
-    MessageLevel level = getLevel( method );
-    if( logger.isLoggable( level ) ) {
+    MessageInfo info = getMessageInfo( method );
+    if( logger.isLoggable( info.level ) ) {
       message = getText( method, args );
-      String code = getCode( method );
-      Throwable throwable = findLoggableThrowable( logger, method, args );
-      // Supposedly this Throwable way is faster than the Thread way.
-      // From looking at the JRE code it looks this is probably the case.
-      // The second version ends up calling the first version after getting the current thread
-      // and then checking that it is being called from the current thread.
-      //TODO: Should probably only do this if the logger is at debug or finer to make sure there isn't a performance impact during production usage.
-      StackTraceElement caller = new Throwable().getStackTrace()[2];
-      // StackTraceElement caller = Thread.currentThread().getStackTrace()[3];
-      logger.log( caller, level, code, message, throwable );
+      Throwable throwable = findLoggableThrowable( logger, info, args );
+      StackTraceElement caller = null;
+      if( isCallerRequired() ) {
+        // Supposedly this Throwable way is faster than the Thread way.
+        // From looking at the JRE code it looks this is probably the case.
+        // The second version ends up calling the first version after getting the current thread
+        // and then checking that it is being called from the current thread.
+        caller = new Throwable().getStackTrace()[2];
+        // StackTraceElement caller = Thread.currentThread().getStackTrace()[3];
+      }
+      logger.log( caller, info.level, info.code, message, throwable );
     }
     return message;
   }
 
+  private boolean isCallerRequired() {
+    boolean required;
+    if( CALLER_LOCATION_ALWAYS.equals( callerLocation ) ) {
+      required = true;
+    } else if( CALLER_LOCATION_NEVER.equals( callerLocation ) ) {
+      required = false;
+    } else {
+      required = logger.isLoggable( MessageLevel.DEBUG );
+    }
+    return required;
+  }
+
+  // Everything derived from the method's annotations is computed once.
+  private MessageInfo getMessageInfo( Method method ) {
+    MessageInfo info = infos.get( method );
+    if( info == null ) {
+      info = new MessageInfo( getLevel( method ), getCode( method ), method );
+      infos.put( method, info );
+    }
+    return info;
+  }
+
   private String getCode( Method method ) {
     String code = null;
     Message anno = method.getAnnotation( Message.class );
@@ -83,19 +124,14 @@ public class MessagesInvoker extends ResourcesInvoker implements InvocationHandl
     return null;
   }
 
-  private static Throwable findLoggableThrowable( MessageLogger logger, Method method, Object[] args ) {
+  private static Throwable findLoggableThrowable( MessageLogger logger, MessageInfo info, Object[] args ) {
     Throwable throwable = null;
     if( args != null ) {
-      for( int i=0; i<args.length; i++ ) {
-        Object arg = args[i];
-        if( arg instanceof Throwable ) {
-          StackTrace anno = getStackTraceAnno( method, i );
-          if( anno != null ) {
-            if( logger.isLoggable( anno.level() ) ) {
-              throwable = (Throwable)arg;
-              break;
-            }
-          }
+      for( int i=0; i<info.stackTraceParams.length; i++ ) {
+        Object arg = args[ info.stackTraceParams[ i ] ];
+        if( arg instanceof Throwable && logger.isLoggable( info.stackTraceLevels[ i ] ) ) {
+          throwable = (Throwable)arg;
+          break;
         }
       }
     }
@@ -170,4 +206,33 @@ public class MessagesInvoker extends ResourcesInvoker implements InvocationHandl
     return "MessageInvoker["+bundle+"]";
   }
 
+  private static class MessageInfo {
+
+    private final MessageLevel level;
+    private final String code;
+    private final int[] stackTraceParams;
+    private final MessageLevel[] stackTraceLevels;
+
+    private MessageInfo( MessageLevel level, String code, Method method ) {
+      this.level = level;
+      this.code = code;
+      List<Integer> params = new ArrayList<Integer>();
+      List<MessageLevel> levels = new ArrayList<MessageLevel>();
+      Class<?>[] types = method.getParameterTypes();
+      for( int i=0; i<types.length; i++ ) {
+        StackTrace anno = getStackTraceAnno( method, i );
+        if( anno != null ) {
+          params.add( i );
+          levels.add( anno.level() );
+        }
+      }
+      this.stackTraceParams = new int[ params.size() ];
+      for( int i=0; i<stackTraceParams.length; i++ ) {
+        stackTraceParams[ i ] = params.get( i );
+      }
+      this.stackTraceLevels = levels.toArray( new MessageLevel[ levels.size() ] );
+    }
+
+  }
+
 }
@@ -41,11 +41,13 @@ public class ResourcesInvoker implements InvocationHandler {
   private Class bundleClass;
   private String bundleName;
   private ConcurrentHashMap<Locale, ResourceBundle> bundles;
+  private ConcurrentHashMap<Method, CompiledPattern> patterns;
 
   public ResourcesInvoker( Class<?> bundleClass ) {
     this.bundleClass = bundleClass;
     this.bundleName = calcBundleName( bundleClass );
     this.bundles = new ConcurrentHashMap<Locale, ResourceBundle>();
+    this.patterns = new ConcurrentHashMap<Method, CompiledPattern>();
   }
 
   @Override
@@ -54,11 +56,22 @@ public class ResourcesInvoker implements InvocationHandler {
   }
 
   protected String getText( Method method, Object[] args ) {
-    String pattern = getPattern( method );
-    String text = MessageFormat.format( pattern, args );
+    String text = getFormat( method ).format( args );
     return text;
   }
 
+  // The pattern is resolved and parsed once per method and locale.
+  // MessageFormat isn't thread safe so each call formats with a clone of the parsed instance.
+  protected MessageFormat getFormat( Method method ) {
+    Locale locale = Locale.getDefault();
+    CompiledPattern compiled = patterns.get( method );
+    if( compiled == null || !compiled.locale.equals( locale ) ) {
+      compiled = new CompiledPattern( locale, new MessageFormat( getPattern( method ), locale ) );
+      patterns.put( method, compiled );
+    }
+    return (MessageFormat)compiled.format.clone();
+  }
+
   protected String getPattern( Method method ) {
     String pattern = getBundlePattern( method );
     if( pattern == null ) {
@@ -159,4 +172,13 @@ public class ResourcesInvoker implements InvocationHandler {
     return bundle;
   }
 
+  private static class CompiledPattern {
+    private final Locale locale;
+    private final MessageFormat format;
+    private CompiledPattern( Locale locale, MessageFormat format ) {
+      this.locale = locale;
+      this.format = format;
+    }
+  }
+
 }
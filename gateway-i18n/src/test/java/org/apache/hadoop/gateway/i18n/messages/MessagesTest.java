@@ -27,6 +27,8 @@ import org.junit.experimental.categories.Category;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -51,4 +53,35 @@ public class MessagesTest {
 
   }
 
+  @Test
+  public void testRepeatedMessagesUseSameMetadata() {
+    MessagesTestSubject log = MessagesFactory.get( MessagesTestSubject.class );
+    TestMessageLogger logger = (TestMessageLogger)TestMessageLoggerFactory.getFactory().getLogger( "some.logger.name" );
+    logger.records.clear();
+    try {
+      Throwable thrown = new IllegalStateException();
+      log.withEverything( "first", thrown );
+      log.withEverything( "second", null );
+      log.withoutParams();
+      assertThat( logger.records.size(), equalTo( 3 ) );
+
+      TestMessageRecord record = logger.records.get( 0 );
+      assertThat( record.level, is( MessageLevel.INFO ) );
+      assertThat( record.id, is( "ID:42" ) );
+      assertThat( record.message, is( "str=first, t=java.lang.IllegalStateException" ) );
+      assertThat( record.throwable, sameInstance( thrown ) );
+
+      record = logger.records.get( 1 );
+      assertThat( record.id, is( "ID:42" ) );
+      assertThat( record.message, is( "str=second, t=null" ) );
+      assertThat( record.throwable, nullValue() );
+
+      record = logger.records.get( 2 );
+      assertThat( record.id, nullValue() );
+      assertThat( record.message, is( "withoutParams" ) );
+    } finally {
+      logger.records.clear();
+    }
+  }
+
 }
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.deploy;
+
+import org.apache.hadoop.gateway.deploy.DeploymentContext;
+import org.apache.hadoop.gateway.deploy.ProviderDeploymentContributorBase;
+import org.apache.hadoop.gateway.descriptor.FilterParamDescriptor;
+import org.apache.hadoop.gateway.descriptor.ResourceDescriptor;
+import org.apache.hadoop.gateway.ha.dispatch.HaHttpClientDispatch;
+import org.apache.hadoop.gateway.topology.Provider;
+import org.apache.hadoop.gateway.topology.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contributes the {@link HaHttpClientDispatch} for the resources of any service role that is configured in the
+ * HA provider.
+ */
+public class HaDispatchDeploymentContributor extends ProviderDeploymentContributorBase {
+
+   private static final String ROLE = "dispatch";
+
+   private static final String NAME = "ha";
+
+   private static final String REPLAY_BUFFER_SIZE_PARAM = "replayBufferSize";
+
+   // Default global replay buffer size in KB
+   private static final String DEFAULT_REPLAY_BUFFER_SIZE = "4";
+
+   @Override
+   public String getRole() {
+      return ROLE;
+   }
+
+   @Override
+   public String getName() {
+      return NAME;
+   }
+
+   @Override
+   public void contributeFilter(DeploymentContext context, Provider provider, Service service, ResourceDescriptor resource, List<FilterParamDescriptor> params) {
+      List<FilterParamDescriptor> filterParams = new ArrayList<FilterParamDescriptor>();
+      boolean replayBufferSizeSet = false;
+      if (params != null) {
+         for (FilterParamDescriptor param : params) {
+            replayBufferSizeSet |= REPLAY_BUFFER_SIZE_PARAM.equals(param.name());
+            filterParams.add(param);
+         }
+      }
+      if (!replayBufferSizeSet) {
+         filterParams.add(resource.createFilterParam().name(REPLAY_BUFFER_SIZE_PARAM).value(DEFAULT_REPLAY_BUFFER_SIZE));
+      }
+      filterParams.add(resource.createFilterParam().name(HaHttpClientDispatch.RESOURCE_ROLE_ATTRIBUTE).value(resource.role()));
+      if (context.getGatewayConfig().isHadoopKerberosSecured()) {
+         filterParams.add(resource.createFilterParam().name("kerberos").value("true"));
+      }
+      resource.addFilter().name(getName()).role(getRole()).impl(HaHttpClientDispatch.class).params(filterParams);
+   }
+}
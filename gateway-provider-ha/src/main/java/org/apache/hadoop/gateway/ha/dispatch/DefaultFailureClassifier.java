@@ -0,0 +1,190 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.dispatch;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fails requests over when the URL can't be reached or answers with one of the configured status codes.
+ * The start of error responses is also searched for the configured markers, e.g. the name of the exception a
+ * standby server reports, to fail over or retry on the same URL.  When the body is a Hadoop RemoteException only
+ * the names of the exception are searched.
+ */
+public class DefaultFailureClassifier implements FailureClassifier {
+
+   // Enough for the RemoteException of a Hadoop service, whose exception names come before the message.
+   static final int PEEK_SIZE = 4 * 1024;
+
+   private static final String REMOTE_EXCEPTION = "RemoteException";
+
+   private static final String EXCEPTION = "exception";
+
+   private static final String JAVA_CLASS_NAME = "javaClassName";
+
+   private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+   private static final Set<String> IDEMPOTENT_METHODS = new HashSet<String>(Arrays.asList("GET", "HEAD", "OPTIONS"));
+
+   // The dispatch wraps the failure of the client so a few causes deep are searched.
+   private static final int MAX_CAUSE_DEPTH = 4;
+
+   private final Set<Integer> failoverStatusCodes;
+
+   private final List<String> failoverMarkers;
+
+   private final List<String> retryMarkers;
+
+   /**
+    * @param failoverStatusCodes comma separated status codes to fail over on
+    * @param failoverMarkers     comma separated strings in an error body to fail over on
+    * @param retryMarkers        comma separated strings in an error body to retry on
+    */
+   public DefaultFailureClassifier(String failoverStatusCodes, String failoverMarkers, String retryMarkers) {
+      this.failoverStatusCodes = new HashSet<Integer>();
+      for (String code : split(failoverStatusCodes)) {
+         this.failoverStatusCodes.add(Integer.valueOf(code));
+      }
+      this.failoverMarkers = split(failoverMarkers);
+      this.retryMarkers = split(retryMarkers);
+   }
+
+   @Override
+   public Action classify(HttpResponse response) throws IOException {
+      Action action = Action.NONE;
+      int status = response.getStatusLine().getStatusCode();
+      if (failoverStatusCodes.contains(status)) {
+         action = Action.FAILOVER;
+      } else if (status >= 400 && (!failoverMarkers.isEmpty() || !retryMarkers.isEmpty()) && response.getEntity() != null) {
+         // Only the start of the body is read, the client still gets all of it if it doesn't match.
+         PeekingHttpEntity entity = new PeekingHttpEntity(response.getEntity(), PEEK_SIZE);
+         response.setEntity(entity);
+         String subject = getRemoteException(entity.getPrefix(), entity.getPrefixLength());
+         if (subject == null) {
+            subject = new String(entity.getPrefix(), 0, entity.getPrefixLength(), "ISO-8859-1");
+         }
+         if (contains(subject, failoverMarkers)) {
+            action = Action.FAILOVER;
+         } else if (contains(subject, retryMarkers)) {
+            action = Action.RETRY;
+         }
+      }
+      return action;
+   }
+
+   /**
+    * Fails over when the request can be repeated safely or never reached the URL.  Any other failure is passed on
+    * to the client since the service may already have processed the request.
+    */
+   @Override
+   public Action classify(HttpUriRequest request, IOException exception) {
+      Action action = Action.NONE;
+      if (IDEMPOTENT_METHODS.contains(request.getMethod()) || isConnectFailure(exception)) {
+         action = Action.FAILOVER;
+      }
+      return action;
+   }
+
+   /**
+    * @return true if the failure happened while connecting, before any of the request was sent
+    */
+   static boolean isConnectFailure(Throwable exception) {
+      boolean found = false;
+      Throwable cause = exception;
+      for (int depth = 0; cause != null && depth < MAX_CAUSE_DEPTH && !found; depth++) {
+         found = cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+               || cause instanceof UnknownHostException || cause instanceof NoRouteToHostException;
+         cause = cause.getCause();
+      }
+      return found;
+   }
+
+   /**
+    * Extracts the exception names from a Hadoop RemoteException, e.g.
+    * {"RemoteException":{"exception":"StandbyException","javaClassName":"org.apache.hadoop.ipc.StandbyException",...}}
+    *
+    * @return the exception and class name or null if the body doesn't start with a RemoteException
+    */
+   static String getRemoteException(byte[] body, int length) {
+      StringBuilder names = null;
+      try {
+         JsonParser parser = JSON_FACTORY.createParser(body, 0, length);
+         try {
+            if (parser.nextToken() == JsonToken.START_OBJECT && parser.nextToken() == JsonToken.FIELD_NAME
+                  && REMOTE_EXCEPTION.equals(parser.getCurrentName()) && parser.nextToken() == JsonToken.START_OBJECT) {
+               names = new StringBuilder();
+               JsonToken token = parser.nextToken();
+               while (token == JsonToken.FIELD_NAME) {
+                  String field = parser.getCurrentName();
+                  token = parser.nextToken();
+                  if ((EXCEPTION.equals(field) || JAVA_CLASS_NAME.equals(field)) && token == JsonToken.VALUE_STRING) {
+                     names.append(parser.getText()).append(' ');
+                  } else {
+                     parser.skipChildren();
+                  }
+                  token = parser.nextToken();
+               }
+            }
+         } finally {
+            parser.close();
+         }
+      } catch (IOException e) {
+         // Not JSON or cut off by the peek, use what was found so far.
+      }
+      return names == null || names.length() == 0 ? null : names.toString();
+   }
+
+   private static boolean contains(String body, List<String> markers) {
+      boolean found = false;
+      for (String marker : markers) {
+         if (body.contains(marker)) {
+            found = true;
+            break;
+         }
+      }
+      return found;
+   }
+
+   private static List<String> split(String values) {
+      List<String> list = new ArrayList<String>();
+      if (values != null) {
+         for (String value : values.split(",")) {
+            value = value.trim();
+            if (value.length() > 0) {
+               list.add(value);
+            }
+         }
+      }
+      return list;
+   }
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.dispatch;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.io.IOException;
+
+/**
+ * Decides whether the outcome of a dispatch to one of the URLs of a HA service should be passed on to the
+ * client, retried on the same URL or failed over to another URL.
+ */
+public interface FailureClassifier {
+
+   public enum Action { NONE, RETRY, FAILOVER }
+
+   /**
+    * Classifies a response.  The classifier may replace the entity of the response if it needs to read it.
+    *
+    * @param response the response from the URL
+    * @return what to do with the request
+    */
+   public Action classify(HttpResponse response) throws IOException;
+
+   /**
+    * Classifies a failure to get a response from the URL.
+    *
+    * @param request   the request that failed
+    * @param exception the failure
+    * @return what to do with the request
+    */
+   public Action classify(HttpUriRequest request, IOException exception);
+
+}
@@ -0,0 +1,295 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.dispatch;
+
+import org.apache.hadoop.gateway.dispatch.AppCookieManager;
+import org.apache.hadoop.gateway.dispatch.HttpClientDispatch;
+import org.apache.hadoop.gateway.filter.AbstractGatewayFilter;
+import org.apache.hadoop.gateway.ha.provider.HaProvider;
+import org.apache.hadoop.gateway.ha.provider.HaServiceConfig;
+import org.apache.hadoop.gateway.ha.provider.HaServletContextListener;
+import org.apache.hadoop.gateway.ha.provider.impl.i18n.HaMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.util.EntityUtils;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatches requests to the active URL of a HA service role, failing over to the next URL or retrying on
+ * the same one as decided by the {@link FailureClassifier} of the role.  Only the outcome of the request to
+ * the service is classified, once the response is being written to the client the request is never repeated.
+ * With sticky sessions a cookie keeps sending a client to the URL that served it for as long as that URL is
+ * available, so that the requests of a client don't alternate between servers after a failover.
+ */
+public class HaHttpClientDispatch extends HttpClientDispatch {
+
+   public static final String RESOURCE_ROLE_ATTRIBUTE = "resource.role";
+
+   protected static final String FAILOVER_COUNTER_ATTRIBUTE = "dispatch.ha.failover.counter";
+
+   protected static final String RETRY_COUNTER_ATTRIBUTE = "dispatch.ha.retry.counter";
+
+   private static final String STICKY_URL_ATTRIBUTE = "dispatch.ha.sticky.url";
+
+   private static final String STICKY_COOKIE_PREFIX = "KNOX_HA_";
+
+   private static final HaMessages LOG = MessagesFactory.get(HaMessages.class);
+
+   private int maxFailoverAttempts;
+
+   private int maxRetryAttempts;
+
+   private String resourceRole;
+
+   private HaProvider haProvider;
+
+   private FailureClassifier failureClassifier;
+
+   private int stickySessionTimeout;
+
+   private String stickyCookieName;
+
+   @Override
+   protected void init(FilterConfig filterConfig, AppCookieManager cookieManager) throws ServletException {
+      super.init(filterConfig, cookieManager);
+      resourceRole = filterConfig.getInitParameter(RESOURCE_ROLE_ATTRIBUTE);
+      LOG.initializingForResourceRole(resourceRole);
+      haProvider = HaServletContextListener.getHaProvider(filterConfig.getServletContext());
+      HaServiceConfig serviceConfig = haProvider.getHaDescriptor().getServiceConfig(resourceRole);
+      maxFailoverAttempts = serviceConfig.getMaxFailoverAttempts();
+      maxRetryAttempts = serviceConfig.getMaxRetryAttempts();
+      failureClassifier = createFailureClassifier(serviceConfig);
+      stickySessionTimeout = serviceConfig.getStickySessionTimeout();
+      stickyCookieName = STICKY_COOKIE_PREFIX + resourceRole;
+   }
+
+   /**
+    * Creates the classifier deciding when to fail over or retry, subclasses can supply defaults for their service.
+    */
+   protected FailureClassifier createFailureClassifier(HaServiceConfig serviceConfig) {
+      return new DefaultFailureClassifier(serviceConfig.getFailoverStatusCodes(),
+            serviceConfig.getFailoverMarkers(), serviceConfig.getRetryMarkers());
+   }
+
+   protected String getResourceRole() {
+      return resourceRole;
+   }
+
+   @Override
+   protected void executeRequest(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse) throws IOException {
+      haProvider.recordRequest(resourceRole);
+      if (stickySessionTimeout > 0) {
+         applyStickySession(outboundRequest, inboundRequest);
+      }
+      executeAttempt(outboundRequest, inboundRequest, outboundResponse);
+   }
+
+   /**
+    * Sends the request to the URL the client is pinned to while that URL is available.
+    */
+   private void applyStickySession(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest) {
+      String token = null;
+      Cookie[] cookies = inboundRequest.getCookies();
+      if (cookies != null) {
+         for (Cookie cookie : cookies) {
+            if (stickyCookieName.equals(cookie.getName())) {
+               token = cookie.getValue();
+               break;
+            }
+         }
+      }
+      String stickyUrl = haProvider.getStickyURL(resourceRole, token);
+      if (stickyUrl != null) {
+         inboundRequest.setAttribute(STICKY_URL_ATTRIBUTE, stickyUrl);
+         URI uri = outboundRequest.getURI();
+         URI sticky = URI.create(stickyUrl);
+         if (!sticky.getRawAuthority().equalsIgnoreCase(uri.getRawAuthority())) {
+            StringBuilder target = new StringBuilder();
+            target.append(sticky.getScheme()).append("://").append(sticky.getRawAuthority()).append(uri.getRawPath());
+            if (uri.getRawQuery() != null) {
+               target.append('?').append(uri.getRawQuery());
+            }
+            ((HttpRequestBase) outboundRequest).setURI(URI.create(target.toString()));
+         }
+      }
+   }
+
+   /**
+    * Pins the client to the URL that served it unless it already is.
+    */
+   private void pinStickySession(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse) {
+      String stickyUrl = (String) inboundRequest.getAttribute(STICKY_URL_ATTRIBUTE);
+      URI uri = outboundRequest.getURI();
+      if (stickyUrl == null || !URI.create(stickyUrl).getRawAuthority().equalsIgnoreCase(uri.getRawAuthority())) {
+         String token = haProvider.createStickyToken(resourceRole, uri.toString());
+         if (token != null) {
+            Cookie cookie = new Cookie(stickyCookieName, token);
+            String path = inboundRequest.getContextPath();
+            cookie.setPath(path == null || path.length() == 0 ? "/" : path);
+            cookie.setMaxAge((int) ((stickySessionTimeout + 999L) / 1000));
+            cookie.setHttpOnly(true);
+            cookie.setSecure(inboundRequest.isSecure());
+            outboundResponse.addCookie(cookie);
+         }
+      }
+   }
+
+   private void executeAttempt(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse) throws IOException {
+      String url = outboundRequest.getURI().toString();
+      HttpResponse inboundResponse = null;
+      IOException failure = null;
+      FailureClassifier.Action action;
+      haProvider.requestStarted(resourceRole, url);
+      try {
+         try {
+            inboundResponse = executeOutboundRequest(outboundRequest);
+            action = failureClassifier.classify(inboundResponse);
+         } catch (IOException e) {
+            LOG.errorConnectingToServer(url, e);
+            discard(inboundResponse);
+            inboundResponse = null;
+            failure = e;
+            action = failureClassifier.classify(outboundRequest, e);
+         }
+         if (action == FailureClassifier.Action.NONE) {
+            if (inboundResponse == null) {
+               throw failure;
+            }
+            if (stickySessionTimeout > 0) {
+               pinStickySession(outboundRequest, inboundRequest, outboundResponse);
+            }
+            writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
+         }
+      } finally {
+         haProvider.requestFinished(resourceRole, url);
+      }
+      if (action == FailureClassifier.Action.FAILOVER) {
+         failoverRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, failure);
+      } else if (action == FailureClassifier.Action.RETRY) {
+         retryRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, failure);
+      }
+   }
+
+   private void failoverRequest(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse, HttpResponse inboundResponse, IOException failure) throws IOException {
+      LOG.failingOverRequest(outboundRequest.getURI().toString());
+      AtomicInteger counter = (AtomicInteger) inboundRequest.getAttribute(FAILOVER_COUNTER_ATTRIBUTE);
+      if (counter == null) {
+         counter = new AtomicInteger(0);
+      }
+      inboundRequest.setAttribute(FAILOVER_COUNTER_ATTRIBUTE, counter);
+      int attempt = counter.incrementAndGet();
+      if (attempt > maxFailoverAttempts) {
+         LOG.maxFailoverAttemptsReached(maxFailoverAttempts, resourceRole);
+         giveUp(outboundRequest, inboundRequest, outboundResponse, inboundResponse, failure);
+      } else if (!haProvider.tryRetry(resourceRole)) {
+         LOG.failoverBudgetExhausted(resourceRole);
+         giveUp(outboundRequest, inboundRequest, outboundResponse, inboundResponse, failure);
+      } else if (!backOff(haProvider.getFailoverDelay(resourceRole, attempt), inboundResponse)) {
+         giveUp(outboundRequest, inboundRequest, outboundResponse, inboundResponse, failure);
+      } else {
+         discard(inboundResponse);
+         haProvider.markFailedURL(resourceRole, outboundRequest.getURI().toString());
+         //null out target url so that rewriters run again
+         inboundRequest.setAttribute(AbstractGatewayFilter.TARGET_REQUEST_URL_ATTRIBUTE_NAME, null);
+         URI uri = getDispatchUrl(inboundRequest);
+         ((HttpRequestBase) outboundRequest).setURI(uri);
+         executeAttempt(outboundRequest, inboundRequest, outboundResponse);
+      }
+   }
+
+   private void retryRequest(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse, HttpResponse inboundResponse, IOException failure) throws IOException {
+      LOG.retryingRequest(outboundRequest.getURI().toString());
+      AtomicInteger counter = (AtomicInteger) inboundRequest.getAttribute(RETRY_COUNTER_ATTRIBUTE);
+      if (counter == null) {
+         counter = new AtomicInteger(0);
+      }
+      inboundRequest.setAttribute(RETRY_COUNTER_ATTRIBUTE, counter);
+      int attempt = counter.incrementAndGet();
+      if (attempt > maxRetryAttempts) {
+         LOG.maxRetryAttemptsReached(maxRetryAttempts, resourceRole, outboundRequest.getURI().toString());
+         giveUp(outboundRequest, inboundRequest, outboundResponse, inboundResponse, failure);
+      } else if (!haProvider.tryRetry(resourceRole)) {
+         LOG.retryBudgetExhausted(resourceRole);
+         giveUp(outboundRequest, inboundRequest, outboundResponse, inboundResponse, failure);
+      } else if (!backOff(haProvider.getRetryDelay(resourceRole, attempt), inboundResponse)) {
+         giveUp(outboundRequest, inboundRequest, outboundResponse, inboundResponse, failure);
+      } else {
+         discard(inboundResponse);
+         executeAttempt(outboundRequest, inboundRequest, outboundResponse);
+      }
+   }
+
+   /**
+    * Waits before the next attempt.  Only a limited number of requests to the service may wait at once, beyond that
+    * the request fails fast rather than tying up another request thread while the service is down.
+    *
+    * @return true if the next attempt may go ahead; false if too many requests are already waiting
+    */
+   private boolean backOff(long delay, HttpResponse inboundResponse) throws IOException {
+      if (delay <= 0) {
+         return true;
+      }
+      if (!haProvider.tryBeginBackoff(resourceRole)) {
+         LOG.maxBackoffsReached(resourceRole);
+         return false;
+      }
+      try {
+         Thread.sleep(delay);
+         return true;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         LOG.backoffInterrupted(resourceRole, e);
+         discard(inboundResponse);
+         InterruptedIOException interrupted = new InterruptedIOException(e.getMessage());
+         interrupted.initCause(e);
+         throw interrupted;
+      } finally {
+         haProvider.endBackoff(resourceRole);
+      }
+   }
+
+   private void giveUp(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse, HttpResponse inboundResponse, IOException failure) throws IOException {
+      if (inboundResponse != null) {
+         writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
+      } else {
+         throw new IOException(failure);
+      }
+   }
+
+   private static void discard(HttpResponse response) {
+      if (response != null) {
+         try {
+            EntityUtils.consume(response.getEntity());
+         } catch (IOException e) {
+            // The response is thrown away anyway.
+         }
+      }
+   }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.dispatch;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * Reads the start of an entity so it can be inspected while the entity is still passed on as a stream.
+ * The content is the peeked prefix followed by the rest of the original stream.
+ */
+class PeekingHttpEntity extends HttpEntityWrapper {
+
+   private static final int COPY_BUFFER_SIZE = 4 * 1024;
+
+   private final byte[] prefix;
+
+   private final int length;
+
+   private InputStream content;
+
+   PeekingHttpEntity(HttpEntity entity, int limit) throws IOException {
+      super(entity);
+      InputStream stream = entity.getContent();
+      long contentLength = entity.getContentLength();
+      int size = contentLength >= 0 && contentLength < limit ? (int) contentLength : limit;
+      prefix = new byte[size];
+      int read = 0;
+      int count = 0;
+      while (count >= 0 && read < size) {
+         count = stream.read(prefix, read, size - read);
+         if (count > 0) {
+            read += count;
+         }
+      }
+      length = read;
+      content = new SequenceInputStream(new ByteArrayInputStream(prefix, 0, length), stream);
+   }
+
+   byte[] getPrefix() {
+      return prefix;
+   }
+
+   int getPrefixLength() {
+      return length;
+   }
+
+   @Override
+   public boolean isRepeatable() {
+      return false;
+   }
+
+   @Override
+   public boolean isStreaming() {
+      return content != null;
+   }
+
+   @Override
+   public InputStream getContent() throws IOException {
+      if (content == null) {
+         throw new IllegalStateException("Content has been consumed");
+      }
+      return content;
+   }
+
+   @Override
+   public void writeTo(OutputStream outputStream) throws IOException {
+      InputStream stream = getContent();
+      try {
+         byte[] buffer = new byte[COPY_BUFFER_SIZE];
+         int count;
+         while ((count = stream.read(buffer)) >= 0) {
+            outputStream.write(buffer, 0, count);
+         }
+      } finally {
+         stream.close();
+         content = null;
+      }
+   }
+
+}
@@ -56,4 +56,87 @@ public interface HaProvider {
     */
    public void markFailedURL(String serviceName, String url);
 
+   /**
+    * Records a request to the service, each request adds to the retry budget of the service.
+    *
+    * @param serviceName the name of the service
+    */
+   public void recordRequest(String serviceName);
+
+   /**
+    * Takes a retry or failover from the retry budget of the service.
+    *
+    * @param serviceName the name of the service
+    * @return true if the request may be retried; false if the budget is exhausted
+    */
+   public boolean tryRetry(String serviceName);
+
+   /**
+    * Reserves a place for a request that is about to wait before its next attempt, so that an outage can't park
+    * every request thread in a backoff.  A successful call must be followed by {@link #endBackoff(String)}.
+    *
+    * @param serviceName the name of the service
+    * @return true if the request may wait; false if too many requests to the service already are
+    */
+   public boolean tryBeginBackoff(String serviceName);
+
+   /**
+    * Releases the place taken by {@link #tryBeginBackoff(String)}.
+    *
+    * @param serviceName the name of the service
+    */
+   public void endBackoff(String serviceName);
+
+   /**
+    * Returns how long to wait before failing a request over to the active URL.
+    *
+    * @param serviceName the name of the service
+    * @param attempt     the failover attempt about to be made, starting at 1
+    * @return the delay in milliseconds, 0 if the active URL is known to be up
+    */
+   public long getFailoverDelay(String serviceName, int attempt);
+
+   /**
+    * Returns how long to wait before retrying a request on the same URL.
+    *
+    * @param serviceName the name of the service
+    * @param attempt     the retry attempt about to be made, starting at 1
+    * @return the delay in milliseconds
+    */
+   public long getRetryDelay(String serviceName, int attempt);
+
+   /**
+    * Records that a request was dispatched to the URL so that load balancing can take the requests in flight into account.
+    *
+    * @param serviceName the name of the service
+    * @param url         the URL the request was dispatched to
+    */
+   public void requestStarted(String serviceName, String url);
+
+   /**
+    * Records that a request dispatched to the URL has completed.
+    *
+    * @param serviceName the name of the service
+    * @param url         the URL the request was dispatched to
+    */
+   public void requestFinished(String serviceName, String url);
+
+   /**
+    * Returns the URL a sticky session token pins the client to, if that URL is still available.
+    *
+    * @param serviceName the name of the service
+    * @param token       the token from the client
+    * @return the URL or null if the token is invalid, has expired or its URL is unavailable
+    */
+   public String getStickyURL(String serviceName, String token);
+
+   /**
+    * Creates a token that pins a client to the URL for the sticky session timeout of the service.
+    *
+    * @param serviceName the name of the service
+    * @param url         the URL that served the client, may be the URL of the request
+    * @return the token or null if the service doesn't use sticky sessions
+    */
+   public String createStickyToken(String serviceName, String url);
+
 }
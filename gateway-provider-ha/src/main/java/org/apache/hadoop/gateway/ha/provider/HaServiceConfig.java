@@ -42,4 +42,69 @@ public interface HaServiceConfig {
    public void setRetrySleep(int sleep);
 
    public int getRetrySleep();
+
+   /**
+    * @param interval the interval in milliseconds between probes of the HA state of the URLs, 0 disables probing
+    */
+   public void setHealthCheckInterval(int interval);
+
+   public int getHealthCheckInterval();
+
+   /**
+    * @param path the path and query appended to a URL to probe its HA state
+    */
+   public void setHealthCheckPath(String path);
+
+   public String getHealthCheckPath();
+
+   /**
+    * @param percent the retries and failovers allowed per hundred requests to the service
+    */
+   public void setRetryBudget(int percent);
+
+   public int getRetryBudget();
+
+   /**
+    * @param maxBackoffs the most requests to the service that may wait before a retry or failover at once
+    */
+   public void setMaxBackoffs(int maxBackoffs);
+
+   public int getMaxBackoffs();
+
+   /**
+    * @param loadBalancing how requests are spread across the URLs: failover (all to the active one), round-robin
+    *                      or least-requests
+    */
+   public void setLoadBalancing(String loadBalancing);
+
+   public String getLoadBalancing();
+
+   /**
+    * @param codes comma separated response status codes that make a request fail over to another URL
+    */
+   public void setFailoverStatusCodes(String codes);
+
+   public String getFailoverStatusCodes();
+
+   /**
+    * @param markers comma separated strings that make a request fail over when found in an error response body
+    */
+   public void setFailoverMarkers(String markers);
+
+   public String getFailoverMarkers();
+
+   /**
+    * @param markers comma separated strings that make a request retry on the same URL when found in an error
+    *                response body
+    */
+   public void setRetryMarkers(String markers);
+
+   public String getRetryMarkers();
+
+   /**
+    * @param timeout milliseconds a client stays with the URL that served it, 0 turns sticky sessions off
+    */
+   public void setStickySessionTimeout(int timeout);
+
+   public int getStickySessionTimeout();
 }
@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import java.util.Random;
+
+/**
+ * Exponential backoff with jitter so that the requests that failed together don't all retry together.
+ */
+public class Backoff {
+
+   private static final int MAX_DOUBLINGS = 3;
+
+   private static final Random RANDOM = new Random();
+
+   private Backoff() {
+   }
+
+   /**
+    * Returns a delay between half and all of the base delay doubled for each previous attempt, at most
+    * eight times the base delay.
+    *
+    * @param base    the delay before the first attempt in milliseconds
+    * @param attempt the attempt about to be made, starting at 1
+    * @return the delay in milliseconds
+    */
+   public static long delay(int base, int attempt) {
+      long delay = 0;
+      if (base > 0) {
+         long ceiling = (long) base << Math.min(Math.max(attempt - 1, 0), MAX_DOUBLINGS);
+         long half = ceiling / 2;
+         delay = Math.min(ceiling, ceiling - half + (long) (RANDOM.nextDouble() * (half + 1)));
+      }
+      return delay;
+   }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads requests across all of the available URLs of a service instead of sending them all to the top one.
+ * A URL that failed is left out for a while and so are the ones the health check found to be standby or down.
+ * When no URL is available the top one is used as with failover.
+ */
+public abstract class BalancingURLManager extends URLManager {
+
+   public BalancingURLManager(List<String> urls) {
+      super(urls);
+   }
+
+   @Override
+   public String getActiveURL() {
+      List<Entry> available = getAvailableEntries();
+      String url;
+      if (available.isEmpty()) {
+         url = super.getActiveURL();
+      } else {
+         url = select(available).url;
+      }
+      return url;
+   }
+
+   /**
+    * Picks the URL for a request.
+    *
+    * @param available the available URLs in their ranked order, never empty
+    */
+   abstract Entry select(List<Entry> available);
+
+   List<String> getAvailableURLs() {
+      List<String> urls = new ArrayList<String>();
+      for (Entry entry : getAvailableEntries()) {
+         urls.add(entry.url);
+      }
+      return urls;
+   }
+
+   private List<Entry> getAvailableEntries() {
+      long now = System.currentTimeMillis();
+      Entry[] entries = getEntries();
+      List<Entry> available = new ArrayList<Entry>(entries.length);
+      for (Entry entry : entries) {
+         if (isAvailable(entry, now)) {
+            available.add(entry);
+         }
+      }
+      return available;
+   }
+
+}
@@ -23,23 +23,46 @@ import org.apache.hadoop.gateway.ha.provider.HaServiceConfig;
 import org.apache.hadoop.gateway.ha.provider.impl.i18n.HaMessages;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 
 public class DefaultHaProvider implements HaProvider {
 
    private static final HaMessages LOG = MessagesFactory.get(HaMessages.class);
 
+   // Lets a quiet service fail over even though it has few requests to fund its retries.
+   private static final int MIN_RETRIES_PER_SECOND = 10;
+
+   private static final int MAX_SAVED_RETRIES = 100;
+
    private HaDescriptor descriptor;
 
    private ConcurrentHashMap<String, URLManager> haServices;
 
+   private ConcurrentHashMap<String, HaHealthChecker> healthCheckers;
+
+   private ConcurrentHashMap<String, RetryBudget> retryBudgets;
+
+   private ConcurrentHashMap<String, Semaphore> backoffs;
+
+   private ScheduledExecutorService healthCheckExecutor;
+
+   private final StickySessions stickySessions = new StickySessions();
+
    public DefaultHaProvider(HaDescriptor descriptor) {
       if (descriptor == null) {
          throw new IllegalArgumentException("Descriptor can not be null");
       }
       this.descriptor = descriptor;
       haServices = new ConcurrentHashMap<String, URLManager>();
+      healthCheckers = new ConcurrentHashMap<String, HaHealthChecker>();
+      retryBudgets = new ConcurrentHashMap<String, RetryBudget>();
+      backoffs = new ConcurrentHashMap<String, Semaphore>();
    }
 
    @Override
@@ -49,7 +72,21 @@ public class DefaultHaProvider implements HaProvider {
 
    @Override
    public void addHaService(String serviceName, List<String> urls) {
-      haServices.put(serviceName, new URLManager(urls));
+      HaServiceConfig config = descriptor.getServiceConfig(serviceName);
+      URLManager manager = createURLManager(config, urls);
+      haServices.put(serviceName, manager);
+      if (config != null) {
+         retryBudgets.put(serviceName, new RetryBudget(config.getRetryBudget(), MIN_RETRIES_PER_SECOND, MAX_SAVED_RETRIES));
+         backoffs.put(serviceName, new Semaphore(Math.max(0, config.getMaxBackoffs())));
+      }
+      if (config != null && config.getHealthCheckInterval() > 0) {
+         HaHealthChecker checker = new HaHealthChecker(serviceName, manager, config.getHealthCheckPath(), config.getHealthCheckInterval());
+         HaHealthChecker previous = healthCheckers.put(serviceName, checker);
+         if (previous != null) {
+            previous.stop();
+         }
+         checker.start(getHealthCheckExecutor(), config.getHealthCheckInterval());
+      }
    }
 
    @Override
@@ -63,19 +100,179 @@ public class DefaultHaProvider implements HaProvider {
 
    @Override
    public String getActiveURL(String serviceName) {
-      if (haServices.containsKey(serviceName)) {
-         return haServices.get(serviceName).getActiveURL();
+      URLManager manager = haServices.get(serviceName);
+      String url = null;
+      if (manager != null) {
+         url = manager.getActiveURL();
+      } else {
+         LOG.noActiveUrlFound(serviceName);
       }
-      LOG.noActiveUrlFound(serviceName);
-      return null;
+      return url;
    }
 
    @Override
    public void markFailedURL(String serviceName, String url) {
-      if (haServices.containsKey(serviceName)) {
-         haServices.get(serviceName).markFailed(url);
+      URLManager manager = haServices.get(serviceName);
+      if (manager != null) {
+         manager.markFailed(url);
       } else {
          LOG.noServiceFound(serviceName);
       }
    }
+
+   @Override
+   public void requestStarted(String serviceName, String url) {
+      URLManager manager = haServices.get(serviceName);
+      if (manager != null) {
+         manager.requestStarted(url);
+      }
+   }
+
+   @Override
+   public void requestFinished(String serviceName, String url) {
+      URLManager manager = haServices.get(serviceName);
+      if (manager != null) {
+         manager.requestFinished(url);
+      }
+   }
+
+   @Override
+   public String getStickyURL(String serviceName, String token) {
+      URLManager manager = haServices.get(serviceName);
+      String url = null;
+      if (manager != null && token != null) {
+         url = stickySessions.resolve(serviceName, token, manager.getURLs(), System.currentTimeMillis());
+         if (url != null && !manager.isAvailable(url)) {
+            url = null;
+         }
+      }
+      return url;
+   }
+
+   @Override
+   public String createStickyToken(String serviceName, String url) {
+      HaServiceConfig config = descriptor.getServiceConfig(serviceName);
+      URLManager manager = haServices.get(serviceName);
+      String token = null;
+      if (config != null && config.getStickySessionTimeout() > 0 && manager != null) {
+         URLManager.Entry entry = manager.findEntry(url);
+         if (entry != null) {
+            token = stickySessions.createToken(serviceName, entry.url, System.currentTimeMillis() + config.getStickySessionTimeout());
+         }
+      }
+      return token;
+   }
+
+   @Override
+   public void recordRequest(String serviceName) {
+      RetryBudget budget = retryBudgets.get(serviceName);
+      if (budget != null) {
+         budget.deposit();
+      }
+   }
+
+   @Override
+   public boolean tryRetry(String serviceName) {
+      RetryBudget budget = retryBudgets.get(serviceName);
+      return budget == null || budget.tryWithdraw();
+   }
+
+   @Override
+   public boolean tryBeginBackoff(String serviceName) {
+      Semaphore semaphore = backoffs.get(serviceName);
+      return semaphore == null || semaphore.tryAcquire();
+   }
+
+   @Override
+   public void endBackoff(String serviceName) {
+      Semaphore semaphore = backoffs.get(serviceName);
+      if (semaphore != null) {
+         semaphore.release();
+      }
+   }
+
+   @Override
+   public long getFailoverDelay(String serviceName, int attempt) {
+      long delay = 0;
+      HaServiceConfig config = descriptor.getServiceConfig(serviceName);
+      // There is nothing to wait for when the health check already found the URL that is now on top to be active.
+      if (config != null && !isKnownActive(serviceName)) {
+         delay = Backoff.delay(config.getFailoverSleep(), attempt);
+      }
+      return delay;
+   }
+
+   @Override
+   public long getRetryDelay(String serviceName, int attempt) {
+      long delay = 0;
+      HaServiceConfig config = descriptor.getServiceConfig(serviceName);
+      if (config != null) {
+         delay = Backoff.delay(config.getRetrySleep(), attempt);
+      }
+      return delay;
+   }
+
+   /**
+    * Returns the result of the latest health checks of the URLs of a service, active URLs first.
+    *
+    * @param serviceName the name of the service
+    * @return the probed URLs in ranked order, empty if the service isn't health checked
+    */
+   public List<HaHealthChecker.Endpoint> getEndpoints(String serviceName) {
+      HaHealthChecker checker = healthCheckers.get(serviceName);
+      List<HaHealthChecker.Endpoint> endpoints;
+      if (checker != null) {
+         endpoints = checker.getEndpoints();
+      } else {
+         endpoints = Collections.emptyList();
+      }
+      return endpoints;
+   }
+
+   /**
+    * Stops the health checks.
+    */
+   public synchronized void destroy() {
+      for (HaHealthChecker checker : healthCheckers.values()) {
+         checker.stop();
+      }
+      healthCheckers.clear();
+      if (healthCheckExecutor != null) {
+         healthCheckExecutor.shutdownNow();
+         healthCheckExecutor = null;
+      }
+   }
+
+   private static URLManager createURLManager(HaServiceConfig config, List<String> urls) {
+      URLManager manager;
+      String loadBalancing = config == null ? null : config.getLoadBalancing();
+      if (HaServiceConfigConstants.LOAD_BALANCING_ROUND_ROBIN.equalsIgnoreCase(loadBalancing)) {
+         manager = new RoundRobinURLManager(urls);
+      } else if (HaServiceConfigConstants.LOAD_BALANCING_LEAST_REQUESTS.equalsIgnoreCase(loadBalancing)) {
+         manager = new LeastRequestsURLManager(urls);
+      } else {
+         manager = new URLManager(urls);
+      }
+      return manager;
+   }
+
+   private boolean isKnownActive(String serviceName) {
+      // The endpoints are in the order of the URLs so the first is the one on top.
+      List<HaHealthChecker.Endpoint> endpoints = getEndpoints(serviceName);
+      return !endpoints.isEmpty() && endpoints.get(0).getState() == HaHealthChecker.State.ACTIVE;
+   }
+
+   private synchronized ScheduledExecutorService getHealthCheckExecutor() {
+      if (healthCheckExecutor == null) {
+         healthCheckExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+               Thread thread = new Thread(runnable, "gateway-ha-health-check");
+               thread.setDaemon(true);
+               return thread;
+            }
+         });
+      }
+      return healthCheckExecutor;
+   }
 }
@@ -33,6 +33,24 @@ public class DefaultHaServiceConfig implements HaServiceConfig, HaServiceConfigC
 
    private int retrySleep  = DEFAULT_RETRY_SLEEP;
 
+   private int healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
+
+   private String healthCheckPath = DEFAULT_HEALTH_CHECK_PATH;
+
+   private int retryBudget = DEFAULT_RETRY_BUDGET;
+
+   private int maxBackoffs = DEFAULT_MAX_BACKOFFS;
+
+   private String loadBalancing = DEFAULT_LOAD_BALANCING;
+
+   private String failoverStatusCodes = DEFAULT_FAILOVER_STATUS_CODES;
+
+   private String failoverMarkers = DEFAULT_FAILOVER_MARKERS;
+
+   private String retryMarkers = DEFAULT_RETRY_MARKERS;
+
+   private int stickySessionTimeout = DEFAULT_STICKY_SESSION_TIMEOUT;
+
    public DefaultHaServiceConfig(String name) {
       this.name = name;
    }
@@ -96,4 +114,94 @@ public class DefaultHaServiceConfig implements HaServiceConfig, HaServiceConfigC
    public void setRetrySleep(int retrySleep) {
       this.retrySleep = retrySleep;
    }
+
+   @Override
+   public int getHealthCheckInterval() {
+      return healthCheckInterval;
+   }
+
+   @Override
+   public void setHealthCheckInterval(int healthCheckInterval) {
+      this.healthCheckInterval = healthCheckInterval;
+   }
+
+   @Override
+   public String getHealthCheckPath() {
+      return healthCheckPath;
+   }
+
+   @Override
+   public void setHealthCheckPath(String healthCheckPath) {
+      this.healthCheckPath = healthCheckPath;
+   }
+
+   @Override
+   public int getRetryBudget() {
+      return retryBudget;
+   }
+
+   @Override
+   public void setRetryBudget(int retryBudget) {
+      this.retryBudget = retryBudget;
+   }
+
+   @Override
+   public int getMaxBackoffs() {
+      return maxBackoffs;
+   }
+
+   @Override
+   public void setMaxBackoffs(int maxBackoffs) {
+      this.maxBackoffs = maxBackoffs;
+   }
+
+   @Override
+   public String getLoadBalancing() {
+      return loadBalancing;
+   }
+
+   @Override
+   public void setLoadBalancing(String loadBalancing) {
+      this.loadBalancing = loadBalancing;
+   }
+
+   @Override
+   public String getFailoverStatusCodes() {
+      return failoverStatusCodes;
+   }
+
+   @Override
+   public void setFailoverStatusCodes(String failoverStatusCodes) {
+      this.failoverStatusCodes = failoverStatusCodes;
+   }
+
+   @Override
+   public String getFailoverMarkers() {
+      return failoverMarkers;
+   }
+
+   @Override
+   public void setFailoverMarkers(String failoverMarkers) {
+      this.failoverMarkers = failoverMarkers;
+   }
+
+   @Override
+   public String getRetryMarkers() {
+      return retryMarkers;
+   }
+
+   @Override
+   public void setRetryMarkers(String retryMarkers) {
+      this.retryMarkers = retryMarkers;
+   }
+
+   @Override
+   public int getStickySessionTimeout() {
+      return stickySessionTimeout;
+   }
+
+   @Override
+   public void setStickySessionTimeout(int stickySessionTimeout) {
+      this.stickySessionTimeout = stickySessionTimeout;
+   }
 }
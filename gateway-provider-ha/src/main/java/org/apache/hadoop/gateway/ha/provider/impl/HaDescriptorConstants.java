@@ -42,4 +42,22 @@ public interface HaDescriptorConstants {
 
    public static final String ENABLED_ATTRIBUTE = "enabled";
 
+   public static final String HEALTH_CHECK_INTERVAL = "healthCheckInterval";
+
+   public static final String HEALTH_CHECK_PATH = "healthCheckPath";
+
+   public static final String RETRY_BUDGET = "retryBudget";
+
+   public static final String MAX_BACKOFFS = "maxBackoffs";
+
+   public static final String LOAD_BALANCING = "loadBalancing";
+
+   public static final String FAILOVER_STATUS_CODES = "failoverStatusCodes";
+
+   public static final String FAILOVER_MARKERS = "failoverMarkers";
+
+   public static final String RETRY_MARKERS = "retryMarkers";
+
+   public static final String STICKY_SESSION_TIMEOUT = "stickySessionTimeout";
+
 }
@@ -30,45 +30,62 @@ public abstract class HaDescriptorFactory implements HaServiceConfigConstants {
    }
 
    public static HaServiceConfig createServiceConfig(String serviceName, String config) {
-      Map<String, String> configMap = parseHaConfiguration(config);
-      String enabledValue = configMap.get(CONFIG_PARAM_ENABLED);
-      String maxFailoverAttempts = configMap.get(CONFIG_PARAM_MAX_FAILOVER_ATTEMPTS);
-      String failoverSleep = configMap.get(CONFIG_PARAM_FAILOVER_SLEEP);
-      String maxRetryAttempts = configMap.get(CONFIG_PARAM_MAX_RETRY_ATTEMPTS);
-      String retrySleep = configMap.get(CONFIG_PARAM_RETRY_SLEEP);
-      return createServiceConfig(serviceName, enabledValue, maxFailoverAttempts, failoverSleep, maxRetryAttempts, retrySleep);
+      return createServiceConfig(serviceName, parseHaConfiguration(config));
    }
 
    public static HaServiceConfig createServiceConfig(String serviceName, String enabledValue,
                                                      String maxFailoverAttemptsValue, String failoverSleepValue,
                                                      String maxRetryAttemptsValue, String retrySleepValue) {
-      boolean enabled = DEFAULT_ENABLED;
-      int maxFailoverAttempts = DEFAULT_MAX_FAILOVER_ATTEMPTS;
-      int failoverSleep = DEFAULT_FAILOVER_SLEEP;
-      int maxRetryAttempts = DEFAULT_MAX_RETRY_ATTEMPTS;
-      int retrySleep = DEFAULT_RETRY_SLEEP;
+      Map<String, String> values = new HashMap<String, String>();
+      values.put(CONFIG_PARAM_ENABLED, enabledValue);
+      values.put(CONFIG_PARAM_MAX_FAILOVER_ATTEMPTS, maxFailoverAttemptsValue);
+      values.put(CONFIG_PARAM_FAILOVER_SLEEP, failoverSleepValue);
+      values.put(CONFIG_PARAM_MAX_RETRY_ATTEMPTS, maxRetryAttemptsValue);
+      values.put(CONFIG_PARAM_RETRY_SLEEP, retrySleepValue);
+      return createServiceConfig(serviceName, values);
+   }
+
+   /**
+    * @param values the configuration values by parameter name, missing or empty values take the default
+    */
+   public static HaServiceConfig createServiceConfig(String serviceName, Map<String, String> values) {
+      DefaultHaServiceConfig serviceConfig = new DefaultHaServiceConfig(serviceName);
+      String enabledValue = values.get(CONFIG_PARAM_ENABLED);
       if (enabledValue != null && enabledValue.trim().length() > 0) {
-         enabled = Boolean.parseBoolean(enabledValue);
+         serviceConfig.setEnabled(Boolean.parseBoolean(enabledValue));
       }
-      if (maxFailoverAttemptsValue != null && maxFailoverAttemptsValue.trim().length() > 0) {
-         maxFailoverAttempts = Integer.parseInt(maxFailoverAttemptsValue);
-      }
-      if (failoverSleepValue != null && failoverSleepValue.trim().length() > 0) {
-         failoverSleep = Integer.parseInt(failoverSleepValue);
-      }
-      if (maxRetryAttemptsValue != null && maxRetryAttemptsValue.trim().length() > 0) {
-         maxRetryAttempts = Integer.parseInt(maxRetryAttemptsValue);
+      serviceConfig.setMaxFailoverAttempts(getInt(values, CONFIG_PARAM_MAX_FAILOVER_ATTEMPTS, DEFAULT_MAX_FAILOVER_ATTEMPTS));
+      serviceConfig.setFailoverSleep(getInt(values, CONFIG_PARAM_FAILOVER_SLEEP, DEFAULT_FAILOVER_SLEEP));
+      serviceConfig.setMaxRetryAttempts(getInt(values, CONFIG_PARAM_MAX_RETRY_ATTEMPTS, DEFAULT_MAX_RETRY_ATTEMPTS));
+      serviceConfig.setRetrySleep(getInt(values, CONFIG_PARAM_RETRY_SLEEP, DEFAULT_RETRY_SLEEP));
+      serviceConfig.setHealthCheckInterval(getInt(values, CONFIG_PARAM_HEALTH_CHECK_INTERVAL, DEFAULT_HEALTH_CHECK_INTERVAL));
+      serviceConfig.setHealthCheckPath(getString(values, CONFIG_PARAM_HEALTH_CHECK_PATH, DEFAULT_HEALTH_CHECK_PATH));
+      serviceConfig.setRetryBudget(getInt(values, CONFIG_PARAM_RETRY_BUDGET, DEFAULT_RETRY_BUDGET));
+      serviceConfig.setMaxBackoffs(getInt(values, CONFIG_PARAM_MAX_BACKOFFS, DEFAULT_MAX_BACKOFFS));
+      serviceConfig.setLoadBalancing(getString(values, CONFIG_PARAM_LOAD_BALANCING, DEFAULT_LOAD_BALANCING));
+      serviceConfig.setFailoverStatusCodes(getString(values, CONFIG_PARAM_FAILOVER_STATUS_CODES, DEFAULT_FAILOVER_STATUS_CODES));
+      serviceConfig.setFailoverMarkers(getString(values, CONFIG_PARAM_FAILOVER_MARKERS, DEFAULT_FAILOVER_MARKERS));
+      serviceConfig.setRetryMarkers(getString(values, CONFIG_PARAM_RETRY_MARKERS, DEFAULT_RETRY_MARKERS));
+      serviceConfig.setStickySessionTimeout(getInt(values, CONFIG_PARAM_STICKY_SESSION_TIMEOUT, DEFAULT_STICKY_SESSION_TIMEOUT));
+      return serviceConfig;
+   }
+
+   private static int getInt(Map<String, String> values, String name, int defaultValue) {
+      int value = defaultValue;
+      String string = values.get(name);
+      if (string != null && string.trim().length() > 0) {
+         value = Integer.parseInt(string.trim());
       }
-      if (retrySleepValue != null && retrySleepValue.trim().length() > 0) {
-         retrySleep = Integer.parseInt(retrySleepValue);
+      return value;
+   }
+
+   private static String getString(Map<String, String> values, String name, String defaultValue) {
+      String value = defaultValue;
+      String string = values.get(name);
+      if (string != null && string.trim().length() > 0) {
+         value = string.trim();
       }
-      DefaultHaServiceConfig serviceConfig = new DefaultHaServiceConfig(serviceName);
-      serviceConfig.setEnabled(enabled);
-      serviceConfig.setMaxFailoverAttempts(maxFailoverAttempts);
-      serviceConfig.setFailoverSleep(failoverSleep);
-      serviceConfig.setMaxRetryAttempts(maxRetryAttempts);
-      serviceConfig.setRetrySleep(retrySleep);
-      return serviceConfig;
+      return value;
    }
 
    private static Map<String, String> parseHaConfiguration(String configuration) {
@@ -76,7 +93,8 @@ public abstract class HaDescriptorFactory implements HaServiceConfigConstants {
       if (configuration != null) {
          String[] pairs = configuration.split(CONFIG_PAIRS_DELIMITER);
          for (String pair : pairs) {
-            String[] tokens = pair.split(CONFIG_PAIR_DELIMITER);
+            // Only split on the first delimiter, a health check path may contain a query.
+            String[] tokens = pair.split(CONFIG_PAIR_DELIMITER, 2);
             if (tokens.length == 2) {
                parameters.put(tokens[0], tokens[1]);
             }
@@ -23,6 +23,8 @@ import org.apache.hadoop.gateway.ha.provider.impl.i18n.HaMessages;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
@@ -38,7 +40,9 @@ import javax.xml.transform.stream.StreamResult;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class HaDescriptorManager implements HaDescriptorConstants {
 
@@ -64,6 +68,23 @@ public class HaDescriptorManager implements HaDescriptorConstants {
                serviceElement.setAttribute(MAX_RETRY_ATTEMPTS, Integer.toString(config.getMaxRetryAttempts()));
                serviceElement.setAttribute(RETRY_SLEEP, Integer.toString(config.getRetrySleep()));
                serviceElement.setAttribute(ENABLED_ATTRIBUTE, Boolean.toString(config.isEnabled()));
+               if (config.getHealthCheckInterval() > 0) {
+                  serviceElement.setAttribute(HEALTH_CHECK_INTERVAL, Integer.toString(config.getHealthCheckInterval()));
+                  serviceElement.setAttribute(HEALTH_CHECK_PATH, config.getHealthCheckPath());
+               }
+               if (config.getRetryBudget() != HaServiceConfigConstants.DEFAULT_RETRY_BUDGET) {
+                  serviceElement.setAttribute(RETRY_BUDGET, Integer.toString(config.getRetryBudget()));
+               }
+               if (config.getMaxBackoffs() != HaServiceConfigConstants.DEFAULT_MAX_BACKOFFS) {
+                  serviceElement.setAttribute(MAX_BACKOFFS, Integer.toString(config.getMaxBackoffs()));
+               }
+               setAttribute(serviceElement, LOAD_BALANCING, config.getLoadBalancing(), HaServiceConfigConstants.DEFAULT_LOAD_BALANCING);
+               setAttribute(serviceElement, FAILOVER_STATUS_CODES, config.getFailoverStatusCodes(), HaServiceConfigConstants.DEFAULT_FAILOVER_STATUS_CODES);
+               setAttribute(serviceElement, FAILOVER_MARKERS, config.getFailoverMarkers(), HaServiceConfigConstants.DEFAULT_FAILOVER_MARKERS);
+               setAttribute(serviceElement, RETRY_MARKERS, config.getRetryMarkers(), HaServiceConfigConstants.DEFAULT_RETRY_MARKERS);
+               if (config.getStickySessionTimeout() > 0) {
+                  serviceElement.setAttribute(STICKY_SESSION_TIMEOUT, Integer.toString(config.getStickySessionTimeout()));
+               }
                root.appendChild(serviceElement);
             }
          }
@@ -96,12 +117,14 @@ public class HaDescriptorManager implements HaDescriptorConstants {
          if (nodeList != null && nodeList.getLength() > 0) {
             for (int i = 0; i < nodeList.getLength(); i++) {
                Element element = (Element) nodeList.item(i);
-               HaServiceConfig config = HaDescriptorFactory.createServiceConfig(element.getAttribute(SERVICE_NAME_ATTRIBUTE),
-                     element.getAttribute(ENABLED_ATTRIBUTE),
-                     element.getAttribute(MAX_FAILOVER_ATTEMPTS),
-                     element.getAttribute(FAILOVER_SLEEP),
-                     element.getAttribute(MAX_RETRY_ATTEMPTS),
-                     element.getAttribute(RETRY_SLEEP));
+               // The attributes are named after the configuration parameters.
+               Map<String, String> values = new HashMap<String, String>();
+               NamedNodeMap attributes = element.getAttributes();
+               for (int j = 0; j < attributes.getLength(); j++) {
+                  Node attribute = attributes.item(j);
+                  values.put(attribute.getNodeName(), attribute.getNodeValue());
+               }
+               HaServiceConfig config = HaDescriptorFactory.createServiceConfig(element.getAttribute(SERVICE_NAME_ATTRIBUTE), values);
                descriptor.addServiceConfig(config);
             }
          }
@@ -115,4 +138,11 @@ public class HaDescriptorManager implements HaDescriptorConstants {
       return descriptor;
    }
 
+   // Optional attributes are left out while they have their default value.
+   private static void setAttribute(Element element, String name, String value, String defaultValue) {
+      if (value != null && !value.equals(defaultValue)) {
+         element.setAttribute(name, value);
+      }
+   }
+
 }
@@ -0,0 +1,273 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import org.apache.hadoop.gateway.dispatch.CachingDnsResolver;
+import org.apache.hadoop.gateway.ha.provider.impl.i18n.HaMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.params.HttpClientParams;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Periodically probes the HA state of the URLs of a service and ranks them in the {@link URLManager}
+ * so that requests start on the active one.  Active URLs are ordered by their probe latency and are
+ * followed by the unknown, standby and down ones.  URLs in the same state otherwise keep their
+ * current order so that a failover recorded by {@link URLManager#markFailed(String)} isn't undone
+ * when the probes can't tell the URLs apart, e.g. when they require authentication.
+ */
+public class HaHealthChecker implements Runnable {
+
+   private static final HaMessages LOG = MessagesFactory.get(HaMessages.class);
+
+   public enum State { ACTIVE, UNKNOWN, STANDBY, DOWN }
+
+   private static final int MAX_TIMEOUT = 5000;
+
+   private static final int MAX_BODY_SIZE = 4096;
+
+   // Weight of the latest sample in the moving average of the latency.
+   private static final double LATENCY_WEIGHT = 0.3;
+
+   // The NameNode status bean served by /jmx.
+   private static final Pattern STANDBY_STATE = Pattern.compile("\"State\"\\s*:\\s*\"standby\"");
+
+   private final String serviceName;
+
+   private final URLManager manager;
+
+   private final String path;
+
+   private final int timeout;
+
+   private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<String, Endpoint>();
+
+   private ScheduledFuture<?> future;
+
+   /**
+    * @param serviceName the name of the service
+    * @param manager     the URLs of the service
+    * @param path        the path and query appended to each URL to probe it
+    * @param interval    the interval between probes in milliseconds, also bounds the probe timeouts
+    */
+   public HaHealthChecker(String serviceName, URLManager manager, String path, int interval) {
+      this.serviceName = serviceName;
+      this.manager = manager;
+      this.path = path == null ? "" : path;
+      this.timeout = Math.max(1, Math.min(interval, MAX_TIMEOUT));
+   }
+
+   public synchronized void start(ScheduledExecutorService executor, int interval) {
+      if (future == null) {
+         future = executor.scheduleWithFixedDelay(this, 0, interval, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   public synchronized void stop() {
+      if (future != null) {
+         future.cancel(false);
+         future = null;
+      }
+   }
+
+   @Override
+   public void run() {
+      // An exception would suppress any further runs.
+      try {
+         List<String> urls = manager.getURLs();
+         for (String url : urls) {
+            long start = System.nanoTime();
+            State state = probe(url);
+            getEndpoint(url).update(state, System.nanoTime() - start);
+         }
+         manager.rank(rank(urls));
+         List<String> unavailable = new ArrayList<String>();
+         for (String url : urls) {
+            State state = getEndpoint(url).getState();
+            if (state == State.STANDBY || state == State.DOWN) {
+               unavailable.add(url);
+            }
+         }
+         manager.setUnavailable(unavailable);
+      } catch (RuntimeException e) {
+         LOG.failedToCheckHealth(serviceName, e);
+      }
+   }
+
+   /**
+    * @return the probe results of the URLs in their current order
+    */
+   public List<Endpoint> getEndpoints() {
+      List<Endpoint> list = new ArrayList<Endpoint>();
+      for (String url : manager.getURLs()) {
+         list.add(getEndpoint(url));
+      }
+      return list;
+   }
+
+   List<String> rank(List<String> urls) {
+      List<Endpoint> ranked = new ArrayList<Endpoint>();
+      for (String url : urls) {
+         ranked.add(getEndpoint(url));
+      }
+      // The sort is stable which keeps the current order of URLs that compare equal.
+      Collections.sort(ranked, new Comparator<Endpoint>() {
+         @Override
+         public int compare(Endpoint a, Endpoint b) {
+            State state = a.getState();
+            int result = state.compareTo(b.getState());
+            if (result == 0 && state == State.ACTIVE) {
+               result = a.latency < b.latency ? -1 : (a.latency > b.latency ? 1 : 0);
+            }
+            return result;
+         }
+      });
+      List<String> list = new ArrayList<String>();
+      for (Endpoint endpoint : ranked) {
+         list.add(endpoint.getUrl());
+      }
+      return list;
+   }
+
+   /**
+    * Probes the HA state of a URL, called on the health check thread.
+    */
+   protected State probe(String url) {
+      State state;
+      // Resolves through the same DNS cache as the dispatch so the probes follow the same addresses.
+      DefaultHttpClient client = CachingDnsResolver.createHttpClient();
+      HttpParams params = client.getParams();
+      HttpConnectionParams.setConnectionTimeout(params, timeout);
+      HttpConnectionParams.setSoTimeout(params, timeout);
+      HttpClientParams.setRedirecting(params, false);
+      try {
+         HttpResponse response = client.execute(new HttpGet(url + path));
+         HttpEntity entity = response.getEntity();
+         String body = readBody(entity == null ? null : entity.getContent());
+         state = classify(response.getStatusLine().getStatusCode(), body);
+      } catch (IOException e) {
+         state = State.DOWN;
+      } catch (IllegalArgumentException e) {
+         // Not a valid URL.
+         state = State.DOWN;
+      } finally {
+         // Closes the connection without reading the rest of the body.
+         client.getConnectionManager().shutdown();
+      }
+      return state;
+   }
+
+   static State classify(int status, String body) {
+      State state;
+      if (body.contains("StandbyException") || STANDBY_STATE.matcher(body).find()) {
+         state = State.STANDBY;
+      } else if (status >= 200 && status < 300) {
+         state = State.ACTIVE;
+      } else {
+         state = State.UNKNOWN;
+      }
+      return state;
+   }
+
+   private static String readBody(InputStream stream) throws IOException {
+      String body = "";
+      if (stream != null) {
+         byte[] buffer = new byte[MAX_BODY_SIZE];
+         int length = 0;
+         int count = 0;
+         while (count >= 0 && length < buffer.length) {
+            count = stream.read(buffer, length, buffer.length - length);
+            if (count > 0) {
+               length += count;
+            }
+         }
+         body = new String(buffer, 0, length, "ISO-8859-1");
+      }
+      return body;
+   }
+
+   private Endpoint getEndpoint(String url) {
+      Endpoint endpoint = endpoints.get(url);
+      if (endpoint == null) {
+         endpoint = new Endpoint(url);
+         Endpoint existing = endpoints.putIfAbsent(url, endpoint);
+         if (existing != null) {
+            endpoint = existing;
+         }
+      }
+      return endpoint;
+   }
+
+   public static class Endpoint {
+
+      private final String url;
+
+      private volatile State state = State.UNKNOWN;
+
+      // Moving average in nanoseconds, negative until measured.
+      private volatile double latency = -1;
+
+      private Endpoint(String url) {
+         this.url = url;
+      }
+
+      public String getUrl() {
+         return url;
+      }
+
+      public State getState() {
+         return state;
+      }
+
+      /**
+       * @return the average probe latency in milliseconds or -1 if it hasn't been measured
+       */
+      public long getLatency() {
+         return latency < 0 ? -1 : Math.round(latency / 1000000);
+      }
+
+      private void update(State state, long nanos) {
+         if (state != this.state) {
+            LOG.changedHaState(url, this.state.name(), state.name());
+            this.state = state;
+         }
+         // A timeout says nothing about the latency of the URL once it's back.
+         if (state != State.DOWN) {
+            latency = latency < 0 ? nanos : latency + LATENCY_WEIGHT * (nanos - latency);
+         }
+      }
+
+   }
+
+}
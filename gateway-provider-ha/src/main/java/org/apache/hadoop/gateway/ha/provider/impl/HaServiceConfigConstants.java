@@ -33,6 +33,30 @@ public interface HaServiceConfigConstants {
 
    public static final String CONFIG_PARAM_ENABLED = "enabled";
 
+   public static final String CONFIG_PARAM_HEALTH_CHECK_INTERVAL = "healthCheckInterval";
+
+   public static final String CONFIG_PARAM_HEALTH_CHECK_PATH = "healthCheckPath";
+
+   public static final String CONFIG_PARAM_RETRY_BUDGET = "retryBudget";
+
+   public static final String CONFIG_PARAM_MAX_BACKOFFS = "maxBackoffs";
+
+   public static final String CONFIG_PARAM_LOAD_BALANCING = "loadBalancing";
+
+   public static final String CONFIG_PARAM_FAILOVER_STATUS_CODES = "failoverStatusCodes";
+
+   public static final String CONFIG_PARAM_FAILOVER_MARKERS = "failoverMarkers";
+
+   public static final String CONFIG_PARAM_RETRY_MARKERS = "retryMarkers";
+
+   public static final String CONFIG_PARAM_STICKY_SESSION_TIMEOUT = "stickySessionTimeout";
+
+   public static final String LOAD_BALANCING_FAILOVER = "failover";
+
+   public static final String LOAD_BALANCING_ROUND_ROBIN = "round-robin";
+
+   public static final String LOAD_BALANCING_LEAST_REQUESTS = "least-requests";
+
    public static final int DEFAULT_MAX_FAILOVER_ATTEMPTS = 3;
 
    public static final int DEFAULT_FAILOVER_SLEEP = 1000;
@@ -43,4 +67,22 @@ public interface HaServiceConfigConstants {
 
    public static final boolean DEFAULT_ENABLED = true;
 
+   public static final int DEFAULT_HEALTH_CHECK_INTERVAL = 0;
+
+   public static final String DEFAULT_HEALTH_CHECK_PATH = "";
+
+   public static final int DEFAULT_RETRY_BUDGET = 20;
+
+   public static final int DEFAULT_MAX_BACKOFFS = 20;
+
+   public static final String DEFAULT_LOAD_BALANCING = LOAD_BALANCING_FAILOVER;
+
+   public static final String DEFAULT_FAILOVER_STATUS_CODES = "";
+
+   public static final String DEFAULT_FAILOVER_MARKERS = "";
+
+   public static final String DEFAULT_RETRY_MARKERS = "";
+
+   public static final int DEFAULT_STICKY_SESSION_TIMEOUT = 0;
+
 }
@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the available URL with the fewest requests in flight, taking turns between URLs that are tied.
+ */
+public class LeastRequestsURLManager extends BalancingURLManager {
+
+   private final AtomicInteger next = new AtomicInteger();
+
+   public LeastRequestsURLManager(List<String> urls) {
+      super(urls);
+   }
+
+   @Override
+   public void requestStarted(String url) {
+      Entry entry = findEntry(url);
+      if (entry != null) {
+         entry.outstanding.incrementAndGet();
+      }
+   }
+
+   @Override
+   public void requestFinished(String url) {
+      Entry entry = findEntry(url);
+      if (entry != null) {
+         entry.outstanding.decrementAndGet();
+      }
+   }
+
+   @Override
+   Entry select(List<Entry> available) {
+      int size = available.size();
+      int start = (next.getAndIncrement() & Integer.MAX_VALUE) % size;
+      Entry selected = null;
+      int least = Integer.MAX_VALUE;
+      for (int i = 0; i < size; i++) {
+         Entry entry = available.get((start + i) % size);
+         int value = entry.outstanding.get();
+         if (value < least) {
+            least = value;
+            selected = entry;
+         }
+      }
+      return selected;
+   }
+
+   int getOutstanding(String url) {
+      Entry entry = findEntry(url);
+      return entry == null ? 0 : entry.outstanding.get();
+   }
+
+}
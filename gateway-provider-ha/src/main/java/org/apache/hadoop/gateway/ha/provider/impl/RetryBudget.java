@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the retries and failovers of a service to a share of its requests so that an outage
+ * can't turn every request into several backend calls and tie up a thread for each backoff.
+ * Every request deposits a fraction of a retry, every retry withdraws a whole one.  A few retries
+ * per second are always allowed so that a quiet service can still fail over.
+ */
+public class RetryBudget {
+
+   private static final long SCALE = 1000;
+
+   private final long deposit;
+
+   private final long capacity;
+
+   private final int minPerSecond;
+
+   private final AtomicLong balance = new AtomicLong();
+
+   private final AtomicLong reserveSecond = new AtomicLong();
+
+   private final AtomicInteger reserveUsed = new AtomicInteger();
+
+   /**
+    * @param percent      the retries allowed per hundred requests
+    * @param minPerSecond the retries allowed per second regardless of the balance
+    * @param maxBalance   the most retries that can be saved up
+    */
+   public RetryBudget(int percent, int minPerSecond, int maxBalance) {
+      this.deposit = Math.max(0, percent) * SCALE / 100;
+      this.capacity = Math.max(0, maxBalance) * SCALE;
+      this.minPerSecond = minPerSecond;
+   }
+
+   public void deposit() {
+      long current;
+      long next;
+      do {
+         current = balance.get();
+         next = Math.min(capacity, current + deposit);
+      } while (next != current && !balance.compareAndSet(current, next));
+   }
+
+   /**
+    * @return true if a retry may be made, false if the budget is exhausted
+    */
+   public boolean tryWithdraw() {
+      boolean withdrawn = false;
+      long current = balance.get();
+      while (!withdrawn && current >= SCALE) {
+         withdrawn = balance.compareAndSet(current, current - SCALE);
+         current = balance.get();
+      }
+      if (!withdrawn) {
+         long second = System.currentTimeMillis() / 1000;
+         long previous = reserveSecond.get();
+         if (second != previous && reserveSecond.compareAndSet(previous, second)) {
+            reserveUsed.set(0);
+         }
+         withdrawn = reserveUsed.incrementAndGet() <= minPerSecond;
+      }
+      return withdrawn;
+   }
+
+}
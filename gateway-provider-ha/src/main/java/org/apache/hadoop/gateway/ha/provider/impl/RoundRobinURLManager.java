@@ -0,0 +1,40 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out the available URLs in turn.
+ */
+public class RoundRobinURLManager extends BalancingURLManager {
+
+   private final AtomicInteger next = new AtomicInteger();
+
+   public RoundRobinURLManager(List<String> urls) {
+      super(urls);
+   }
+
+   @Override
+   Entry select(List<Entry> available) {
+      // Mask off the sign rather than using abs() which stays negative for MIN_VALUE.
+      return available.get((next.getAndIncrement() & Integer.MAX_VALUE) % available.size());
+   }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.List;
+
+/**
+ * Creates and resolves the tokens that pin a client to one of the URLs of a service.  A token holds its expiry
+ * time and a MAC of the service, URL and expiry time under a key that only lives in this gateway.  The client
+ * can't tell which server the token stands for and can't forge one, a token that doesn't verify is ignored.
+ */
+class StickySessions {
+
+   private static final String ALGORITHM = "HmacSHA256";
+
+   // Half of the MAC is plenty to tell a handful of URLs apart and keeps the cookie short.
+   private static final int MAC_BYTES = 16;
+
+   private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+   private final SecretKeySpec key;
+
+   StickySessions() {
+      byte[] secret = new byte[32];
+      new SecureRandom().nextBytes(secret);
+      key = new SecretKeySpec(secret, ALGORITHM);
+   }
+
+   /**
+    * @return a token for the URL of the service that is valid until the given time
+    */
+   String createToken(String serviceName, String url, long expires) {
+      return Long.toString(expires, 16) + "." + mac(serviceName, url, expires);
+   }
+
+   /**
+    * @return the URL the token stands for or null if it doesn't stand for any of them or has expired
+    */
+   String resolve(String serviceName, String token, List<String> urls, long now) {
+      String resolved = null;
+      int separator = token == null ? -1 : token.indexOf('.');
+      if (separator > 0) {
+         long expires = parseExpiry(token.substring(0, separator));
+         String mac = token.substring(separator + 1);
+         if (now < expires) {
+            for (String url : urls) {
+               if (MessageDigest.isEqual(mac.getBytes(), mac(serviceName, url, expires).getBytes())) {
+                  resolved = url;
+                  break;
+               }
+            }
+         }
+      }
+      return resolved;
+   }
+
+   private static long parseExpiry(String value) {
+      long expires;
+      try {
+         expires = Long.parseLong(value, 16);
+      } catch (NumberFormatException e) {
+         expires = 0;
+      }
+      return expires;
+   }
+
+   private String mac(String serviceName, String url, long expires) {
+      try {
+         Mac mac = Mac.getInstance(ALGORITHM);
+         mac.init(key);
+         byte[] bytes = mac.doFinal((serviceName + "\n" + url + "\n" + expires).getBytes("UTF-8"));
+         StringBuilder hex = new StringBuilder(MAC_BYTES * 2);
+         for (int i = 0; i < MAC_BYTES; i++) {
+            hex.append(HEX[(bytes[i] >> 4) & 0xf]).append(HEX[bytes[i] & 0xf]);
+         }
+         return hex.toString();
+      } catch (GeneralSecurityException e) {
+         throw new IllegalStateException(e);
+      } catch (UnsupportedEncodingException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+}
@@ -17,54 +17,244 @@
  */
 package org.apache.hadoop.gateway.ha.provider.impl;
 
-import com.google.common.collect.Lists;
 import org.apache.hadoop.gateway.ha.provider.impl.i18n.HaMessages;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 
-import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Keeps the URLs of a service in the order they should be tried.  The order is an immutable snapshot that is
+ * replaced as a whole with compare-and-set so finding the active URL never blocks and never sees a partial update.
+ */
 public class URLManager {
 
    private static final HaMessages LOG = MessagesFactory.get(HaMessages.class);
 
-   private ConcurrentLinkedQueue<String> urls = new ConcurrentLinkedQueue<String>();
+   // How long a URL that failed is considered unavailable.
+   private static final long QUARANTINE = 30 * 1000L;
+
+   private final AtomicReference<Entry[]> entries = new AtomicReference<Entry[]>(new Entry[0]);
+
+   private volatile Set<String> unavailable = Collections.emptySet();
 
    public URLManager(List<String> urls) {
-      this.urls.addAll(urls);
+      setURLs(urls);
    }
 
    public String getActiveURL() {
-      return urls.peek();
+      Entry[] current = entries.get();
+      return current.length == 0 ? null : current[0].url;
    }
 
    public List<String> getURLs() {
-      return Lists.newArrayList(urls.iterator());
+      Entry[] current = entries.get();
+      List<String> urls = new ArrayList<String>(current.length);
+      for (Entry entry : current) {
+         urls.add(entry.url);
+      }
+      return urls;
    }
 
+   /**
+    * Replaces the URLs, the statistics of the URLs that remain are kept.
+    */
    public void setURLs(List<String> urls) {
       if (urls != null) {
-         urls.clear();
-         urls.addAll(urls);
+         Entry[] current;
+         Entry[] replaced;
+         do {
+            current = entries.get();
+            List<Entry> list = new ArrayList<Entry>(urls.size());
+            for (String url : urls) {
+               Entry entry = find(current, url);
+               if (entry == null || contains(list, entry)) {
+                  entry = new Entry(url);
+               }
+               list.add(entry);
+            }
+            replaced = list.toArray(new Entry[list.size()]);
+         } while (!entries.compareAndSet(current, replaced));
+      }
+   }
+
+   /**
+    * Reorders the URLs, the ones in the ranking come first in that order followed by any others in their current order.
+    *
+    * @param ranking the URLs ordered by preference
+    */
+   public void rank(List<String> ranking) {
+      Entry[] current;
+      Entry[] ranked;
+      do {
+         current = entries.get();
+         List<Entry> list = new ArrayList<Entry>(current.length);
+         for (String url : ranking) {
+            Entry entry = find(current, url);
+            if (entry != null && !contains(list, entry)) {
+               list.add(entry);
+            }
+         }
+         for (Entry entry : current) {
+            if (!contains(list, entry)) {
+               list.add(entry);
+            }
+         }
+         ranked = list.toArray(new Entry[list.size()]);
+      } while (!entries.compareAndSet(current, ranked));
+      if (current.length > 0 && current[0] != ranked[0]) {
+         LOG.rankedUrls(ranked[0].url, current[0].url);
+      }
+   }
+
+   /**
+    * Tells the manager which URLs the health check found to be standby or down.  Failover relies on the
+    * ranking instead, the load balancing managers and sticky sessions skip them.
+    *
+    * @param urls the URLs that shouldn't be used
+    */
+   public void setUnavailable(Collection<String> urls) {
+      unavailable = new HashSet<String>(urls);
+   }
+
+   /**
+    * @return false if the URL recently failed or the health check found it to be standby or down
+    */
+   public boolean isAvailable(String url) {
+      Entry entry = findEntry(url);
+      return entry != null && isAvailable(entry, System.currentTimeMillis());
+   }
+
+   /**
+    * Called when a request is dispatched to the URL, which may be the URL of the request rather than the service.
+    */
+   public void requestStarted(String url) {
+   }
+
+   /**
+    * Called when a request dispatched to the URL has completed.
+    */
+   public void requestFinished(String url) {
+   }
+
+   /**
+    * Moves the URL to the bottom if it is still the one on top, the URL may be the URL of the failed request.
+    * When another request already failed over the order is left alone.
+    */
+   public void markFailed(String url) {
+      String key = key(url);
+      Entry[] current = entries.get();
+      for (Entry entry : current) {
+         if (entry.key.equals(key)) {
+            entry.failedUntil = System.currentTimeMillis() + QUARANTINE;
+            break;
+         }
+      }
+      while (current.length > 0 && current[0].key.equals(key)) {
+         Entry[] rotated = new Entry[current.length];
+         System.arraycopy(current, 1, rotated, 0, current.length - 1);
+         rotated[current.length - 1] = current[0];
+         if (entries.compareAndSet(current, rotated)) {
+            LOG.markedFailedUrl(current[0].url, rotated[0].url);
+            break;
+         }
+         current = entries.get();
+      }
+   }
+
+   Entry[] getEntries() {
+      return entries.get();
+   }
+
+   boolean isAvailable(Entry entry, long now) {
+      return now >= entry.failedUntil && !unavailable.contains(entry.url);
+   }
+
+   /**
+    * @return the entry with the same host and port as the given URL or null if there is none
+    */
+   Entry findEntry(String url) {
+      Entry[] current = entries.get();
+      Entry found = find(current, url);
+      if (found == null) {
+         String key = key(url);
+         for (Entry entry : current) {
+            if (entry.key.equals(key)) {
+               found = entry;
+               break;
+            }
+         }
       }
+      return found;
    }
 
-   public synchronized void markFailed(String url) {
-      String top = urls.peek();
-      boolean pushToBottom = false;
-      URI topUri = URI.create(top);
-      URI incomingUri = URI.create(url);
-      String topHostPort = topUri.getHost() + topUri.getPort();
-      String incomingHostPort = incomingUri.getHost() + incomingUri.getPort();
-      if (topHostPort.equals(incomingHostPort)) {
-         pushToBottom = true;
+   private static Entry find(Entry[] entries, String url) {
+      Entry found = null;
+      for (Entry entry : entries) {
+         if (entry.url.equals(url)) {
+            found = entry;
+            break;
+         }
       }
-      //put the failed url at the bottom
-      if (pushToBottom) {
-         String failed = urls.poll();
-         urls.offer(failed);
-         LOG.markedFailedUrl(failed, top);
+      return found;
+   }
+
+   private static boolean contains(List<Entry> list, Entry entry) {
+      boolean found = false;
+      for (Entry candidate : list) {
+         if (candidate == entry) {
+            found = true;
+            break;
+         }
+      }
+      return found;
+   }
+
+   /**
+    * Extracts the host and port of a URL, the part between the scheme and the path, without parsing it.
+    */
+   static String key(String url) {
+      int start = url.indexOf("://");
+      start = start < 0 ? 0 : start + 3;
+      int end = url.length();
+      for (int i = start; i < end; i++) {
+         char c = url.charAt(i);
+         if (c == '/' || c == '?' || c == '#') {
+            end = i;
+            break;
+         }
       }
+      int at = url.lastIndexOf('@', end - 1);
+      if (at >= start) {
+         start = at + 1;
+      }
+      return url.substring(start, end).toLowerCase();
+   }
+
+   /**
+    * A URL with its precomputed host and port and the statistics the managers keep for it.  Entries are
+    * carried over from one snapshot to the next so the statistics survive reordering.
+    */
+   static final class Entry {
+
+      final String url;
+
+      final String key;
+
+      final AtomicInteger outstanding = new AtomicInteger();
+
+      volatile long failedUntil;
+
+      Entry(String url) {
+         this.url = url;
+         this.key = key(url);
+      }
+
    }
 }
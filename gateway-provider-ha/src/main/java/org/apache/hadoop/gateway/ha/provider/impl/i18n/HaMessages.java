@@ -20,6 +20,7 @@ package org.apache.hadoop.gateway.ha.provider.impl.i18n;
 import org.apache.hadoop.gateway.i18n.messages.Message;
 import org.apache.hadoop.gateway.i18n.messages.MessageLevel;
 import org.apache.hadoop.gateway.i18n.messages.Messages;
+import org.apache.hadoop.gateway.i18n.messages.StackTrace;
 
 @Messages(logger = "org.apache.hadoop.gateway")
 public interface HaMessages {
@@ -39,4 +40,43 @@ public interface HaMessages {
    @Message(level = MessageLevel.DEBUG, text = "Moving failed URL to the bottom {0}, new top is {1}")
    void markedFailedUrl(String failedUrl, String top);
 
+   @Message(level = MessageLevel.INFO, text = "Health check ranked {0} ahead of {1}")
+   void rankedUrls(String top, String previousTop);
+
+   @Message(level = MessageLevel.DEBUG, text = "HA state of {0} changed from {1} to {2}")
+   void changedHaState(String url, String previousState, String state);
+
+   @Message(level = MessageLevel.WARN, text = "Failed to check the health of service {0}: {1}")
+   void failedToCheckHealth(String serviceName, Exception e);
+
+   @Message(level = MessageLevel.INFO, text = "Retry budget of service {0} is exhausted, not retrying the request")
+   void retryBudgetExhausted(String serviceName);
+
+   @Message(level = MessageLevel.INFO, text = "Retry budget of service {0} is exhausted, not failing over the request")
+   void failoverBudgetExhausted(String serviceName);
+
+   @Message(level = MessageLevel.WARN, text = "Too many requests are waiting to be retried or failed over for service {0}, failing the request")
+   void maxBackoffsReached(String serviceName);
+
+   @Message(level = MessageLevel.INFO, text = "Initializing Ha Dispatch for: {0}")
+   void initializingForResourceRole(String resourceRole);
+
+   @Message(level = MessageLevel.INFO, text = "Could not connect to server: {0} {1}")
+   void errorConnectingToServer(String uri, @StackTrace(level = MessageLevel.DEBUG) Exception e);
+
+   @Message(level = MessageLevel.INFO, text = "Failing over request to a different server: {0}")
+   void failingOverRequest(String uri);
+
+   @Message(level = MessageLevel.INFO, text = "Retrying request to a server: {0}")
+   void retryingRequest(String uri);
+
+   @Message(level = MessageLevel.INFO, text = "Maximum attempts {0} to failover reached for service: {1}")
+   void maxFailoverAttemptsReached(int attempts, String service);
+
+   @Message(level = MessageLevel.INFO, text = "Maximum attempts {0} to retry reached for service: {1} at url : {2}")
+   void maxRetryAttemptsReached(int attempts, String service, String url);
+
+   @Message(level = MessageLevel.INFO, text = "Interrupted while waiting to retry or fail over a request for service: {0} {1}")
+   void backoffInterrupted(String service, @StackTrace(level = MessageLevel.DEBUG) Exception e);
+
 }
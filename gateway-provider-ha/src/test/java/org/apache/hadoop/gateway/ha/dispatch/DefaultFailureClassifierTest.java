@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.dispatch;
+
+import org.apache.hadoop.gateway.ha.dispatch.FailureClassifier.Action;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpOptions;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DefaultFailureClassifierTest {
+
+   @Test
+   public void testStatusCodes() throws Exception {
+      FailureClassifier classifier = new DefaultFailureClassifier("502, 503", "", "");
+      assertEquals(Action.FAILOVER, classifier.classify(response(503, "")));
+      assertEquals(Action.FAILOVER, classifier.classify(response(502, "")));
+      assertEquals(Action.NONE, classifier.classify(response(500, "")));
+      assertEquals(Action.NONE, classifier.classify(response(200, "")));
+   }
+
+   @Test
+   public void testFailures() throws Exception {
+      FailureClassifier classifier = new DefaultFailureClassifier("", "", "");
+      // Idempotent requests are failed over whatever went wrong.
+      assertEquals(Action.FAILOVER, classifier.classify(new HttpGet("http://host/"), new SocketTimeoutException()));
+      assertEquals(Action.FAILOVER, classifier.classify(new HttpHead("http://host/"), new NoHttpResponseException("")));
+      assertEquals(Action.FAILOVER, classifier.classify(new HttpOptions("http://host/"), new IOException()));
+      // Others only if they never reached the URL, also when wrapped by the dispatch.
+      assertEquals(Action.FAILOVER, classifier.classify(new HttpPost("http://host/"), new ConnectException()));
+      assertEquals(Action.FAILOVER, classifier.classify(new HttpPut("http://host/"), new IOException("", new ConnectTimeoutException())));
+      assertEquals(Action.FAILOVER, classifier.classify(new HttpDelete("http://host/"), new IOException("", new UnknownHostException())));
+      assertEquals(Action.NONE, classifier.classify(new HttpPost("http://host/"), new IOException("", new NoHttpResponseException(""))));
+      assertEquals(Action.NONE, classifier.classify(new HttpPut("http://host/"), new SocketTimeoutException()));
+      assertEquals(Action.NONE, classifier.classify(new HttpDelete("http://host/"), new IOException()));
+   }
+
+   @Test
+   public void testMarkers() throws Exception {
+      FailureClassifier classifier = new DefaultFailureClassifier("", "StandbyException", "SafeModeException,RetriableException");
+      assertEquals(Action.FAILOVER, classifier.classify(response(403, "{\"RemoteException\":{\"exception\":\"StandbyException\"}}")));
+      assertEquals(Action.RETRY, classifier.classify(response(403, "{\"RemoteException\":{\"exception\":\"RetriableException\"}}")));
+      // Successful responses are passed on without being read.
+      assertEquals(Action.NONE, classifier.classify(response(200, "StandbyException")));
+      HttpResponse response = response(403, "{\"RemoteException\":{\"exception\":\"AccessControlException\"}}");
+      assertEquals(Action.NONE, classifier.classify(response));
+      // The body is still there for the client.
+      assertEquals("{\"RemoteException\":{\"exception\":\"AccessControlException\"}}", EntityUtils.toString(response.getEntity()));
+   }
+
+   @Test
+   public void testOnlyTheStartOfTheBodyIsRead() throws Exception {
+      FailureClassifier classifier = new DefaultFailureClassifier("", "StandbyException", "");
+      StringBuilder body = new StringBuilder("<html><body>");
+      while (body.length() < DefaultFailureClassifier.PEEK_SIZE * 3) {
+         body.append("Forbidden ");
+      }
+      body.append("StandbyException</body></html>");
+      HttpResponse response = response(403, body.toString());
+      assertEquals(Action.NONE, classifier.classify(response));
+      // The peeked prefix is replayed ahead of the rest of the stream.
+      assertEquals(body.toString(), EntityUtils.toString(response.getEntity()));
+
+      response = response(403, "<html><body>StandbyException</body></html>");
+      assertEquals(Action.FAILOVER, classifier.classify(response));
+   }
+
+   @Test
+   public void testRemoteExceptionNames() throws Exception {
+      assertEquals("StandbyException org.apache.hadoop.ipc.StandbyException ", remoteException(
+            "{\"RemoteException\":{\"exception\":\"StandbyException\",\"javaClassName\":\"org.apache.hadoop.ipc.StandbyException\",\"message\":\"Operation category READ is not supported in state standby\"}}"));
+      // The message comes after the names so it doesn't matter if the peek cuts it off.
+      assertEquals("RetriableException ", remoteException(
+            "{\"RemoteException\":{\"exception\":\"RetriableException\",\"message\":\"org.apache.hadoop.hdfs.server.namenode.SafeModeException: Cannot"));
+      assertNull(remoteException("{\"boolean\":true}"));
+      assertNull(remoteException("<html><body>StandbyException</body></html>"));
+
+      // A marker in the message of a RemoteException isn't the exception.
+      FailureClassifier classifier = new DefaultFailureClassifier("", "StandbyException", "");
+      assertEquals(Action.NONE, classifier.classify(response(403,
+            "{\"RemoteException\":{\"exception\":\"AccessControlException\",\"message\":\"Not a StandbyException\"}}")));
+   }
+
+   private static String remoteException(String body) throws Exception {
+      byte[] bytes = body.getBytes("UTF-8");
+      return DefaultFailureClassifier.getRemoteException(bytes, bytes.length);
+   }
+
+   private static HttpResponse response(int status, String body) throws Exception {
+      HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, "");
+      response.setEntity(new StringEntity(body));
+      return response;
+   }
+
+}
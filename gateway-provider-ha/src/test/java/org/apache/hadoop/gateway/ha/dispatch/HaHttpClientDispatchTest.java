@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.dispatch;
+
+import org.apache.hadoop.gateway.ha.provider.HaDescriptor;
+import org.apache.hadoop.gateway.ha.provider.HaProvider;
+import org.apache.hadoop.gateway.ha.provider.HaServletContextListener;
+import org.apache.hadoop.gateway.ha.provider.impl.DefaultHaProvider;
+import org.apache.hadoop.gateway.ha.provider.impl.HaDescriptorFactory;
+import org.apache.hadoop.gateway.trace.Trace;
+import org.apache.hadoop.gateway.trace.TracePolicy;
+import org.apache.hadoop.gateway.trace.Tracer;
+import org.apache.http.client.methods.HttpGet;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class HaHttpClientDispatchTest {
+
+   private static final String TOPOLOGY = "test-topology";
+
+   private static final String ROLE = "TEST";
+
+   @After
+   public void cleanup() {
+      Tracer.reset();
+   }
+
+   @Test
+   public void testEveryAttemptIsTraced() throws Exception {
+      HaDescriptor descriptor = HaDescriptorFactory.createDescriptor();
+      descriptor.addServiceConfig(HaDescriptorFactory.createServiceConfig(ROLE, "true", "1", "0", "0", "0"));
+      HaProvider provider = new DefaultHaProvider(descriptor);
+      provider.addHaService(ROLE, Arrays.asList("http://unreachable-host-1", "http://unreachable-host-2"));
+
+      ServletContext context = EasyMock.createNiceMock(ServletContext.class);
+      EasyMock.expect(context.getAttribute(HaServletContextListener.PROVIDER_ATTRIBUTE_NAME)).andReturn(provider).anyTimes();
+      FilterConfig config = EasyMock.createNiceMock(FilterConfig.class);
+      EasyMock.expect(config.getServletContext()).andReturn(context).anyTimes();
+      EasyMock.expect(config.getInitParameter(HaHttpClientDispatch.RESOURCE_ROLE_ATTRIBUTE)).andReturn(ROLE).anyTimes();
+      HttpServletRequest inboundRequest = EasyMock.createNiceMock(HttpServletRequest.class);
+      EasyMock.expect(inboundRequest.getRequestURL()).andReturn(new StringBuffer("http://unreachable-host-2/path")).anyTimes();
+      EasyMock.expect(inboundRequest.getAttribute(HaHttpClientDispatch.FAILOVER_COUNTER_ATTRIBUTE)).andReturn(new AtomicInteger(0)).anyTimes();
+      HttpServletResponse outboundResponse = EasyMock.createNiceMock(HttpServletResponse.class);
+      EasyMock.replay(context, config, inboundRequest, outboundResponse);
+
+      HaHttpClientDispatch dispatch = new HaHttpClientDispatch();
+      dispatch.init(config);
+      Tracer.setPolicy(TOPOLOGY, new TracePolicy(1.0, -1));
+      Trace trace = Tracer.begin(TOPOLOGY, ROLE, "GET", "/path", null, System.nanoTime());
+      try {
+         dispatch.executeRequest(new HttpGet("http://unreachable-host-1/path"), inboundRequest, outboundResponse);
+         fail("Expected IOException");
+      } catch (IOException e) {
+         // Neither URL is reachable.
+      } finally {
+         Tracer.end(trace, 500);
+      }
+
+      // The first attempt and the failover are both recorded.
+      assertThat(trace.getSpanCount(), is(2));
+      assertThat(trace.getSpanName(0), is("dispatch.execute"));
+      assertThat(trace.getSpanName(1), is("dispatch.execute"));
+   }
+
+}
@@ -0,0 +1,42 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BackoffTest {
+
+   @Test
+   public void testDelayIsJitteredAndBounded() {
+      for (int i = 0; i < 100; i++) {
+         assertRange(Backoff.delay(1000, 1), 500, 1000);
+         assertRange(Backoff.delay(1000, 2), 1000, 2000);
+         assertRange(Backoff.delay(1000, 3), 2000, 4000);
+         assertRange(Backoff.delay(1000, 10), 4000, 8000);
+      }
+      assertEquals(0, Backoff.delay(0, 1));
+   }
+
+   private static void assertRange(long delay, long min, long max) {
+      assertTrue(delay + " not in [" + min + "," + max + "]", delay >= min && delay <= max);
+   }
+
+}
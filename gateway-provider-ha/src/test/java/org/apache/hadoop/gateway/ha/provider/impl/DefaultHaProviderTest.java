@@ -74,4 +74,46 @@ public class DefaultHaProviderTest {
       provider.markFailedURL(serviceName, url2);
       assertEquals(url1, provider.getActiveURL(serviceName));
    }
+
+   @Test
+   public void testStickySessions() {
+      HaDescriptor descriptor = new DefaultHaDescriptor();
+      DefaultHaServiceConfig config = new DefaultHaServiceConfig("foo");
+      config.setStickySessionTimeout(60000);
+      descriptor.addServiceConfig(config);
+      descriptor.addServiceConfig(new DefaultHaServiceConfig("bar"));
+      HaProvider provider = new DefaultHaProvider(descriptor);
+      ArrayList<String> urls = new ArrayList<String>();
+      urls.add("http://host1:50070/webhdfs");
+      urls.add("http://host2:50070/webhdfs");
+      provider.addHaService("foo", urls);
+      provider.addHaService("bar", urls);
+      assertNull(provider.createStickyToken("bar", "http://host2:50070/webhdfs/v1/tmp"));
+      String token = provider.createStickyToken("foo", "http://host2:50070/webhdfs/v1/tmp?op=LISTSTATUS");
+      assertNotNull(token);
+      assertEquals("http://host2:50070/webhdfs", provider.getStickyURL("foo", token));
+      assertNull(provider.getStickyURL("bar", token));
+      assertNull(provider.getStickyURL("foo", null));
+      provider.markFailedURL("foo", "http://host1:50070/webhdfs");
+      provider.markFailedURL("foo", "http://host2:50070/webhdfs");
+      assertNull(provider.getStickyURL("foo", token));
+   }
+
+   @Test
+   public void testBackoffLimit() {
+      HaDescriptor descriptor = new DefaultHaDescriptor();
+      DefaultHaServiceConfig config = new DefaultHaServiceConfig("foo");
+      config.setMaxBackoffs(2);
+      descriptor.addServiceConfig(config);
+      HaProvider provider = new DefaultHaProvider(descriptor);
+      ArrayList<String> urls = new ArrayList<String>();
+      urls.add("http://host1");
+      provider.addHaService("foo", urls);
+      assertTrue(provider.tryBeginBackoff("foo"));
+      assertTrue(provider.tryBeginBackoff("foo"));
+      assertFalse(provider.tryBeginBackoff("foo"));
+      provider.endBackoff("foo");
+      assertTrue(provider.tryBeginBackoff("foo"));
+      assertTrue(provider.tryBeginBackoff("bar"));
+   }
 }
@@ -48,6 +48,21 @@ public class HaDescriptorFactoryTest {
       assertEquals(1000, serviceConfig.getFailoverSleep());
       assertEquals(5, serviceConfig.getMaxRetryAttempts());
       assertEquals(3000, serviceConfig.getRetrySleep());
+      assertEquals(0, serviceConfig.getHealthCheckInterval());
 
+      serviceConfig = HaDescriptorFactory.createServiceConfig("foo", "healthCheckInterval=5000;healthCheckPath=/jmx?qry=Hadoop:service=NameNode,name=NameNodeStatus");
+      assertEquals(5000, serviceConfig.getHealthCheckInterval());
+      assertEquals("/jmx?qry=Hadoop:service=NameNode,name=NameNodeStatus", serviceConfig.getHealthCheckPath());
+      assertEquals(HaServiceConfigConstants.LOAD_BALANCING_FAILOVER, serviceConfig.getLoadBalancing());
+
+      serviceConfig = HaDescriptorFactory.createServiceConfig("foo", "loadBalancing=least-requests;failoverStatusCodes=502,503;failoverMarkers=StandbyException");
+      assertEquals(HaServiceConfigConstants.LOAD_BALANCING_LEAST_REQUESTS, serviceConfig.getLoadBalancing());
+      assertEquals("502,503", serviceConfig.getFailoverStatusCodes());
+      assertEquals("StandbyException", serviceConfig.getFailoverMarkers());
+      assertEquals("", serviceConfig.getRetryMarkers());
+      assertEquals(0, serviceConfig.getStickySessionTimeout());
+
+      serviceConfig = HaDescriptorFactory.createServiceConfig("foo", "stickySessionTimeout=600000");
+      assertEquals(600000, serviceConfig.getStickySessionTimeout());
    }
 }
@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import org.apache.hadoop.gateway.ha.provider.impl.HaHealthChecker.State;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class HaHealthCheckerTest {
+
+   @Test
+   public void testActiveUrlIsRankedFirst() {
+      URLManager manager = new URLManager(urls("http://host1", "http://host2", "http://host3"));
+      TestHealthChecker checker = new TestHealthChecker(manager);
+      checker.states.put("http://host1", State.DOWN);
+      checker.states.put("http://host2", State.STANDBY);
+      checker.states.put("http://host3", State.ACTIVE);
+      checker.run();
+      assertEquals(urls("http://host3", "http://host2", "http://host1"), manager.getURLs());
+      assertEquals(State.ACTIVE, checker.getEndpoints().get(0).getState());
+
+      checker.states.put("http://host1", State.ACTIVE);
+      checker.states.put("http://host3", State.STANDBY);
+      checker.run();
+      assertEquals("http://host1", manager.getActiveURL());
+   }
+
+   @Test
+   public void testUnknownUrlsKeepTheirOrder() {
+      URLManager manager = new URLManager(urls("http://host1", "http://host2"));
+      TestHealthChecker checker = new TestHealthChecker(manager);
+      checker.states.put("http://host1", State.UNKNOWN);
+      checker.states.put("http://host2", State.UNKNOWN);
+      manager.markFailed("http://host1");
+      checker.run();
+      assertEquals("http://host2", manager.getActiveURL());
+   }
+
+   @Test
+   public void testClassify() {
+      assertEquals(State.ACTIVE, HaHealthChecker.classify(200, "{\"FileStatus\":{}}"));
+      assertEquals(State.ACTIVE, HaHealthChecker.classify(200, "{\"beans\":[{\"State\" : \"active\"}]}"));
+      assertEquals(State.STANDBY, HaHealthChecker.classify(200, "{\"beans\":[{\"State\" : \"standby\"}]}"));
+      assertEquals(State.STANDBY, HaHealthChecker.classify(403, "{\"RemoteException\":{\"exception\":\"StandbyException\"}}"));
+      assertEquals(State.UNKNOWN, HaHealthChecker.classify(401, ""));
+   }
+
+   @Test
+   public void testUnreachableUrlIsDown() {
+      HaHealthChecker checker = new HaHealthChecker("foo", new URLManager(urls("http://localhost:1")), "", 1000);
+      assertEquals(State.DOWN, checker.probe("http://localhost:1"));
+   }
+
+   private static List<String> urls(String... urls) {
+      List<String> list = new ArrayList<String>();
+      for (String url : urls) {
+         list.add(url);
+      }
+      return list;
+   }
+
+   private static class TestHealthChecker extends HaHealthChecker {
+
+      private final Map<String, State> states = new HashMap<String, State>();
+
+      private TestHealthChecker(URLManager manager) {
+         super("foo", manager, "", 1000);
+      }
+
+      @Override
+      protected State probe(String url) {
+         return states.get(url);
+      }
+
+   }
+
+}
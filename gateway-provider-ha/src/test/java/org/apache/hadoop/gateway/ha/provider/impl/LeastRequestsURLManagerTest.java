@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+public class LeastRequestsURLManagerTest {
+
+   @Test
+   public void testPicksURLWithFewestRequests() {
+      ArrayList<String> urls = new ArrayList<String>();
+      String url1 = "http://host1:1234";
+      urls.add(url1);
+      String url2 = "http://host2:1234";
+      urls.add(url2);
+      LeastRequestsURLManager manager = new LeastRequestsURLManager(urls);
+      manager.requestStarted(url1);
+      manager.requestStarted(url1);
+      manager.requestStarted(url2);
+      assertEquals(2, manager.getOutstanding(url1));
+      assertEquals(url2, manager.getActiveURL());
+      assertEquals(url2, manager.getActiveURL());
+      manager.requestFinished(url1);
+      manager.requestFinished(url1);
+      assertEquals(url1, manager.getActiveURL());
+   }
+
+   @Test
+   public void testRequestsAreMatchedByHostAndPort() {
+      ArrayList<String> urls = new ArrayList<String>();
+      String url1 = "http://host1:1234/webhdfs";
+      urls.add(url1);
+      String url2 = "http://host2:1234/webhdfs";
+      urls.add(url2);
+      LeastRequestsURLManager manager = new LeastRequestsURLManager(urls);
+      manager.requestStarted("http://host1:1234/webhdfs/v1/tmp?op=LISTSTATUS");
+      assertEquals(1, manager.getOutstanding(url1));
+      assertEquals(url2, manager.getActiveURL());
+      manager.requestFinished("http://host1:1234/webhdfs/v1/tmp?op=LISTSTATUS");
+      assertEquals(0, manager.getOutstanding(url1));
+      manager.requestStarted("http://unknown:1234/webhdfs");
+      assertEquals(0, manager.getOutstanding(url1));
+      assertEquals(0, manager.getOutstanding(url2));
+   }
+
+}
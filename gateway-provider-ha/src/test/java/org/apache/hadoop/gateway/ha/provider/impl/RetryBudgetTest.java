@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryBudgetTest {
+
+   @Test
+   public void testRetriesAreFundedByRequests() {
+      RetryBudget budget = new RetryBudget(20, 0, 100);
+      assertFalse(budget.tryWithdraw());
+      for (int i = 0; i < 10; i++) {
+         budget.deposit();
+      }
+      assertTrue(budget.tryWithdraw());
+      assertTrue(budget.tryWithdraw());
+      assertFalse(budget.tryWithdraw());
+   }
+
+   @Test
+   public void testBalanceIsCapped() {
+      RetryBudget budget = new RetryBudget(100, 0, 3);
+      for (int i = 0; i < 10; i++) {
+         budget.deposit();
+      }
+      assertTrue(budget.tryWithdraw());
+      assertTrue(budget.tryWithdraw());
+      assertTrue(budget.tryWithdraw());
+      assertFalse(budget.tryWithdraw());
+   }
+
+   @Test
+   public void testMinimumRetriesPerSecond() {
+      RetryBudget budget = new RetryBudget(0, 2, 100);
+      int allowed = 0;
+      for (int i = 0; i < 10; i++) {
+         if (budget.tryWithdraw()) {
+            allowed++;
+         }
+      }
+      // The loop may straddle a second.
+      assertTrue(allowed >= 2 && allowed <= 4);
+   }
+
+}
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class RoundRobinURLManagerTest {
+
+   @Test
+   public void testRotatesThroughAvailableURLs() {
+      ArrayList<String> urls = new ArrayList<String>();
+      String url1 = "http://host1:1234";
+      urls.add(url1);
+      String url2 = "http://host2:1234";
+      urls.add(url2);
+      String url3 = "http://host3:1234";
+      urls.add(url3);
+      RoundRobinURLManager manager = new RoundRobinURLManager(urls);
+      assertEquals(url1, manager.getActiveURL());
+      assertEquals(url2, manager.getActiveURL());
+      assertEquals(url3, manager.getActiveURL());
+      assertEquals(url1, manager.getActiveURL());
+      manager.markFailed(url2);
+      for (int i = 0; i < 6; i++) {
+         assertFalse(url2.equals(manager.getActiveURL()));
+      }
+      manager.setUnavailable(Collections.singletonList(url3));
+      for (int i = 0; i < 3; i++) {
+         assertEquals(url1, manager.getActiveURL());
+      }
+   }
+
+   @Test
+   public void testFallsBackToTopURLWhenNoneIsAvailable() {
+      ArrayList<String> urls = new ArrayList<String>();
+      String url1 = "http://host1:1234";
+      urls.add(url1);
+      String url2 = "http://host2:1234";
+      urls.add(url2);
+      RoundRobinURLManager manager = new RoundRobinURLManager(urls);
+      manager.markFailed(url1);
+      manager.markFailed(url2);
+      assertEquals(0, manager.getAvailableURLs().size());
+      assertEquals(url1, manager.getActiveURL());
+      assertEquals(url1, manager.getActiveURL());
+   }
+
+}
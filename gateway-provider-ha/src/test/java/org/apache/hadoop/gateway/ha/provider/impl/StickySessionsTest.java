@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.ha.provider.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StickySessionsTest {
+
+   @Test
+   public void testTokens() {
+      List<String> urls = new ArrayList<String>();
+      urls.add("http://host1:1234");
+      urls.add("http://host2:1234");
+      StickySessions sessions = new StickySessions();
+      long now = System.currentTimeMillis();
+      String token = sessions.createToken("foo", "http://host2:1234", now + 1000);
+      assertEquals("http://host2:1234", sessions.resolve("foo", token, urls, now));
+      // Expired.
+      assertNull(sessions.resolve("foo", token, urls, now + 1000));
+      // For another service.
+      assertNull(sessions.resolve("bar", token, urls, now));
+      // Tampered with.
+      String extended = Long.toString(now + 100000, 16) + token.substring(token.indexOf('.'));
+      assertNull(sessions.resolve("foo", extended, urls, now));
+      assertNull(sessions.resolve("foo", "garbage", urls, now));
+      assertNull(sessions.resolve("foo", "xyz.abc", urls, now));
+      // From another gateway.
+      assertNull(new StickySessions().resolve("foo", token, urls, now));
+   }
+
+}
@@ -20,8 +20,10 @@ package org.apache.hadoop.gateway.ha.provider.impl;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class URLManagerTest {
@@ -68,4 +70,66 @@ public class URLManagerTest {
       assertEquals(url3, manager.getActiveURL());
    }
 
+
+   @Test
+   public void testSetURLs() {
+      ArrayList<String> urls = new ArrayList<String>();
+      urls.add("http://host1:1234");
+      urls.add("http://host2:1234");
+      URLManager manager = new URLManager(urls);
+      ArrayList<String> replaced = new ArrayList<String>();
+      replaced.add("http://host3:1234");
+      replaced.add("http://host1:1234");
+      manager.setURLs(replaced);
+      assertEquals(replaced, manager.getURLs());
+      assertEquals("http://host3:1234", manager.getActiveURL());
+   }
+
+   @Test
+   public void testRankingKeepsEntries() {
+      ArrayList<String> urls = new ArrayList<String>();
+      String url1 = "http://host1:1234";
+      urls.add(url1);
+      String url2 = "http://host2:1234";
+      urls.add(url2);
+      URLManager manager = new URLManager(urls);
+      URLManager.Entry entry = manager.findEntry(url2);
+      manager.rank(Collections.singletonList(url2));
+      assertEquals(url2, manager.getActiveURL());
+      assertSame(entry, manager.getEntries()[0]);
+      assertSame(entry, manager.findEntry("http://HOST2:1234/webhdfs/v1?op=LISTSTATUS"));
+   }
+
+   @Test
+   public void testConcurrentFailuresOnlyFailOverOnce() throws InterruptedException {
+      ArrayList<String> urls = new ArrayList<String>();
+      final String url1 = "http://host1:1234";
+      urls.add(url1);
+      String url2 = "http://host2:1234";
+      urls.add(url2);
+      String url3 = "http://host3:1234";
+      urls.add(url3);
+      final URLManager manager = new URLManager(urls);
+      Thread[] threads = new Thread[8];
+      for (int i = 0; i < threads.length; i++) {
+         threads[i] = new Thread() {
+            public void run() {
+               manager.markFailed(url1 + "/path");
+            }
+         };
+         threads[i].start();
+      }
+      for (Thread thread : threads) {
+         thread.join();
+      }
+      assertEquals(url2, manager.getActiveURL());
+      assertEquals(url1, manager.getURLs().get(2));
+   }
+
+   @Test
+   public void testKey() {
+      assertEquals("host1:1234", URLManager.key("http://host1:1234/webhdfs?op=GET"));
+      assertEquals("host1", URLManager.key("https://user@Host1#fragment"));
+      assertEquals("host1:1234", URLManager.key("host1:1234"));
+   }
 }
@@ -17,15 +17,14 @@
  */
 package org.apache.hadoop.gateway.identityasserter.filter;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.gateway.IdentityAsserterMessages;
 import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.util.FormFilterInputStream;
 
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
@@ -120,7 +119,7 @@ public class IdentityAsserterHttpServletRequestWrapper extends HttpServletReques
     al.add(username);
     String[] a = { "" };
 
-    if ("true".equals(System.getProperty(GatewayConfig.HADOOP_KERBEROS_SECURED))) {
+    if (isKerberosSecured()) {
       params.put(DOAS_PRINCIPAL_PARAM, al.toArray(a));
       params.remove(PRINCIPAL_PARAM);
     } else {
@@ -156,11 +155,8 @@ public class IdentityAsserterHttpServletRequestWrapper extends HttpServletReques
       if( encoding == null ) {
         encoding = Charset.defaultCharset().name();
       }
-      String body = IOUtils.toString( super.getInputStream(), encoding );
-      Map<String, String[]> params = getParams( body );
-      body = urlEncode( params, encoding );
-      // ASCII is OK here because the urlEncode about should have already escaped
-      return new ServletInputStreamWrapper( new ByteArrayInputStream( body.getBytes( "US-ASCII" ) ) );
+      // Stream the body pair by pair so that large forms are never held in memory.
+      return new ServletInputStreamWrapper( new IdentityFormInputStream( super.getInputStream(), encoding ) );
     } else {
       return super.getInputStream();
     }
@@ -209,6 +205,37 @@ public class IdentityAsserterHttpServletRequestWrapper extends HttpServletReques
     return javax.servlet.http.HttpUtils.parseQueryString( queryString );
   }
   
+  private boolean isKerberosSecured() {
+    return "true".equals( System.getProperty( GatewayConfig.HADOOP_KERBEROS_SECURED ) );
+  }
+
+  // Replaces any identity asserted in the form body with the authenticated principal
+  // the same way getQueryString does.  All other pairs are forwarded unchanged.
+  private class IdentityFormInputStream extends FormFilterInputStream {
+
+    private boolean secured;
+
+    private IdentityFormInputStream( InputStream stream, String encoding ) {
+      super( stream, encoding );
+      this.secured = isKerberosSecured();
+    }
+
+    @Override
+    protected boolean isFiltered( String name ) {
+      return PRINCIPAL_PARAM.equals( name ) || ( secured && DOAS_PRINCIPAL_PARAM.equals( name ) );
+    }
+
+    @Override
+    protected String filterValue( String name, String value ) {
+      String filtered = username;
+      if( secured && PRINCIPAL_PARAM.equals( name ) ) {
+        filtered = null;
+      }
+      return filtered;
+    }
+
+  }
+
   private class ServletInputStreamWrapper extends ServletInputStream {
 
     private InputStream stream;
@@ -222,6 +249,21 @@ public class IdentityAsserterHttpServletRequestWrapper extends HttpServletReques
       return stream.read();
     }
 
+    @Override
+    public int read( byte[] bytes, int offset, int length ) throws IOException {
+      return stream.read( bytes, offset, length );
+    }
+
+    @Override
+    public int available() throws IOException {
+      return stream.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+      stream.close();
+    }
+
   }
 
 }
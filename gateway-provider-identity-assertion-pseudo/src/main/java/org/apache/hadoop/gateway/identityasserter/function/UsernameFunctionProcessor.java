@@ -19,6 +19,7 @@ package org.apache.hadoop.gateway.identityasserter.function;
 
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteEnvironment;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
+import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteDeterministicFunction;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
 import org.apache.hadoop.gateway.filter.security.AbstractIdentityAssertionBase;
 import org.apache.hadoop.gateway.i18n.GatewaySpiMessages;
@@ -31,7 +32,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class UsernameFunctionProcessor
-    implements UrlRewriteFunctionProcessor<UsernameFunctionDescriptor> {
+    implements UrlRewriteFunctionProcessor<UsernameFunctionDescriptor>, UrlRewriteDeterministicFunction {
 
   private static final GatewaySpiMessages LOG = MessagesFactory.get( GatewaySpiMessages.class );
 //  private PrincipalMapper mapper = null;
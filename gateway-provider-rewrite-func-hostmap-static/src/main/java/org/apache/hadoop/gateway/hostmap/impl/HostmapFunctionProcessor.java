@@ -19,6 +19,7 @@ package org.apache.hadoop.gateway.hostmap.impl;
 
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteEnvironment;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
+import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteDeterministicFunction;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
 import org.apache.hadoop.gateway.hostmap.api.HostmapFunctionDescriptor;
 import org.apache.hadoop.gateway.services.GatewayServices;
@@ -31,7 +32,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class HostmapFunctionProcessor
-    implements UrlRewriteFunctionProcessor<HostmapFunctionDescriptor> {
+    implements UrlRewriteFunctionProcessor<HostmapFunctionDescriptor>, UrlRewriteDeterministicFunction {
 
   public static final String DESCRIPTOR_DEFAULT_FILE_NAME = "hostmap.txt";
   public static final String DESCRIPTOR_DEFAULT_LOCATION = "/WEB-INF/" + DESCRIPTOR_DEFAULT_FILE_NAME;
@@ -71,6 +72,7 @@ public class HostmapFunctionProcessor
     List<String> result = null;
     if( parameters != null ) {
       result = new ArrayList<String>( parameters.size() );
+      HostMapper hostMapper = hostMapper();
       for( String parameter : parameters ) {
         switch( context.getDirection() ) {
           case IN:
@@ -87,5 +89,17 @@ public class HostmapFunctionProcessor
     return result;
   }
 
+  // The registered mapper is replaced when the host map file changes.
+  private HostMapper hostMapper() {
+    HostMapper mapper = null;
+    if( hostMapperService != null ) {
+      mapper = hostMapperService.getHostMapper( clusterName );
+    }
+    if( mapper == null ) {
+      mapper = hostMapper;
+    }
+    return mapper;
+  }
+
 }
 
@@ -17,14 +17,9 @@
  */
 package org.apache.hadoop.gateway.svcregfunc.impl;
 
-import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
 import org.apache.hadoop.gateway.svcregfunc.api.ServiceAddressFunctionDescriptor;
-import org.apache.hadoop.gateway.util.urltemplate.Host;
-import org.apache.hadoop.gateway.util.urltemplate.Parser;
-import org.apache.hadoop.gateway.util.urltemplate.Port;
-import org.apache.hadoop.gateway.util.urltemplate.Template;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,7 +37,6 @@ public class ServiceAddressFunctionProcessor
   public List<String> resolve( UrlRewriteContext context, List<String> parameters ) throws Exception {
     List<String> results = null;
     if( parameters != null ) {
-      UrlRewriter.Direction direction = context.getDirection();
       results = new ArrayList<String>( parameters.size() );
       for( String parameter : parameters ) {
         parameter = resolve( parameter );
@@ -54,31 +48,11 @@ public class ServiceAddressFunctionProcessor
 
   public String resolve( String parameter ) throws Exception {
     String addr = parameter;
-    String url = lookupServiceUrl( parameter );
-    if( url != null ) {
-      Template template = Parser.parse( url );
-      Host host = template.getHost();
-      String hostStr = null;
-      if( host != null ) {
-        hostStr = host.getFirstValue().getPattern();
-      }
-
-      Port port = template.getPort();
-      String portStr = null;
-      if( port != null ) {
-        portStr = port.getFirstValue().getPattern();
-      }
-
-      if( hostStr != null && portStr != null ) {
-        addr = hostStr + ":" + portStr;
-      } else if( host != null && port == null ) {
-        addr = hostStr;
-      } else if( host == null && port != null ) {
-        addr = ":" + portStr;
-      }
+    ServiceEndpoint endpoint = lookupServiceEndpoint( parameter );
+    if( endpoint != null && endpoint.getAddress() != null ) {
+      addr = endpoint.getAddress();
     }
     return addr;
   }
 
 }
-
@@ -0,0 +1,213 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.svcregfunc.impl;
+
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter;
+import org.apache.hadoop.gateway.services.hostmap.HostMapper;
+import org.apache.hadoop.gateway.util.urltemplate.Host;
+import org.apache.hadoop.gateway.util.urltemplate.Parser;
+import org.apache.hadoop.gateway.util.urltemplate.Path;
+import org.apache.hadoop.gateway.util.urltemplate.Port;
+import org.apache.hadoop.gateway.util.urltemplate.Scheme;
+import org.apache.hadoop.gateway.util.urltemplate.Template;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+
+/**
+ * The parts of a service URL the rewrite functions need, parsed once when the URL is first seen rather than for
+ * every rewritten value.  The host mapped variants are kept for the host mapper they were computed with and are
+ * recomputed when the cluster's host mapper is replaced.
+ */
+final class ServiceEndpoint {
+
+  private final String url;
+  private final String scheme;
+  private final String host;
+  private final String port;
+  private final String path;
+  private final URI uri;
+  private final String normalizedUrl;
+  private final URISyntaxException uriError;
+  private volatile Mapping mapping;
+
+  ServiceEndpoint( String url ) throws URISyntaxException {
+    this.url = url;
+    Template template = Parser.parse( url );
+    Scheme scheme = template.getScheme();
+    this.scheme = scheme == null ? null : scheme.getFirstValue().getPattern();
+    Host host = template.getHost();
+    this.host = host == null ? null : host.getFirstValue().getPattern();
+    Port port = template.getPort();
+    this.port = port == null ? null : port.getFirstValue().getPattern();
+    List<Path> path = template.getPath();
+    this.path = path == null ? null : toString( path );
+    // Only the URL functions need the URI so a URL it can't parse only fails those.
+    URI uri = null;
+    String normalizedUrl = null;
+    URISyntaxException uriError = null;
+    try {
+      uri = new URI( url );
+      normalizedUrl = toUrl( uri, uri.getHost() );
+    } catch( URISyntaxException e ) {
+      uriError = e;
+    }
+    this.uri = uri;
+    this.normalizedUrl = normalizedUrl;
+    this.uriError = uriError;
+  }
+
+  String getUrl() {
+    return url;
+  }
+
+  String getScheme() {
+    return scheme;
+  }
+
+  String getHost() {
+    return host;
+  }
+
+  String getPort() {
+    return port;
+  }
+
+  String getPath() {
+    return path;
+  }
+
+  /**
+   * @return The host and port of the URL or null if it has neither.
+   */
+  String getAddress() {
+    return toAddress( host, port );
+  }
+
+  /**
+   * @return The URL normalized by {@link URI}.
+   */
+  String getNormalizedUrl() throws URISyntaxException {
+    checkUri();
+    return normalizedUrl;
+  }
+
+  String getMappedHost( HostMapper mapper, UrlRewriter.Direction direction ) {
+    return host == null ? null : mapping( mapper ).hosts[ direction.ordinal() ];
+  }
+
+  String getMappedAddress( HostMapper mapper, UrlRewriter.Direction direction ) {
+    return toAddress( getMappedHost( mapper, direction ), port );
+  }
+
+  String getMappedUrl( HostMapper mapper, UrlRewriter.Direction direction ) throws URISyntaxException {
+    Mapping current = mapping( mapper );
+    String mapped = current.urls[ direction.ordinal() ];
+    if( mapped == null ) {
+      checkUri();
+      String host = uri.getHost();
+      if( host != null ) {
+        host = host.equals( this.host ) ? current.hosts[ direction.ordinal() ] : map( mapper, direction, host );
+      }
+      mapped = toUrl( uri, host );
+      // Races only compute the same value twice.
+      current.urls[ direction.ordinal() ] = mapped;
+    }
+    return mapped;
+  }
+
+  private Mapping mapping( HostMapper mapper ) {
+    Mapping current = mapping;
+    if( current == null || current.mapper != mapper ) {
+      current = new Mapping( mapper, host );
+      mapping = current;
+    }
+    return current;
+  }
+
+  private void checkUri() throws URISyntaxException {
+    if( uriError != null ) {
+      throw uriError;
+    }
+  }
+
+  private static String toUrl( URI uri, String host ) throws URISyntaxException {
+    return new URI( uri.getScheme(), uri.getUserInfo(), host, uri.getPort(), uri.getPath(), uri.getQuery(), uri.getFragment() ).toString();
+  }
+
+  private static String toAddress( String host, String port ) {
+    String address = null;
+    if( host != null && port != null ) {
+      address = host + ":" + port;
+    } else if( host != null ) {
+      address = host;
+    } else if( port != null ) {
+      address = ":" + port;
+    }
+    return address;
+  }
+
+  private static String toString( List<Path> paths ) {
+    StringBuilder s = new StringBuilder();
+    for( Path path: paths ) {
+      s.append( '/' );
+      s.append( path.getFirstValue().getPattern() );
+    }
+    if( s.length() == 0 ) {
+      s.append( '/' );
+    }
+    return s.toString();
+  }
+
+  private static String map( HostMapper mapper, UrlRewriter.Direction direction, String host ) {
+    String mapped = host;
+    if( mapper != null ) {
+      switch( direction ) {
+        case IN:
+          mapped = mapper.resolveInboundHostName( host );
+          break;
+        case OUT:
+          mapped = mapper.resolveOutboundHostName( host );
+          break;
+      }
+    }
+    return mapped;
+  }
+
+  private static final class Mapping {
+
+    private final HostMapper mapper;
+    private final String[] hosts;
+    private final String[] urls;
+
+    private Mapping( HostMapper mapper, String host ) {
+      UrlRewriter.Direction[] directions = UrlRewriter.Direction.values();
+      this.mapper = mapper;
+      this.hosts = new String[ directions.length ];
+      this.urls = new String[ directions.length ];
+      if( host != null ) {
+        for( UrlRewriter.Direction direction : directions ) {
+          hosts[ direction.ordinal() ] = map( mapper, direction, host );
+        }
+      }
+    }
+
+  }
+
+}
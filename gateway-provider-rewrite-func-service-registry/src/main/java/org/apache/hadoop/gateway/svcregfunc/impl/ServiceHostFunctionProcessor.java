@@ -20,9 +20,6 @@ package org.apache.hadoop.gateway.svcregfunc.impl;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
 import org.apache.hadoop.gateway.svcregfunc.api.ServiceHostFunctionDescriptor;
-import org.apache.hadoop.gateway.util.urltemplate.Host;
-import org.apache.hadoop.gateway.util.urltemplate.Parser;
-import org.apache.hadoop.gateway.util.urltemplate.Template;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,13 +39,9 @@ public class ServiceHostFunctionProcessor
     if( parameters != null ) {
       results = new ArrayList<String>( parameters.size() );
       for( String parameter : parameters ) {
-        String url = lookupServiceUrl( parameter );
-        if( url != null ) {
-          Template template = Parser.parse( url );
-          Host host = template.getHost();
-          if( host != null ) {
-            parameter = host.getFirstValue().getPattern();
-          }
+        ServiceEndpoint endpoint = lookupServiceEndpoint( parameter );
+        if( endpoint != null && endpoint.getHost() != null ) {
+          parameter = endpoint.getHost();
         }
         results.add( parameter );
       }
@@ -57,4 +50,3 @@ public class ServiceHostFunctionProcessor
   }
 
 }
-
@@ -17,17 +17,9 @@
  */
 package org.apache.hadoop.gateway.svcregfunc.impl;
 
-import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteEnvironment;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
-import org.apache.hadoop.gateway.services.GatewayServices;
-import org.apache.hadoop.gateway.services.hostmap.HostMapper;
-import org.apache.hadoop.gateway.services.hostmap.HostMapperService;
 import org.apache.hadoop.gateway.svcregfunc.api.ServiceMappedAddressFunctionDescriptor;
-import org.apache.hadoop.gateway.util.urltemplate.Host;
-import org.apache.hadoop.gateway.util.urltemplate.Parser;
-import org.apache.hadoop.gateway.util.urltemplate.Port;
-import org.apache.hadoop.gateway.util.urltemplate.Template;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -38,22 +30,11 @@ public class ServiceMappedAddressFunctionProcessor
     extends ServiceRegistryFunctionProcessorBase<ServiceMappedAddressFunctionDescriptor>
     implements UrlRewriteFunctionProcessor<ServiceMappedAddressFunctionDescriptor> {
 
-  private HostMapper hostmap = null;
-
   @Override
   public String name() {
     return ServiceMappedAddressFunctionDescriptor.FUNCTION_NAME;
   }
 
-  @Override
-  public void initialize( UrlRewriteEnvironment environment, ServiceMappedAddressFunctionDescriptor descriptor ) throws Exception {
-    super.initialize( environment, descriptor );
-    HostMapperService hostmapService = services().getService( GatewayServices.HOST_MAPPING_SERVICE );
-    if( hostmapService != null ) {
-      hostmap = hostmapService.getHostMapper( cluster() );
-    }
-  }
-
   @Override
   public List<String> resolve( UrlRewriteContext context, List<String> parameters ) throws Exception {
     List<String> results = null;
@@ -70,41 +51,14 @@ public class ServiceMappedAddressFunctionProcessor
 
   public String resolve( Direction direction, String parameter ) throws Exception {
     String addr = parameter;
-    String url = lookupServiceUrl( parameter );
-    if( url != null ) {
-      Template template = Parser.parse( url );
-      Host host = template.getHost();
-      String hostStr = null;
-      if( host != null ) {
-        hostStr = host.getFirstValue().getPattern();
-        if( hostmap != null ) {
-          switch( direction ) {
-            case IN:
-              hostStr = hostmap.resolveInboundHostName( hostStr );
-              break;
-            case OUT:
-              hostStr = hostmap.resolveOutboundHostName( hostStr );
-              break;
-          }
-        }
-      }
-
-      Port port = template.getPort();
-      String portStr = null;
-      if( port != null ) {
-        portStr = port.getFirstValue().getPattern();
-      }
-
-      if( hostStr != null && portStr != null ) {
-        addr = hostStr + ":" + portStr;
-      } else if( host != null && port == null ) {
-        addr = hostStr;
-      } else if( host == null && port != null ) {
-        addr = ":" + portStr;
+    ServiceEndpoint endpoint = lookupServiceEndpoint( parameter );
+    if( endpoint != null ) {
+      String mapped = endpoint.getMappedAddress( hostMapper(), direction );
+      if( mapped != null ) {
+        addr = mapped;
       }
     }
     return addr;
   }
 
 }
-
@@ -17,16 +17,9 @@
  */
 package org.apache.hadoop.gateway.svcregfunc.impl;
 
-import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteEnvironment;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
-import org.apache.hadoop.gateway.services.GatewayServices;
-import org.apache.hadoop.gateway.services.hostmap.HostMapper;
-import org.apache.hadoop.gateway.services.hostmap.HostMapperService;
 import org.apache.hadoop.gateway.svcregfunc.api.ServiceMappedHostFunctionDescriptor;
-import org.apache.hadoop.gateway.util.urltemplate.Host;
-import org.apache.hadoop.gateway.util.urltemplate.Parser;
-import org.apache.hadoop.gateway.util.urltemplate.Template;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -35,47 +28,20 @@ public class ServiceMappedHostFunctionProcessor
     extends ServiceRegistryFunctionProcessorBase<ServiceMappedHostFunctionDescriptor>
     implements UrlRewriteFunctionProcessor<ServiceMappedHostFunctionDescriptor> {
 
-  private HostMapper hostmap;
-
   @Override
   public String name() {
     return ServiceMappedHostFunctionDescriptor.FUNCTION_NAME;
   }
 
-  @Override
-  public void initialize( UrlRewriteEnvironment environment, ServiceMappedHostFunctionDescriptor descriptor ) throws Exception {
-    super.initialize( environment, descriptor );
-    HostMapperService hostmapService = services().getService( GatewayServices.HOST_MAPPING_SERVICE );
-    if( hostmapService != null ) {
-      hostmap = hostmapService.getHostMapper( cluster() );
-    }
-  }
-
   @Override
   public List<String> resolve( UrlRewriteContext context, List<String> parameters ) throws Exception {
     List<String> results = null;
     if( parameters != null ) {
       results = new ArrayList<String>( parameters.size() );
       for( String parameter : parameters ) {
-        String url = lookupServiceUrl( parameter );
-        if( url != null ) {
-          Template template = Parser.parse( url );
-          Host host = template.getHost();
-          if( host != null ) {
-            String hostStr = host.getFirstValue().getPattern();
-            if( hostmap != null ) {
-              switch( context.getDirection() ) {
-                case IN:
-                  parameter = hostmap.resolveInboundHostName( hostStr );
-                  break;
-                case OUT:
-                  parameter = hostmap.resolveOutboundHostName( hostStr );
-                  break;
-              }
-            } else {
-              parameter = hostStr;
-            }
-          }
+        ServiceEndpoint endpoint = lookupServiceEndpoint( parameter );
+        if( endpoint != null && endpoint.getHost() != null ) {
+          parameter = endpoint.getMappedHost( hostMapper(), context.getDirection() );
         }
         results.add( parameter );
       }
@@ -84,4 +50,3 @@ public class ServiceMappedHostFunctionProcessor
   }
 
 }
-
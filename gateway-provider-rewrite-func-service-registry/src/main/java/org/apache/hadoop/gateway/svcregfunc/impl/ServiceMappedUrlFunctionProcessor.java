@@ -17,16 +17,11 @@
  */
 package org.apache.hadoop.gateway.svcregfunc.impl;
 
-import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteEnvironment;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
-import org.apache.hadoop.gateway.services.GatewayServices;
-import org.apache.hadoop.gateway.services.hostmap.HostMapper;
-import org.apache.hadoop.gateway.services.hostmap.HostMapperService;
 import org.apache.hadoop.gateway.svcregfunc.api.ServiceMappedUrlFunctionDescriptor;
 
-import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,22 +29,11 @@ public class ServiceMappedUrlFunctionProcessor
     extends ServiceRegistryFunctionProcessorBase<ServiceMappedUrlFunctionDescriptor>
     implements UrlRewriteFunctionProcessor<ServiceMappedUrlFunctionDescriptor> {
 
-  private HostMapper hostmap;
-
   @Override
   public String name() {
     return ServiceMappedUrlFunctionDescriptor.FUNCTION_NAME;
   }
 
-  @Override
-  public void initialize( UrlRewriteEnvironment environment, ServiceMappedUrlFunctionDescriptor descriptor ) throws Exception {
-    super.initialize( environment, descriptor );
-    HostMapperService hostmapService = services().getService( GatewayServices.HOST_MAPPING_SERVICE );
-    if( hostmapService != null ) {
-      hostmap = hostmapService.getHostMapper( cluster() );
-    }
-  }
-
   @Override
   public List<String> resolve( UrlRewriteContext context, List<String> parameters ) throws Exception {
     List<String> results = null;
@@ -65,26 +49,11 @@ public class ServiceMappedUrlFunctionProcessor
   }
 
   public String resolve( UrlRewriter.Direction direction, String parameter ) throws Exception {
-    String url = lookupServiceUrl( parameter );
-    if( url != null ) {
-      URI outputUri;
-      URI inputUri = new URI( url );
-      String host = inputUri.getHost();
-      if( host != null && hostmap != null ) {
-        switch( direction ) {
-          case IN:
-            host = hostmap.resolveInboundHostName( host );
-            break;
-          case OUT:
-            host = hostmap.resolveOutboundHostName( host );
-            break;
-        }
-      }
-      outputUri = new URI( inputUri.getScheme(), inputUri.getUserInfo(), host, inputUri.getPort(), inputUri.getPath(), inputUri.getQuery(), inputUri.getFragment() );
-      parameter = outputUri.toString();
+    ServiceEndpoint endpoint = lookupServiceEndpoint( parameter );
+    if( endpoint != null ) {
+      parameter = endpoint.getMappedUrl( hostMapper(), direction );
     }
     return parameter;
   }
 
 }
-
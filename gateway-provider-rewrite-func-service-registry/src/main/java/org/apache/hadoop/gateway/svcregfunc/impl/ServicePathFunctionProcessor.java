@@ -20,9 +20,6 @@ package org.apache.hadoop.gateway.svcregfunc.impl;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
 import org.apache.hadoop.gateway.svcregfunc.api.ServicePathFunctionDescriptor;
-import org.apache.hadoop.gateway.util.urltemplate.Parser;
-import org.apache.hadoop.gateway.util.urltemplate.Path;
-import org.apache.hadoop.gateway.util.urltemplate.Template;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,13 +39,9 @@ public class ServicePathFunctionProcessor
     if( parameters != null ) {
       results = new ArrayList<String>( parameters.size() );
       for( String parameter : parameters ) {
-        String url = lookupServiceUrl( parameter );
-        if( url != null ) {
-          Template template = Parser.parse( url );
-          List<Path> path = template.getPath();
-          if( path != null ) {
-            parameter = toString( path );
-          }
+        ServiceEndpoint endpoint = lookupServiceEndpoint( parameter );
+        if( endpoint != null && endpoint.getPath() != null ) {
+          parameter = endpoint.getPath();
         }
         results.add( parameter );
       }
@@ -56,17 +49,4 @@ public class ServicePathFunctionProcessor
     return results;
   }
 
-  private String toString( List<Path> paths ) {
-    StringBuilder s = new StringBuilder();
-    for( Path path: paths ) {
-      s.append( '/' );
-      s.append( path.getFirstValue().getPattern() );
-    }
-    if( s.length() == 0 ) {
-      s.append( '/' );
-    }
-    return s.toString();
-  }
-
 }
-
@@ -20,9 +20,6 @@ package org.apache.hadoop.gateway.svcregfunc.impl;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
 import org.apache.hadoop.gateway.svcregfunc.api.ServicePortFunctionDescriptor;
-import org.apache.hadoop.gateway.util.urltemplate.Parser;
-import org.apache.hadoop.gateway.util.urltemplate.Port;
-import org.apache.hadoop.gateway.util.urltemplate.Template;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,13 +39,9 @@ public class ServicePortFunctionProcessor
     if( parameters != null ) {
       results = new ArrayList<String>( parameters.size() );
       for( String parameter : parameters ) {
-        String url = lookupServiceUrl( parameter );
-        if( url != null ) {
-          Template template = Parser.parse( url );
-          Port port = template.getPort();
-          if( port != null ) {
-            parameter = port.getFirstValue().getPattern();
-          }
+        ServiceEndpoint endpoint = lookupServiceEndpoint( parameter );
+        if( endpoint != null && endpoint.getPort() != null ) {
+          parameter = endpoint.getPort();
         }
         results.add( parameter );
       }
@@ -57,4 +50,3 @@ public class ServicePortFunctionProcessor
   }
 
 }
-
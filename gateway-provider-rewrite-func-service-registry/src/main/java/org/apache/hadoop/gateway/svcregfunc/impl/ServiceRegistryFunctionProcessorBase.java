@@ -19,18 +19,30 @@ package org.apache.hadoop.gateway.svcregfunc.impl;
 
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteEnvironment;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteFunctionDescriptor;
+import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteDeterministicFunction;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
 import org.apache.hadoop.gateway.ha.provider.HaProvider;
 import org.apache.hadoop.gateway.ha.provider.HaServletContextListener;
 import org.apache.hadoop.gateway.services.GatewayServices;
+import org.apache.hadoop.gateway.services.hostmap.HostMapper;
+import org.apache.hadoop.gateway.services.hostmap.HostMapperService;
 import org.apache.hadoop.gateway.services.registry.ServiceRegistry;
 
-abstract class ServiceRegistryFunctionProcessorBase<T extends UrlRewriteFunctionDescriptor> implements UrlRewriteFunctionProcessor<T> {
+import java.util.concurrent.ConcurrentHashMap;
+
+abstract class ServiceRegistryFunctionProcessorBase<T extends UrlRewriteFunctionDescriptor> implements UrlRewriteFunctionProcessor<T>, UrlRewriteDeterministicFunction {
 
   private String cluster;
   private GatewayServices services;
   private ServiceRegistry registry;
   private HaProvider haProvider;
+  private HostMapperService hostMapperService;
+  // Most clusters have a few dozen service URLs at most, so the cache is simply cleared if it ever grows past this.
+  private static final int MAX_ENDPOINTS = 256;
+
+  // The parsed endpoint of each service URL.  Keyed by URL rather than role since HA load balancing changes the
+  // URL of a role on nearly every lookup.
+  private final ConcurrentHashMap<String, ServiceEndpoint> endpoints = new ConcurrentHashMap<String, ServiceEndpoint>();
 
   @Override
   public void initialize( UrlRewriteEnvironment environment, T descriptor ) throws Exception {
@@ -50,12 +62,14 @@ abstract class ServiceRegistryFunctionProcessorBase<T extends UrlRewriteFunction
       throw new IllegalArgumentException( "registry==null" );
     }
     haProvider = environment.getAttribute(HaServletContextListener.PROVIDER_ATTRIBUTE_NAME);
+    hostMapperService = services.getService( GatewayServices.HOST_MAPPING_SERVICE );
   }
 
   @Override
   public void destroy() throws Exception {
     registry = null;
     cluster = null;
+    endpoints.clear();
   }
 
   public String lookupServiceUrl( String role ) throws Exception {
@@ -65,6 +79,38 @@ abstract class ServiceRegistryFunctionProcessorBase<T extends UrlRewriteFunction
     return registry.lookupServiceURL( cluster, role );
   }
 
+  /**
+   * @return The parsed endpoint of the role or null if the role has no URL.
+   */
+  ServiceEndpoint lookupServiceEndpoint( String role ) throws Exception {
+    ServiceEndpoint endpoint = null;
+    String url = lookupServiceUrl( role );
+    if( url != null ) {
+      endpoint = endpoints.get( url );
+      if( endpoint == null ) {
+        if( endpoints.size() >= MAX_ENDPOINTS ) {
+          endpoints.clear();
+        }
+        endpoint = new ServiceEndpoint( url );
+        // Races only parse the same URL twice.
+        endpoints.put( url, endpoint );
+      }
+    }
+    return endpoint;
+  }
+
+  /**
+   * @return The cluster's current host mapper or null if there is none.  Looked up each time so a host mapper
+   * registered or replaced after this function was initialized is used.
+   */
+  HostMapper hostMapper() {
+    HostMapper hostMapper = null;
+    if( hostMapperService != null && cluster != null ) {
+      hostMapper = hostMapperService.getHostMapper( cluster );
+    }
+    return hostMapper;
+  }
+
   String cluster() {
     return cluster;
   }
@@ -20,9 +20,6 @@ package org.apache.hadoop.gateway.svcregfunc.impl;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
 import org.apache.hadoop.gateway.svcregfunc.api.ServiceSchemeFunctionDescriptor;
-import org.apache.hadoop.gateway.util.urltemplate.Parser;
-import org.apache.hadoop.gateway.util.urltemplate.Scheme;
-import org.apache.hadoop.gateway.util.urltemplate.Template;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,13 +39,9 @@ public class ServiceSchemeFunctionProcessor
     if( parameters != null ) {
       results = new ArrayList<String>( parameters.size() );
       for( String parameter : parameters ) {
-        String url = lookupServiceUrl( parameter );
-        if( url != null && !url.equals( parameter ) ) {
-          Template template = Parser.parse( url );
-          Scheme scheme = template.getScheme();
-          if( scheme != null ) {
-            parameter = scheme.getFirstValue().getPattern();
-          }
+        ServiceEndpoint endpoint = lookupServiceEndpoint( parameter );
+        if( endpoint != null && !endpoint.getUrl().equals( parameter ) && endpoint.getScheme() != null ) {
+          parameter = endpoint.getScheme();
         }
         results.add( parameter );
       }
@@ -57,4 +50,3 @@ public class ServiceSchemeFunctionProcessor
   }
 
 }
-
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.svcregfunc.impl;
+
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter;
+import org.apache.hadoop.gateway.services.hostmap.HostMapper;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ServiceEndpointTest {
+
+  @Test
+  public void testParts() throws Exception {
+    ServiceEndpoint endpoint = new ServiceEndpoint( "test-scheme://test-host:777/test-path" );
+    assertThat( endpoint.getUrl(), is( "test-scheme://test-host:777/test-path" ) );
+    assertThat( endpoint.getScheme(), is( "test-scheme" ) );
+    assertThat( endpoint.getHost(), is( "test-host" ) );
+    assertThat( endpoint.getPort(), is( "777" ) );
+    assertThat( endpoint.getPath(), is( "/test-path" ) );
+    assertThat( endpoint.getAddress(), is( "test-host:777" ) );
+    assertThat( endpoint.getNormalizedUrl(), is( "test-scheme://test-host:777/test-path" ) );
+
+    endpoint = new ServiceEndpoint( "http://test-host" );
+    assertThat( endpoint.getPort(), nullValue() );
+    assertThat( endpoint.getPath(), is( "/" ) );
+    assertThat( endpoint.getAddress(), is( "test-host" ) );
+  }
+
+  @Test
+  public void testMappedVariantsFollowTheHostMapper() throws Exception {
+    HostMapper first = EasyMock.createNiceMock( HostMapper.class );
+    EasyMock.expect( first.resolveInboundHostName( "test-host" ) ).andReturn( "first-host" ).once();
+    EasyMock.expect( first.resolveOutboundHostName( "test-host" ) ).andReturn( "first-external-host" ).once();
+    HostMapper second = EasyMock.createNiceMock( HostMapper.class );
+    EasyMock.expect( second.resolveInboundHostName( "test-host" ) ).andReturn( "second-host" ).anyTimes();
+    EasyMock.replay( first, second );
+
+    ServiceEndpoint endpoint = new ServiceEndpoint( "test-scheme://test-host:777/test-path" );
+    assertThat( endpoint.getMappedHost( first, UrlRewriter.Direction.IN ), is( "first-host" ) );
+    assertThat( endpoint.getMappedAddress( first, UrlRewriter.Direction.OUT ), is( "first-external-host:777" ) );
+    assertThat( endpoint.getMappedUrl( first, UrlRewriter.Direction.IN ), is( "test-scheme://first-host:777/test-path" ) );
+    // The mapped hosts are computed once per host mapper.
+    assertThat( endpoint.getMappedHost( first, UrlRewriter.Direction.IN ), is( "first-host" ) );
+    EasyMock.verify( first );
+
+    assertThat( endpoint.getMappedUrl( second, UrlRewriter.Direction.IN ), is( "test-scheme://second-host:777/test-path" ) );
+    assertThat( endpoint.getMappedHost( null, UrlRewriter.Direction.IN ), is( "test-host" ) );
+  }
+
+}
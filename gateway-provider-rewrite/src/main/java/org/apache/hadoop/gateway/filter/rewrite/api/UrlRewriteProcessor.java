@@ -18,21 +18,27 @@
 package org.apache.hadoop.gateway.filter.rewrite.api;
 
 import org.apache.hadoop.gateway.filter.rewrite.i18n.UrlRewriteMessages;
+import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteCache;
 import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteContextImpl;
 import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteFunctionProcessorFactory;
 import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteRuleProcessorHolder;
 import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteStepProcessorHolder;
-import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteStepStatus;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.metrics.Counter;
+import org.apache.hadoop.gateway.metrics.Gauge;
+import org.apache.hadoop.gateway.metrics.MetricsRegistry;
+import org.apache.hadoop.gateway.services.GatewayServices;
 import org.apache.hadoop.gateway.util.urltemplate.Matcher;
 import org.apache.hadoop.gateway.util.urltemplate.Resolver;
 import org.apache.hadoop.gateway.util.urltemplate.Template;
 
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter.Direction.IN;
 import static org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter.Direction.OUT;
@@ -47,6 +53,14 @@ public class UrlRewriteProcessor implements UrlRewriter {
   Matcher<UrlRewriteRuleProcessorHolder> inbound = new Matcher<UrlRewriteRuleProcessorHolder>();
   Matcher<UrlRewriteRuleProcessorHolder> outbound = new Matcher<UrlRewriteRuleProcessorHolder>();
   Map<String,UrlRewriteFunctionProcessor> functions = new HashMap<String,UrlRewriteFunctionProcessor>();
+  Map<UrlRewriteFilterContentDescriptor,Boolean> applicable = new IdentityHashMap<UrlRewriteFilterContentDescriptor,Boolean>();
+  boolean implicitOutbound = false;
+  AtomicLong cacheHits = new AtomicLong();
+  AtomicLong cacheMisses = new AtomicLong();
+  Counter rewrites = new Counter();
+  String metricsPrefix;
+  Gauge cacheHitsGauge;
+  Gauge cacheMissesGauge;
 
   public UrlRewriteProcessor() {
   }
@@ -57,6 +71,8 @@ public class UrlRewriteProcessor implements UrlRewriter {
     this.descriptor = descriptor;
     initializeFunctions( descriptor );
     initializeRules( descriptor );
+    initializeFilters( descriptor );
+    initializeMetrics();
   }
 
   public UrlRewriteRulesDescriptor getConfig() {
@@ -92,10 +108,12 @@ public class UrlRewriteProcessor implements UrlRewriter {
           if( directions == null || directions.isEmpty() ) {
             inbound.add( template, ruleProcessor );
             outbound.add( template, ruleProcessor );
+            implicitOutbound = true;
           } else if( directions.contains( IN ) ) {
             inbound.add( template, ruleProcessor );
           } else if ( directions.contains( OUT ) ) {
             outbound.add( template, ruleProcessor );
+            implicitOutbound = true;
           }
         }
       } catch( Exception e ) {
@@ -104,6 +122,72 @@ public class UrlRewriteProcessor implements UrlRewriter {
     }
   }
 
+  // Only processors deployed as part of a topology are reported.
+  private void initializeMetrics() {
+    String topology = null;
+    if( environment != null ) {
+      topology = environment.getAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE );
+    }
+    if( topology != null ) {
+      MetricsRegistry registry = MetricsRegistry.getDefault();
+      metricsPrefix = "rewrite." + topology + ".";
+      rewrites = registry.counter( metricsPrefix + "count" );
+      cacheHitsGauge = new Gauge() {
+        @Override
+        public long getValue() {
+          return cacheHits.get();
+        }
+      };
+      cacheMissesGauge = new Gauge() {
+        @Override
+        public long getValue() {
+          return cacheMisses.get();
+        }
+      };
+      registry.register( metricsPrefix + "cache.hits", cacheHitsGauge );
+      registry.register( metricsPrefix + "cache.misses", cacheMissesGauge );
+    }
+  }
+
+  // Index which filter contents could ever change a body so that the rest can be streamed untouched.
+  private void initializeFilters( UrlRewriteRulesDescriptor descriptor ) {
+    for( UrlRewriteFilterDescriptor filter : descriptor.getFilters() ) {
+      for( UrlRewriteFilterContentDescriptor content : filter.getContents() ) {
+        applicable.put( content, hasApply( content ) );
+      }
+    }
+  }
+
+  private static boolean hasApply( UrlRewriteFilterGroupDescriptor group ) {
+    boolean found = false;
+    for( UrlRewriteFilterPathDescriptor selector : group.getSelectors() ) {
+      if( selector instanceof UrlRewriteFilterApplyDescriptor ) {
+        found = true;
+      } else if( selector instanceof UrlRewriteFilterGroupDescriptor ) {
+        found = hasApply( (UrlRewriteFilterGroupDescriptor)selector );
+      }
+      if( found ) {
+        break;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Determines if rewriting a body with the given filter content could change it.
+   * The body filters apply the implicit outbound rules to values not selected by the content
+   * so a body is only known to be unaffected when there are no such rules and the content,
+   * if any, has no apply selectors.
+   */
+  public boolean isBodyRewriteApplicable( UrlRewriteFilterContentDescriptor content ) {
+    boolean result = implicitOutbound;
+    if( !result && content != null ) {
+      Boolean indexed = applicable.get( content );
+      result = ( indexed == null ) ? hasApply( content ) : indexed.booleanValue();
+    }
+    return result;
+  }
+
   public void destroy() {
     for( UrlRewriteStepProcessorHolder rule : rules.values() ) {
       try {
@@ -119,10 +203,39 @@ public class UrlRewriteProcessor implements UrlRewriter {
         LOG.failedToDestroyRewriteFunctionProcessor( e );
       }
     }
+    if( metricsPrefix != null ) {
+      MetricsRegistry registry = MetricsRegistry.getDefault();
+      registry.unregister( metricsPrefix + "cache.hits", cacheHitsGauge );
+      registry.unregister( metricsPrefix + "cache.misses", cacheMissesGauge );
+    }
+  }
+
+  public long getCacheHits() {
+    return cacheHits.get();
+  }
+
+  public long getCacheMisses() {
+    return cacheMisses.get();
+  }
+
+  public void recordCacheStatistics( long hits, long misses ) {
+    if( hits > 0 || misses > 0 ) {
+      cacheHits.addAndGet( hits );
+      cacheMisses.addAndGet( misses );
+      LOG.rewriteCacheStatistics( hits, misses );
+    }
   }
 
   @Override
   public Template rewrite( Resolver resolver, Template inputUri, Direction direction, String ruleName ) {
+    return rewrite( resolver, inputUri, direction, ruleName, null );
+  }
+
+  // The result is stored in the cache, if one is provided, unless a non-deterministic function was evaluated.
+  public Template rewrite( Resolver resolver, Template inputUri, Direction direction, String ruleName, UrlRewriteCache cache ) {
+    rewrites.increment();
+    String requestedRuleName = ruleName;
+    boolean cacheable = true;
     Template outputUri = inputUri;
     UrlRewriteStepProcessorHolder stepHolder = null;
     String effectiveRuleName = null;
@@ -146,7 +259,7 @@ public class UrlRewriteProcessor implements UrlRewriter {
       effectiveRuleName = ruleName;
     }
     if( stepHolder != null ) {
-      UrlRewriteContext context = new UrlRewriteContextImpl( environment, resolver, functions, direction, inputUri );
+      UrlRewriteContextImpl context = new UrlRewriteContextImpl( environment, resolver, functions, direction, inputUri );
       try {
         UrlRewriteStepStatus stepStatus = stepHolder.process( context );
         if( UrlRewriteStepStatus.SUCCESS == stepStatus ) {
@@ -163,10 +276,15 @@ public class UrlRewriteProcessor implements UrlRewriter {
       } catch( Exception e ) {
         LOG.failedToRewriteUrlDueToException( inputUri, direction, effectiveRuleName, e );
         outputUri = null;
+        cacheable = false;
       }
+      cacheable = cacheable && context.isDeterministic();
     } else {
       LOG.noRuleMatchingUrl( inputUri, direction );
     }
+    if( cache != null && cacheable ) {
+      cache.store( inputUri, direction, requestedRuleName, outputUri );
+    }
     return outputUri;
   }
 
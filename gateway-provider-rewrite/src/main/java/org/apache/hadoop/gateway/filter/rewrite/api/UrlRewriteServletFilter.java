@@ -42,6 +42,7 @@ public class UrlRewriteServletFilter extends AbstractGatewayFilter {
   public static final String RESPONSE_HEADERS_FILTER_PARAM = "response.headers";
   public static final String RESPONSE_COOKIES_FILTER_PARAM = "response.cookies";
   public static final String RESPONSE_BODY_FILTER_PARAM = "response.body";
+  public static final String RESPONSE_CACHE_SIZE_PARAM = "response.cache.size";
 
   public static final MimeType HEADERS_MIME_TYPE = MimeTypes.create( "application/x-http-headers", null );
   public static final MimeType COOKIES_MIME_TYPE = MimeTypes.create( "application/x-http-cookies", null );
@@ -17,6 +17,7 @@
  */
 package org.apache.hadoop.gateway.filter.rewrite.api;
 
+import org.apache.hadoop.gateway.filter.rewrite.impl.noop.NoOpUrlRewriteStreamFilter;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteStreamFilter;
 import org.apache.hadoop.gateway.util.MimeTypes;
 import org.apache.hadoop.gateway.util.urltemplate.Resolver;
@@ -58,6 +59,20 @@ public abstract class UrlRewriteStreamFilterFactory {
     return filteredStream;
   }
 
+  // True if the stream created for this type and name would be the input stream itself.
+  public static boolean isPassThrough( MimeType type, String name ) {
+    MimeType copy = null;
+    if( type != null ) {
+      try {
+        copy = new MimeType( type.getPrimaryType(), type.getSubType() );
+      } catch( MimeTypeParseException e ) {
+        throw new IllegalArgumentException( type.toString(), e );
+      }
+    }
+    UrlRewriteStreamFilter filter = getFilter( getNameMap( copy ), name );
+    return filter == null || filter instanceof NoOpUrlRewriteStreamFilter;
+  }
+
   private static Map<String,Map<String,UrlRewriteStreamFilter>> loadFactories() {
     Map<String,Map<String,UrlRewriteStreamFilter>> typeMap = new HashMap<String,Map<String,UrlRewriteStreamFilter>>();
     ServiceLoader<UrlRewriteStreamFilter> filters = ServiceLoader.load( UrlRewriteStreamFilter.class );
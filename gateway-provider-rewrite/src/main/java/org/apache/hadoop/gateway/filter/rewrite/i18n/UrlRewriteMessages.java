@@ -82,4 +82,10 @@ public interface UrlRewriteMessages {
   @Message( level = MessageLevel.TRACE, text = "No rule matching URL: {0}, direction: {1}" )
   void noRuleMatchingUrl( Template inputUri, UrlRewriter.Direction direction );
 
+  @Message( level = MessageLevel.DEBUG, text = "Rewrite cache hits: {0}, misses: {1}" )
+  void rewriteCacheStatistics( long hits, long misses );
+
+  @Message( level = MessageLevel.DEBUG, text = "No rewrite rules apply to response body of type {0} so it is passed through with length {1}" )
+  void bypassedResponseBodyRewrite( Object type, String length );
+
 }
@@ -0,0 +1,178 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter.rewrite.impl;
+
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteProcessor;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteRulesDescriptor;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter;
+import org.apache.hadoop.gateway.util.urltemplate.Builder;
+import org.apache.hadoop.gateway.util.urltemplate.Parser;
+import org.apache.hadoop.gateway.util.urltemplate.Resolver;
+import org.apache.hadoop.gateway.util.urltemplate.Template;
+
+import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memoizes the results of a UrlRewriteProcessor for the duration of a single response.
+ * The resolver is assumed to be the same for every call so it is not part of the key.
+ * Only results produced without evaluating non-deterministic functions are stored.
+ * Instances are not thread safe.
+ */
+public class UrlRewriteCache implements UrlRewriter {
+
+  public static final int DEFAULT_CAPACITY = 1024;
+  public static final int MAX_VALUE_LENGTH = 2048;
+
+  // Stands in for a null rewrite result so that failures are memoized too.
+  private static final Template NULL_TEMPLATE = new Builder().build();
+
+  private UrlRewriteProcessor processor;
+  private Map<Key,Template> entries;
+  private long hits;
+  private long misses;
+
+  public UrlRewriteCache( UrlRewriteProcessor processor, final int capacity ) {
+    this.processor = processor;
+    this.entries = new LinkedHashMap<Key,Template>( 16, 0.75f, true ) {
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<Key,Template> eldest ) {
+        return size() > capacity;
+      }
+    };
+    this.hits = 0;
+    this.misses = 0;
+  }
+
+  @Override
+  public UrlRewriteRulesDescriptor getConfig() {
+    return processor.getConfig();
+  }
+
+  @Override
+  public Template rewrite( Resolver resolver, Template uri, Direction direction, String ruleName ) {
+    Key key = createKey( uri.getPattern(), direction, ruleName );
+    Template output = lookup( key );
+    if( output == null ) {
+      output = processor.rewrite( resolver, uri, direction, ruleName, this );
+    } else if( output == NULL_TEMPLATE ) {
+      output = null;
+    }
+    return output;
+  }
+
+  public Template rewrite( Resolver resolver, String value, Direction direction, String ruleName )
+      throws URISyntaxException {
+    Key key = createKey( value, direction, ruleName );
+    Template output = lookup( key );
+    if( output == null ) {
+      output = processor.rewrite( resolver, Parser.parse( value ), direction, ruleName, this );
+    } else if( output == NULL_TEMPLATE ) {
+      output = null;
+    }
+    return output;
+  }
+
+  // Called by the processor once it has determined that the result may be reused.
+  public void store( Template input, Direction direction, String ruleName, Template output ) {
+    Key key = createKey( input.getPattern(), direction, ruleName );
+    if( key != null ) {
+      entries.put( key, output == null ? NULL_TEMPLATE : output );
+    }
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public int getSize() {
+    return entries.size();
+  }
+
+  // Adds this cache's statistics to the processor totals.
+  public void release() {
+    processor.recordCacheStatistics( hits, misses );
+    hits = 0;
+    misses = 0;
+    entries.clear();
+  }
+
+  private Template lookup( Key key ) {
+    Template output = null;
+    if( key != null ) {
+      output = entries.get( key );
+    }
+    if( output == null ) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return output;
+  }
+
+  private static Key createKey( String value, Direction direction, String ruleName ) {
+    Key key = null;
+    if( value != null && value.length() <= MAX_VALUE_LENGTH ) {
+      key = new Key( value, direction, ruleName );
+    }
+    return key;
+  }
+
+  private static class Key {
+
+    private String value;
+    private Direction direction;
+    private String rule;
+    private int hash;
+
+    private Key( String value, Direction direction, String rule ) {
+      this.value = value;
+      this.direction = direction;
+      this.rule = rule;
+      int h = value.hashCode();
+      h = 31 * h + ( direction == null ? 0 : direction.hashCode() );
+      h = 31 * h + ( rule == null ? 0 : rule.hashCode() );
+      this.hash = h;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals( Object object ) {
+      boolean equals = false;
+      if( object instanceof Key ) {
+        Key that = (Key)object;
+        equals = this.hash == that.hash &&
+            this.direction == that.direction &&
+            this.value.equals( that.value ) &&
+            ( this.rule == null ? that.rule == null : this.rule.equals( that.rule ) );
+      }
+      return equals;
+    }
+
+  }
+
+}
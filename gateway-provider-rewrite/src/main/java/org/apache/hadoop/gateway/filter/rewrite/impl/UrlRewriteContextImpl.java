@@ -21,6 +21,7 @@ import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteEnvironment;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter;
 import org.apache.hadoop.gateway.filter.rewrite.i18n.UrlRewriteMessages;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteContext;
+import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteDeterministicFunction;
 import org.apache.hadoop.gateway.filter.rewrite.spi.UrlRewriteFunctionProcessor;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.util.urltemplate.Evaluator;
@@ -45,6 +46,7 @@ public class UrlRewriteContextImpl implements UrlRewriteContext {
   private UrlRewriter.Direction direction;
   private Template originalUrl;
   private Template currentUrl;
+  private boolean deterministic;
 
   public UrlRewriteContextImpl(
       UrlRewriteEnvironment environment,
@@ -60,6 +62,7 @@ public class UrlRewriteContextImpl implements UrlRewriteContext {
     this.direction = direction;
     this.originalUrl = url;
     this.currentUrl = url;
+    this.deterministic = true;
   }
 
   @Override
@@ -97,6 +100,11 @@ public class UrlRewriteContextImpl implements UrlRewriteContext {
     return evaluator;
   }
 
+  // False once a function that isn't a UrlRewriteDeterministicFunction has been evaluated in this context.
+  public boolean isDeterministic() {
+    return deterministic;
+  }
+
   private class ContextParameters implements Params {
 
     Map<String,List<String>> map = new HashMap<String,List<String>>();
@@ -138,6 +146,9 @@ public class UrlRewriteContextImpl implements UrlRewriteContext {
       List<String> results = null;
       UrlRewriteFunctionProcessor processor = functions.get( function );
       if( processor != null ) {
+        if( !( processor instanceof UrlRewriteDeterministicFunction ) ) {
+          deterministic = false;
+        }
         try {
           results = processor.resolve( UrlRewriteContextImpl.this, parameters );
         } catch( Exception e ) {
@@ -58,6 +58,8 @@ public class UrlRewriteRequest extends GatewayRequestWrapper implements Resolver
   private UrlRewriteFilterContentDescriptor headersFilterConfig;
   private String cookiesFilterName;
   private UrlRewriteFilterContentDescriptor cookiesFilterConfig;
+  private Template splitUrl;
+  private String[] splitParts;
 
   /**
    * Constructs a request object wrapping the given request.
@@ -119,9 +121,15 @@ public class UrlRewriteRequest extends GatewayRequestWrapper implements Resolver
     return targetUrl;
   }
 
+  // The URI and query string are both requested for each dispatch so the split of the current target is kept.
+  // The target is compared by identity because it is replaced when the request is failed over.
   private String[] splitTargetUrl( Template url ) {
-    String s = url.toString();
-    return s.split( "\\?" );
+    if( url != splitUrl ) {
+      String s = url.toString();
+      splitParts = s.split( "\\?" );
+      splitUrl = url;
+    }
+    return splitParts;
   }
 
   @Override
@@ -20,15 +20,16 @@ package org.apache.hadoop.gateway.filter.rewrite.impl;
 import org.apache.hadoop.gateway.filter.GatewayResponseWrapper;
 import org.apache.hadoop.gateway.filter.ResponseStreamer;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteFilterContentDescriptor;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteProcessor;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteServletContextListener;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteServletFilter;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteStreamFilterFactory;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter;
 import org.apache.hadoop.gateway.filter.rewrite.i18n.UrlRewriteMessages;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.timing.Timings;
 import org.apache.hadoop.gateway.util.Urls;
 import org.apache.hadoop.gateway.util.urltemplate.Params;
-import org.apache.hadoop.gateway.util.urltemplate.Parser;
 import org.apache.hadoop.gateway.util.urltemplate.Template;
 import org.apache.hadoop.io.IOUtils;
 
@@ -59,9 +60,11 @@ public class UrlRewriteResponse extends GatewayResponseWrapper implements Params
 
   private static final int STREAM_BUFFER_SIZE = 4096;
 
+  private static final String CONTENT_LENGTH = "Content-Length";
+
   private static final Set<String> IGNORE_HEADER_NAMES = new HashSet<String>();
   static {
-    IGNORE_HEADER_NAMES.add( "Content-Length" );
+    IGNORE_HEADER_NAMES.add( CONTENT_LENGTH );
   }
 
   private static final String REQUEST_PARAM_PREFIX = "request.";
@@ -78,6 +81,9 @@ public class UrlRewriteResponse extends GatewayResponseWrapper implements Params
   private UrlRewriteFilterContentDescriptor headersFilterConfig;
   private String cookiesFilterName;
   private UrlRewriteFilterContentDescriptor cookiesFilterConfig;
+  private int cacheSize;
+  private UrlRewriteCache cache;
+  private String contentLength;
 
   public UrlRewriteResponse( FilterConfig config, HttpServletRequest request, HttpServletResponse response )
       throws IOException {
@@ -92,6 +98,41 @@ public class UrlRewriteResponse extends GatewayResponseWrapper implements Params
     this.headersFilterConfig = getRewriteFilterConfig( rewriter.getConfig(), headersFilterName, UrlRewriteServletFilter.HEADERS_MIME_TYPE );
     this.cookiesFilterName = config.getInitParameter( UrlRewriteServletFilter.RESPONSE_COOKIES_FILTER_PARAM );
     this.cookiesFilterConfig = getRewriteFilterConfig( rewriter.getConfig(), cookiesFilterName, UrlRewriteServletFilter.COOKIES_MIME_TYPE );
+    this.cacheSize = getCacheSize( config.getInitParameter( UrlRewriteServletFilter.RESPONSE_CACHE_SIZE_PARAM ) );
+    this.cache = null;
+    this.contentLength = null;
+  }
+
+  private static int getCacheSize( String value ) {
+    int size = UrlRewriteCache.DEFAULT_CAPACITY;
+    if( value != null ) {
+      try {
+        size = Integer.parseInt( value.trim() );
+      } catch( NumberFormatException e ) {
+        // Ignore it and use the default.
+      }
+    }
+    return size;
+  }
+
+  // The same values tend to be rewritten many times within a response so the results are memoized.
+  // The cache is only valid for this response because the rewrite results depend on the request.
+  private UrlRewriter getRewriter() {
+    UrlRewriter effectiveRewriter = rewriter;
+    if( cacheSize > 0 && rewriter instanceof UrlRewriteProcessor ) {
+      if( cache == null ) {
+        cache = new UrlRewriteCache( (UrlRewriteProcessor)rewriter, cacheSize );
+      }
+      effectiveRewriter = cache;
+    }
+    return effectiveRewriter;
+  }
+
+  private void releaseCache() {
+    if( cache != null ) {
+      cache.release();
+      cache = null;
+    }
   }
 
   protected boolean ignoreHeader( String name ) {
@@ -100,8 +141,7 @@ public class UrlRewriteResponse extends GatewayResponseWrapper implements Params
 
   private String rewriteValue( String value, String rule ) {
     try {
-      Template input = Parser.parse( value );
-      Template output = rewriter.rewrite( this, input, UrlRewriter.Direction.OUT, rule );
+      Template output = UrlRewriteUtil.rewriteValue( getRewriter(), this, value, UrlRewriter.Direction.OUT, rule );
       if( output != null ) {
         value = output.getPattern();
       }
@@ -117,6 +157,8 @@ public class UrlRewriteResponse extends GatewayResponseWrapper implements Params
     if( !ignoreHeader( name) ) {
       value = rewriteValue( value, pickFirstRuleWithEqualsIgnoreCasePathMatch( headersFilterConfig, name ) );
       super.setHeader( name, value );
+    } else {
+      rememberIgnoredHeader( name, value );
     }
   }
 
@@ -127,7 +169,32 @@ public class UrlRewriteResponse extends GatewayResponseWrapper implements Params
       String rule = pickFirstRuleWithEqualsIgnoreCasePathMatch( headersFilterConfig, name );
       value = rewriteValue( value, rule );
       super.addHeader( name, value );
+    } else {
+      rememberIgnoredHeader( name, value );
+    }
+  }
+
+  // The Content-Length is kept in case the body turns out to be passed through untouched.
+  private void rememberIgnoredHeader( String name, String value ) {
+    if( CONTENT_LENGTH.equals( name ) ) {
+      contentLength = value;
+    }
+  }
+
+  // Decides from the deploy time index of the filter configuration if the body could be changed.
+  // An empty body or a type without a real stream filter never needs to be parsed.
+  private boolean isBodyRewriteApplicable( MimeType mimeType, UrlRewriteFilterContentDescriptor filterContentConfig ) {
+    boolean applicable;
+    if( "0".equals( contentLength ) ) {
+      applicable = false;
+    } else if( UrlRewriteStreamFilterFactory.isPassThrough( mimeType, null ) ) {
+      applicable = false;
+    } else if( rewriter instanceof UrlRewriteProcessor ) {
+      applicable = ((UrlRewriteProcessor)rewriter).isBodyRewriteApplicable( filterContentConfig );
+    } else {
+      applicable = true;
     }
+    return applicable;
   }
 
   @Override
@@ -140,10 +207,25 @@ public class UrlRewriteResponse extends GatewayResponseWrapper implements Params
     MimeType mimeType = getMimeType();
     UrlRewriteFilterContentDescriptor filterContentConfig =
         getRewriteFilterConfig( rewriter.getConfig(), bodyFilterName, mimeType );
-    InputStream filteredInput = UrlRewriteStreamFilterFactory.create(
-        mimeType, null, input, rewriter, this, UrlRewriter.Direction.OUT, filterContentConfig );
-    IOUtils.copyBytes( filteredInput, output, STREAM_BUFFER_SIZE );
-    output.close();
+    if( isBodyRewriteApplicable( mimeType, filterContentConfig ) ) {
+      long start = Timings.start();
+      InputStream filteredInput = UrlRewriteStreamFilterFactory.create(
+          mimeType, null, input, getRewriter(), this, UrlRewriter.Direction.OUT, filterContentConfig );
+      try {
+        IOUtils.copyBytes( filteredInput, output, STREAM_BUFFER_SIZE );
+        output.close();
+      } finally {
+        releaseCache();
+        Timings.stop( "rewrite.response", start );
+      }
+    } else {
+      LOG.bypassedResponseBodyRewrite( mimeType, contentLength );
+      if( contentLength != null ) {
+        super.setHeader( CONTENT_LENGTH, contentLength );
+      }
+      IOUtils.copyBytes( input, output, STREAM_BUFFER_SIZE );
+      output.close();
+    }
   }
 
   //TODO: Need to buffer the output here and when it is closed, rewrite it and then write the result to the stream.
@@ -22,8 +22,13 @@ import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteFilterContentDescr
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteFilterDescriptor;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteFilterPathDescriptor;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteRulesDescriptor;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter;
+import org.apache.hadoop.gateway.util.urltemplate.Parser;
+import org.apache.hadoop.gateway.util.urltemplate.Resolver;
+import org.apache.hadoop.gateway.util.urltemplate.Template;
 
 import javax.activation.MimeType;
+import java.net.URISyntaxException;
 
 public class UrlRewriteUtil {
 
@@ -55,4 +60,17 @@ public class UrlRewriteUtil {
     return filterContentConfig;
   }
 
+  // Parses and rewrites a value, skipping both steps when a per-response cache already has the result.
+  public static Template rewriteValue(
+      UrlRewriter rewriter, Resolver resolver, String value, UrlRewriter.Direction direction, String rule )
+      throws URISyntaxException {
+    Template output;
+    if( rewriter instanceof UrlRewriteCache ) {
+      output = ((UrlRewriteCache)rewriter).rewrite( resolver, value, direction, rule );
+    } else {
+      output = rewriter.rewrite( resolver, Parser.parse( value ), direction, rule );
+    }
+    return output;
+  }
+
 }
@@ -21,6 +21,8 @@ public class FormPair {
 
   String name;
   String value;
+  // The pair as it was read if it has not been modified since.
+  String encoded;
 
   public FormPair() {
     this.name = null;
@@ -37,6 +39,9 @@ public class FormPair {
   }
 
   public void setName( String name ) {
+    if( name == null ? this.name != null : !name.equals( this.name ) ) {
+      encoded = null;
+    }
     this.name = name;
   }
 
@@ -45,6 +50,9 @@ public class FormPair {
   }
 
   public void setValue( String value ) {
+    if( value == null ? this.value != null : !value.equals( this.value ) ) {
+      encoded = null;
+    }
     this.value = value;
   }
 
@@ -80,9 +80,11 @@ public class FormReader {
       name = buffer.toString();
       value = "";
     }
+    String encoded = sepIndex >= 0 ? name + "=" + value : name;
     name = URLDecoder.decode( name, DEFFAULT_FORM_ENCODING );
     value = URLDecoder.decode( value, DEFFAULT_FORM_ENCODING );
     FormPair pair = new FormPair( name, value );
+    pair.encoded = encoded;
     current = pair;
     buffer.setLength( 0 );
     sepIndex = -1;
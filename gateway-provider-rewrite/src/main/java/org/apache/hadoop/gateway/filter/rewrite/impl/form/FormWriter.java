@@ -39,9 +39,14 @@ public class FormWriter {
     } else {
       writer.write( "&" );
     }
-    writer.write( URLEncoder.encode( pair.getName(), DEFFAULT_FORM_ENCODING ) );
-    writer.write( "=" );
-    writer.write( URLEncoder.encode( pair.getValue(), DEFFAULT_FORM_ENCODING ) );
+    // Forward unmodified pairs exactly as they were read.
+    if( pair.encoded != null ) {
+      writer.write( pair.encoded );
+    } else {
+      writer.write( URLEncoder.encode( pair.getName(), DEFFAULT_FORM_ENCODING ) );
+      writer.write( "=" );
+      writer.write( URLEncoder.encode( pair.getValue(), DEFFAULT_FORM_ENCODING ) );
+    }
   }
 
 }
@@ -19,9 +19,9 @@ package org.apache.hadoop.gateway.filter.rewrite.impl.html;
 
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteFilterContentDescriptor;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter;
+import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteUtil;
 import org.apache.hadoop.gateway.filter.rewrite.i18n.UrlRewriteMessages;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
-import org.apache.hadoop.gateway.util.urltemplate.Parser;
 import org.apache.hadoop.gateway.util.urltemplate.Resolver;
 import org.apache.hadoop.gateway.util.urltemplate.Template;
 
@@ -49,8 +49,7 @@ public class HtmlUrlRewriteFilterReader extends HtmlFilterReader {
   //TODO: Need to limit which values are attempted to be filtered by the name.
   protected String filterValueString( String name, String value, String rule ) {
     try {
-      Template input = Parser.parse( value );
-      Template output = rewriter.rewrite( resolver, input, direction, rule );
+      Template output = UrlRewriteUtil.rewriteValue( rewriter, resolver, value, direction, rule );
       if( output != null ) {
         value = output.getPattern();
       }
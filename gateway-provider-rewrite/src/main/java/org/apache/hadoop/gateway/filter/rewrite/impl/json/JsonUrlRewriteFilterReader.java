@@ -19,9 +19,9 @@ package org.apache.hadoop.gateway.filter.rewrite.impl.json;
 
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteFilterContentDescriptor;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter;
+import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteUtil;
 import org.apache.hadoop.gateway.filter.rewrite.i18n.UrlRewriteMessages;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
-import org.apache.hadoop.gateway.util.urltemplate.Parser;
 import org.apache.hadoop.gateway.util.urltemplate.Resolver;
 import org.apache.hadoop.gateway.util.urltemplate.Template;
 
@@ -52,8 +52,7 @@ public class JsonUrlRewriteFilterReader extends JsonFilterReader {
 
   protected String filterValueString( String name, String value, String rule ) {
     try {
-      Template input = Parser.parse( value );
-      Template output = rewriter.rewrite( resolver, input, direction, rule );
+      Template output = UrlRewriteUtil.rewriteValue( rewriter, resolver, value, direction, rule );
       value = output.getPattern();
     } catch( URISyntaxException e ) {
       LOG.failedToParseValueForUrlRewrite( value );
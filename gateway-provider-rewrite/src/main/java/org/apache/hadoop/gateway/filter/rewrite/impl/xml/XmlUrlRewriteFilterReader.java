@@ -19,9 +19,9 @@ package org.apache.hadoop.gateway.filter.rewrite.impl.xml;
 
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteFilterContentDescriptor;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter;
+import org.apache.hadoop.gateway.filter.rewrite.impl.UrlRewriteUtil;
 import org.apache.hadoop.gateway.filter.rewrite.i18n.UrlRewriteMessages;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
-import org.apache.hadoop.gateway.util.urltemplate.Parser;
 import org.apache.hadoop.gateway.util.urltemplate.Resolver;
 import org.apache.hadoop.gateway.util.urltemplate.Template;
 
@@ -53,16 +53,11 @@ public class XmlUrlRewriteFilterReader extends XmlFilterReader {
   //TODO: Need to limit which values are attempted to be filtered by the name.
   private String filterValueString( String name, String value, String rule ) {
     try {
-      Template input = Parser.parse( value );
-      if( input != null ) {
-        Template output = rewriter.rewrite( resolver, input, direction, rule );
-        if( output != null ) {
-          value = output.getPattern();
-        } else {
-          LOG.failedToFilterValue( value, rule );
-        }
+      Template output = UrlRewriteUtil.rewriteValue( rewriter, resolver, value, direction, rule );
+      if( output != null ) {
+        value = output.getPattern();
       } else {
-        LOG.failedToParseValueForUrlRewrite( value );
+        LOG.failedToFilterValue( value, rule );
       }
     } catch( URISyntaxException e ) {
       LOG.failedToParseValueForUrlRewrite( value );
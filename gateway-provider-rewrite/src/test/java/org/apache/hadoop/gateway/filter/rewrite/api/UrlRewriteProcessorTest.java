@@ -212,4 +212,33 @@ public class UrlRewriteProcessorTest {
     processor.destroy();
   }
 
+  @Test
+  public void testBodyRewriteApplicability() throws Exception {
+    UrlRewriteEnvironment environment = EasyMock.createNiceMock( UrlRewriteEnvironment.class );
+    EasyMock.replay( environment );
+
+    UrlRewriteProcessor processor = new UrlRewriteProcessor();
+    UrlRewriteRulesDescriptor config = UrlRewriteRulesDescriptorFactory.load(
+        "xml", getTestResourceReader( "rewrite-with-filters.xml", "UTF-8" ) );
+    processor.initialize( environment, config );
+
+    UrlRewriteFilterDescriptor filter = config.getFilter( "test-filter" );
+    assertThat( "Expect nested apply to be found.",
+        processor.isBodyRewriteApplicable( filter.getContent( "application/json" ) ), is( true ) );
+    assertThat( "Expect content without apply to be skipped.",
+        processor.isBodyRewriteApplicable( filter.getContent( "application/xml" ) ), is( false ) );
+    assertThat( "Expect missing content to be skipped.",
+        processor.isBodyRewriteApplicable( null ), is( false ) );
+    processor.destroy();
+
+    // Outbound rules are applied implicitly to every value so they make all bodies applicable.
+    processor = new UrlRewriteProcessor();
+    config = UrlRewriteRulesDescriptorFactory.load(
+        "xml", getTestResourceReader( "rewrite.xml", "UTF-8" ) );
+    processor.initialize( environment, config );
+    assertThat( "Expect implicit outbound rules to apply.",
+        processor.isBodyRewriteApplicable( null ), is( true ) );
+    processor.destroy();
+  }
+
 }
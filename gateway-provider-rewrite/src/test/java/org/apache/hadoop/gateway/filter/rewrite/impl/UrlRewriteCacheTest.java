@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter.rewrite.impl;
+
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteEnvironment;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteProcessor;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteRulesDescriptor;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteRulesDescriptorFactory;
+import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriter;
+import org.apache.hadoop.gateway.util.urltemplate.Parser;
+import org.apache.hadoop.gateway.util.urltemplate.Template;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class UrlRewriteCacheTest {
+
+  private UrlRewriteProcessor processor;
+
+  @Before
+  public void setUp() throws Exception {
+    UrlRewriteEnvironment environment = EasyMock.createNiceMock( UrlRewriteEnvironment.class );
+    EasyMock.replay( environment );
+    String name = UrlRewriteCacheTest.class.getName().replaceAll( "\\.", "/" ) + "/rewrite.xml";
+    URL url = ClassLoader.getSystemResource( name );
+    Reader reader = new InputStreamReader( url.openStream(), "UTF-8" );
+    UrlRewriteRulesDescriptor config = UrlRewriteRulesDescriptorFactory.load( "xml", reader );
+    reader.close();
+    processor = new UrlRewriteProcessor();
+    processor.initialize( environment, config );
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    processor.destroy();
+  }
+
+  @Test
+  public void testRepeatedValuesAreServedFromCache() throws Exception {
+    UrlRewriteCache cache = new UrlRewriteCache( processor, UrlRewriteCache.DEFAULT_CAPACITY );
+
+    Template first = cache.rewrite( null, "test-scheme://test-host:42/test-path?test-query", UrlRewriter.Direction.OUT, null );
+    assertThat( first.toString(), is( "output-mock-scheme://output-mock-host:42/test-path" ) );
+    assertThat( cache.getHits(), is( 0L ) );
+    assertThat( cache.getMisses(), is( 1L ) );
+
+    Template second = cache.rewrite( null, "test-scheme://test-host:42/test-path?test-query", UrlRewriter.Direction.OUT, null );
+    assertThat( second, sameInstance( first ) );
+    assertThat( cache.getHits(), is( 1L ) );
+    assertThat( cache.getMisses(), is( 1L ) );
+
+    Template input = Parser.parse( "test-scheme://test-host:42/test-path?test-query" );
+    Template third = cache.rewrite( null, input, UrlRewriter.Direction.OUT, null );
+    assertThat( third, sameInstance( first ) );
+    assertThat( cache.getHits(), is( 2L ) );
+
+    // A different rule or direction is a different entry.
+    cache.rewrite( null, "test-scheme://test-host:42/test-path?test-query", UrlRewriter.Direction.IN, null );
+    cache.rewrite( null, "test-scheme://test-host:42/test-path?test-query", UrlRewriter.Direction.OUT, "test-rule-1" );
+    assertThat( cache.getHits(), is( 2L ) );
+    assertThat( cache.getMisses(), is( 3L ) );
+    assertThat( cache.getSize(), is( 3 ) );
+
+    cache.release();
+    assertThat( processor.getCacheHits(), is( 2L ) );
+    assertThat( processor.getCacheMisses(), is( 3L ) );
+    assertThat( cache.getSize(), is( 0 ) );
+  }
+
+  @Test
+  public void testUnmatchedAndFailedValuesAreCached() throws Exception {
+    UrlRewriteCache cache = new UrlRewriteCache( processor, UrlRewriteCache.DEFAULT_CAPACITY );
+
+    // No rule matches so the input is returned unchanged.
+    Template output = cache.rewrite( null, "test-value", UrlRewriter.Direction.OUT, null );
+    assertThat( output.toString(), is( "test-value" ) );
+    output = cache.rewrite( null, "test-value", UrlRewriter.Direction.OUT, null );
+    assertThat( output.toString(), is( "test-value" ) );
+    assertThat( cache.getHits(), is( 1L ) );
+
+    // An explicit rule that doesn't exist is treated as no rule.
+    output = cache.rewrite( null, "test-value", UrlRewriter.Direction.OUT, "" );
+    assertThat( output.toString(), is( "test-value" ) );
+    output = cache.rewrite( null, "test-value", UrlRewriter.Direction.OUT, "" );
+    assertThat( output.toString(), is( "test-value" ) );
+    assertThat( cache.getHits(), is( 2L ) );
+  }
+
+  @Test
+  public void testCapacityIsBounded() throws Exception {
+    UrlRewriteCache cache = new UrlRewriteCache( processor, 2 );
+    cache.rewrite( null, "test-scheme://test-host:1/test-path", UrlRewriter.Direction.OUT, null );
+    cache.rewrite( null, "test-scheme://test-host:2/test-path", UrlRewriter.Direction.OUT, null );
+    cache.rewrite( null, "test-scheme://test-host:3/test-path", UrlRewriter.Direction.OUT, null );
+    assertThat( cache.getSize(), is( 2 ) );
+
+    // The oldest entry was evicted.
+    cache.rewrite( null, "test-scheme://test-host:1/test-path", UrlRewriter.Direction.OUT, null );
+    assertThat( cache.getHits(), is( 0L ) );
+    cache.rewrite( null, "test-scheme://test-host:3/test-path", UrlRewriter.Direction.OUT, null );
+    assertThat( cache.getHits(), is( 1L ) );
+  }
+
+}
@@ -23,6 +23,7 @@ import org.apache.hadoop.gateway.descriptor.GatewayDescriptor;
 import org.apache.hadoop.gateway.descriptor.GatewayParamDescriptor;
 import org.apache.hadoop.gateway.descriptor.ResourceDescriptor;
 import org.apache.hadoop.gateway.descriptor.ResourceParamDescriptor;
+import org.apache.hadoop.gateway.filter.TraceFilter;
 
 import java.net.URISyntaxException;
 import java.util.HashMap;
@@ -34,6 +35,8 @@ import java.util.Map;
  */
 public class GatewayFactory {
 
+  private static final String DISPATCH_ROLE = "dispatch";
+
 //  public static GatewayFilter create( Config gatewayConfig ) throws URISyntaxException {
 //    GatewayFilter gateway = new GatewayFilter();
 //    for( Config service : gatewayConfig.getChildren().values() ) {
@@ -65,6 +68,10 @@ public class GatewayFactory {
 
   private static void addResource( GatewayFilter gateway, ResourceDescriptor resource ) throws URISyntaxException {
     for( FilterDescriptor filter : resource.filters() ) {
+      // Present in every deployment so that body capture can be switched on at runtime.
+      if( DISPATCH_ROLE.equals( filter.role() ) ) {
+        gateway.addFilter( resource.pattern(), TraceFilter.FILTER_NAME, TraceFilter.class.getName(), new HashMap<String, String>(), resource.role() );
+      }
       addFilter( gateway, filter );
     }
   }
@@ -24,12 +24,20 @@ import org.apache.hadoop.gateway.audit.api.AuditService;
 import org.apache.hadoop.gateway.audit.api.AuditServiceFactory;
 import org.apache.hadoop.gateway.audit.api.Auditor;
 import org.apache.hadoop.gateway.audit.api.CorrelationContext;
+import org.apache.hadoop.gateway.audit.api.CorrelationIdGenerator;
 import org.apache.hadoop.gateway.audit.api.CorrelationServiceFactory;
 import org.apache.hadoop.gateway.audit.api.ResourceType;
 import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
 import org.apache.hadoop.gateway.filter.AbstractGatewayFilter;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.i18n.resources.ResourcesFactory;
+import org.apache.hadoop.gateway.metrics.Counter;
+import org.apache.hadoop.gateway.metrics.MetricsRegistry;
+import org.apache.hadoop.gateway.services.GatewayServices;
+import org.apache.hadoop.gateway.timing.RequestTimer;
+import org.apache.hadoop.gateway.timing.Timings;
+import org.apache.hadoop.gateway.trace.Trace;
+import org.apache.hadoop.gateway.trace.Tracer;
 import org.apache.hadoop.gateway.util.urltemplate.Matcher;
 import org.apache.hadoop.gateway.util.urltemplate.Parser;
 import org.apache.hadoop.gateway.util.urltemplate.Template;
@@ -53,7 +61,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
 
 /**
  *
@@ -75,6 +82,7 @@ public class GatewayFilter implements Filter {
   private Set<Holder> holders;
   private Matcher<Chain> chains;
   private FilterConfig config;
+  private String topology;
 
   public GatewayFilter() {
     holders = new HashSet<Holder>();
@@ -84,6 +92,9 @@ public class GatewayFilter implements Filter {
   @Override
   public void init( FilterConfig filterConfig ) throws ServletException {
     this.config = filterConfig;
+    if( filterConfig != null && filterConfig.getServletContext() != null ) {
+      topology = (String)filterConfig.getServletContext().getAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE );
+    }
   }
 
   @Override
@@ -95,6 +106,7 @@ public class GatewayFilter implements Filter {
   public void doFilter( ServletRequest servletRequest, ServletResponse servletResponse ) throws IOException, ServletException {
     HttpServletRequest httpRequest = (HttpServletRequest)servletRequest;
     HttpServletResponse httpResponse = (HttpServletResponse)servletResponse;
+    long received = System.nanoTime();
 
     //TODO: The resulting pathInfo + query needs to be added to the servlet context somehow so that filters don't need to rebuild it.  This is done in HttpClientDispatch right now for example.
     String query = httpRequest.getQueryString();
@@ -113,20 +125,30 @@ public class GatewayFilter implements Filter {
     servletRequest.setAttribute( AbstractGatewayFilter.SOURCE_REQUEST_CONTEXT_URL_ATTRIBUTE_NAME, pathWithContext );
 
     Matcher<Chain>.Match match = chains.match( pathTemplate );
+    long routed = System.nanoTime();
     
     assignCorrelationRequestId();
     // Populate Audit/correlation parameters
     AuditContext auditContext = auditService.createContext();
     auditContext.setTargetServiceName( match == null ? null : match.getValue().getResourceRole() );
     auditContext.setRemoteIp( servletRequest.getRemoteAddr() );
-    auditContext.setRemoteHostname( servletRequest.getRemoteHost() );
+    // The hostname is resolved from the IP by the context if a sink asks for it, getRemoteHost() may block on DNS.
     auditor.audit( Action.ACCESS, pathWithContext, ResourceType.URI, ActionOutcome.UNAVAILABLE );
     
     if( match != null ) {
       Chain chain = match.getValue();
       servletRequest.setAttribute( AbstractGatewayFilter.TARGET_SERVICE_ROLE, chain.getResourceRole() );
+      RequestTimer timer = Timings.begin( topology, chain.getResourceRole(), received );
+      if( timer != null ) {
+        timer.record( "route", routed - received );
+      }
+      Trace trace = Tracer.begin( topology, chain.getResourceRole(), httpRequest.getMethod(), pathWithContext,
+          httpRequest.getHeader( Tracer.TRACEPARENT ), received );
+      chain.getRequests().increment();
+      boolean failed = true;
       try {
         chain.doFilter( servletRequest, servletResponse );
+        failed = httpResponse.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
       } catch( IOException e ) {
         LOG.failedToExecuteFilter( e );
         auditor.audit( Action.ACCESS, pathWithContext, ResourceType.URI, ActionOutcome.FAILURE );
@@ -147,6 +169,12 @@ public class GatewayFilter implements Filter {
         LOG.failedToExecuteFilter( e );
         auditor.audit( Action.ACCESS, pathWithContext, ResourceType.URI, ActionOutcome.FAILURE );
         throw new ServletException( e );
+      } finally {
+        if( failed ) {
+          chain.getErrors().increment();
+        }
+        Timings.end( timer );
+        Tracer.end( trace, httpResponse.getStatus() );
       }
     } else {
       LOG.failedToMatchPath( path );
@@ -192,13 +220,15 @@ public class GatewayFilter implements Filter {
   
   private void assignCorrelationRequestId() {
     CorrelationContext correlationContext = CorrelationServiceFactory.getCorrelationService().createContext();
-    correlationContext.setRequestId( UUID.randomUUID().toString() );
+    correlationContext.setRequestId( CorrelationIdGenerator.nextId() );
   }
 
   private class Chain implements FilterChain {
 
     private List<Holder> chain;
     private String resourceRole; 
+    private Counter requests;
+    private Counter errors;
 
     private Chain() {
       this.chain = new ArrayList<Holder>();
@@ -232,6 +262,21 @@ public class GatewayFilter implements Filter {
       this.resourceRole = resourceRole;
     }
 
+    // Looked up on first use since the topology is only known once the filter is initialized.
+    private Counter getRequests() {
+      if( requests == null ) {
+        requests = MetricsRegistry.getDefault().counter( "gateway.requests." + topology + "." + resourceRole );
+      }
+      return requests;
+    }
+
+    private Counter getErrors() {
+      if( errors == null ) {
+        errors = MetricsRegistry.getDefault().counter( "gateway.errors." + topology + "." + resourceRole );
+      }
+      return errors;
+    }
+
   }
 
   private class Holder implements Filter, FilterConfig {
@@ -243,6 +288,7 @@ public class GatewayFilter implements Filter {
     private Class<? extends Filter> clazz;
     private String type;
     private String resourceRole;
+    private String span;
 
     private Holder( String path, String name, Filter filter, Map<String,String> params, String resourceRole ) throws URISyntaxException {
 //      this.path = path;
@@ -253,6 +299,7 @@ public class GatewayFilter implements Filter {
       this.clazz = filter.getClass();
       this.type = clazz.getCanonicalName();
       this.resourceRole = resourceRole;
+      this.span = "filter." + name;
     }
 
 //    private Holder( String path, String name, Class<WarDirFilter> clazz, Map<String,String> params ) throws URISyntaxException {
@@ -274,6 +321,7 @@ public class GatewayFilter implements Filter {
       this.clazz = null;
       this.type = clazz;
       this.resourceRole = resourceRole;
+      this.span = "filter." + name;
     }
 
     @Override
@@ -312,7 +360,27 @@ public class GatewayFilter implements Filter {
     @Override
     public void doFilter( ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain ) throws IOException, ServletException {
       final Filter filter = getInstance();
-      filter.doFilter( servletRequest, servletResponse, filterChain );
+      Trace trace = Tracer.current();
+      int traced = trace == null ? -1 : trace.startSpan( span );
+      try {
+        RequestTimer timer = Timings.current();
+        if( timer == null ) {
+          filter.doFilter( servletRequest, servletResponse, filterChain );
+        } else {
+          // Record the time spent in this filter excluding the rest of the chain.
+          long nested = timer.enter();
+          long start = System.nanoTime();
+          try {
+            filter.doFilter( servletRequest, servletResponse, filterChain );
+          } finally {
+            timer.exit( span, start, nested );
+          }
+        }
+      } finally {
+        if( trace != null ) {
+          trace.endSpan( traced );
+        }
+      }
     }
 
     @Override
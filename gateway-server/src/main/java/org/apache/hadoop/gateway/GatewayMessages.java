@@ -27,6 +27,7 @@ import org.apache.hadoop.gateway.util.urltemplate.Template;
 
 import java.io.File;
 import java.net.URI;
+import java.net.URL;
 import java.util.Date;
 import java.util.Map;
 import java.util.Set;
@@ -270,6 +271,15 @@ public interface GatewayMessages {
 
   @Message( level = MessageLevel.ERROR, text = "Failed to get map from Json string {0}: {1}" )
   void failedToGetMapFromJsonString( String json, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.ERROR, text = "Failed to persist the service registry to {0}: {1}" )
+  void failedToPersistServiceRegistry( String fileName, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+  @Message( level = MessageLevel.INFO, text = "Reloaded the host map of cluster {0} from {1}" )
+  void reloadedHostMap( String clusterName, URL url );
+
+  @Message( level = MessageLevel.ERROR, text = "Failed to reload the host map of cluster {0} from {1}: {2}" )
+  void failedToReloadHostMap( String clusterName, URL url, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
   
   @Message( level = MessageLevel.DEBUG, text = "Successful Knox->Hadoop SPNegotiation authentication for URL: {0}" )
   void successfulSPNegoAuthn(String uri);
@@ -325,4 +335,7 @@ public interface GatewayMessages {
 
   @Message( level = MessageLevel.INFO, text = "Computed roles/groups: {0} for principal: {1}" )
   void lookedUpUserRoles(Set<String> roleNames, String userName);
+
+  @Message( level = MessageLevel.WARN, text = "Failed to register or unregister the metrics MBean {0}: {1}" )
+  void failedToRegisterMetricsMBean( String name, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
 }
@@ -30,6 +30,7 @@ import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
 import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.config.impl.GatewayConfigImpl;
 import org.apache.hadoop.gateway.deploy.DeploymentFactory;
+import org.apache.hadoop.gateway.dispatch.CachingDnsResolver;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.i18n.resources.ResourcesFactory;
 import org.apache.hadoop.gateway.services.GatewayServices;
@@ -37,6 +38,8 @@ import org.apache.hadoop.gateway.services.ServiceLifecycleException;
 import org.apache.hadoop.gateway.services.topology.TopologyService;
 import org.apache.hadoop.gateway.services.registry.ServiceRegistry;
 import org.apache.hadoop.gateway.services.security.SSLService;
+import org.apache.hadoop.gateway.timing.Timings;
+import org.apache.hadoop.gateway.trace.Tracer;
 import org.apache.hadoop.gateway.topology.Topology;
 import org.apache.hadoop.gateway.topology.TopologyEvent;
 import org.apache.hadoop.gateway.topology.TopologyListener;
@@ -241,6 +244,9 @@ public class GatewayServer {
   public GatewayServer( GatewayConfig config, Properties options ) {
       this.config = config;
       this.listener = new InternalTopologyListener();
+      Timings.configure( config.isTimingEnabled(), config.isServerTimingHeaderEnabled() );
+      Tracer.configure( config );
+      CachingDnsResolver.configure( config.getDnsCacheTtl(), config.getDnsCacheNegativeTtl() );
   }
 
 //  private void setupSslExample() throws Exception {
@@ -322,6 +328,7 @@ public class GatewayServer {
     monitor.stopMonitor();
     jetty.stop();
     jetty.join();
+    Tracer.shutdown();
     log.stoppedGateway();
   }
 
@@ -106,6 +106,15 @@ public class GatewayConfigImpl extends Configuration implements GatewayConfig {
   public static final String DEFAULT_DEPLOYMENT_DIR = "deployments";
   private static final String SSL_ENABLED = "ssl.enabled";
   private static final String SSL_EXCLUDE_PROTOCOLS = "ssl.exclude.protocols";
+  public static final String TIMING_ENABLED = GATEWAY_CONFIG_FILE_PREFIX + ".timing.enabled";
+  public static final String SERVER_TIMING_HEADER_ENABLED = GATEWAY_CONFIG_FILE_PREFIX + ".timing.server.header.enabled";
+  public static final String TRACE_PREFIX = GATEWAY_CONFIG_FILE_PREFIX + ".trace.";
+  public static final String TRACE_SAMPLE_RATE = "sample.rate";
+  public static final String TRACE_SLOW_THRESHOLD = "slow.threshold";
+  public static final String TRACE_BUFFER_SIZE = TRACE_PREFIX + "buffer.size";
+  public static final String TRACE_FILE = TRACE_PREFIX + "file";
+  public static final String DNS_CACHE_TTL = GATEWAY_CONFIG_FILE_PREFIX + ".dns.cache.ttl";
+  public static final String DNS_CACHE_NEGATIVE_TTL = GATEWAY_CONFIG_FILE_PREFIX + ".dns.cache.negative.ttl";
 //  public static final String DEFAULT_SHIRO_CONFIG_FILE = "shiro.ini";
 
   public GatewayConfigImpl() {
@@ -349,4 +358,58 @@ public class GatewayConfigImpl extends Configuration implements GatewayConfig {
     return protocols;
   }
   
+  @Override
+  public boolean isTimingEnabled() {
+    String enabled = get( TIMING_ENABLED, "true" );
+    return "true".equals( enabled );
+  }
+
+  @Override
+  public boolean isServerTimingHeaderEnabled() {
+    String enabled = get( SERVER_TIMING_HEADER_ENABLED, "false" );
+    return "true".equals( enabled );
+  }
+
+
+  @Override
+  public double getTraceSampleRate( String topology ) {
+    return Double.parseDouble( getTraceProperty( topology, TRACE_SAMPLE_RATE, "0.0" ) );
+  }
+
+  @Override
+  public long getTraceSlowThreshold( String topology ) {
+    return Long.parseLong( getTraceProperty( topology, TRACE_SLOW_THRESHOLD, "-1" ) );
+  }
+
+  @Override
+  public int getTraceBufferSize() {
+    return Integer.parseInt( get( TRACE_BUFFER_SIZE, "100" ) );
+  }
+
+  @Override
+  public String getTraceFile() {
+    return get( TRACE_FILE );
+  }
+
+  @Override
+  public long getDnsCacheTtl() {
+    return Long.parseLong( get( DNS_CACHE_TTL, "60000" ).trim() );
+  }
+
+  @Override
+  public long getDnsCacheNegativeTtl() {
+    return Long.parseLong( get( DNS_CACHE_NEGATIVE_TTL, "10000" ).trim() );
+  }
+
+  // A topology specific value overrides the gateway wide one.
+  private String getTraceProperty( String topology, String name, String defaultValue ) {
+    String value = null;
+    if( topology != null ) {
+      value = get( TRACE_PREFIX + topology + "." + name );
+    }
+    if( value == null ) {
+      value = get( TRACE_PREFIX + name, defaultValue );
+    }
+    return value.trim();
+  }
 }
@@ -0,0 +1,36 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter;
+
+import org.apache.hadoop.gateway.i18n.messages.Message;
+import org.apache.hadoop.gateway.i18n.messages.MessageLevel;
+import org.apache.hadoop.gateway.i18n.messages.Messages;
+import org.apache.hadoop.gateway.i18n.messages.StackTrace;
+
+@Messages(logger="org.apache.hadoop.gateway.trace.body")
+public interface BodyCaptureMessages {
+
+  @Message( level = MessageLevel.INFO, text = "{0} {1} {2} topology={3} role={4} user={5}\nrequest body ({6} of {7} bytes): {8}\nresponse body ({9} of {10} bytes): {11}" )
+  void capturedExchange( String method, String url, int status, String topology, String role, String user,
+      int requestCaptured, long requestTotal, String requestBody,
+      int responseCaptured, long responseTotal, String responseBody );
+
+  @Message( level = MessageLevel.WARN, text = "Failed to write captured bodies: {0}" )
+  void failedToWriteCapturedExchange( @StackTrace( level = MessageLevel.DEBUG ) Exception e );
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter;
+
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Formats and logs captured exchanges on a background thread.  Exchanges are handed over
+ * through a bounded queue, when it is full the exchange is dropped rather than slowing the
+ * request down.
+ */
+class BodyCaptureWriter implements Runnable {
+
+  static final int DEFAULT_CAPACITY = 32;
+
+  private static final BodyCaptureMessages LOG = MessagesFactory.get( BodyCaptureMessages.class );
+  private static final Charset DEFAULT_CHARSET = Charset.forName( "UTF-8" );
+
+  private static BodyCaptureWriter instance;
+
+  private final BlockingQueue<Exchange> queue;
+
+  BodyCaptureWriter( int capacity ) {
+    queue = new ArrayBlockingQueue<Exchange>( capacity );
+  }
+
+  static synchronized BodyCaptureWriter getInstance() {
+    if( instance == null ) {
+      instance = new BodyCaptureWriter( DEFAULT_CAPACITY );
+      Thread thread = new Thread( instance, "gateway-body-capture" );
+      thread.setDaemon( true );
+      thread.start();
+    }
+    return instance;
+  }
+
+  /**
+   * @return False if the queue is full, the caller still owns the exchange's buffers.
+   */
+  boolean offer( Exchange exchange ) {
+    return queue.offer( exchange );
+  }
+
+  @Override
+  public void run() {
+    while( true ) {
+      Exchange exchange;
+      try {
+        exchange = queue.take();
+      } catch( InterruptedException e ) {
+        break;
+      }
+      try {
+        write( exchange );
+      } catch( RuntimeException e ) {
+        LOG.failedToWriteCapturedExchange( e );
+      } finally {
+        exchange.release();
+      }
+    }
+  }
+
+  void write( Exchange exchange ) {
+    CaptureBufferPool.Buffer request = exchange.request;
+    CaptureBufferPool.Buffer response = exchange.response;
+    LOG.capturedExchange( exchange.method, exchange.url, exchange.status,
+        exchange.topology, exchange.role, exchange.user,
+        request.getLength(), request.getTotal(), toText( request, exchange.requestContentType ),
+        response.getLength(), response.getTotal(), toText( response, exchange.responseContentType ) );
+  }
+
+  static String toText( CaptureBufferPool.Buffer buffer, String contentType ) {
+    String text;
+    if( buffer.getLength() == 0 ) {
+      text = "";
+    } else if( isText( contentType ) ) {
+      text = new String( buffer.getData(), 0, buffer.getLength(), getCharset( contentType ) );
+    } else {
+      text = "[" + contentType + "]";
+    }
+    return text;
+  }
+
+  private static boolean isText( String contentType ) {
+    boolean text = true;
+    if( contentType != null ) {
+      String type = contentType.toLowerCase( Locale.ENGLISH );
+      text = type.startsWith( "text/" )
+          || type.contains( "json" )
+          || type.contains( "xml" )
+          || type.contains( "javascript" )
+          || type.contains( "x-www-form-urlencoded" );
+    }
+    return text;
+  }
+
+  private static Charset getCharset( String contentType ) {
+    Charset charset = DEFAULT_CHARSET;
+    int index = contentType == null ? -1 : contentType.toLowerCase( Locale.ENGLISH ).indexOf( "charset=" );
+    if( index >= 0 ) {
+      String name = contentType.substring( index + 8 ).trim();
+      int end = name.indexOf( ';' );
+      if( end >= 0 ) {
+        name = name.substring( 0, end ).trim();
+      }
+      name = name.replace( "\"", "" );
+      try {
+        charset = Charset.forName( name );
+      } catch( IllegalArgumentException e ) {
+        // Unknown or illegal charset, use the default.
+      }
+    }
+    return charset;
+  }
+
+  static class Exchange {
+
+    String topology;
+    String role;
+    String user;
+    String method;
+    String url;
+    int status;
+    String requestContentType;
+    String responseContentType;
+    CaptureBufferPool.Buffer request;
+    CaptureBufferPool.Buffer response;
+
+    void release() {
+      request.release();
+      response.release();
+    }
+
+  }
+
+}
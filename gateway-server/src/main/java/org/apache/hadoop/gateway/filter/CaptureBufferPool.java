@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of fixed size buffers for captured bodies.  Buffers are allocated on demand
+ * up to the capacity of the pool, once all are in use captures are skipped rather than waited for.
+ */
+class CaptureBufferPool {
+
+  private final int bufferSize;
+  private final int capacity;
+  private final BlockingQueue<Buffer> free;
+  private final AtomicInteger allocated;
+
+  CaptureBufferPool( int bufferSize, int capacity ) {
+    this.bufferSize = bufferSize;
+    this.capacity = capacity;
+    this.free = new ArrayBlockingQueue<Buffer>( capacity );
+    this.allocated = new AtomicInteger();
+  }
+
+  int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * @return A free buffer or null if they are all in use.
+   */
+  Buffer acquire() {
+    Buffer buffer = free.poll();
+    if( buffer == null ) {
+      if( allocated.incrementAndGet() <= capacity ) {
+        buffer = new Buffer( this, bufferSize );
+      } else {
+        allocated.decrementAndGet();
+      }
+    }
+    return buffer;
+  }
+
+  private void release( Buffer buffer ) {
+    buffer.length = 0;
+    buffer.total = 0;
+    if( !free.offer( buffer ) ) {
+      allocated.decrementAndGet();
+    }
+  }
+
+  /**
+   * Keeps the first bytes written to it and counts the rest.
+   */
+  static class Buffer {
+
+    private final CaptureBufferPool pool;
+    private final byte[] data;
+    private int length;
+    private long total;
+
+    private Buffer( CaptureBufferPool pool, int size ) {
+      this.pool = pool;
+      this.data = new byte[ size ];
+    }
+
+    void write( int b ) {
+      if( length < data.length ) {
+        data[ length++ ] = (byte)b;
+      }
+      total++;
+    }
+
+    void write( byte[] bytes, int offset, int count ) {
+      int copy = Math.min( count, data.length - length );
+      if( copy > 0 ) {
+        System.arraycopy( bytes, offset, data, length, copy );
+        length += copy;
+      }
+      total += count;
+    }
+
+    byte[] getData() {
+      return data;
+    }
+
+    int getLength() {
+      return length;
+    }
+
+    /**
+     * @return The number of bytes written, including those that didn't fit.
+     */
+    long getTotal() {
+      return total;
+    }
+
+    void release() {
+      pool.release( this );
+    }
+
+  }
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.IOException;
+
+/**
+ * Copies the request body into a capture buffer as it is read.
+ */
+class CaptureRequestWrapper extends HttpServletRequestWrapper {
+
+  private final CaptureBufferPool.Buffer buffer;
+  private ServletInputStream stream;
+
+  CaptureRequestWrapper( HttpServletRequest request, CaptureBufferPool.Buffer buffer ) {
+    super( request );
+    this.buffer = buffer;
+  }
+
+  @Override
+  public ServletInputStream getInputStream() throws IOException {
+    if( stream == null ) {
+      stream = new CaptureInputStream( super.getInputStream() );
+    }
+    return stream;
+  }
+
+  private class CaptureInputStream extends ServletInputStream {
+
+    private final ServletInputStream input;
+
+    private CaptureInputStream( ServletInputStream input ) {
+      this.input = input;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = input.read();
+      if( b >= 0 ) {
+        buffer.write( b );
+      }
+      return b;
+    }
+
+    @Override
+    public int read( byte[] bytes, int offset, int length ) throws IOException {
+      int count = input.read( bytes, offset, length );
+      if( count > 0 ) {
+        buffer.write( bytes, offset, count );
+      }
+      return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return input.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+      input.close();
+    }
+
+  }
+
+}
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter;
+
+import org.apache.hadoop.io.IOUtils;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Copies the response body into a capture buffer.  When the wrapped response is itself a
+ * GatewayResponse the body is captured as it is streamed into it so that its rewriting
+ * still applies, otherwise it is captured as it is written.
+ */
+class CaptureResponseWrapper extends GatewayResponseWrapper {
+
+  private static final int STREAM_COPY_BUFFER_SIZE = 4096;
+
+  private final CaptureBufferPool.Buffer buffer;
+  private ServletOutputStream stream;
+
+  CaptureResponseWrapper( HttpServletResponse response, CaptureBufferPool.Buffer buffer ) {
+    super( response );
+    this.buffer = buffer;
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() throws IOException {
+    if( stream == null ) {
+      stream = new CaptureOutputStream( super.getOutputStream() );
+    }
+    return stream;
+  }
+
+  @Override
+  public OutputStream getRawOutputStream() throws IOException {
+    return getOutputStream();
+  }
+
+  @Override
+  public void streamResponse( InputStream input ) throws IOException {
+    InputStream captured = new CaptureInputStream( input );
+    if( getResponse() instanceof GatewayResponse ) {
+      ((GatewayResponse)getResponse()).streamResponse( captured );
+    } else {
+      OutputStream output = getResponse().getOutputStream();
+      IOUtils.copyBytes( captured, output, STREAM_COPY_BUFFER_SIZE );
+      output.close();
+    }
+  }
+
+  private class CaptureInputStream extends FilterInputStream {
+
+    private CaptureInputStream( InputStream input ) {
+      super( input );
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if( b >= 0 ) {
+        buffer.write( b );
+      }
+      return b;
+    }
+
+    @Override
+    public int read( byte[] bytes, int offset, int length ) throws IOException {
+      int count = super.read( bytes, offset, length );
+      if( count > 0 ) {
+        buffer.write( bytes, offset, count );
+      }
+      return count;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+  }
+
+  private class CaptureOutputStream extends ServletOutputStream {
+
+    private final ServletOutputStream output;
+
+    private CaptureOutputStream( ServletOutputStream output ) {
+      this.output = output;
+    }
+
+    @Override
+    public void write( int b ) throws IOException {
+      output.write( b );
+      buffer.write( b );
+    }
+
+    @Override
+    public void write( byte[] bytes, int offset, int length ) throws IOException {
+      output.write( bytes, offset, length );
+      buffer.write( bytes, offset, length );
+    }
+
+    @Override
+    public void flush() throws IOException {
+      output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      output.close();
+    }
+
+  }
+
+}
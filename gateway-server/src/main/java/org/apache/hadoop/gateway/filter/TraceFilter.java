@@ -17,21 +17,128 @@
  */
 package org.apache.hadoop.gateway.filter;
 
+import org.apache.hadoop.gateway.metrics.Counter;
+import org.apache.hadoop.gateway.metrics.MetricsRegistry;
+import org.apache.hadoop.gateway.security.SubjectUtils;
+import org.apache.hadoop.gateway.services.GatewayServices;
+import org.apache.hadoop.gateway.trace.BodyCapture;
+import org.apache.hadoop.gateway.trace.BodyCapturePolicy;
+
+import javax.security.auth.Subject;
 import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Random;
 
 /**
- *
+ * Captures request and response bodies of a sample of requests for debugging.  The
+ * GatewayFactory places this filter just ahead of each dispatch.  Which requests are captured
+ * is decided per request from the {@link BodyCapture} policy so it can be switched at runtime.
+ * <p>
+ * Bodies are copied into pooled buffers as they stream through, truncated at the policy's
+ * maxBytes, and logged by a background thread to the org.apache.hadoop.gateway.trace.body
+ * logger.  When the buffers or the writer's queue run out the request isn't captured.
  */
-//TODO: Implement the trace filter.
 public class TraceFilter extends AbstractGatewayFilter {
 
+  public static final String FILTER_NAME = "trace";
+
+  // Two buffers per captured request.
+  private static final int MAX_BUFFERS = 2 * BodyCaptureWriter.DEFAULT_CAPACITY;
+  private static final Counter CAPTURED = MetricsRegistry.getDefault().counter( "trace.capture.captured" );
+  private static final Counter DROPPED = MetricsRegistry.getDefault().counter( "trace.capture.dropped" );
+  private static final Random RANDOM = new Random();
+
+  private static volatile CaptureBufferPool pool;
+
+  private String topology;
+
+  @Override
+  public void init( FilterConfig filterConfig ) throws ServletException {
+    super.init( filterConfig );
+    if( filterConfig != null && filterConfig.getServletContext() != null ) {
+      topology = (String)filterConfig.getServletContext().getAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE );
+    }
+  }
+
   @Override
   public void doFilter( HttpServletRequest request, HttpServletResponse response, FilterChain chain ) throws IOException, ServletException {
-    chain.doFilter( request, response );
+    BodyCapturePolicy policy = BodyCapture.getPolicy();
+    String role = (String)request.getAttribute( TARGET_SERVICE_ROLE );
+    String user = null;
+    boolean capture = policy.matches( topology, role );
+    if( capture ) {
+      user = getUser();
+      capture = policy.matchesUser( user ) && policy.isSampled( RANDOM.nextLong() );
+    }
+    if( capture ) {
+      capture( request, response, chain, getPool( policy.getMaxBytes() ), role, user );
+    } else {
+      chain.doFilter( request, response );
+    }
+  }
+
+  private void capture( HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+      CaptureBufferPool pool, String role, String user ) throws IOException, ServletException {
+    CaptureBufferPool.Buffer requestBuffer = pool.acquire();
+    CaptureBufferPool.Buffer responseBuffer = requestBuffer == null ? null : pool.acquire();
+    if( responseBuffer == null ) {
+      if( requestBuffer != null ) {
+        requestBuffer.release();
+      }
+      DROPPED.increment();
+      chain.doFilter( request, response );
+    } else {
+      CaptureResponseWrapper wrapper = new CaptureResponseWrapper( response, responseBuffer );
+      try {
+        chain.doFilter( new CaptureRequestWrapper( request, requestBuffer ), wrapper );
+      } finally {
+        BodyCaptureWriter.Exchange exchange = new BodyCaptureWriter.Exchange();
+        exchange.topology = topology;
+        exchange.role = role;
+        exchange.user = user;
+        exchange.method = request.getMethod();
+        exchange.url = request.getRequestURL().toString();
+        exchange.status = response.getStatus();
+        exchange.requestContentType = request.getContentType();
+        exchange.responseContentType = response.getContentType();
+        exchange.request = requestBuffer;
+        exchange.response = responseBuffer;
+        if( BodyCaptureWriter.getInstance().offer( exchange ) ) {
+          CAPTURED.increment();
+        } else {
+          exchange.release();
+          DROPPED.increment();
+        }
+      }
+    }
+  }
+
+  // The pool is replaced when the policy's truncation size changes, buffers return to the pool they came from.
+  private static CaptureBufferPool getPool( int bufferSize ) {
+    CaptureBufferPool current = pool;
+    if( current == null || current.getBufferSize() != bufferSize ) {
+      synchronized( TraceFilter.class ) {
+        current = pool;
+        if( current == null || current.getBufferSize() != bufferSize ) {
+          current = new CaptureBufferPool( bufferSize, MAX_BUFFERS );
+          pool = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  private static String getUser() {
+    String user = null;
+    Subject subject = SubjectUtils.getCurrentSubject();
+    if( subject != null ) {
+      user = SubjectUtils.getEffectivePrincipalName( subject );
+    }
+    return user;
   }
 
 }
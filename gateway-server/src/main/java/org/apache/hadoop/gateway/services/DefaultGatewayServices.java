@@ -25,6 +25,7 @@ import org.apache.hadoop.gateway.descriptor.ResourceDescriptor;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.services.topology.impl.DefaultTopologyService;
 import org.apache.hadoop.gateway.services.hostmap.impl.DefaultHostMapperService;
+import org.apache.hadoop.gateway.services.metrics.impl.DefaultMetricsService;
 import org.apache.hadoop.gateway.services.registry.impl.DefaultServiceRegistryService;
 import org.apache.hadoop.gateway.services.security.KeystoreServiceException;
 import org.apache.hadoop.gateway.services.security.SSLService;
@@ -101,6 +102,10 @@ public class DefaultGatewayServices implements GatewayServices {
     DefaultTopologyService tops = new DefaultTopologyService();
     tops.init(  config, options  );
     services.put(  TOPOLOGY_SERVICE, tops  );
+
+    DefaultMetricsService metrics = new DefaultMetricsService();
+    metrics.init( config, options );
+    services.put( METRICS_SERVICE, metrics );
   }
   
   public void start() throws ServiceLifecycleException {
@@ -119,6 +124,9 @@ public class DefaultGatewayServices implements GatewayServices {
 
     DefaultTopologyService tops = (DefaultTopologyService)services.get(TOPOLOGY_SERVICE);
     tops.start();
+
+    DefaultMetricsService metrics = (DefaultMetricsService)services.get(METRICS_SERVICE);
+    metrics.start();
   }
 
   public void stop() throws ServiceLifecycleException {
@@ -137,6 +145,12 @@ public class DefaultGatewayServices implements GatewayServices {
 
     DefaultTopologyService tops = (DefaultTopologyService)services.get(TOPOLOGY_SERVICE);
     tops.stop();
+
+    DefaultMetricsService metrics = (DefaultMetricsService)services.get(METRICS_SERVICE);
+    metrics.stop();
+
+    DefaultServiceRegistryService sr = (DefaultServiceRegistryService) services.get(SERVICE_REGISTRY_SERVICE);
+    sr.stop();
   }
   
   /* (non-Javadoc)
@@ -116,6 +116,9 @@ public class HssoGatewayServices implements GatewayServices {
 
     SSLService ssl = (SSLService) services.get(SSL_SERVICE);
     ssl.stop();
+
+    DefaultServiceRegistryService sr = (DefaultServiceRegistryService) services.get(SERVICE_REGISTRY_SERVICE);
+    sr.stop();
   }
   
   /* (non-Javadoc)
@@ -17,20 +17,26 @@
  */
 package org.apache.hadoop.gateway.services.hostmap.impl;
 
+import org.apache.hadoop.gateway.GatewayMessages;
 import org.apache.hadoop.gateway.config.GatewayConfig;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.services.ServiceLifecycleException;
+import org.apache.hadoop.gateway.services.hostmap.FileBasedHostMapper;
 import org.apache.hadoop.gateway.services.hostmap.HostMapper;
 import org.apache.hadoop.gateway.services.hostmap.HostMapperService;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- *
- *
+ * Holds the host mapper of each cluster.  File based host mappers are replaced with a freshly loaded one when
+ * their file changes.
  */
 public class DefaultHostMapperService implements HostMapperService {
 
+  private static GatewayMessages LOG = MessagesFactory.get( GatewayMessages.class );
+
   private ConcurrentHashMap<String, HostMapper> map = new ConcurrentHashMap<String, HostMapper>();
 
   /* (non-Javadoc)
@@ -59,7 +65,23 @@ public class DefaultHostMapperService implements HostMapperService {
    */
   @Override
   public HostMapper getHostMapper( String clusterName ) {
-    return map.get( clusterName );
+    HostMapper hostMapper = map.get( clusterName );
+    if( hostMapper instanceof FileBasedHostMapper ) {
+      FileBasedHostMapper current = (FileBasedHostMapper)hostMapper;
+      try {
+        FileBasedHostMapper reloaded = current.reload();
+        if( reloaded != current ) {
+          // A mapper registered meanwhile wins over the reloaded one.
+          if( map.replace( clusterName, current, reloaded ) ) {
+            LOG.reloadedHostMap( clusterName, current.getUrl() );
+          }
+          hostMapper = map.get( clusterName );
+        }
+      } catch( IOException e ) {
+        LOG.failedToReloadHostMap( clusterName, current.getUrl(), e );
+      }
+    }
+    return hostMapper;
   }
 
   /* (non-Javadoc)
@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.metrics.impl;
+
+import org.apache.hadoop.gateway.GatewayMessages;
+import org.apache.hadoop.gateway.audit.api.AuditService;
+import org.apache.hadoop.gateway.audit.api.AuditServiceFactory;
+import org.apache.hadoop.gateway.audit.log4j.audit.AsyncLog4jAuditService;
+import org.apache.hadoop.gateway.config.GatewayConfig;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.metrics.Gauge;
+import org.apache.hadoop.gateway.metrics.MetricsRegistry;
+import org.apache.hadoop.gateway.services.ServiceLifecycleException;
+import org.apache.hadoop.gateway.services.metrics.MetricsService;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Exports the default metrics registry through the platform MBean server, each metric
+ * being a read only attribute of the org.apache.hadoop.gateway:type=Metrics MBean.
+ */
+public class DefaultMetricsService implements MetricsService {
+
+  public static final String OBJECT_NAME = "org.apache.hadoop.gateway:type=Metrics";
+  public static final String AUDIT_PENDING = "audit.pending";
+
+  private static GatewayMessages log = MessagesFactory.get( GatewayMessages.class );
+
+  private MetricsRegistry registry;
+  private ObjectName name;
+  private Gauge auditPending;
+
+  @Override
+  public void init( GatewayConfig config, Map<String, String> options ) throws ServiceLifecycleException {
+    registry = MetricsRegistry.getDefault();
+    try {
+      name = new ObjectName( OBJECT_NAME );
+    } catch( Exception e ) {
+      throw new ServiceLifecycleException( "Invalid metrics MBean name " + OBJECT_NAME, e );
+    }
+  }
+
+  @Override
+  public void start() throws ServiceLifecycleException {
+    AuditService auditService = AuditServiceFactory.getAuditService();
+    if( auditService instanceof AsyncLog4jAuditService ) {
+      final AsyncLog4jAuditService async = (AsyncLog4jAuditService)auditService;
+      auditPending = new Gauge() {
+        @Override
+        public long getValue() {
+          return async.getPendingRecords();
+        }
+      };
+      registry.register( AUDIT_PENDING, auditPending );
+    }
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      // Left behind by a previous instance within the same JVM.
+      if( server.isRegistered( name ) ) {
+        server.unregisterMBean( name );
+      }
+      server.registerMBean( new MetricsMBean( registry ), name );
+    } catch( Exception e ) {
+      log.failedToRegisterMetricsMBean( OBJECT_NAME, e );
+    }
+  }
+
+  @Override
+  public void stop() throws ServiceLifecycleException {
+    if( auditPending != null ) {
+      registry.unregister( AUDIT_PENDING, auditPending );
+      auditPending = null;
+    }
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      if( server.isRegistered( name ) ) {
+        server.unregisterMBean( name );
+      }
+    } catch( Exception e ) {
+      log.failedToRegisterMetricsMBean( OBJECT_NAME, e );
+    }
+  }
+
+  @Override
+  public MetricsRegistry getRegistry() {
+    return registry;
+  }
+
+  private static class MetricsMBean implements DynamicMBean {
+
+    private MetricsRegistry registry;
+
+    private MetricsMBean( MetricsRegistry registry ) {
+      this.registry = registry;
+    }
+
+    @Override
+    public Object getAttribute( String attribute ) throws AttributeNotFoundException {
+      Long value = registry.getValue( attribute );
+      if( value == null ) {
+        throw new AttributeNotFoundException( attribute );
+      }
+      return value;
+    }
+
+    @Override
+    public AttributeList getAttributes( String[] attributes ) {
+      AttributeList list = new AttributeList();
+      for( String attribute : attributes ) {
+        Long value = registry.getValue( attribute );
+        if( value != null ) {
+          list.add( new Attribute( attribute, value ) );
+        }
+      }
+      return list;
+    }
+
+    @Override
+    public void setAttribute( Attribute attribute ) throws AttributeNotFoundException {
+      throw new AttributeNotFoundException( attribute.getName() );
+    }
+
+    @Override
+    public AttributeList setAttributes( AttributeList attributes ) {
+      return new AttributeList();
+    }
+
+    @Override
+    public Object invoke( String actionName, Object[] params, String[] signature ) {
+      throw new UnsupportedOperationException( actionName );
+    }
+
+    // Rebuilt on each call since metrics are added as topologies are deployed.
+    @Override
+    public MBeanInfo getMBeanInfo() {
+      SortedMap<String, Long> values = registry.getValues();
+      MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[ values.size() ];
+      int i = 0;
+      for( String key : values.keySet() ) {
+        attributes[ i++ ] = new MBeanAttributeInfo( key, Long.class.getName(), key, true, false, false );
+      }
+      return new MBeanInfo( getClass().getName(), "Gateway metrics", attributes, null, new MBeanOperationInfo[ 0 ], null );
+    }
+
+  }
+
+}
@@ -17,9 +17,7 @@
  */
 package org.apache.hadoop.gateway.services.registry.impl;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -35,14 +33,31 @@ import org.apache.hadoop.gateway.services.security.CryptoService;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Keeps the registry as an immutable snapshot that is replaced on every change so lookups never lock.  Changes
+ * are written to the registry file in the background, a burst of registrations results in a single write.  The
+ * file is written to a temporary file first and then renamed so a crash never leaves a partial registry behind.
+ */
 public class DefaultServiceRegistryService implements ServiceRegistry, Service {
   private static GatewayMessages LOG = MessagesFactory.get( GatewayMessages.class );
-  
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  // How long to wait for more changes before writing the registry file.
+  static final long PERSIST_DELAY = 500;
+
   protected char[] chars = { 'a', 'b', 'c', 'd', 'e', 'f', 'g',
   'h', 'j', 'k', 'm', 'n', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w',
   'x', 'y', 'z', 'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'J', 'K',
@@ -50,7 +65,12 @@ public class DefaultServiceRegistryService implements ServiceRegistry, Service {
   '2', '3', '4', '5', '6', '7', '8', '9',};
 
   private CryptoService crypto;
-  private Registry registry = new Registry();
+  private volatile Map<String, Map<String, RegEntry>> registry = Collections.emptyMap();
+  private final Object writeLock = new Object();
+  // Serializes writes of the registry file, which all go through the same temporary file.
+  private final Object persistLock = new Object();
+  private final AtomicBoolean persistScheduled = new AtomicBoolean();
+  private ScheduledExecutorService persister;
 
   private String registryFileName;
   
@@ -79,7 +99,14 @@ public class DefaultServiceRegistryService implements ServiceRegistry, Service {
   }
   
   public void removeClusterServices(String clusterName) {
-    registry.remove(clusterName);
+    synchronized( writeLock ) {
+      if( registry.containsKey( clusterName ) ) {
+        Map<String, Map<String, RegEntry>> updated = new HashMap<String, Map<String, RegEntry>>( registry );
+        updated.remove( clusterName );
+        registry = Collections.unmodifiableMap( updated );
+      }
+    }
+    schedulePersist();
   }
 
   public boolean registerService(String regCode, String clusterName, String serviceName, List<String> urls) {
@@ -93,45 +120,27 @@ public class DefaultServiceRegistryService implements ServiceRegistry, Service {
     // part one is the code and part two is the signature
     boolean verified = crypto.verify("SHA256withRSA", "gateway-identity", parts[0], Base64.decodeBase64(parts[1]));
     if (verified) {
-      HashMap<String,RegEntry> clusterServices = registry.get(clusterName);
-      if (clusterServices == null) {
-        synchronized(this) {
-          clusterServices = new HashMap<String,RegEntry>();
-          registry.put(clusterName, clusterServices);
-        }
-      }
       RegEntry regEntry = new RegEntry();
       regEntry.setClusterName(clusterName);
       regEntry.setServiceName(serviceName);
-      regEntry.setUrls(urls);
-      clusterServices.put(serviceName , regEntry);
-      String json = renderAsJsonString(registry);
-      try {
-        FileUtils.write(new File(registryFileName), json);
-        rc = true;
-      } catch (IOException e) {
-        // log appropriately
-        e.printStackTrace(); //TODO: I18N
+      regEntry.setUrls(copy(urls));
+      synchronized( writeLock ) {
+        // Only the changed cluster is copied, the others are shared with the previous snapshot.
+        Map<String, RegEntry> clusterServices = registry.get( clusterName );
+        Map<String, RegEntry> updatedServices = clusterServices == null
+            ? new HashMap<String, RegEntry>() : new HashMap<String, RegEntry>( clusterServices );
+        updatedServices.put( serviceName, regEntry );
+        Map<String, Map<String, RegEntry>> updated = new HashMap<String, Map<String, RegEntry>>( registry );
+        updated.put( clusterName, Collections.unmodifiableMap( updatedServices ) );
+        registry = Collections.unmodifiableMap( updated );
       }
+      schedulePersist();
+      rc = true;
     }
     
     return rc;
   }
-  
-  private String renderAsJsonString(HashMap<String,HashMap<String,RegEntry>> registry) {
-    String json = null;
-    ObjectMapper mapper = new ObjectMapper();
-    
-    try {
-      // write JSON to a file
-      json = mapper.writeValueAsString((Object)registry);
-    
-    } catch ( JsonProcessingException e ) {
-      e.printStackTrace(); //TODO: I18N
-    }
-    return json;
-  }
-  
+
   @Override
   public String lookupServiceURL(String clusterName, String serviceName) {
     List<String> urls = lookupServiceURLs( clusterName, serviceName );
@@ -143,25 +152,78 @@ public class DefaultServiceRegistryService implements ServiceRegistry, Service {
 
   @Override
   public List<String> lookupServiceURLs( String clusterName, String serviceName ) {
-    RegEntry entry = null;
-    HashMap clusterServices = registry.get(clusterName);
-    if (clusterServices != null) {
-      entry = (RegEntry) clusterServices.get(serviceName);
+    List<String> urls = null;
+    Map<String, RegEntry> clusterServices = registry.get( clusterName );
+    if( clusterServices != null ) {
+      RegEntry entry = clusterServices.get( serviceName );
       if( entry != null ) {
-        return entry.getUrls();
+        urls = entry.getUrls();
       }
     }
-    return null;
+    return urls;
   }
-  
-  private HashMap<String, HashMap<String,RegEntry>> getMapFromJsonString(String json) {
+
+  /**
+   * Writes the current snapshot to the registry file now, cancelling the pending background write if any.
+   */
+  void persist() {
+    synchronized( persistLock ) {
+      persistScheduled.set( false );
+      if( registryFileName != null ) {
+        try {
+          File file = new File( registryFileName );
+          File temp = new File( file.getParentFile(), file.getName() + ".tmp" );
+          FileUtils.write( temp, MAPPER.writeValueAsString( registry ) );
+          if( !temp.renameTo( file ) ) {
+            // Renaming over an existing file fails on some platforms.
+            if( !file.delete() || !temp.renameTo( file ) ) {
+              throw new IOException( "Failed to rename " + temp + " to " + file );
+            }
+          }
+        } catch( IOException e ) {
+          LOG.failedToPersistServiceRegistry( registryFileName, e );
+        }
+      }
+    }
+  }
+
+  private void schedulePersist() {
+    if( persistScheduled.compareAndSet( false, true ) ) {
+      getPersister().schedule( new Runnable() {
+        @Override
+        public void run() {
+          if( persistScheduled.get() ) {
+            persist();
+          }
+        }
+      }, PERSIST_DELAY, TimeUnit.MILLISECONDS );
+    }
+  }
+
+  private synchronized ScheduledExecutorService getPersister() {
+    if( persister == null ) {
+      persister = new ScheduledThreadPoolExecutor( 1, new ThreadFactory() {
+        @Override
+        public Thread newThread( Runnable runnable ) {
+          Thread thread = new Thread( runnable, "gateway-service-registry-persister" );
+          thread.setDaemon( true );
+          return thread;
+        }
+      } );
+    }
+    return persister;
+  }
+
+  private static List<String> copy( List<String> urls ) {
+    return urls == null ? null : Collections.unmodifiableList( new ArrayList<String>( urls ) );
+  }
+
+  private Registry getMapFromJsonString(String json) {
     Registry map = null;
-    JsonFactory factory = new JsonFactory(); 
-    ObjectMapper mapper = new ObjectMapper(factory); 
     TypeReference<Registry> typeRef 
           = new TypeReference<Registry>() {}; 
     try {
-      map = mapper.readValue(json, typeRef);
+      map = MAPPER.readValue(json, typeRef);
     } catch (JsonParseException e) {
       LOG.failedToGetMapFromJsonString( json, e );
     } catch (JsonMappingException e) {
@@ -185,7 +247,17 @@ public class DefaultServiceRegistryService implements ServiceRegistry, Service {
     if (registryFile.exists()) {
       try {
         String json = FileUtils.readFileToString(registryFile);
-        registry = (Registry) getMapFromJsonString(json);
+        Registry loaded = getMapFromJsonString(json);
+        Map<String, Map<String, RegEntry>> snapshot = new HashMap<String, Map<String, RegEntry>>();
+        if( loaded != null ) {
+          for( Map.Entry<String, HashMap<String, RegEntry>> cluster : loaded.entrySet() ) {
+            for( RegEntry entry : cluster.getValue().values() ) {
+              entry.setUrls( copy( entry.getUrls() ) );
+            }
+            snapshot.put( cluster.getKey(), Collections.unmodifiableMap( new HashMap<String, RegEntry>( cluster.getValue() ) ) );
+          }
+        }
+        registry = Collections.unmodifiableMap( snapshot );
       } catch (Exception e) {
         throw new ServiceLifecycleException("Unable to load the persisted registry.", e);
       }
@@ -199,6 +271,23 @@ public class DefaultServiceRegistryService implements ServiceRegistry, Service {
 
   @Override
   public void stop() throws ServiceLifecycleException {
+    // Let a background write in progress finish before the pending change, if any, is written here.
+    ScheduledExecutorService stopped;
+    synchronized( this ) {
+      stopped = persister;
+      persister = null;
+    }
+    if( stopped != null ) {
+      stopped.shutdownNow();
+      try {
+        stopped.awaitTermination( PERSIST_DELAY, TimeUnit.MILLISECONDS );
+      } catch( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if( persistScheduled.get() ) {
+      persist();
+    }
   }
 
 }
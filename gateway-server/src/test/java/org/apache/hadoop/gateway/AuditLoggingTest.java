@@ -192,7 +192,8 @@ public class AuditLoggingTest {
     AuditContext ac = (AuditContext) event.getMDC( Log4jAuditService.MDC_AUDIT_CONTEXT_KEY );
     assertThat( ac, notNullValue() );
     assertThat( ac.getRemoteIp(), is( ADDRESS ) );
-    assertThat( ac.getRemoteHostname(), is( HOST ) );
+    // The hostname is no longer taken from the request, "address" is not an IP so it never resolves.
+    assertThat( ac.getRemoteHostname(), nullValue() );
     assertThat( (String) event.getMDC( AuditConstants.MDC_SERVICE_KEY ), is( AuditConstants.KNOX_SERVICE_NAME ) );
     assertThat( (String) event.getMDC( AuditConstants.MDC_COMPONENT_KEY ), is( AuditConstants.KNOX_COMPONENT_NAME ) );
     assertThat( (String) event.getLoggerName(), is( AuditConstants.DEFAULT_AUDITOR_NAME ) );
@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.filter;
+
+import org.apache.hadoop.gateway.metrics.MetricsRegistry;
+import org.apache.hadoop.gateway.services.GatewayServices;
+import org.apache.hadoop.gateway.trace.BodyCapture;
+import org.apache.hadoop.gateway.trace.BodyCapturePolicy;
+import org.apache.hadoop.test.mock.MockServletInputStream;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TraceFilterTest {
+
+  @After
+  public void cleanup() {
+    BodyCapture.setPolicy( null );
+  }
+
+  @Test
+  public void testRequestsAreNotWrappedUnlessCaptured() throws Exception {
+    TraceFilter filter = createFilter( "cluster" );
+    HttpServletRequest request = createRequest( "WEBHDFS", "body" );
+    HttpServletResponse response = createResponse( new ByteArrayOutputStream() );
+    EchoChain chain = new EchoChain();
+    filter.doFilter( request, response, chain );
+    assertThat( chain.request, sameInstance( (ServletRequest)request ) );
+    assertThat( chain.response, sameInstance( (ServletResponse)response ) );
+
+    BodyCapture.setPolicy( new BodyCapturePolicy( true, 1.0, BodyCapturePolicy.parseNames( "other" ), null, null, 1024 ) );
+    chain = new EchoChain();
+    filter.doFilter( request, response, chain );
+    assertThat( chain.request, sameInstance( (ServletRequest)request ) );
+  }
+
+  @Test
+  public void testCapturedBodiesStillStreamThrough() throws Exception {
+    BodyCapture.setPolicy( new BodyCapturePolicy( true, 1.0,
+        BodyCapturePolicy.parseNames( "cluster" ), BodyCapturePolicy.parseNames( "WEBHDFS" ), null, 16 ) );
+    long captured = MetricsRegistry.getDefault().counter( "trace.capture.captured" ).get();
+    TraceFilter filter = createFilter( "cluster" );
+    String body = "a request body longer than the capture buffer";
+    HttpServletRequest request = createRequest( "WEBHDFS", body );
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    HttpServletResponse response = createResponse( output );
+    EchoChain chain = new EchoChain();
+    filter.doFilter( request, response, chain );
+    assertThat( chain.request, not( sameInstance( (ServletRequest)request ) ) );
+    assertThat( output.toString( "UTF-8" ), is( body ) );
+    assertThat( MetricsRegistry.getDefault().counter( "trace.capture.captured" ).get(), is( captured + 1 ) );
+  }
+
+  @Test
+  public void testBuffersAreBoundedAndTruncate() {
+    CaptureBufferPool pool = new CaptureBufferPool( 4, 2 );
+    CaptureBufferPool.Buffer first = pool.acquire();
+    CaptureBufferPool.Buffer second = pool.acquire();
+    assertThat( pool.acquire(), nullValue() );
+    first.write( 'a' );
+    first.write( "bcdef".getBytes(), 0, 5 );
+    assertThat( first.getLength(), is( 4 ) );
+    assertThat( first.getTotal(), is( 6L ) );
+    assertThat( BodyCaptureWriter.toText( first, "text/plain" ), is( "abcd" ) );
+    assertThat( BodyCaptureWriter.toText( first, "application/octet-stream" ), is( "[application/octet-stream]" ) );
+    first.release();
+    CaptureBufferPool.Buffer third = pool.acquire();
+    assertThat( third, sameInstance( first ) );
+    assertThat( third.getLength(), is( 0 ) );
+    second.release();
+    third.release();
+  }
+
+  private static TraceFilter createFilter( String topology ) throws ServletException {
+    ServletContext context = EasyMock.createNiceMock( ServletContext.class );
+    EasyMock.expect( context.getAttribute( GatewayServices.GATEWAY_CLUSTER_ATTRIBUTE ) ).andReturn( topology ).anyTimes();
+    FilterConfig config = EasyMock.createNiceMock( FilterConfig.class );
+    EasyMock.expect( config.getServletContext() ).andReturn( context ).anyTimes();
+    EasyMock.replay( context, config );
+    TraceFilter filter = new TraceFilter();
+    filter.init( config );
+    return filter;
+  }
+
+  private static HttpServletRequest createRequest( String role, String body ) throws IOException {
+    HttpServletRequest request = EasyMock.createNiceMock( HttpServletRequest.class );
+    EasyMock.expect( request.getAttribute( AbstractGatewayFilter.TARGET_SERVICE_ROLE ) ).andReturn( role ).anyTimes();
+    EasyMock.expect( request.getMethod() ).andReturn( "PUT" ).anyTimes();
+    EasyMock.expect( request.getRequestURL() ).andReturn( new StringBuffer( "http://host:8443/gateway/cluster/path" ) ).anyTimes();
+    EasyMock.expect( request.getContentType() ).andReturn( "text/plain" ).anyTimes();
+    EasyMock.expect( request.getInputStream() ).andReturn(
+        new MockServletInputStream( new ByteArrayInputStream( body.getBytes( "UTF-8" ) ) ) ).anyTimes();
+    EasyMock.replay( request );
+    return request;
+  }
+
+  private static HttpServletResponse createResponse( final OutputStream output ) throws IOException {
+    HttpServletResponse response = EasyMock.createNiceMock( HttpServletResponse.class );
+    EasyMock.expect( response.getStatus() ).andReturn( 200 ).anyTimes();
+    EasyMock.expect( response.getOutputStream() ).andReturn( new ServletOutputStream() {
+      @Override
+      public void write( int b ) throws IOException {
+        output.write( b );
+      }
+    } ).anyTimes();
+    EasyMock.replay( response );
+    return response;
+  }
+
+  // Copies the request body to the response.
+  private static class EchoChain implements FilterChain {
+    private ServletRequest request;
+    private ServletResponse response;
+    @Override
+    public void doFilter( ServletRequest request, ServletResponse response ) throws IOException, ServletException {
+      this.request = request;
+      this.response = response;
+      InputStream input = request.getInputStream();
+      OutputStream output = response.getOutputStream();
+      int b = input.read();
+      while( b >= 0 ) {
+        output.write( b );
+        b = input.read();
+      }
+      output.close();
+    }
+  }
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.services.registry.impl;
+
+import org.apache.hadoop.gateway.services.security.CryptoService;
+import org.apache.hadoop.test.TestUtils;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class DefaultServiceRegistryServiceTest {
+
+  private static CryptoService createCryptoService() {
+    CryptoService crypto = EasyMock.createNiceMock( CryptoService.class );
+    EasyMock.expect( crypto.sign( (String)EasyMock.anyObject(), (String)EasyMock.anyObject(), (String)EasyMock.anyObject() ) )
+        .andReturn( "signature".getBytes() ).anyTimes();
+    EasyMock.expect( crypto.verify( (String)EasyMock.anyObject(), (String)EasyMock.anyObject(), (String)EasyMock.anyObject(), (byte[])EasyMock.anyObject() ) )
+        .andReturn( true ).anyTimes();
+    EasyMock.replay( crypto );
+    return crypto;
+  }
+
+  private static DefaultServiceRegistryService createRegistry( File dir ) throws Exception {
+    DefaultServiceRegistryService registry = new DefaultServiceRegistryService();
+    registry.setCryptoService( createCryptoService() );
+    registry.setupRegistryFile( dir.getAbsolutePath(), "registry" );
+    return registry;
+  }
+
+  @Test
+  public void testRegisterAndLookup() throws Exception {
+    DefaultServiceRegistryService registry = createRegistry( TestUtils.createTempDir( "registry-" ) );
+    String code = registry.getRegistrationCode( "cluster" );
+    List<String> urls = Arrays.asList( "http://host1:50070/webhdfs", "http://host2:50070/webhdfs" );
+    assertThat( registry.registerService( code, "cluster", "WEBHDFS", urls ), is( true ) );
+    assertThat( registry.registerService( code, "cluster", "OOZIE", Arrays.asList( "http://host3:11000/oozie" ) ), is( true ) );
+
+    assertThat( registry.lookupServiceURL( "cluster", "WEBHDFS" ), is( "http://host1:50070/webhdfs" ) );
+    assertThat( registry.lookupServiceURLs( "cluster", "WEBHDFS" ), is( urls ) );
+    assertThat( registry.lookupServiceURL( "cluster", "OOZIE" ), is( "http://host3:11000/oozie" ) );
+    assertThat( registry.lookupServiceURL( "cluster", "HIVE" ), nullValue() );
+    assertThat( registry.lookupServiceURL( "other", "WEBHDFS" ), nullValue() );
+
+    registry.removeClusterServices( "cluster" );
+    assertThat( registry.lookupServiceURL( "cluster", "WEBHDFS" ), nullValue() );
+    registry.stop();
+  }
+
+  @Test
+  public void testPendingChangesArePersistedOnStop() throws Exception {
+    File dir = TestUtils.createTempDir( "registry-" );
+    DefaultServiceRegistryService registry = createRegistry( dir );
+    String code = registry.getRegistrationCode( "cluster" );
+    for( int i = 0; i < 100; i++ ) {
+      registry.registerService( code, "cluster", "SERVICE" + i, Arrays.asList( "http://host" + i + ":8080" ) );
+    }
+    registry.stop();
+
+    assertThat( new File( dir, "registry" ).exists(), is( true ) );
+    assertThat( new File( dir, "registry.tmp" ).exists(), is( false ) );
+
+    DefaultServiceRegistryService reloaded = createRegistry( dir );
+    for( int i = 0; i < 100; i++ ) {
+      assertThat( reloaded.lookupServiceURL( "cluster", "SERVICE" + i ), is( "http://host" + i + ":8080" ) );
+    }
+    reloaded.stop();
+  }
+
+}
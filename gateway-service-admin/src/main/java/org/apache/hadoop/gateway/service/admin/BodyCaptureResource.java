@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.trace.BodyCapture;
+import org.apache.hadoop.gateway.trace.BodyCapturePolicy;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.status;
+
+/**
+ * Switches the TraceFilter's body capture at runtime.  For example
+ * PUT /api/v1/capture?enabled=true&amp;rate=0.01&amp;topology=sandbox&amp;role=WEBHDFS&amp;maxKB=16
+ * captures one in a hundred WebHDFS requests to the sandbox topology.
+ */
+@Path( "/api/v1" )
+public class BodyCaptureResource {
+
+  private static final int BYTES_PER_KB = 1024;
+  private static final int MAX_KB = 1024;
+
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "capture" )
+  public CaptureSettings getCapture() {
+    return new CaptureSettings( BodyCapture.getPolicy() );
+  }
+
+  /**
+   * Replaces the policy, the topology, role and user parameters are comma separated lists.
+   * Responds with 400 unless maxKB is between 1 and 1024.
+   */
+  @PUT
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "capture" )
+  public Response setCapture(
+      @QueryParam( "enabled" ) @DefaultValue( "true" ) boolean enabled,
+      @QueryParam( "rate" ) @DefaultValue( "1.0" ) double rate,
+      @QueryParam( "topology" ) String topologies,
+      @QueryParam( "role" ) String roles,
+      @QueryParam( "user" ) String users,
+      @QueryParam( "maxKB" ) @DefaultValue( "64" ) int maxKB ) {
+    Response response;
+    if( maxKB < 1 || maxKB > MAX_KB ) {
+      response = status( BAD_REQUEST ).type( TEXT_PLAIN ).entity( "maxKB must be between 1 and " + MAX_KB ).build();
+    } else {
+      BodyCapture.setPolicy( new BodyCapturePolicy( enabled, rate,
+          BodyCapturePolicy.parseNames( topologies ),
+          BodyCapturePolicy.parseNames( roles ),
+          BodyCapturePolicy.parseNames( users ),
+          maxKB * BYTES_PER_KB ) );
+      response = ok( getCapture() ).build();
+    }
+    return response;
+  }
+
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class CaptureSettings {
+
+    @XmlElement
+    private boolean enabled;
+    @XmlElement
+    private double rate;
+    @XmlElement(name="topology")
+    @XmlElementWrapper(name="topologies")
+    private List<String> topologies;
+    @XmlElement(name="role")
+    @XmlElementWrapper(name="roles")
+    private List<String> roles;
+    @XmlElement(name="user")
+    @XmlElementWrapper(name="users")
+    private List<String> users;
+    @XmlElement
+    private int maxKB;
+
+    public CaptureSettings() {}
+
+    public CaptureSettings( BodyCapturePolicy policy ) {
+      this.enabled = policy.isEnabled();
+      this.rate = policy.getSampleRate();
+      this.topologies = new ArrayList<String>( policy.getTopologies() );
+      this.roles = new ArrayList<String>( policy.getRoles() );
+      this.users = new ArrayList<String>( policy.getUsers() );
+      this.maxKB = policy.getMaxBytes() / BYTES_PER_KB;
+    }
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public double getRate() {
+      return rate;
+    }
+
+    public List<String> getTopologies() {
+      return topologies;
+    }
+
+    public List<String> getRoles() {
+      return roles;
+    }
+
+    public List<String> getUsers() {
+      return users;
+    }
+
+    public int getMaxKB() {
+      return maxKB;
+    }
+  }
+
+}
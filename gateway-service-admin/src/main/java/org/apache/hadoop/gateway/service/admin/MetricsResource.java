@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.services.GatewayServices;
+import org.apache.hadoop.gateway.services.metrics.MetricsService;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+
+@Path( "/api/v1" )
+public class MetricsResource {
+
+  @Context
+  private HttpServletRequest request;
+
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "metrics" )
+  public Response getMetrics( @QueryParam( "prefix" ) String prefix ) {
+    Response response;
+    MetricsService service = getMetricsService();
+    if( service != null ) {
+      MetricWrapper wrapper = new MetricWrapper();
+      for( Map.Entry<String, Long> entry : service.getRegistry().getValues().entrySet() ) {
+        if( prefix == null || entry.getKey().startsWith( prefix ) ) {
+          wrapper.metrics.add( new Metric( entry.getKey(), entry.getValue() ) );
+        }
+      }
+      response = ok( wrapper ).build();
+    } else {
+      response = status( NOT_FOUND ).build();
+    }
+    return response;
+  }
+
+  private MetricsService getMetricsService() {
+    MetricsService service = null;
+    GatewayServices services = (GatewayServices)request.getServletContext().
+        getAttribute( GatewayServices.GATEWAY_SERVICES_ATTRIBUTE );
+    if( services != null ) {
+      service = services.getService( GatewayServices.METRICS_SERVICE );
+    }
+    return service;
+  }
+
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class Metric {
+
+    @XmlElement
+    private String name;
+    @XmlElement
+    private long value;
+
+    public Metric() {}
+
+    public Metric( String name, long value ) {
+      this.name = name;
+      this.value = value;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getValue() {
+      return value;
+    }
+  }
+
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class MetricWrapper {
+
+    @XmlElement(name="metric")
+    @XmlElementWrapper(name="metrics")
+    private List<Metric> metrics = new ArrayList<Metric>();
+
+    public List<Metric> getMetrics() {
+      return metrics;
+    }
+
+    public void setMetrics( List<Metric> metrics ) {
+      this.metrics = metrics;
+    }
+
+  }
+
+}
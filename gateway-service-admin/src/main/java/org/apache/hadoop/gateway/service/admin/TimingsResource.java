@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.timing.Histogram;
+import org.apache.hadoop.gateway.timing.Timings;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+
+@Path( "/api/v1" )
+public class TimingsResource {
+
+  private static final double NANOS_PER_MILLI = 1000000.0;
+
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "timings" )
+  public TimingWrapper getTimings( @QueryParam( "topology" ) String topology ) {
+    TimingWrapper wrapper = new TimingWrapper();
+    for( Map.Entry<String, Map<String, Map<String, Histogram.Snapshot>>> topologies : Timings.getSnapshots().entrySet() ) {
+      if( topology == null || topology.equals( topologies.getKey() ) ) {
+        for( Map.Entry<String, Map<String, Histogram.Snapshot>> roles : topologies.getValue().entrySet() ) {
+          for( Map.Entry<String, Histogram.Snapshot> spans : roles.getValue().entrySet() ) {
+            wrapper.timings.add( new Timing( topologies.getKey(), roles.getKey(), spans.getKey(), spans.getValue() ) );
+          }
+        }
+      }
+    }
+    return wrapper;
+  }
+
+  /**
+   * The distribution of a single span, durations are in milliseconds.
+   */
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class Timing {
+
+    @XmlElement
+    private String topology;
+    @XmlElement
+    private String role;
+    @XmlElement
+    private String span;
+    @XmlElement
+    private long count;
+    @XmlElement
+    private double mean;
+    @XmlElement
+    private double p50;
+    @XmlElement
+    private double p90;
+    @XmlElement
+    private double p99;
+    @XmlElement
+    private double max;
+
+    public Timing() {}
+
+    public Timing( String topology, String role, String span, Histogram.Snapshot snapshot ) {
+      this.topology = topology;
+      this.role = role;
+      this.span = span;
+      this.count = snapshot.getCount();
+      this.mean = snapshot.getMean() / NANOS_PER_MILLI;
+      this.p50 = snapshot.getValueAtPercentile( 50 ) / NANOS_PER_MILLI;
+      this.p90 = snapshot.getValueAtPercentile( 90 ) / NANOS_PER_MILLI;
+      this.p99 = snapshot.getValueAtPercentile( 99 ) / NANOS_PER_MILLI;
+      this.max = snapshot.getMax() / NANOS_PER_MILLI;
+    }
+
+    public String getTopology() {
+      return topology;
+    }
+
+    public String getRole() {
+      return role;
+    }
+
+    public String getSpan() {
+      return span;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public double getMean() {
+      return mean;
+    }
+
+    public double getP50() {
+      return p50;
+    }
+
+    public double getP90() {
+      return p90;
+    }
+
+    public double getP99() {
+      return p99;
+    }
+
+    public double getMax() {
+      return max;
+    }
+  }
+
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class TimingWrapper {
+
+    @XmlElement(name="timing")
+    @XmlElementWrapper(name="timings")
+    private List<Timing> timings = new ArrayList<Timing>();
+
+    public List<Timing> getTimings() {
+      return timings;
+    }
+
+    public void setTimings( List<Timing> timings ) {
+      this.timings = timings;
+    }
+
+  }
+
+}
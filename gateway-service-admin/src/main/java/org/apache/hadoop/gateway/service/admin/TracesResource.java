@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.service.admin;
+
+import org.apache.hadoop.gateway.trace.Trace;
+import org.apache.hadoop.gateway.trace.Tracer;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+
+@Path( "/api/v1" )
+public class TracesResource {
+
+  private static final double NANOS_PER_MILLI = 1000000.0;
+
+  /**
+   * @param topology Only return traces of requests to this topology.
+   * @param minDuration Only return traces of requests that took at least this many milliseconds.
+   */
+  @GET
+  @Produces({APPLICATION_JSON, APPLICATION_XML})
+  @Path( "traces" )
+  public TraceWrapper getTraces( @QueryParam( "topology" ) String topology, @QueryParam( "minDuration" ) Long minDuration ) {
+    TraceWrapper wrapper = new TraceWrapper();
+    List<Trace> traces = Tracer.getTraces();
+    // Newest first.
+    for( int i = traces.size() - 1; i >= 0; i-- ) {
+      Trace trace = traces.get( i );
+      if( ( topology == null || topology.equals( trace.getTopology() ) )
+          && ( minDuration == null || trace.getDuration() >= minDuration * NANOS_PER_MILLI ) ) {
+        wrapper.traces.add( new TraceInfo( trace ) );
+      }
+    }
+    return wrapper;
+  }
+
+  /**
+   * A span within a trace, times are in milliseconds from the start of the request.
+   */
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class SpanInfo {
+
+    @XmlElement
+    private String name;
+    @XmlElement
+    private String id;
+    @XmlElement
+    private String parentId;
+    @XmlElement
+    private double start;
+    @XmlElement
+    private double duration;
+
+    public SpanInfo() {}
+
+    public SpanInfo( Trace trace, int index ) {
+      this.name = trace.getSpanName( index );
+      this.id = trace.getSpanId( index );
+      this.parentId = trace.getSpanParentId( index );
+      this.start = trace.getSpanStart( index ) / NANOS_PER_MILLI;
+      this.duration = trace.getSpanDuration( index ) / NANOS_PER_MILLI;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public String getParentId() {
+      return parentId;
+    }
+
+    public double getStart() {
+      return start;
+    }
+
+    public double getDuration() {
+      return duration;
+    }
+  }
+
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class TraceInfo {
+
+    @XmlElement
+    private String traceId;
+    @XmlElement
+    private String id;
+    @XmlElement
+    private String parentId;
+    @XmlElement
+    private boolean sampled;
+    @XmlElement
+    private long timestamp;
+    @XmlElement
+    private String topology;
+    @XmlElement
+    private String role;
+    @XmlElement
+    private String method;
+    @XmlElement
+    private String path;
+    @XmlElement
+    private int status;
+    @XmlElement
+    private double duration;
+    @XmlElement(name="span")
+    @XmlElementWrapper(name="spans")
+    private List<SpanInfo> spans = new ArrayList<SpanInfo>();
+
+    public TraceInfo() {}
+
+    public TraceInfo( Trace trace ) {
+      this.traceId = trace.getTraceId();
+      this.id = trace.getId();
+      this.parentId = trace.getParentId();
+      this.sampled = trace.isSampled();
+      this.timestamp = trace.getTimestamp();
+      this.topology = trace.getTopology();
+      this.role = trace.getRole();
+      this.method = trace.getMethod();
+      this.path = trace.getPath();
+      this.status = trace.getStatus();
+      this.duration = trace.getDuration() / NANOS_PER_MILLI;
+      for( int i = 0; i < trace.getSpanCount(); i++ ) {
+        spans.add( new SpanInfo( trace, i ) );
+      }
+    }
+
+    public String getTraceId() {
+      return traceId;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public String getParentId() {
+      return parentId;
+    }
+
+    public boolean isSampled() {
+      return sampled;
+    }
+
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    public String getTopology() {
+      return topology;
+    }
+
+    public String getRole() {
+      return role;
+    }
+
+    public String getMethod() {
+      return method;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public int getStatus() {
+      return status;
+    }
+
+    public double getDuration() {
+      return duration;
+    }
+
+    public List<SpanInfo> getSpans() {
+      return spans;
+    }
+  }
+
+  @XmlAccessorType(XmlAccessType.FIELD)
+  public static class TraceWrapper {
+
+    @XmlElement(name="trace")
+    @XmlElementWrapper(name="traces")
+    private List<TraceInfo> traces = new ArrayList<TraceInfo>();
+
+    public List<TraceInfo> getTraces() {
+      return traces;
+    }
+
+    public void setTraces( List<TraceInfo> traces ) {
+      this.traces = traces;
+    }
+
+  }
+
+}
@@ -22,6 +22,7 @@ import org.apache.hadoop.gateway.deploy.ProviderDeploymentContributorBase;
 import org.apache.hadoop.gateway.descriptor.FilterDescriptor;
 import org.apache.hadoop.gateway.descriptor.FilterParamDescriptor;
 import org.apache.hadoop.gateway.descriptor.ResourceDescriptor;
+import org.apache.hadoop.gateway.ha.dispatch.HaHttpClientDispatch;
 import org.apache.hadoop.gateway.topology.Provider;
 import org.apache.hadoop.gateway.topology.Service;
 
@@ -55,7 +56,13 @@ public class HBaseDispatchDeploymentContributor extends ProviderDeploymentContri
         }
       }
     }
-    FilterDescriptor filter = resource.addFilter().name( getName() ).role( getRole() ).impl( HBaseHttpClientDispatch.class );
+    FilterDescriptor filter = resource.addFilter().name( getName() ).role( getRole() );
+    if( isHaEnabled( context, resource.role() ) ) {
+      filter.impl( HBaseHaHttpClientDispatch.class );
+      filter.param().name( HaHttpClientDispatch.RESOURCE_ROLE_ATTRIBUTE ).value( resource.role() );
+    } else {
+      filter.impl( HBaseHttpClientDispatch.class );
+    }
     filter.param().name("replayBufferSize").value(replayBufferSize);
     if( context.getGatewayConfig().isHadoopKerberosSecured() ) {
       filter.param().name("kerberos").value("true");
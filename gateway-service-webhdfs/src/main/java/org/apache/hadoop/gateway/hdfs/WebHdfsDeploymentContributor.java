@@ -24,7 +24,6 @@ import org.apache.hadoop.gateway.descriptor.ResourceDescriptor;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteRulesDescriptor;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteRulesDescriptorFactory;
 import org.apache.hadoop.gateway.filter.rewrite.api.UrlRewriteServletFilter;
-import org.apache.hadoop.gateway.topology.Provider;
 import org.apache.hadoop.gateway.topology.Service;
 
 import java.io.IOException;
@@ -34,7 +33,6 @@ import java.io.Reader;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class WebHdfsDeploymentContributor extends ServiceDeploymentContributorBase {
 
@@ -161,15 +159,6 @@ public class WebHdfsDeploymentContributor extends ServiceDeploymentContributorBa
     * Returns the name of the dispatch to use by checking to see if 'HA' is enabled.
     */
    private String getDispatchNameForNN(DeploymentContext context) {
-      Provider provider = getProviderByRole(context, "ha");
-      if (provider != null && provider.isEnabled()) {
-         Map<String, String> params = provider.getParams();
-         if (params != null) {
-            if (params.containsKey(getRole())) {
-               return "ha-hdfs";
-            }
-         }
-      }
-      return "hdfs";
+      return isHaEnabled(context, getRole()) ? "ha-hdfs" : "hdfs";
    }
 }
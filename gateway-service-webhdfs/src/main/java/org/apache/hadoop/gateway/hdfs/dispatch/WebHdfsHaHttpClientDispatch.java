@@ -17,47 +17,21 @@
  */
 package org.apache.hadoop.gateway.hdfs.dispatch;
 
-import org.apache.hadoop.gateway.filter.AbstractGatewayFilter;
-import org.apache.hadoop.gateway.ha.provider.HaProvider;
+import org.apache.hadoop.gateway.ha.dispatch.DefaultFailureClassifier;
+import org.apache.hadoop.gateway.ha.dispatch.FailureClassifier;
+import org.apache.hadoop.gateway.ha.dispatch.HaHttpClientDispatch;
 import org.apache.hadoop.gateway.ha.provider.HaServiceConfig;
-import org.apache.hadoop.gateway.ha.provider.HaServletContextListener;
-import org.apache.hadoop.gateway.hdfs.i18n.WebHdfsMessages;
-import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.methods.HttpRequestBase;
-import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.HttpEntity;
 
-import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.net.URI;
-import java.util.concurrent.atomic.AtomicInteger;
 
-public class WebHdfsHaHttpClientDispatch extends HdfsDispatch {
+public class WebHdfsHaHttpClientDispatch extends HaHttpClientDispatch {
 
-  private static final String FAILOVER_COUNTER_ATTRIBUTE = "dispatch.ha.failover.counter";
+   private static final String STANDBY_MARKERS = "StandbyException";
 
-   private static final String RETRY_COUNTER_ATTRIBUTE = "dispatch.ha.retry.counter";
-
-   public static final String RESOURCE_ROLE_ATTRIBUTE = "resource.role";
-
-   private static final WebHdfsMessages LOG = MessagesFactory.get(WebHdfsMessages.class);
-
-   private int maxFailoverAttempts;
-
-   private int failoverSleep;
-
-   private int maxRetryAttempts;
-
-   private int retrySleep;
-
-   private String resourceRole;
-
-   private HaProvider haProvider;
+   private static final String SAFE_MODE_MARKERS = "SafeModeException,RetriableException";
 
    /**
    * @throws ServletException
@@ -66,112 +40,28 @@ public class WebHdfsHaHttpClientDispatch extends HdfsDispatch {
     super();
   }
 
-   @Override
-   public void init(FilterConfig filterConfig) throws ServletException {
-      super.init(filterConfig);
-      resourceRole = filterConfig.getInitParameter(RESOURCE_ROLE_ATTRIBUTE);
-      LOG.initializingForResourceRole(resourceRole);
-      haProvider = HaServletContextListener.getHaProvider(filterConfig.getServletContext());
-      HaServiceConfig serviceConfig = haProvider.getHaDescriptor().getServiceConfig(resourceRole);
-      maxFailoverAttempts = serviceConfig.getMaxFailoverAttempts();
-      failoverSleep = serviceConfig.getFailoverSleep();
-      maxRetryAttempts = serviceConfig.getMaxRetryAttempts();
-      retrySleep = serviceConfig.getRetrySleep();
-   }
-
-   @Override
-   protected void executeRequest(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse) throws IOException {
-      HttpResponse inboundResponse = null;
-      try {
-         inboundResponse = executeOutboundRequest(outboundRequest);
-         writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
-      } catch (StandbyException e) {
-         LOG.errorReceivedFromStandbyNode(e);
-         failoverRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, e);
-      } catch (SafeModeException e) {
-         LOG.errorReceivedFromSafeModeNode(e);
-         retryRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, e);
-      } catch (IOException e) {
-         LOG.errorConnectingToServer(outboundRequest.getURI().toString(), e);
-         failoverRequest(outboundRequest, inboundRequest, outboundResponse, inboundResponse, e);
-      }
-   }
-
    /**
-    * Checks for specific outbound response codes/content to trigger a retry or failover
+    * Fails over when a standby name node answers and retries while the name node is in safe mode, unless the
+    * markers are configured for the service.
     */
    @Override
-   protected void writeOutboundResponse(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse, HttpResponse inboundResponse) throws IOException {
-      if (inboundResponse.getStatusLine().getStatusCode() == 403) {
-         BufferedHttpEntity entity = new BufferedHttpEntity(inboundResponse.getEntity());
-         inboundResponse.setEntity(entity);
-         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-         inboundResponse.getEntity().writeTo(outputStream);
-         String body = new String(outputStream.toByteArray());
-         if (body.contains("StandbyException")) {
-            throw new StandbyException();
-         }
-         if (body.contains("SafeModeException") || body.contains("RetriableException")) {
-            throw new SafeModeException();
-         }
-      }
-      super.writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
-   }
-
-   private void failoverRequest(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse, HttpResponse inboundResponse, Exception exception) throws IOException {
-      LOG.failingOverRequest(outboundRequest.getURI().toString());
-      AtomicInteger counter = (AtomicInteger) inboundRequest.getAttribute(FAILOVER_COUNTER_ATTRIBUTE);
-      if (counter == null) {
-         counter = new AtomicInteger(0);
+   protected FailureClassifier createFailureClassifier(HaServiceConfig serviceConfig) {
+      String failoverMarkers = serviceConfig.getFailoverMarkers();
+      if (failoverMarkers == null || failoverMarkers.length() == 0) {
+         failoverMarkers = STANDBY_MARKERS;
       }
-      inboundRequest.setAttribute(FAILOVER_COUNTER_ATTRIBUTE, counter);
-      if (counter.incrementAndGet() <= maxFailoverAttempts) {
-         haProvider.markFailedURL(resourceRole, outboundRequest.getURI().toString());
-         //null out target url so that rewriters run again
-         inboundRequest.setAttribute(AbstractGatewayFilter.TARGET_REQUEST_URL_ATTRIBUTE_NAME, null);
-         URI uri = getDispatchUrl(inboundRequest);
-         ((HttpRequestBase) outboundRequest).setURI(uri);
-         if (failoverSleep > 0) {
-            try {
-               Thread.sleep(failoverSleep);
-            } catch (InterruptedException e) {
-               LOG.failoverSleepFailed(resourceRole, e);
-            }
-         }
-         executeRequest(outboundRequest, inboundRequest, outboundResponse);
-      } else {
-         LOG.maxFailoverAttemptsReached(maxFailoverAttempts, resourceRole);
-         if (inboundResponse != null) {
-            writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
-         } else {
-            throw new IOException(exception);
-         }
+      String retryMarkers = serviceConfig.getRetryMarkers();
+      if (retryMarkers == null || retryMarkers.length() == 0) {
+         retryMarkers = SAFE_MODE_MARKERS;
       }
+      return new DefaultFailureClassifier(serviceConfig.getFailoverStatusCodes(), failoverMarkers, retryMarkers);
    }
 
-   private void retryRequest(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse, HttpResponse inboundResponse, Exception exception) throws IOException {
-      LOG.retryingRequest(outboundRequest.getURI().toString());
-      AtomicInteger counter = (AtomicInteger) inboundRequest.getAttribute(RETRY_COUNTER_ATTRIBUTE);
-      if (counter == null) {
-         counter = new AtomicInteger(0);
-      }
-      inboundRequest.setAttribute(RETRY_COUNTER_ATTRIBUTE, counter);
-      if (counter.incrementAndGet() <= maxRetryAttempts) {
-         if (retrySleep > 0) {
-            try {
-               Thread.sleep(retrySleep);
-            } catch (InterruptedException e) {
-               LOG.retrySleepFailed(resourceRole, e);
-            }
-         }
-         executeRequest(outboundRequest, inboundRequest, outboundResponse);
-      } else {
-         LOG.maxRetryAttemptsReached(maxRetryAttempts, resourceRole, outboundRequest.getURI().toString());
-         if (inboundResponse != null) {
-            writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
-         } else {
-            throw new IOException(exception);
-         }
-      }
+   /**
+    * Like {@link HdfsDispatch} the request body is not read before the name node redirects the client.
+    */
+   @Override
+   protected HttpEntity createRequestEntity(HttpServletRequest request) throws IOException {
+      return null;
    }
 }
@@ -134,7 +134,7 @@ public class WebHdfsHaHttpClientDispatchTest {
       }
       long elapsedTime = System.currentTimeMillis() - startTime;
       Assert.assertEquals(uri2.toString(), provider.getActiveURL(serviceName));
-      //test to make sure the sleep took place
-      Assert.assertTrue(elapsedTime > 1000);
+      //test to make sure the sleep took place, the jitter takes off up to half of the failover sleep
+      Assert.assertTrue(elapsedTime >= 500);
    }
 }
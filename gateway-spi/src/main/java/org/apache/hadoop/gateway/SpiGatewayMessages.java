@@ -48,4 +48,7 @@ public interface SpiGatewayMessages {
   
   @Message( level = MessageLevel.ERROR, text = "Failed Knox->Hadoop SPNegotiation authentication for URL: {0}" )
   void failedSPNegoAuthn(String uri);
+
+  @Message( level = MessageLevel.WARN, text = "Failed to export traces to {0}: {1}" )
+  void failedToExportTrace( String file, @StackTrace( level = MessageLevel.DEBUG ) Exception e );
 }
@@ -83,4 +83,45 @@ public interface GatewayConfig {
   String getDefaultTopologyName();
 
   String getDefaultAppRedirectPath();
+
+  /**
+   * @return If the time spent in each stage of a request should be recorded.
+   */
+  boolean isTimingEnabled();
+
+  /**
+   * @return If the recorded timings should be returned to clients in a Server-Timing header.
+   */
+  boolean isServerTimingHeaderEnabled();
+
+  /**
+   * @return The fraction of requests to the topology that are traced, from 0.0 to 1.0.
+   */
+  double getTraceSampleRate( String topology );
+
+  /**
+   * @return The duration in milliseconds at or above which a request to the topology is always traced.
+   *   Negative if slow requests aren't traced unless sampled.
+   */
+  long getTraceSlowThreshold( String topology );
+
+  /**
+   * @return The number of recent traces kept in memory.
+   */
+  int getTraceBufferSize();
+
+  /**
+   * @return The file traces are appended to or null if they are only kept in memory.
+   */
+  String getTraceFile();
+
+  /**
+   * @return How long in milliseconds the addresses of backend hosts are cached, 0 disables the cache.
+   */
+  long getDnsCacheTtl();
+
+  /**
+   * @return How long in milliseconds failed lookups of backend hosts are cached.
+   */
+  long getDnsCacheNegativeTtl();
 }
@@ -17,10 +17,12 @@
  */
 package org.apache.hadoop.gateway.deploy;
 
+import org.apache.hadoop.gateway.topology.Provider;
 import org.jboss.shrinkwrap.descriptor.api.webapp30.WebAppDescriptor;
 import org.jboss.shrinkwrap.descriptor.api.webcommon30.ServletType;
 
 import java.util.List;
+import java.util.Map;
 
 public abstract class DeploymentContributorBase {
 
@@ -34,4 +36,19 @@ public abstract class DeploymentContributorBase {
     return null;
   }
 
+  /**
+   * @return true if the topology has an enabled HA provider that configures the service role.
+   */
+  protected static boolean isHaEnabled( DeploymentContext context, String role ) {
+    boolean enabled = false;
+    for( Provider provider : context.getTopology().getProviders() ) {
+      if( "ha".equals( provider.getRole() ) && provider.isEnabled() ) {
+        Map<String, String> params = provider.getParams();
+        enabled = params != null && params.containsKey( role );
+        break;
+      }
+    }
+    return enabled;
+  }
+
 }
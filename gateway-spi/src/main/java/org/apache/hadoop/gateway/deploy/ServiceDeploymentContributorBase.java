@@ -87,10 +87,21 @@ public abstract class ServiceDeploymentContributorBase extends DeploymentContrib
   }
 
   protected void addDispatchFilter(DeploymentContext context, Service service, ResourceDescriptor resource, String role, String name ) {
+    addDispatchFilter( context, service, resource, role, name, null );
+  }
+
+  /**
+   * Adds the dispatch filter, the default dispatch is replaced by the HA dispatch when the service role is
+   * configured in the HA provider.
+   */
+  protected void addDispatchFilter(DeploymentContext context, Service service, ResourceDescriptor resource, String role, String name, List<FilterParamDescriptor> params ) {
     if (name == null) {
       name = "http-client";
     }
-    context.contributeFilter( service, resource, role, name, null );
+    if ("http-client".equals(name) && isHaEnabled(context, service.getRole())) {
+      name = "ha";
+    }
+    context.contributeFilter( service, resource, role, name, params );
   }
 
 }
@@ -19,6 +19,8 @@ package org.apache.hadoop.gateway.dispatch;
 
 import org.apache.hadoop.gateway.filter.AbstractGatewayFilter;
 import org.apache.hadoop.gateway.filter.GatewayResponse;
+import org.apache.hadoop.gateway.trace.Trace;
+import org.apache.hadoop.gateway.trace.Tracer;
 import org.apache.hadoop.io.IOUtils;
 import org.apache.http.client.methods.HttpUriRequest;
 
@@ -165,15 +167,21 @@ public abstract class AbstractGatewayDispatch extends AbstractGatewayFilter impl
   
   public static void copyRequestHeaderFields(HttpUriRequest outboundRequest,
       HttpServletRequest inboundRequest) {
+    Trace trace = Tracer.current();
     Enumeration<String> headerNames = inboundRequest.getHeaderNames();
     while( headerNames.hasMoreElements() ) {
       String name = (String) headerNames.nextElement();
       if ( !outboundRequest.containsHeader( name )
-          && !EXCLUDE_HEADERS.contains( name ) ) {
+          && !EXCLUDE_HEADERS.contains( name )
+          && !( trace != null && Tracer.TRACEPARENT.equalsIgnoreCase( name ) ) ) {
         String vaule = inboundRequest.getHeader( name );
         outboundRequest.addHeader( name, vaule );
       }
     }
+    // The backend's spans become children of the gateway's current span.
+    if( trace != null ) {
+      outboundRequest.setHeader( Tracer.TRACEPARENT, trace.getTraceParent() );
+    }
   }
 
 }
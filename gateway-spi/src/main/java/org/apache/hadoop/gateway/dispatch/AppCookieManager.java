@@ -102,7 +102,7 @@ public class AppCookieManager {
       }
     }
 
-    DefaultHttpClient client = new DefaultHttpClient();
+    DefaultHttpClient client = CachingDnsResolver.createHttpClient();
     SPNegoSchemeFactory spNegoSF = new SPNegoSchemeFactory(
     /* stripPort */true);
     // spNegoSF.setSpengoGenerator(new BouncySpnegoTokenGenerator());
@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import org.apache.hadoop.gateway.metrics.Counter;
+import org.apache.hadoop.gateway.metrics.MetricsRegistry;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.BasicClientConnectionManager;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the backend host names for the HTTP clients of the gateway.  Addresses are cached for a TTL and
+ * failed lookups for a shorter one.  Once most of the TTL has passed a cached entry is refreshed on a background
+ * thread while requests keep using it, so busy hosts never wait for DNS and still follow DNS changes.  Should a
+ * refresh fail the addresses are used until they expire.  A TTL of 0 disables the cache.
+ * <p>
+ * Host names are looked up through the JVM resolver, so its own cache (networkaddress.cache.ttl in java.security)
+ * adds to these TTLs before a DNS change is seen.
+ * <p>
+ * Lookups are counted per host as dns.{host}.hits, misses, failures and refreshes in the default
+ * {@link MetricsRegistry}.  Hosts beyond the first thousand are counted together as dns.other.
+ */
+public class CachingDnsResolver implements DnsResolver {
+
+  public static final long DEFAULT_TTL = 60 * 1000L;
+  public static final long DEFAULT_NEGATIVE_TTL = 10 * 1000L;
+  public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+  private static final int THREADS = 2;
+  private static final int QUEUE_SIZE = 1000;
+  // The fraction of the TTL after which a used entry is refreshed.
+  private static final double REFRESH_AHEAD = 0.75;
+
+  private static final CachingDnsResolver DEFAULT = new CachingDnsResolver(
+      DEFAULT_TTL, DEFAULT_NEGATIVE_TTL, DEFAULT_MAX_ENTRIES );
+
+  private volatile long ttl;
+  private volatile long negativeTtl;
+  private final int maxEntries;
+  private final ConcurrentHashMap<String, Entry> cache;
+  private final ThreadPoolExecutor executor;
+
+  public CachingDnsResolver( long ttl, long negativeTtl, int maxEntries ) {
+    this.ttl = ttl;
+    this.negativeTtl = negativeTtl;
+    this.maxEntries = maxEntries;
+    this.cache = new ConcurrentHashMap<String, Entry>();
+    // Refreshes that don't fit in the queue are discarded, the entry is then looked up again when it expires.
+    this.executor = new ThreadPoolExecutor( THREADS, THREADS, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>( QUEUE_SIZE ),
+        new ThreadFactory() {
+          @Override
+          public Thread newThread( Runnable runnable ) {
+            Thread thread = new Thread( runnable, "gateway-dns-resolver" );
+            thread.setDaemon( true );
+            return thread;
+          }
+        },
+        new ThreadPoolExecutor.DiscardPolicy() );
+    this.executor.allowCoreThreadTimeOut( true );
+  }
+
+  public static CachingDnsResolver getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Sets the TTLs of the default resolver, entries already cached keep theirs.
+   */
+  public static void configure( long ttl, long negativeTtl ) {
+    DEFAULT.ttl = ttl;
+    DEFAULT.negativeTtl = negativeTtl;
+  }
+
+  /**
+   * @return A client that resolves host names through the default resolver.
+   */
+  public static DefaultHttpClient createHttpClient() {
+    return new DefaultHttpClient( new BasicClientConnectionManager( SchemeRegistryFactory.createDefault() ) {
+      @Override
+      protected ClientConnectionOperator createConnectionOperator( SchemeRegistry schemes ) {
+        return new DefaultClientConnectionOperator( schemes, DEFAULT );
+      }
+    } );
+  }
+
+  @Override
+  public InetAddress[] resolve( String host ) throws UnknownHostException {
+    InetAddress[] addresses;
+    if( ttl <= 0 ) {
+      addresses = lookup( host );
+    } else {
+      Metrics metrics = Metrics.get( host );
+      long now = currentTimeMillis();
+      Entry entry = cache.get( host );
+      if( entry == null || now >= entry.expires ) {
+        metrics.misses.increment();
+        entry = load( host, metrics, now );
+      } else {
+        metrics.hits.increment();
+        if( now >= entry.refresh ) {
+          refresh( host, entry, metrics );
+        }
+      }
+      if( entry.addresses == null ) {
+        throw new UnknownHostException( host );
+      }
+      addresses = entry.addresses.clone();
+    }
+    return addresses;
+  }
+
+  /**
+   * Resolves the host name with the JVM resolver.
+   */
+  protected InetAddress[] lookup( String host ) throws UnknownHostException {
+    return InetAddress.getAllByName( host );
+  }
+
+  /**
+   * @return The time the cache entries are aged by.
+   */
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  private Entry load( String host, Metrics metrics, long now ) {
+    Entry entry;
+    try {
+      entry = newEntry( lookup( host ), now );
+    } catch( UnknownHostException e ) {
+      metrics.failures.increment();
+      entry = newEntry( null, now );
+    }
+    if( cache.size() >= maxEntries ) {
+      evictExpired( now );
+    }
+    if( cache.size() < maxEntries || cache.containsKey( host ) ) {
+      cache.put( host, entry );
+    }
+    return entry;
+  }
+
+  private void refresh( final String host, final Entry current, final Metrics metrics ) {
+    // Only the caller that manages to mark the entry schedules the refresh.
+    Entry pending = new Entry( current.addresses, current.expires, Long.MAX_VALUE );
+    if( cache.replace( host, current, pending ) ) {
+      executor.execute( new Runnable() {
+        @Override
+        public void run() {
+          metrics.refreshes.increment();
+          long now = currentTimeMillis();
+          try {
+            cache.put( host, newEntry( lookup( host ), now ) );
+          } catch( UnknownHostException e ) {
+            metrics.failures.increment();
+          }
+        }
+      } );
+    }
+  }
+
+  private Entry newEntry( InetAddress[] addresses, long now ) {
+    long timeout = addresses == null ? negativeTtl : ttl;
+    long expires = now + timeout;
+    // Failed lookups are simply repeated once they expire.
+    long refresh = addresses == null ? expires : now + (long)( timeout * REFRESH_AHEAD );
+    return new Entry( addresses, expires, refresh );
+  }
+
+  private void evictExpired( long now ) {
+    Iterator<Entry> entries = cache.values().iterator();
+    while( entries.hasNext() ) {
+      Entry entry = entries.next();
+      if( now >= entry.expires ) {
+        entries.remove();
+      }
+    }
+  }
+
+  private static class Entry {
+
+    private final InetAddress[] addresses;
+    private final long expires;
+    private final long refresh;
+
+    private Entry( InetAddress[] addresses, long expires, long refresh ) {
+      this.addresses = addresses;
+      this.expires = expires;
+      this.refresh = refresh;
+    }
+
+  }
+
+  private static class Metrics {
+
+    private static final int MAX_HOSTS = 1000;
+    private static final ConcurrentHashMap<String, Metrics> HOSTS = new ConcurrentHashMap<String, Metrics>();
+    private static final Metrics OTHER = new Metrics( "other" );
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter failures;
+    private final Counter refreshes;
+
+    private Metrics( String host ) {
+      MetricsRegistry registry = MetricsRegistry.getDefault();
+      String prefix = "dns." + host;
+      hits = registry.counter( prefix + ".hits" );
+      misses = registry.counter( prefix + ".misses" );
+      failures = registry.counter( prefix + ".failures" );
+      refreshes = registry.counter( prefix + ".refreshes" );
+    }
+
+    private static Metrics get( String host ) {
+      Metrics metrics = HOSTS.get( host );
+      if( metrics == null && HOSTS.size() >= MAX_HOSTS ) {
+        metrics = OTHER;
+      } else if( metrics == null ) {
+        metrics = new Metrics( host );
+        Metrics existing = HOSTS.putIfAbsent( host, metrics );
+        if( existing != null ) {
+          metrics = existing;
+        }
+      }
+      return metrics;
+    }
+
+  }
+
+}
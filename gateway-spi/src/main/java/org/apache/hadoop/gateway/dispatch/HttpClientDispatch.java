@@ -38,6 +38,13 @@ import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
 import org.apache.hadoop.gateway.config.GatewayConfig;
 import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
 import org.apache.hadoop.gateway.i18n.resources.ResourcesFactory;
+import org.apache.hadoop.gateway.metrics.Counter;
+import org.apache.hadoop.gateway.metrics.CountingInputStream;
+import org.apache.hadoop.gateway.metrics.MetricsRegistry;
+import org.apache.hadoop.gateway.timing.RequestTimer;
+import org.apache.hadoop.gateway.timing.Timings;
+import org.apache.hadoop.gateway.trace.Trace;
+import org.apache.hadoop.gateway.trace.Tracer;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
@@ -69,6 +76,7 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
    protected static final String SET_COOKIE = "Set-Cookie";
    protected static final String WWW_AUTHENTICATE = "WWW-Authenticate";
    protected static final String NEGOTIATE = "Negotiate";
+   protected static final String SERVER_TIMING = "Server-Timing";
 
    protected static SpiGatewayMessages LOG = MessagesFactory.get(SpiGatewayMessages.class);
    protected static SpiGatewayResources RES = ResourcesFactory.get(SpiGatewayResources.class);
@@ -76,6 +84,10 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
          AuditConstants.KNOX_SERVICE_NAME, AuditConstants.KNOX_COMPONENT_NAME);
    private static final int DEFAULT_REPLAY_BUFFER_SIZE = 4 * 1024; // 4K
 
+   private static final Counter ACTIVE = MetricsRegistry.getDefault().counter("dispatch.active");
+   private static final Counter REQUEST_BYTES = MetricsRegistry.getDefault().counter("dispatch.request.bytes");
+   private static final Counter RESPONSE_BYTES = MetricsRegistry.getDefault().counter("dispatch.response.bytes");
+
    protected AppCookieManager appCookieManager;
 
    protected static final String REPLAY_BUFFER_SIZE_PARAM = "replayBufferSize";
@@ -105,10 +117,32 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
       writeOutboundResponse(outboundRequest, inboundRequest, outboundResponse, inboundResponse);
    }
 
+   /**
+    * Sends the request to the service.  Each call is timed and traced as dispatch.execute, so subclasses that
+    * send a request more than once, for example to fail over, record every attempt.
+    */
    protected HttpResponse executeOutboundRequest(HttpUriRequest outboundRequest) throws IOException {
+      ACTIVE.increment();
+      Trace trace = Tracer.current();
+      int span = trace == null ? -1 : trace.startSpan("dispatch.execute");
+      long start = Timings.start();
+      HttpResponse inboundResponse;
+      try {
+         inboundResponse = sendOutboundRequest(outboundRequest);
+      } finally {
+         Timings.stop("dispatch.execute", start);
+         if (trace != null) {
+            trace.endSpan(span);
+         }
+         ACTIVE.decrement();
+      }
+      return inboundResponse;
+   }
+
+   private HttpResponse sendOutboundRequest(HttpUriRequest outboundRequest) throws IOException {
       LOG.dispatchRequest(outboundRequest.getMethod(), outboundRequest.getURI());
       HttpResponse inboundResponse = null;
-      DefaultHttpClient client = new DefaultHttpClient();
+      DefaultHttpClient client = createHttpClient();
 
       try {
          String query = outboundRequest.getURI().getQuery();
@@ -128,7 +162,8 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
          // we do not want to expose back end host. port end points to clients, see JIRA KNOX-58
          LOG.dispatchServiceConnectionException(outboundRequest.getURI(), e);
          auditor.audit(Action.DISPATCH, outboundRequest.getURI().toString(), ResourceType.URI, ActionOutcome.FAILURE);
-         throw new IOException(RES.dispatchConnectionError());
+         // The cause is kept so that the kind of failure can be told apart, only the message reaches the client.
+         throw new IOException(RES.dispatchConnectionError(), e);
       } finally {
          if (inboundResponse != null) {
             int statusCode = inboundResponse.getStatusLine().getStatusCode();
@@ -151,7 +186,34 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
       return inboundResponse;
    }
 
+   /**
+    * @return A new client for an outbound request, backend host names are resolved through the
+    * {@link CachingDnsResolver}.
+    */
+   protected DefaultHttpClient createHttpClient() {
+      return CachingDnsResolver.createHttpClient();
+   }
+
+   /**
+    * Copies the response of the service to the client, timed and traced as dispatch.response.
+    */
    protected void writeOutboundResponse(HttpUriRequest outboundRequest, HttpServletRequest inboundRequest, HttpServletResponse outboundResponse, HttpResponse inboundResponse) throws IOException {
+      ACTIVE.increment();
+      Trace trace = Tracer.current();
+      int span = trace == null ? -1 : trace.startSpan("dispatch.response");
+      long start = Timings.start();
+      try {
+         copyOutboundResponse(inboundRequest, outboundResponse, inboundResponse);
+      } finally {
+         Timings.stop("dispatch.response", start);
+         if (trace != null) {
+            trace.endSpan(span);
+         }
+         ACTIVE.decrement();
+      }
+   }
+
+   private void copyOutboundResponse(HttpServletRequest inboundRequest, HttpServletResponse outboundResponse, HttpResponse inboundResponse) throws IOException {
       // Copy the client respond header to the server respond.
       outboundResponse.setStatus(inboundResponse.getStatusLine().getStatusCode());
       Header[] headers = inboundResponse.getAllHeaders();
@@ -163,6 +225,7 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
          String value = header.getValue();
          outboundResponse.addHeader(name, value);
       }
+      addServerTimingHeader(outboundResponse);
 
       HttpEntity entity = inboundResponse.getEntity();
       if (entity != null) {
@@ -177,7 +240,17 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
          //        outboundResponse.setContentLength( (int)contentLength );
          //      }
          //]
-         writeResponse(inboundRequest, outboundResponse, entity.getContent());
+         writeResponse(inboundRequest, outboundResponse, new CountingInputStream(entity.getContent(), RESPONSE_BYTES));
+      }
+   }
+
+   // The header has to be written before the body so it covers the time until the response headers arrived.
+   protected void addServerTimingHeader(HttpServletResponse outboundResponse) {
+      if (Timings.isServerTimingEnabled()) {
+         RequestTimer timer = Timings.current();
+         if (timer != null) {
+            outboundResponse.addHeader(SERVER_TIMING, timer.getServerTiming());
+         }
       }
    }
 
@@ -209,7 +282,7 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
             appCookie = appCookieManager.getAppCookie(outboundRequest, true);
             outboundRequest.removeHeaders(COOKIE);
             outboundRequest.addHeader(new BasicHeader(COOKIE, appCookie));
-            client = new DefaultHttpClient();
+            client = createHttpClient();
             inboundResponse = client.execute(outboundRequest);
          } else {
             // no supported authentication type found
@@ -227,7 +300,7 @@ public class HttpClientDispatch extends AbstractGatewayDispatch {
 
       String contentType = request.getContentType();
       int contentLength = request.getContentLength();
-      InputStream contentStream = request.getInputStream();
+      InputStream contentStream = new CountingInputStream(request.getInputStream(), REQUEST_BYTES);
 
       HttpEntity entity;
       if (contentType == null) {
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that is cheap to update from many threads at once.  Updates are spread over a
+ * number of cells, each on its own cache line, chosen by the updating thread's id so that
+ * concurrent request threads rarely contend.  Reading sums the cells.
+ */
+public class Counter {
+
+  // Longs per 64 byte cache line.
+  private static final int PADDING = 8;
+  private static final int STRIPES = calcStripes();
+
+  private final AtomicLongArray cells;
+
+  public Counter() {
+    cells = new AtomicLongArray( STRIPES * PADDING );
+  }
+
+  public void increment() {
+    add( 1 );
+  }
+
+  public void decrement() {
+    add( -1 );
+  }
+
+  public void add( long delta ) {
+    cells.addAndGet( stripe() * PADDING, delta );
+  }
+
+  public long get() {
+    long sum = 0;
+    for( int i = 0; i < STRIPES; i++ ) {
+      sum += cells.get( i * PADDING );
+    }
+    return sum;
+  }
+
+  private static int stripe() {
+    long id = Thread.currentThread().getId();
+    int hash = (int)( id ^ ( id >>> 32 ) );
+    hash ^= ( hash >>> 16 );
+    hash *= 0x85EBCA6B;
+    hash ^= ( hash >>> 13 );
+    return hash & ( STRIPES - 1 );
+  }
+
+  private static int calcStripes() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    int stripes = 1;
+    while( stripes < processors * 2 && stripes < 64 ) {
+      stripes <<= 1;
+    }
+    return stripes;
+  }
+
+}
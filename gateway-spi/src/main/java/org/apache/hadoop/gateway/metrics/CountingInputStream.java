@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Adds the number of bytes read through the stream to a counter.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+  private final Counter counter;
+
+  public CountingInputStream( InputStream input, Counter counter ) {
+    super( input );
+    this.counter = counter;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = super.read();
+    if( b >= 0 ) {
+      counter.increment();
+    }
+    return b;
+  }
+
+  @Override
+  public int read( byte[] bytes, int offset, int length ) throws IOException {
+    int count = super.read( bytes, offset, length );
+    if( count > 0 ) {
+      counter.add( count );
+    }
+    return count;
+  }
+
+  @Override
+  public long skip( long count ) throws IOException {
+    long skipped = super.skip( count );
+    if( skipped > 0 ) {
+      counter.add( skipped );
+    }
+    return skipped;
+  }
+
+  // Reset would count bytes twice.
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+}
@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named counters and gauges.  Components on the request path look their counters up once
+ * and keep them, the registry is only consulted again when the metrics are collected.
+ * The default registry is the one exported by the MetricsService.
+ */
+public class MetricsRegistry {
+
+  private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+  private final ConcurrentHashMap<String, Counter> counters;
+  private final ConcurrentHashMap<String, Gauge> gauges;
+
+  public MetricsRegistry() {
+    counters = new ConcurrentHashMap<String, Counter>();
+    gauges = new ConcurrentHashMap<String, Gauge>();
+  }
+
+  public static MetricsRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * @return The counter with the name, created if it doesn't exist yet.
+   */
+  public Counter counter( String name ) {
+    Counter counter = counters.get( name );
+    if( counter == null ) {
+      counter = new Counter();
+      Counter existing = counters.putIfAbsent( name, counter );
+      if( existing != null ) {
+        counter = existing;
+      }
+    }
+    return counter;
+  }
+
+  /**
+   * Registers a gauge, replacing any gauge already registered with the name.
+   */
+  public void register( String name, Gauge gauge ) {
+    gauges.put( name, gauge );
+  }
+
+  /**
+   * Removes the gauge if it is still the one registered with the name.
+   */
+  public void unregister( String name, Gauge gauge ) {
+    gauges.remove( name, gauge );
+  }
+
+  /**
+   * @return The current value of the named counter or gauge or null if there isn't one.
+   */
+  public Long getValue( String name ) {
+    Long value = null;
+    Counter counter = counters.get( name );
+    if( counter != null ) {
+      value = counter.get();
+    } else {
+      Gauge gauge = gauges.get( name );
+      if( gauge != null ) {
+        value = gauge.getValue();
+      }
+    }
+    return value;
+  }
+
+  /**
+   * @return The current values of all counters and gauges sorted by name.
+   */
+  public SortedMap<String, Long> getValues() {
+    SortedMap<String, Long> values = new TreeMap<String, Long>();
+    for( Map.Entry<String, Counter> entry : counters.entrySet() ) {
+      values.put( entry.getKey(), entry.getValue().get() );
+    }
+    for( Map.Entry<String, Gauge> entry : gauges.entrySet() ) {
+      values.put( entry.getKey(), entry.getValue().getValue() );
+    }
+    return values;
+  }
+
+}
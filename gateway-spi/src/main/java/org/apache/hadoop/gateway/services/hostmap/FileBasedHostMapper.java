@@ -18,19 +18,50 @@
 package org.apache.hadoop.gateway.services.hostmap;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Maps host names using a file of external=internal lines.  Each side is a comma separated list and every name is
+ * mapped to the first name of the other side.  Besides host names a side can hold domain rules like
+ * *.example.com, which replace the longest matching domain suffix, or IPv4 subnets like 10.1.0.0/16, which keep
+ * the host part of the address and replace the network part.  Rules only pair with rules of the same kind.
+ * <p>
+ * A mapper is immutable, {@link #reload()} returns a new mapper when the file has changed.
+ */
 public class FileBasedHostMapper implements HostMapper {
 
-  private Map<String, String> inbound = new HashMap<String, String>();
-  private Map<String, String> outbound = new HashMap<String, String>();
+  public static final long RELOAD_CHECK_INTERVAL = 5000;
+
+  // Rule based resolutions remembered, exact names are a single lookup anyway.  The cache is simply cleared when
+  // it is full, the working set of backend hosts is normally far smaller.
+  private static final int CACHE_SIZE = 1024;
+
+  private final URL url;
+  private final long lastModified;
+  private final AtomicLong nextReloadCheck;
+
+  private final Map<String, String> inbound = new HashMap<String, String>();
+  private final Map<String, String> outbound = new HashMap<String, String>();
+  private final Rules inboundRules = new Rules();
+  private final Rules outboundRules = new Rules();
 
   public FileBasedHostMapper( URL url ) throws IOException {
+    this.url = url;
+    this.lastModified = lastModified( url );
+    this.nextReloadCheck = new AtomicLong( System.currentTimeMillis() + RELOAD_CHECK_INTERVAL );
     if( url != null ) {
       InputStream stream = url.openStream();
       BufferedReader reader = new BufferedReader( new InputStreamReader( stream ) );
@@ -42,10 +73,10 @@ public class FileBasedHostMapper implements HostMapper {
           String[] internalSplit = lineSplit[ 1 ].split( "," );
           if( externalSplit.length >= 1 && internalSplit.length >= 1 ) {
             for( String external : externalSplit ) {
-              inbound.put( external.trim(), internalSplit[ 0 ].trim() );
+              add( inbound, inboundRules, external.trim(), internalSplit[ 0 ].trim() );
             }
             for( String internal : internalSplit ) {
-              outbound.put( internal.trim(), externalSplit[ 0 ].trim() );
+              add( outbound, outboundRules, internal.trim(), externalSplit[ 0 ].trim() );
             }
           }
         }
@@ -55,6 +86,28 @@ public class FileBasedHostMapper implements HostMapper {
     }
   }
 
+  public URL getUrl() {
+    return url;
+  }
+
+  /**
+   * Checks at most every {@link #RELOAD_CHECK_INTERVAL} ms whether the file has changed.  Only file URLs are
+   * checked.
+   * @return A mapper for the changed file or this mapper if the file hasn't changed.
+   */
+  public FileBasedHostMapper reload() throws IOException {
+    FileBasedHostMapper mapper = this;
+    long now = System.currentTimeMillis();
+    long next = nextReloadCheck.get();
+    // Only one caller per interval does the check.
+    if( now >= next && nextReloadCheck.compareAndSet( next, now + RELOAD_CHECK_INTERVAL ) ) {
+      if( lastModified( url ) != lastModified ) {
+        mapper = new FileBasedHostMapper( url );
+      }
+    }
+    return mapper;
+  }
+
   /* (non-Javadoc)
    * @see org.apache.hadoop.gateway.services.hostmap.HostMapper#resolveInboundHostName(java.lang.String)
    */
@@ -62,7 +115,7 @@ public class FileBasedHostMapper implements HostMapper {
   public String resolveInboundHostName( String hostName ) {
     String resolvedHostName = inbound.get( hostName );
     if( resolvedHostName == null ) {
-      resolvedHostName = hostName;
+      resolvedHostName = inboundRules.resolve( hostName );
     }
     return resolvedHostName;
   }
@@ -74,8 +127,195 @@ public class FileBasedHostMapper implements HostMapper {
   public String resolveOutboundHostName( String hostName ) {
     String resolvedHostName = outbound.get( hostName );
     if( resolvedHostName == null ) {
-      resolvedHostName = hostName;
+      resolvedHostName = outboundRules.resolve( hostName );
     }
     return resolvedHostName;
   }
+
+  private static void add( Map<String, String> names, Rules rules, String from, String to ) {
+    if( isDomain( from ) || isDomain( to ) ) {
+      if( isDomain( from ) && isDomain( to ) ) {
+        rules.domains.put( from.substring( 1 ).toLowerCase(), to.substring( 1 ).toLowerCase() );
+      }
+    } else if( isSubnet( from ) || isSubnet( to ) ) {
+      Subnet source = Subnet.parse( from );
+      Subnet target = Subnet.parse( to );
+      if( source != null && target != null && source.prefix == target.prefix ) {
+        rules.addSubnet( source, target );
+      }
+    } else {
+      names.put( from, to );
+    }
+  }
+
+  private static boolean isDomain( String name ) {
+    return name.startsWith( "*." ) && name.length() > 2;
+  }
+
+  private static boolean isSubnet( String name ) {
+    return name.indexOf( '/' ) > 0;
+  }
+
+  private static long lastModified( URL url ) {
+    long modified = 0;
+    if( url != null && "file".equals( url.getProtocol() ) ) {
+      try {
+        modified = new File( url.toURI() ).lastModified();
+      } catch( URISyntaxException e ) {
+        // Such a file isn't reloaded.
+      } catch( IllegalArgumentException e ) {
+        // Such a file isn't reloaded.
+      }
+    }
+    return modified;
+  }
+
+  /**
+   * The domain and subnet rules of one direction.
+   */
+  private static class Rules {
+
+    // Suffixes including the leading dot.
+    private final Map<String, String> domains = new HashMap<String, String>();
+    // The target networks by source network for each prefix length, longest prefix first.
+    private final SortedMap<Integer, Map<Integer, Integer>> subnets
+        = new TreeMap<Integer, Map<Integer, Integer>>( Collections.reverseOrder() );
+    private final ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<String, String>();
+
+    private void addSubnet( Subnet source, Subnet target ) {
+      Map<Integer, Integer> networks = subnets.get( source.prefix );
+      if( networks == null ) {
+        networks = new HashMap<Integer, Integer>();
+        subnets.put( source.prefix, networks );
+      }
+      networks.put( source.network, target.network );
+    }
+
+    private String resolve( String hostName ) {
+      String resolved = hostName;
+      if( hostName != null && ( !domains.isEmpty() || !subnets.isEmpty() ) ) {
+        resolved = cache.get( hostName );
+        if( resolved == null ) {
+          resolved = resolveDomain( hostName );
+          if( resolved == null ) {
+            resolved = resolveSubnet( hostName );
+          }
+          if( resolved == null ) {
+            resolved = hostName;
+          }
+          if( cache.size() >= CACHE_SIZE ) {
+            cache.clear();
+          }
+          cache.put( hostName, resolved );
+        }
+      }
+      return resolved;
+    }
+
+    private String resolveDomain( String hostName ) {
+      String resolved = null;
+      if( !domains.isEmpty() ) {
+        String lower = hostName.toLowerCase();
+        // The first suffix found is the longest.
+        int dot = lower.indexOf( '.' );
+        while( dot > 0 && resolved == null ) {
+          String replacement = domains.get( lower.substring( dot ) );
+          if( replacement != null ) {
+            resolved = hostName.substring( 0, dot ) + replacement;
+          }
+          dot = lower.indexOf( '.', dot + 1 );
+        }
+      }
+      return resolved;
+    }
+
+    private String resolveSubnet( String hostName ) {
+      String resolved = null;
+      if( !subnets.isEmpty() ) {
+        long address = Subnet.parseAddress( hostName );
+        if( address >= 0 ) {
+          Iterator<Map.Entry<Integer, Map<Integer, Integer>>> entries = subnets.entrySet().iterator();
+          while( entries.hasNext() && resolved == null ) {
+            Map.Entry<Integer, Map<Integer, Integer>> entry = entries.next();
+            int mask = Subnet.mask( entry.getKey() );
+            Integer target = entry.getValue().get( (int)address & mask );
+            if( target != null ) {
+              resolved = Subnet.format( target | ( (int)address & ~mask ) );
+            }
+          }
+        }
+      }
+      return resolved;
+    }
+
+  }
+
+  private static class Subnet {
+
+    private final int network;
+    private final int prefix;
+
+    private Subnet( int network, int prefix ) {
+      this.network = network;
+      this.prefix = prefix;
+    }
+
+    private static Subnet parse( String cidr ) {
+      Subnet subnet = null;
+      int slash = cidr.indexOf( '/' );
+      if( slash > 0 ) {
+        long address = parseAddress( cidr.substring( 0, slash ) );
+        int prefix = -1;
+        try {
+          prefix = Integer.parseInt( cidr.substring( slash + 1 ).trim() );
+        } catch( NumberFormatException e ) {
+          // Not a subnet.
+        }
+        if( address >= 0 && prefix >= 0 && prefix <= 32 ) {
+          subnet = new Subnet( (int)address & mask( prefix ), prefix );
+        }
+      }
+      return subnet;
+    }
+
+    /**
+     * @return The IPv4 address as an unsigned int or -1 if it isn't one.
+     */
+    private static long parseAddress( String address ) {
+      long result = 0;
+      int octets = 0;
+      int value = -1;
+      for( int i = 0; i < address.length() && result >= 0; i++ ) {
+        char c = address.charAt( i );
+        if( c >= '0' && c <= '9' ) {
+          value = ( value < 0 ? 0 : value * 10 ) + ( c - '0' );
+          if( value > 255 ) {
+            result = -1;
+          }
+        } else if( c == '.' && value >= 0 && octets < 3 ) {
+          result = ( result << 8 ) | value;
+          octets++;
+          value = -1;
+        } else {
+          result = -1;
+        }
+      }
+      if( result >= 0 && value >= 0 && octets == 3 ) {
+        result = ( result << 8 ) | value;
+      } else {
+        result = -1;
+      }
+      return result;
+    }
+
+    private static int mask( int prefix ) {
+      return prefix == 0 ? 0 : -1 << ( 32 - prefix );
+    }
+
+    private static String format( int address ) {
+      return ( ( address >>> 24 ) & 0xFF ) + "." + ( ( address >>> 16 ) & 0xFF ) + "." + ( ( address >>> 8 ) & 0xFF ) + "." + ( address & 0xFF );
+    }
+
+  }
+
 }
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.timing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of non-negative long values, typically nanosecond durations.
+ * Values are bucketed by their highest set bit and then linearly within that power of two
+ * so the value reported for a percentile is within about 3% of the recorded values while
+ * the whole range of a long is covered by a fixed number of buckets.
+ */
+public class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = ( 64 - SUB_BUCKET_BITS ) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts;
+  private final AtomicLong count;
+  private final AtomicLong total;
+  private final AtomicLong max;
+
+  public Histogram() {
+    counts = new AtomicLongArray( BUCKETS );
+    count = new AtomicLong();
+    total = new AtomicLong();
+    max = new AtomicLong();
+  }
+
+  public void record( long value ) {
+    if( value < 0 ) {
+      value = 0;
+    }
+    counts.incrementAndGet( indexOf( value ) );
+    count.incrementAndGet();
+    total.addAndGet( value );
+    long current = max.get();
+    while( value > current && !max.compareAndSet( current, value ) ) {
+      current = max.get();
+    }
+  }
+
+  public void reset() {
+    for( int i = 0; i < BUCKETS; i++ ) {
+      counts.set( i, 0 );
+    }
+    count.set( 0 );
+    total.set( 0 );
+    max.set( 0 );
+  }
+
+  public Snapshot snapshot() {
+    long[] copy = new long[ BUCKETS ];
+    long sum = 0;
+    for( int i = 0; i < BUCKETS; i++ ) {
+      copy[ i ] = counts.get( i );
+      sum += copy[ i ];
+    }
+    // Use the bucket counts for the count so that percentiles are consistent with it.
+    return new Snapshot( copy, sum, total.get(), max.get() );
+  }
+
+  static int indexOf( long value ) {
+    int index;
+    if( value < 2 * SUB_BUCKETS ) {
+      index = (int)value;
+    } else {
+      int shift = 63 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_BITS;
+      index = shift * SUB_BUCKETS + (int)( value >>> shift );
+    }
+    return index;
+  }
+
+  static long highestValueAt( int index ) {
+    long value;
+    if( index < 2 * SUB_BUCKETS ) {
+      value = index;
+    } else {
+      int shift = index / SUB_BUCKETS - 1;
+      long sub = index - shift * SUB_BUCKETS;
+      value = ( ( sub + 1 ) << shift ) - 1;
+    }
+    return value;
+  }
+
+  public static class Snapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long total;
+    private final long max;
+
+    private Snapshot( long[] counts, long count, long total, long max ) {
+      this.counts = counts;
+      this.count = count;
+      this.total = total;
+      this.max = max;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getTotal() {
+      return total;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    public double getMean() {
+      return count == 0 ? 0 : (double)total / count;
+    }
+
+    /**
+     * @param percentile The percentile between 0 and 100.
+     * @return The highest value equivalent to the value at the percentile, never more than the max.
+     */
+    public long getValueAtPercentile( double percentile ) {
+      long value = 0;
+      if( count > 0 ) {
+        long target = Math.max( 1, (long)Math.ceil( count * Math.min( percentile, 100.0 ) / 100.0 ) );
+        long seen = 0;
+        for( int i = 0; i < counts.length; i++ ) {
+          seen += counts[ i ];
+          if( seen >= target ) {
+            value = Math.min( highestValueAt( i ), max );
+            break;
+          }
+        }
+      }
+      return value;
+    }
+
+  }
+
+}
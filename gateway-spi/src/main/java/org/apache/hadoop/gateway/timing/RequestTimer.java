@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.timing;
+
+/**
+ * The spans recorded while processing a single request.  Only ever used by the thread
+ * processing the request so nothing here is synchronized.
+ */
+public class RequestTimer {
+
+  private final String topology;
+  private final String role;
+  private final long begin;
+  private String[] names;
+  private long[] durations;
+  private int size;
+  private long nested;
+
+  RequestTimer( String topology, String role, long begin ) {
+    this.topology = topology;
+    this.role = role;
+    this.begin = begin;
+    this.names = new String[ 8 ];
+    this.durations = new long[ 8 ];
+    this.size = 0;
+    this.nested = 0;
+  }
+
+  public String getTopology() {
+    return topology;
+  }
+
+  public String getRole() {
+    return role;
+  }
+
+  /**
+   * @return The nanoseconds since the request was received.
+   */
+  public long getElapsed() {
+    return System.nanoTime() - begin;
+  }
+
+  public void record( String name, long duration ) {
+    if( size == names.length ) {
+      String[] grownNames = new String[ size * 2 ];
+      long[] grownDurations = new long[ size * 2 ];
+      System.arraycopy( names, 0, grownNames, 0, size );
+      System.arraycopy( durations, 0, grownDurations, 0, size );
+      names = grownNames;
+      durations = grownDurations;
+    }
+    names[ size ] = name;
+    durations[ size ] = duration;
+    size++;
+  }
+
+  /**
+   * Starts a section that encloses other sections, like a filter that calls the rest of the chain.
+   * @return The value to pass to {@link #exit(String, long, long)}.
+   */
+  public long enter() {
+    long saved = nested;
+    nested = 0;
+    return saved;
+  }
+
+  /**
+   * Ends a section started with {@link #enter()} and records its time excluding the enclosed sections.
+   */
+  public void exit( String name, long start, long saved ) {
+    long inclusive = System.nanoTime() - start;
+    record( name, inclusive - nested );
+    nested = saved + inclusive;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public String getName( int index ) {
+    return names[ index ];
+  }
+
+  public long getDuration( int index ) {
+    return durations[ index ];
+  }
+
+  /**
+   * Formats the spans recorded so far, and the time elapsed so far as total, as a Server-Timing header value.
+   */
+  public String getServerTiming() {
+    StringBuilder builder = new StringBuilder();
+    for( int i = 0; i < size; i++ ) {
+      appendMetric( builder, names[ i ], durations[ i ] );
+    }
+    appendMetric( builder, Timings.TOTAL, getElapsed() );
+    return builder.toString();
+  }
+
+  private static void appendMetric( StringBuilder builder, String name, long nanos ) {
+    if( builder.length() > 0 ) {
+      builder.append( ", " );
+    }
+    long micros = nanos / 1000;
+    builder.append( name ).append( ";dur=" ).append( micros / 1000 ).append( '.' );
+    long fraction = micros % 1000;
+    if( fraction < 100 ) {
+      builder.append( '0' );
+    }
+    if( fraction < 10 ) {
+      builder.append( '0' );
+    }
+    builder.append( fraction );
+  }
+
+}
@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.timing;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per request timing.  The GatewayFilter begins a {@link RequestTimer} for each request it
+ * routes, components along the pipeline record spans into it, and when the request ends
+ * the spans are aggregated into a {@link Histogram} per topology, service role and span.
+ * <p>
+ * Recording a span is a ThreadLocal lookup and a couple of array stores so this is meant to
+ * be left on.  It can be disabled with gateway.timing.enabled in gateway-site.xml.
+ */
+public final class Timings {
+
+  public static final String TOTAL = "total";
+
+  private static final String NONE = "";
+
+  private static volatile boolean enabled = true;
+  private static volatile boolean serverTimingEnabled = false;
+
+  private static final ThreadLocal<RequestTimer> CURRENT = new ThreadLocal<RequestTimer>();
+
+  // topology -> role -> span -> histogram, nested to avoid building a key per span per request.
+  private static final ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, Histogram>>> HISTOGRAMS =
+      new ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, Histogram>>>();
+
+  private Timings() {
+  }
+
+  public static void configure( boolean enabled, boolean serverTimingEnabled ) {
+    Timings.enabled = enabled;
+    Timings.serverTimingEnabled = serverTimingEnabled;
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static boolean isServerTimingEnabled() {
+    return serverTimingEnabled;
+  }
+
+  /**
+   * Begins timing a request on the current thread.
+   * @param begin The System.nanoTime() at which the request was received.
+   * @return The timer or null if timing is disabled.
+   */
+  public static RequestTimer begin( String topology, String role, long begin ) {
+    RequestTimer timer = null;
+    if( enabled ) {
+      timer = new RequestTimer( topology == null ? NONE : topology, role == null ? NONE : role, begin );
+      CURRENT.set( timer );
+    }
+    return timer;
+  }
+
+  /**
+   * @return The timer for the request being processed by the current thread or null.
+   */
+  public static RequestTimer current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Convenience for timing a span of the current request.
+   * @return The start to pass to {@link #stop(String, long)}.
+   */
+  public static long start() {
+    return System.nanoTime();
+  }
+
+  public static void stop( String name, long start ) {
+    RequestTimer timer = CURRENT.get();
+    if( timer != null ) {
+      timer.record( name, System.nanoTime() - start );
+    }
+  }
+
+  /**
+   * Ends the request on the current thread and adds its spans and total time to the histograms.
+   */
+  public static void end( RequestTimer timer ) {
+    if( timer != null ) {
+      CURRENT.remove();
+      ConcurrentHashMap<String, Histogram> spans = getSpans( timer.getTopology(), timer.getRole() );
+      for( int i = 0; i < timer.size(); i++ ) {
+        getHistogram( spans, timer.getName( i ) ).record( timer.getDuration( i ) );
+      }
+      getHistogram( spans, TOTAL ).record( timer.getElapsed() );
+    }
+  }
+
+  /**
+   * @return Snapshots of all histograms keyed by topology, role and span.
+   */
+  public static Map<String, Map<String, Map<String, Histogram.Snapshot>>> getSnapshots() {
+    Map<String, Map<String, Map<String, Histogram.Snapshot>>> topologies = new TreeMap<String, Map<String, Map<String, Histogram.Snapshot>>>();
+    for( Map.Entry<String, ConcurrentHashMap<String, ConcurrentHashMap<String, Histogram>>> topology : HISTOGRAMS.entrySet() ) {
+      Map<String, Map<String, Histogram.Snapshot>> roles = new TreeMap<String, Map<String, Histogram.Snapshot>>();
+      for( Map.Entry<String, ConcurrentHashMap<String, Histogram>> role : topology.getValue().entrySet() ) {
+        Map<String, Histogram.Snapshot> spans = new TreeMap<String, Histogram.Snapshot>();
+        for( Map.Entry<String, Histogram> span : role.getValue().entrySet() ) {
+          spans.put( span.getKey(), span.getValue().snapshot() );
+        }
+        roles.put( role.getKey(), spans );
+      }
+      topologies.put( topology.getKey(), roles );
+    }
+    return topologies;
+  }
+
+  public static void reset() {
+    HISTOGRAMS.clear();
+  }
+
+  private static ConcurrentHashMap<String, Histogram> getSpans( String topology, String role ) {
+    ConcurrentHashMap<String, ConcurrentHashMap<String, Histogram>> roles = HISTOGRAMS.get( topology );
+    if( roles == null ) {
+      roles = new ConcurrentHashMap<String, ConcurrentHashMap<String, Histogram>>();
+      ConcurrentHashMap<String, ConcurrentHashMap<String, Histogram>> existing = HISTOGRAMS.putIfAbsent( topology, roles );
+      if( existing != null ) {
+        roles = existing;
+      }
+    }
+    ConcurrentHashMap<String, Histogram> spans = roles.get( role );
+    if( spans == null ) {
+      spans = new ConcurrentHashMap<String, Histogram>();
+      ConcurrentHashMap<String, Histogram> existing = roles.putIfAbsent( role, spans );
+      if( existing != null ) {
+        spans = existing;
+      }
+    }
+    return spans;
+  }
+
+  private static Histogram getHistogram( ConcurrentHashMap<String, Histogram> spans, String name ) {
+    Histogram histogram = spans.get( name );
+    if( histogram == null ) {
+      histogram = new Histogram();
+      Histogram existing = spans.putIfAbsent( name, histogram );
+      if( existing != null ) {
+        histogram = existing;
+      }
+    }
+    return histogram;
+  }
+
+}
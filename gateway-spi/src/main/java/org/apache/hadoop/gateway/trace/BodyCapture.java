@@ -0,0 +1,39 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.trace;
+
+/**
+ * Holds the body capture policy in effect.  It is read by the TraceFilter on each request
+ * so changes, for example through the admin API, apply without redeploying topologies.
+ */
+public final class BodyCapture {
+
+  private static volatile BodyCapturePolicy policy = BodyCapturePolicy.DISABLED;
+
+  private BodyCapture() {
+  }
+
+  public static BodyCapturePolicy getPolicy() {
+    return policy;
+  }
+
+  public static void setPolicy( BodyCapturePolicy policy ) {
+    BodyCapture.policy = policy == null ? BodyCapturePolicy.DISABLED : policy;
+  }
+
+}
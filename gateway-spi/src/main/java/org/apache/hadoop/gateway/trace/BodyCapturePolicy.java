@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.trace;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Which requests have their bodies captured by the TraceFilter.  Empty topology, role and
+ * user sets match any value.  Bodies are truncated to maxBytes.
+ */
+public class BodyCapturePolicy {
+
+  public static final int DEFAULT_MAX_BYTES = 64 * 1024;
+
+  public static final BodyCapturePolicy DISABLED =
+      new BodyCapturePolicy( false, 0.0, null, null, null, DEFAULT_MAX_BYTES );
+
+  private final boolean enabled;
+  private final double sampleRate;
+  private final Set<String> topologies;
+  private final Set<String> roles;
+  private final Set<String> users;
+  private final int maxBytes;
+
+  public BodyCapturePolicy( boolean enabled, double sampleRate,
+      Set<String> topologies, Set<String> roles, Set<String> users, int maxBytes ) {
+    this.enabled = enabled;
+    this.sampleRate = Math.max( 0.0, Math.min( 1.0, sampleRate ) );
+    this.topologies = copy( topologies );
+    this.roles = copy( roles );
+    this.users = copy( users );
+    this.maxBytes = Math.max( 0, maxBytes );
+  }
+
+  /**
+   * @return The comma separated names as a set, empty if names is null.
+   */
+  public static Set<String> parseNames( String names ) {
+    Set<String> set = new HashSet<String>();
+    if( names != null ) {
+      for( String name : names.split( "," ) ) {
+        name = name.trim();
+        if( name.length() > 0 ) {
+          set.add( name );
+        }
+      }
+    }
+    return set;
+  }
+
+  public boolean isEnabled() {
+    return enabled && sampleRate > 0.0;
+  }
+
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  public Set<String> getTopologies() {
+    return topologies;
+  }
+
+  public Set<String> getRoles() {
+    return roles;
+  }
+
+  public Set<String> getUsers() {
+    return users;
+  }
+
+  public int getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * @return If requests to the topology and role may be captured, the user is only known later.
+   */
+  public boolean matches( String topology, String role ) {
+    return isEnabled() && matches( topologies, topology ) && matches( roles, role );
+  }
+
+  public boolean matchesUser( String user ) {
+    return matches( users, user );
+  }
+
+  /**
+   * @param random A uniformly distributed random value.
+   */
+  public boolean isSampled( long random ) {
+    boolean sampled;
+    if( sampleRate >= 1.0 ) {
+      sampled = true;
+    } else {
+      sampled = ( random >>> 11 ) * 0x1.0p-53 < sampleRate;
+    }
+    return sampled;
+  }
+
+  private static boolean matches( Set<String> names, String name ) {
+    return names.isEmpty() || ( name != null && names.contains( name ) );
+  }
+
+  private static Set<String> copy( Set<String> names ) {
+    Set<String> copy;
+    if( names == null || names.isEmpty() ) {
+      copy = Collections.emptySet();
+    } else {
+      copy = Collections.unmodifiableSet( new HashSet<String>( names ) );
+    }
+    return copy;
+  }
+
+}
@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.trace;
+
+/**
+ * The spans recorded for a single request.  A trace is confined to the thread processing
+ * the request.  Spans nest in the order they are started and ended, the request itself is
+ * the root span.  Span start times are relative to the beginning of the request.
+ */
+public class Trace {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final int INITIAL_SPANS = 16;
+
+  private final String topology;
+  private final String role;
+  private final String method;
+  private final String path;
+  private final long traceIdHigh;
+  private final long traceIdLow;
+  private final long parentId;
+  private final long id;
+  private final boolean sampled;
+  private final long timestamp;
+  private final long begin;
+  private long duration = -1;
+  private int status;
+
+  private int count;
+  private String[] names;
+  private long[] ids;
+  private int[] parents;
+  private long[] starts;
+  private long[] durations;
+  private int depth;
+  private int[] open;
+
+  Trace( String topology, String role, String method, String path,
+      long traceIdHigh, long traceIdLow, long parentId, long id, boolean sampled, long begin ) {
+    this.topology = topology;
+    this.role = role;
+    this.method = method;
+    this.path = path;
+    this.traceIdHigh = traceIdHigh;
+    this.traceIdLow = traceIdLow;
+    this.parentId = parentId;
+    this.id = id;
+    this.sampled = sampled;
+    this.timestamp = System.currentTimeMillis();
+    this.begin = begin;
+    names = new String[ INITIAL_SPANS ];
+    ids = new long[ INITIAL_SPANS ];
+    parents = new int[ INITIAL_SPANS ];
+    starts = new long[ INITIAL_SPANS ];
+    durations = new long[ INITIAL_SPANS ];
+    open = new int[ INITIAL_SPANS ];
+  }
+
+  /**
+   * Starts a span nested within the innermost open span.
+   * @return The index of the span to pass to {@link #endSpan(int)}.
+   */
+  public int startSpan( String name ) {
+    if( count == names.length ) {
+      grow();
+    }
+    int index = count++;
+    names[ index ] = name;
+    ids[ index ] = Tracer.nextSpanId();
+    parents[ index ] = depth == 0 ? -1 : open[ depth - 1 ];
+    durations[ index ] = -1;
+    open[ depth++ ] = index;
+    starts[ index ] = System.nanoTime() - begin;
+    return index;
+  }
+
+  /**
+   * Ends the span and any spans nested within it that were left open.
+   */
+  public void endSpan( int index ) {
+    long end = System.nanoTime() - begin;
+    if( index >= 0 && index < count && durations[ index ] < 0 ) {
+      while( depth > 0 ) {
+        int closed = open[ --depth ];
+        durations[ closed ] = end - starts[ closed ];
+        if( closed == index ) {
+          break;
+        }
+      }
+    }
+  }
+
+  void end( int status, long end ) {
+    this.status = status;
+    this.duration = end - begin;
+    while( depth > 0 ) {
+      int closed = open[ --depth ];
+      durations[ closed ] = duration - starts[ closed ];
+    }
+  }
+
+  /**
+   * @return The W3C traceparent header value identifying the innermost open span.
+   */
+  public String getTraceParent() {
+    char[] chars = new char[ 55 ];
+    chars[ 0 ] = '0';
+    chars[ 1 ] = '0';
+    chars[ 2 ] = '-';
+    appendHex( chars, 3, traceIdHigh );
+    appendHex( chars, 19, traceIdLow );
+    chars[ 35 ] = '-';
+    appendHex( chars, 36, depth == 0 ? id : ids[ open[ depth - 1 ] ] );
+    chars[ 52 ] = '-';
+    chars[ 53 ] = '0';
+    chars[ 54 ] = sampled ? '1' : '0';
+    return new String( chars );
+  }
+
+  public String getTopology() {
+    return topology;
+  }
+
+  public String getRole() {
+    return role;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public String getTraceId() {
+    char[] chars = new char[ 32 ];
+    appendHex( chars, 0, traceIdHigh );
+    appendHex( chars, 16, traceIdLow );
+    return new String( chars );
+  }
+
+  public String getId() {
+    return toHex( id );
+  }
+
+  /**
+   * @return The id of the caller's span or null if the trace was started here.
+   */
+  public String getParentId() {
+    return parentId == 0 ? null : toHex( parentId );
+  }
+
+  public boolean isSampled() {
+    return sampled;
+  }
+
+  /**
+   * @return The System.currentTimeMillis() at which the trace was started.
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * @return The duration of the request in nanoseconds or -1 if it hasn't ended.
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public int getSpanCount() {
+    return count;
+  }
+
+  public String getSpanName( int index ) {
+    return names[ index ];
+  }
+
+  public String getSpanId( int index ) {
+    return toHex( ids[ index ] );
+  }
+
+  /**
+   * @return The id of the enclosing span, the request itself for top level spans.
+   */
+  public String getSpanParentId( int index ) {
+    int parent = parents[ index ];
+    return toHex( parent < 0 ? id : ids[ parent ] );
+  }
+
+  /**
+   * @return The start of the span in nanoseconds after the start of the request.
+   */
+  public long getSpanStart( int index ) {
+    return starts[ index ];
+  }
+
+  public long getSpanDuration( int index ) {
+    return durations[ index ];
+  }
+
+  private void grow() {
+    int size = names.length * 2;
+    String[] newNames = new String[ size ];
+    System.arraycopy( names, 0, newNames, 0, count );
+    names = newNames;
+    ids = copy( ids, size );
+    parents = copy( parents, size );
+    starts = copy( starts, size );
+    durations = copy( durations, size );
+    open = copy( open, size );
+  }
+
+  private static long[] copy( long[] array, int size ) {
+    long[] copy = new long[ size ];
+    System.arraycopy( array, 0, copy, 0, array.length );
+    return copy;
+  }
+
+  private static int[] copy( int[] array, int size ) {
+    int[] copy = new int[ size ];
+    System.arraycopy( array, 0, copy, 0, array.length );
+    return copy;
+  }
+
+  private static String toHex( long value ) {
+    char[] chars = new char[ 16 ];
+    appendHex( chars, 0, value );
+    return new String( chars );
+  }
+
+  private static void appendHex( char[] chars, int offset, long value ) {
+    for( int i = 15; i >= 0; i-- ) {
+      chars[ offset + i ] = HEX[ (int)( value & 0xF ) ];
+      value >>>= 4;
+    }
+  }
+
+}
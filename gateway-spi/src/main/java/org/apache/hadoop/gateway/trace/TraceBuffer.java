@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Holds the most recently kept traces, overwriting the oldest once full.
+ */
+public class TraceBuffer {
+
+  private final AtomicReferenceArray<Trace> traces;
+  private final AtomicLong next;
+
+  public TraceBuffer( int capacity ) {
+    traces = new AtomicReferenceArray<Trace>( Math.max( 1, capacity ) );
+    next = new AtomicLong();
+  }
+
+  public int getCapacity() {
+    return traces.length();
+  }
+
+  public void add( Trace trace ) {
+    traces.set( (int)( next.getAndIncrement() % traces.length() ), trace );
+  }
+
+  /**
+   * @return The buffered traces, oldest first.
+   */
+  public List<Trace> getTraces() {
+    int capacity = traces.length();
+    long end = next.get();
+    long start = Math.max( 0, end - capacity );
+    List<Trace> list = new ArrayList<Trace>( (int)( end - start ) );
+    for( long i = start; i < end; i++ ) {
+      Trace trace = traces.get( (int)( i % capacity ) );
+      if( trace != null ) {
+        list.add( trace );
+      }
+    }
+    return list;
+  }
+
+}
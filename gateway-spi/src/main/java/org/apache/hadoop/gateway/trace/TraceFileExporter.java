@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.trace;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.hadoop.gateway.SpiGatewayMessages;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+import org.apache.hadoop.gateway.metrics.Counter;
+import org.apache.hadoop.gateway.metrics.MetricsRegistry;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends kept traces to a file as one JSON object per line.  Traces are written by a
+ * background thread so request threads never wait on the file.  When the file can't keep
+ * up the traces that don't fit in the queue are dropped and counted in trace.export.dropped.
+ */
+public class TraceFileExporter {
+
+  public static final String DROPPED_COUNTER = "trace.export.dropped";
+
+  private static final SpiGatewayMessages LOG = MessagesFactory.get( SpiGatewayMessages.class );
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final int QUEUE_SIZE = 1000;
+
+  private final File file;
+  private final JsonGenerator generator;
+  private final ThreadPoolExecutor executor;
+  private final Counter dropped;
+
+  public TraceFileExporter( File file ) throws IOException {
+    this.file = file;
+    File dir = file.getAbsoluteFile().getParentFile();
+    if( dir != null && !dir.exists() ) {
+      dir.mkdirs();
+    }
+    generator = JSON_FACTORY.createGenerator( new BufferedOutputStream( new FileOutputStream( file, true ) ), JsonEncoding.UTF8 );
+    // Each trace is ended with a newline by write() instead of the default space between root values.
+    generator.setRootValueSeparator( null );
+    dropped = MetricsRegistry.getDefault().counter( DROPPED_COUNTER );
+    executor = new ThreadPoolExecutor( 1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>( QUEUE_SIZE ),
+        new ThreadFactory() {
+          @Override
+          public Thread newThread( Runnable runnable ) {
+            Thread thread = new Thread( runnable, "gateway-trace-exporter" );
+            thread.setDaemon( true );
+            return thread;
+          }
+        },
+        new ThreadPoolExecutor.DiscardPolicy() {
+          @Override
+          public void rejectedExecution( Runnable runnable, ThreadPoolExecutor executor ) {
+            dropped.increment();
+          }
+        } );
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public void export( final Trace trace ) {
+    executor.execute( new Runnable() {
+      @Override
+      public void run() {
+        try {
+          write( trace );
+          generator.flush();
+        } catch( IOException e ) {
+          LOG.failedToExportTrace( file.getPath(), e );
+        }
+      }
+    } );
+  }
+
+  /**
+   * Writes the traces already exported and closes the file.
+   */
+  public void close() {
+    executor.shutdown();
+    try {
+      executor.awaitTermination( 10, TimeUnit.SECONDS );
+    } catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      generator.close();
+    } catch( IOException e ) {
+      LOG.failedToExportTrace( file.getPath(), e );
+    }
+  }
+
+  private void write( Trace trace ) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField( "trace_id", trace.getTraceId() );
+    generator.writeStringField( "id", trace.getId() );
+    if( trace.getParentId() != null ) {
+      generator.writeStringField( "parent_id", trace.getParentId() );
+    }
+    generator.writeBooleanField( "sampled", trace.isSampled() );
+    generator.writeNumberField( "timestamp", trace.getTimestamp() );
+    generator.writeStringField( "topology", trace.getTopology() );
+    generator.writeStringField( "role", trace.getRole() );
+    generator.writeStringField( "method", trace.getMethod() );
+    generator.writeStringField( "path", trace.getPath() );
+    generator.writeNumberField( "status", trace.getStatus() );
+    generator.writeNumberField( "duration", trace.getDuration() );
+    generator.writeArrayFieldStart( "spans" );
+    for( int i = 0; i < trace.getSpanCount(); i++ ) {
+      generator.writeStartObject();
+      generator.writeStringField( "name", trace.getSpanName( i ) );
+      generator.writeStringField( "id", trace.getSpanId( i ) );
+      generator.writeStringField( "parent_id", trace.getSpanParentId( i ) );
+      generator.writeNumberField( "start", trace.getSpanStart( i ) );
+      generator.writeNumberField( "duration", trace.getSpanDuration( i ) );
+      generator.writeEndObject();
+    }
+    generator.writeEndArray();
+    generator.writeEndObject();
+    generator.writeRaw( '\n' );
+  }
+
+}
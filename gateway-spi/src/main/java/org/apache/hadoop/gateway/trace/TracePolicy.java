@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.trace;
+
+/**
+ * When the requests of a topology are traced.  A trace is kept if the request was sampled,
+ * either here or by the caller as indicated by an inbound traceparent header, or if it took
+ * at least the slow threshold.
+ */
+public class TracePolicy {
+
+  public static final TracePolicy DISABLED = new TracePolicy( 0.0, -1 );
+
+  private final double sampleRate;
+  private final long slowThreshold;
+  private final long slowThresholdNanos;
+
+  /**
+   * @param sampleRate The fraction of requests to sample, from 0.0 to 1.0.
+   * @param slowThreshold Requests taking at least this many milliseconds are always kept.
+   *   Negative to only keep sampled requests.
+   */
+  public TracePolicy( double sampleRate, long slowThreshold ) {
+    this.sampleRate = Math.max( 0.0, Math.min( 1.0, sampleRate ) );
+    this.slowThreshold = slowThreshold;
+    this.slowThresholdNanos = slowThreshold < 0 ? -1 : slowThreshold * 1000000L;
+  }
+
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  public long getSlowThreshold() {
+    return slowThreshold;
+  }
+
+  public boolean isEnabled() {
+    return sampleRate > 0.0 || slowThreshold >= 0;
+  }
+
+  /**
+   * @param random A uniformly distributed random value.
+   */
+  boolean isSampled( long random ) {
+    boolean sampled;
+    if( sampleRate >= 1.0 ) {
+      sampled = true;
+    } else {
+      sampled = ( random >>> 11 ) * 0x1.0p-53 < sampleRate;
+    }
+    return sampled;
+  }
+
+  boolean isSlow( long duration ) {
+    return slowThresholdNanos >= 0 && duration >= slowThresholdNanos;
+  }
+
+}
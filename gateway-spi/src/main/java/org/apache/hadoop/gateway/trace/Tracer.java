@@ -0,0 +1,234 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.trace;
+
+import org.apache.hadoop.gateway.SpiGatewayMessages;
+import org.apache.hadoop.gateway.config.GatewayConfig;
+import org.apache.hadoop.gateway.i18n.messages.MessagesFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sampling request tracer.  The GatewayFilter begins a {@link Trace} for each request routed
+ * to a topology whose {@link TracePolicy} is enabled, the filters and dispatch add spans to it
+ * and the dispatch propagates it to the backend in a W3C traceparent header.  Traces that are
+ * sampled or slow are kept in a ring buffer, available from the admin API, and optionally
+ * appended to a file.
+ * <p>
+ * Tracing is configured in gateway-site.xml with gateway.trace.sample.rate and
+ * gateway.trace.slow.threshold, which can be overridden for a topology with
+ * gateway.trace.{topology}.sample.rate and gateway.trace.{topology}.slow.threshold.
+ */
+public final class Tracer {
+
+  public static final String TRACEPARENT = "traceparent";
+  public static final int DEFAULT_BUFFER_SIZE = 100;
+
+  private static final SpiGatewayMessages LOG = MessagesFactory.get( SpiGatewayMessages.class );
+  private static final String NONE = "";
+  private static final int TRACEPARENT_LENGTH = 55;
+
+  private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<Trace>();
+  private static final ConcurrentHashMap<String, TracePolicy> POLICIES = new ConcurrentHashMap<String, TracePolicy>();
+
+  // Ids are a bijective mix of a sequence so they are unique within the process and look random.
+  private static final long NODE = new SecureRandom().nextLong();
+  private static final AtomicLong SEQUENCE = new AtomicLong();
+
+  private static volatile GatewayConfig config;
+  private static volatile TraceBuffer buffer = new TraceBuffer( DEFAULT_BUFFER_SIZE );
+  private static volatile TraceFileExporter exporter;
+
+  private Tracer() {
+  }
+
+  public static synchronized void configure( GatewayConfig config ) {
+    Tracer.config = config;
+    POLICIES.clear();
+    buffer = new TraceBuffer( config.getTraceBufferSize() );
+    if( exporter != null ) {
+      exporter.close();
+      exporter = null;
+    }
+    String file = config.getTraceFile();
+    if( file != null && file.trim().length() > 0 ) {
+      try {
+        exporter = new TraceFileExporter( new File( file.trim() ) );
+      } catch( IOException e ) {
+        LOG.failedToExportTrace( file, e );
+      }
+    }
+  }
+
+  /**
+   * Overrides the configured policy for a topology.
+   */
+  public static void setPolicy( String topology, TracePolicy policy ) {
+    POLICIES.put( topology == null ? NONE : topology, policy );
+  }
+
+  public static TracePolicy getPolicy( String topology ) {
+    String key = topology == null ? NONE : topology;
+    TracePolicy policy = POLICIES.get( key );
+    if( policy == null ) {
+      GatewayConfig current = config;
+      if( current == null ) {
+        policy = TracePolicy.DISABLED;
+      } else {
+        policy = new TracePolicy( current.getTraceSampleRate( topology ), current.getTraceSlowThreshold( topology ) );
+      }
+      TracePolicy existing = POLICIES.putIfAbsent( key, policy );
+      if( existing != null ) {
+        policy = existing;
+      }
+    }
+    return policy;
+  }
+
+  /**
+   * Begins tracing a request on the current thread if tracing is enabled for the topology.
+   * @param traceParent The inbound traceparent header, may be null.
+   * @param begin The System.nanoTime() at which the request was received.
+   * @return The trace or null if the request isn't traced.
+   */
+  public static Trace begin( String topology, String role, String method, String path, String traceParent, long begin ) {
+    Trace trace = null;
+    TracePolicy policy = getPolicy( topology );
+    if( policy.isEnabled() ) {
+      long high;
+      long low;
+      long parent;
+      boolean sampled;
+      if( isValidTraceParent( traceParent ) ) {
+        high = parseHex( traceParent, 3 );
+        low = parseHex( traceParent, 19 );
+        parent = parseHex( traceParent, 36 );
+        sampled = ( Character.digit( traceParent.charAt( 54 ), 16 ) & 1 ) == 1 || policy.isSampled( mix( low ) );
+      } else {
+        high = nextId();
+        low = nextId();
+        parent = 0;
+        sampled = policy.isSampled( low );
+      }
+      trace = new Trace( topology == null ? NONE : topology, role == null ? NONE : role, method, path,
+          high, low, parent, nextSpanId(), sampled, begin );
+      CURRENT.set( trace );
+    }
+    return trace;
+  }
+
+  /**
+   * @return The trace of the request being processed by the current thread or null.
+   */
+  public static Trace current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Ends the trace begun by {@link #begin} and keeps it if it was sampled or slow.
+   */
+  public static void end( Trace trace, int status ) {
+    if( trace != null ) {
+      CURRENT.remove();
+      trace.end( status, System.nanoTime() );
+      if( trace.isSampled() || getPolicy( trace.getTopology() ).isSlow( trace.getDuration() ) ) {
+        buffer.add( trace );
+        TraceFileExporter current = exporter;
+        if( current != null ) {
+          current.export( trace );
+        }
+      }
+    }
+  }
+
+  /**
+   * @return The most recently kept traces, oldest first.
+   */
+  public static List<Trace> getTraces() {
+    return buffer.getTraces();
+  }
+
+  /**
+   * Writes the traces already exported and closes the trace file.
+   */
+  public static synchronized void shutdown() {
+    if( exporter != null ) {
+      exporter.close();
+      exporter = null;
+    }
+  }
+
+  public static synchronized void reset() {
+    POLICIES.clear();
+    buffer = new TraceBuffer( buffer.getCapacity() );
+    CURRENT.remove();
+  }
+
+  static long nextSpanId() {
+    return nextId();
+  }
+
+  private static long nextId() {
+    long id = mix( NODE + SEQUENCE.incrementAndGet() * 0x9E3779B97F4A7C15L );
+    // Zero is not a valid trace or span id.
+    return id == 0 ? 1 : id;
+  }
+
+  // The SplitMix64 finalizer.
+  private static long mix( long z ) {
+    z = ( z ^ ( z >>> 30 ) ) * 0xBF58476D1CE4E5B9L;
+    z = ( z ^ ( z >>> 27 ) ) * 0x94D049BB133111EBL;
+    return z ^ ( z >>> 31 );
+  }
+
+  // Only version 00 is understood, e.g. 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01
+  static boolean isValidTraceParent( String value ) {
+    boolean valid = value != null
+        && value.length() == TRACEPARENT_LENGTH
+        && value.charAt( 0 ) == '0' && value.charAt( 1 ) == '0'
+        && value.charAt( 2 ) == '-' && value.charAt( 35 ) == '-' && value.charAt( 52 ) == '-'
+        && isHex( value, 3, 35 ) && isHex( value, 36, 52 ) && isHex( value, 53, 55 );
+    if( valid ) {
+      valid = ( parseHex( value, 3 ) | parseHex( value, 19 ) ) != 0 && parseHex( value, 36 ) != 0;
+    }
+    return valid;
+  }
+
+  private static boolean isHex( String value, int start, int end ) {
+    boolean hex = true;
+    for( int i = start; hex && i < end; i++ ) {
+      char c = value.charAt( i );
+      hex = ( c >= '0' && c <= '9' ) || ( c >= 'a' && c <= 'f' );
+    }
+    return hex;
+  }
+
+  private static long parseHex( String value, int start ) {
+    long result = 0;
+    for( int i = start; i < start + 16; i++ ) {
+      result = ( result << 4 ) | Character.digit( value.charAt( i ), 16 );
+    }
+    return result;
+  }
+
+}
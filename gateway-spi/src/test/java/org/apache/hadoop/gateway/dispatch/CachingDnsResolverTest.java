@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.dispatch;
+
+import org.apache.hadoop.gateway.metrics.MetricsRegistry;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class CachingDnsResolverTest {
+
+  @Test
+  public void testAddressesAreCached() throws Exception {
+    TestResolver resolver = new TestResolver( 60000, 60000 );
+    assertThat( resolver.resolve( "cached-host" )[ 0 ].getHostAddress(), is( "10.0.0.1" ) );
+    assertThat( resolver.resolve( "cached-host" )[ 0 ].getHostAddress(), is( "10.0.0.1" ) );
+    assertThat( resolver.lookups.get(), is( 1 ) );
+    assertThat( MetricsRegistry.getDefault().getValue( "dns.cached-host.misses" ), is( 1L ) );
+    assertThat( MetricsRegistry.getDefault().getValue( "dns.cached-host.hits" ), is( 1L ) );
+  }
+
+  @Test
+  public void testFailuresAreCached() throws Exception {
+    TestResolver resolver = new TestResolver( 60000, 60000 );
+    for( int i = 0; i < 2; i++ ) {
+      try {
+        resolver.resolve( "unknown-host" );
+        fail( "Expected UnknownHostException" );
+      } catch( UnknownHostException e ) {
+        // Expected.
+      }
+    }
+    assertThat( resolver.lookups.get(), is( 1 ) );
+  }
+
+  @Test
+  public void testDisabledCacheAlwaysLooksUp() throws Exception {
+    TestResolver resolver = new TestResolver( 0, 0 );
+    resolver.resolve( "uncached-host" );
+    resolver.resolve( "uncached-host" );
+    assertThat( resolver.lookups.get(), is( 2 ) );
+  }
+
+  @Test( timeout = 10000 )
+  public void testRefreshAheadFollowsChanges() throws Exception {
+    TestResolver resolver = new TestResolver( 200, 60000 );
+    assertThat( resolver.resolve( "changing-host" )[ 0 ].getHostAddress(), is( "10.0.0.1" ) );
+    resolver.address = "10.0.0.2";
+    resolver.now += 100;
+    // Before the refresh point the cached address is used as is.
+    assertThat( resolver.resolve( "changing-host" )[ 0 ].getHostAddress(), is( "10.0.0.1" ) );
+    assertThat( resolver.lookups.get(), is( 1 ) );
+    resolver.now += 60;
+    // Past the refresh point the cached address is returned while it is refreshed in the background.
+    assertThat( resolver.resolve( "changing-host" )[ 0 ].getHostAddress(), is( "10.0.0.1" ) );
+    // The clock no longer moves, so only the background refresh can bring the new address.
+    while( !"10.0.0.2".equals( resolver.resolve( "changing-host" )[ 0 ].getHostAddress() ) ) {
+      Thread.yield();
+    }
+    assertThat( resolver.lookups.get(), is( 2 ) );
+  }
+
+  private static class TestResolver extends CachingDnsResolver {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private volatile String address = "10.0.0.1";
+    private volatile long now = 1000000L;
+
+    private TestResolver( long ttl, long negativeTtl ) {
+      super( ttl, negativeTtl, 100 );
+    }
+
+    @Override
+    protected InetAddress[] lookup( String host ) throws UnknownHostException {
+      lookups.incrementAndGet();
+      if( host.startsWith( "unknown" ) ) {
+        throw new UnknownHostException( host );
+      }
+      return new InetAddress[]{ InetAddress.getByName( address ) };
+    }
+
+    @Override
+    protected long currentTimeMillis() {
+      return now;
+    }
+
+  }
+
+}
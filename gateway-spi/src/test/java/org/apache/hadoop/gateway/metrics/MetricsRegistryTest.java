@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.metrics;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MetricsRegistryTest {
+
+  @Test
+  public void testCounterIsSharedByName() {
+    MetricsRegistry registry = new MetricsRegistry();
+    Counter counter = registry.counter( "test.counter" );
+    assertThat( registry.counter( "test.counter" ), sameInstance( counter ) );
+    counter.increment();
+    counter.add( 41 );
+    assertThat( registry.getValue( "test.counter" ), is( 42L ) );
+    counter.decrement();
+    assertThat( registry.getValues().get( "test.counter" ), is( 41L ) );
+  }
+
+  @Test
+  public void testGaugeRegistration() {
+    MetricsRegistry registry = new MetricsRegistry();
+    Gauge first = new Gauge() {
+      @Override
+      public long getValue() {
+        return 1;
+      }
+    };
+    Gauge second = new Gauge() {
+      @Override
+      public long getValue() {
+        return 2;
+      }
+    };
+    registry.register( "test.gauge", first );
+    assertThat( registry.getValue( "test.gauge" ), is( 1L ) );
+    registry.register( "test.gauge", second );
+    // Removing a replaced gauge must not remove its replacement.
+    registry.unregister( "test.gauge", first );
+    assertThat( registry.getValue( "test.gauge" ), is( 2L ) );
+    registry.unregister( "test.gauge", second );
+    assertThat( registry.getValue( "test.gauge" ), nullValue() );
+  }
+
+  @Test( timeout = 60000 )
+  public void testConcurrentIncrements() throws InterruptedException {
+    final Counter counter = new Counter();
+    Thread[] threads = new Thread[ 8 ];
+    for( int i = 0; i < threads.length; i++ ) {
+      threads[ i ] = new Thread() {
+        public void run() {
+          for( int j = 0; j < 10000; j++ ) {
+            counter.increment();
+          }
+        }
+      };
+      threads[ i ].start();
+    }
+    for( Thread thread : threads ) {
+      thread.join();
+    }
+    assertThat( counter.get(), is( 80000L ) );
+  }
+
+  @Test
+  public void testCountingInputStream() throws IOException {
+    Counter counter = new Counter();
+    InputStream stream = new CountingInputStream( new ByteArrayInputStream( new byte[ 100 ] ), counter );
+    stream.read();
+    stream.read( new byte[ 10 ] );
+    stream.skip( 9 );
+    byte[] buffer = new byte[ 1000 ];
+    while( stream.read( buffer ) >= 0 ) {}
+    assertThat( counter.get(), is( 100L ) );
+  }
+
+}
@@ -17,13 +17,17 @@
  */
 package org.apache.hadoop.gateway.services.hostmap;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.test.TestUtils;
 import org.junit.Test;
 
+import java.io.File;
 import java.net.URL;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 public class FileBasedHostMapperTest {
@@ -61,4 +65,59 @@ public class FileBasedHostMapperTest {
     assertThat( mapper.resolveOutboundHostName( "internal-both-list-2" ), is( "external-both-list-1" ) );
   }
 
+  @Test
+  public void testRules() throws Exception {
+    URL hostMapUrl = TestUtils.getResourceUrl( FileBasedHostMapperTest.class, "hostmap-rules.txt" );
+    FileBasedHostMapper mapper = new FileBasedHostMapper( hostMapUrl );
+
+    // Exact names win over rules.
+    assertThat( mapper.resolveInboundHostName( "external" ), is( "internal" ) );
+    assertThat( mapper.resolveOutboundHostName( "internal" ), is( "external" ) );
+
+    // *.example.com = *.ec2.internal
+    assertThat( mapper.resolveInboundHostName( "host1.example.com" ), is( "host1.ec2.internal" ) );
+    assertThat( mapper.resolveInboundHostName( "host1.rack1.example.com" ), is( "host1.rack1.ec2.internal" ) );
+    assertThat( mapper.resolveInboundHostName( "HOST1.EXAMPLE.COM" ), is( "HOST1.ec2.internal" ) );
+    assertThat( mapper.resolveOutboundHostName( "host1.ec2.internal" ), is( "host1.example.com" ) );
+    assertThat( mapper.resolveInboundHostName( "example.com" ), is( "example.com" ) );
+
+    // The longest suffix wins: *.eu.example.com = *.eu-west-1.compute.internal
+    assertThat( mapper.resolveInboundHostName( "host2.eu.example.com" ), is( "host2.eu-west-1.compute.internal" ) );
+    assertThat( mapper.resolveOutboundHostName( "host2.eu-west-1.compute.internal" ), is( "host2.eu.example.com" ) );
+
+    // 54.10.0.0/16 = 10.1.0.0/16
+    assertThat( mapper.resolveInboundHostName( "54.10.3.4" ), is( "10.1.3.4" ) );
+    assertThat( mapper.resolveOutboundHostName( "10.1.255.1" ), is( "54.10.255.1" ) );
+    assertThat( mapper.resolveOutboundHostName( "10.3.0.1" ), is( "10.3.0.1" ) );
+    assertThat( mapper.resolveOutboundHostName( "10.1.0" ), is( "10.1.0" ) );
+
+    // 54.11.12.0/24 = 10.2.3.0/24
+    assertThat( mapper.resolveInboundHostName( "54.11.12.99" ), is( "10.2.3.99" ) );
+    assertThat( mapper.resolveInboundHostName( "54.11.13.99" ), is( "54.11.13.99" ) );
+
+    // Names only pair with names, rules with rules of the same kind.
+    assertThat( mapper.resolveInboundHostName( "mixed" ), is( "mixed" ) );
+    assertThat( mapper.resolveOutboundHostName( "x.ignored" ), is( "x.ignored" ) );
+
+    // Resolutions are remembered.
+    assertThat( mapper.resolveInboundHostName( "host1.example.com" ), is( "host1.ec2.internal" ) );
+    assertThat( mapper.resolveInboundHostName( null ), nullValue() );
+  }
+
+  @Test
+  public void testReload() throws Exception {
+    File file = new File( TestUtils.createTempDir( "hostmap-" ), "hostmap.txt" );
+    FileUtils.writeStringToFile( file, "external=internal" );
+    file.setLastModified( System.currentTimeMillis() - 60000 );
+    FileBasedHostMapper mapper = new FileBasedHostMapper( file.toURI().toURL() );
+    assertThat( mapper.reload(), sameInstance( mapper ) );
+
+    FileUtils.writeStringToFile( file, "external=changed" );
+    Thread.sleep( FileBasedHostMapper.RELOAD_CHECK_INTERVAL + 100 );
+    FileBasedHostMapper reloaded = mapper.reload();
+    assertThat( reloaded, not( sameInstance( mapper ) ) );
+    assertThat( mapper.resolveInboundHostName( "external" ), is( "internal" ) );
+    assertThat( reloaded.resolveInboundHostName( "external" ), is( "changed" ) );
+  }
+
 }
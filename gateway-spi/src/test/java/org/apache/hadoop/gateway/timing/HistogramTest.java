@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.timing;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HistogramTest {
+
+  @Test
+  public void testBucketBoundaries() {
+    long previous = -1;
+    for( long value = 0; value < 100000; value++ ) {
+      int index = Histogram.indexOf( value );
+      assertThat( "" + value, Histogram.highestValueAt( index ) >= value, is( true ) );
+      if( index > 0 ) {
+        assertThat( "" + value, Histogram.highestValueAt( index - 1 ) < value, is( true ) );
+      }
+      assertThat( "" + value, index == previous || index == previous + 1, is( true ) );
+      previous = index;
+    }
+    assertThat( Histogram.highestValueAt( Histogram.indexOf( Long.MAX_VALUE ) ), is( Long.MAX_VALUE ) );
+  }
+
+  @Test
+  public void testPercentiles() {
+    Histogram histogram = new Histogram();
+    Histogram.Snapshot empty = histogram.snapshot();
+    assertThat( empty.getCount(), is( 0L ) );
+    assertThat( empty.getValueAtPercentile( 99 ), is( 0L ) );
+
+    for( long value = 1; value <= 10000; value++ ) {
+      histogram.record( value * 1000 );
+    }
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertThat( snapshot.getCount(), is( 10000L ) );
+    assertThat( snapshot.getMax(), is( 10000000L ) );
+    assertThat( snapshot.getMean(), is( 5000500.0 ) );
+    assertWithin( snapshot.getValueAtPercentile( 50 ), 5000000 );
+    assertWithin( snapshot.getValueAtPercentile( 90 ), 9000000 );
+    assertWithin( snapshot.getValueAtPercentile( 99 ), 9900000 );
+    assertThat( snapshot.getValueAtPercentile( 100 ), is( 10000000L ) );
+
+    histogram.reset();
+    assertThat( histogram.snapshot().getCount(), is( 0L ) );
+  }
+
+  @Test
+  public void testConcurrentRecording() throws InterruptedException {
+    final Histogram histogram = new Histogram();
+    Thread[] threads = new Thread[ 4 ];
+    for( int i = 0; i < threads.length; i++ ) {
+      threads[ i ] = new Thread() {
+        public void run() {
+          for( int j = 0; j < 100000; j++ ) {
+            histogram.record( j );
+          }
+        }
+      };
+      threads[ i ].start();
+    }
+    for( Thread thread : threads ) {
+      thread.join();
+    }
+    assertThat( histogram.snapshot().getCount(), is( 400000L ) );
+    assertThat( histogram.snapshot().getMax(), is( 99999L ) );
+  }
+
+  private static void assertWithin( long actual, long expected ) {
+    assertThat( actual + " not within 3% of " + expected, Math.abs( actual - expected ) <= expected * 0.03, is( true ) );
+  }
+
+}
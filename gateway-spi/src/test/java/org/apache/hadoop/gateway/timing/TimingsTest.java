@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.timing;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TimingsTest {
+
+  @After
+  public void cleanup() {
+    Timings.reset();
+    Timings.configure( true, false );
+  }
+
+  @Test
+  public void testNestedSectionsRecordSelfTime() throws InterruptedException {
+    RequestTimer timer = Timings.begin( "sandbox", "WEBHDFS", System.nanoTime() );
+    assertThat( Timings.current() == timer, is( true ) );
+
+    long outerNested = timer.enter();
+    long outerStart = System.nanoTime();
+    Thread.sleep( 20 );
+    long innerNested = timer.enter();
+    long innerStart = System.nanoTime();
+    long start = Timings.start();
+    Thread.sleep( 50 );
+    Timings.stop( "dispatch", start );
+    timer.exit( "filter.inner", innerStart, innerNested );
+    timer.exit( "filter.outer", outerStart, outerNested );
+
+    assertThat( timer.size(), is( 3 ) );
+    assertThat( timer.getName( 0 ), is( "dispatch" ) );
+    assertThat( timer.getName( 1 ), is( "filter.inner" ) );
+    assertThat( timer.getName( 2 ), is( "filter.outer" ) );
+    // The outer filter excludes the 50ms spent in the inner filter.
+    long outer = timer.getDuration( 2 );
+    assertThat( outer + "", outer >= 20000000L && outer < 45000000L, is( true ) );
+    assertThat( timer.getDuration( 1 ) >= 50000000L, is( true ) );
+
+    String header = timer.getServerTiming();
+    assertThat( header, header.matches( "dispatch;dur=\\d+\\.\\d{3}, filter.inner;dur=\\d+\\.\\d{3}, filter.outer;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}" ), is( true ) );
+
+    Timings.end( timer );
+    assertThat( Timings.current(), nullValue() );
+
+    Map<String, Histogram.Snapshot> spans = Timings.getSnapshots().get( "sandbox" ).get( "WEBHDFS" );
+    assertThat( spans.size(), is( 4 ) );
+    assertThat( spans.get( "dispatch" ).getCount(), is( 1L ) );
+    assertThat( spans.get( Timings.TOTAL ).getCount(), is( 1L ) );
+  }
+
+  @Test
+  public void testDisabled() {
+    Timings.configure( false, false );
+    assertThat( Timings.begin( "sandbox", "WEBHDFS", System.nanoTime() ), nullValue() );
+    assertThat( Timings.current(), nullValue() );
+    Timings.stop( "dispatch", Timings.start() );
+    Timings.end( null );
+    assertThat( Timings.getSnapshots().isEmpty(), is( true ) );
+  }
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.trace;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BodyCapturePolicyTest {
+
+  @Test
+  public void testMatching() {
+    assertThat( BodyCapturePolicy.DISABLED.matches( "cluster", "WEBHDFS" ), is( false ) );
+    assertThat( new BodyCapturePolicy( true, 0.0, null, null, null, 1024 ).isEnabled(), is( false ) );
+
+    BodyCapturePolicy any = new BodyCapturePolicy( true, 1.0, null, null, null, 1024 );
+    assertThat( any.matches( "cluster", null ), is( true ) );
+    assertThat( any.matchesUser( null ), is( true ) );
+
+    BodyCapturePolicy policy = new BodyCapturePolicy( true, 1.0,
+        BodyCapturePolicy.parseNames( " cluster, sandbox ,," ),
+        BodyCapturePolicy.parseNames( "WEBHDFS" ),
+        BodyCapturePolicy.parseNames( "guest" ), 1024 );
+    assertThat( policy.getTopologies().size(), is( 2 ) );
+    assertThat( policy.matches( "sandbox", "WEBHDFS" ), is( true ) );
+    assertThat( policy.matches( "other", "WEBHDFS" ), is( false ) );
+    assertThat( policy.matches( "cluster", "OOZIE" ), is( false ) );
+    assertThat( policy.matches( "cluster", null ), is( false ) );
+    assertThat( policy.matchesUser( "guest" ), is( true ) );
+    assertThat( policy.matchesUser( "admin" ), is( false ) );
+    assertThat( policy.matchesUser( null ), is( false ) );
+  }
+
+  @Test
+  public void testSampling() {
+    BodyCapturePolicy policy = new BodyCapturePolicy( true, 0.5, null, null, null, 1024 );
+    assertThat( policy.isSampled( 0L ), is( true ) );
+    assertThat( policy.isSampled( -1L ), is( false ) );
+    assertThat( new BodyCapturePolicy( true, 1.0, null, null, null, 1024 ).isSampled( -1L ), is( true ) );
+  }
+
+}
@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.trace;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TracerTest {
+
+  private static final String INBOUND = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+  @After
+  public void cleanup() {
+    Tracer.reset();
+  }
+
+  @Test
+  public void testDisabledTopologyIsNotTraced() {
+    assertThat( Tracer.begin( "cluster", "WEBHDFS", "GET", "/path", null, System.nanoTime() ), nullValue() );
+    assertThat( Tracer.current(), nullValue() );
+  }
+
+  @Test
+  public void testSampledTraceIsKeptWithNestedSpans() {
+    Tracer.setPolicy( "cluster", new TracePolicy( 1.0, -1 ) );
+    Trace trace = Tracer.begin( "cluster", "WEBHDFS", "GET", "/path", null, System.nanoTime() );
+    assertThat( Tracer.current(), is( trace ) );
+    int outer = trace.startSpan( "outer" );
+    int inner = trace.startSpan( "inner" );
+    String traceParent = trace.getTraceParent();
+    assertThat( Tracer.isValidTraceParent( traceParent ), is( true ) );
+    assertThat( traceParent, is( "00-" + trace.getTraceId() + "-" + trace.getSpanId( inner ) + "-01" ) );
+    trace.endSpan( inner );
+    trace.endSpan( outer );
+    Tracer.end( trace, 200 );
+    assertThat( Tracer.current(), nullValue() );
+
+    List<Trace> traces = Tracer.getTraces();
+    assertThat( traces.size(), is( 1 ) );
+    assertThat( trace.getParentId(), nullValue() );
+    assertThat( trace.getStatus(), is( 200 ) );
+    assertThat( trace.getSpanCount(), is( 2 ) );
+    assertThat( trace.getSpanParentId( outer ), is( trace.getId() ) );
+    assertThat( trace.getSpanParentId( inner ), is( trace.getSpanId( outer ) ) );
+    assertThat( trace.getSpanDuration( inner ) <= trace.getSpanDuration( outer ), is( true ) );
+    assertThat( trace.getSpanDuration( outer ) <= trace.getDuration(), is( true ) );
+  }
+
+  @Test
+  public void testInboundTraceParentIsContinued() {
+    Tracer.setPolicy( "cluster", new TracePolicy( 0.0, -1 ) );
+    // A zero sample rate is disabled even if the caller sampled.
+    assertThat( Tracer.begin( "cluster", "WEBHDFS", "GET", "/path", INBOUND, System.nanoTime() ), nullValue() );
+
+    Tracer.setPolicy( "cluster", new TracePolicy( 0.0, 60000 ) );
+    Trace trace = Tracer.begin( "cluster", "WEBHDFS", "GET", "/path", INBOUND, System.nanoTime() );
+    assertThat( trace.getTraceId(), is( "4bf92f3577b34da6a3ce929d0e0e4736" ) );
+    assertThat( trace.getParentId(), is( "00f067aa0ba902b7" ) );
+    assertThat( trace.isSampled(), is( true ) );
+    assertThat( trace.getTraceParent(), containsString( "-4bf92f3577b34da6a3ce929d0e0e4736-" ) );
+    assertThat( trace.getTraceParent(), not( containsString( "00f067aa0ba902b7" ) ) );
+    Tracer.end( trace, 200 );
+    assertThat( Tracer.getTraces().size(), is( 1 ) );
+  }
+
+  @Test
+  public void testInvalidTraceParentIsIgnored() {
+    assertThat( Tracer.isValidTraceParent( INBOUND ), is( true ) );
+    assertThat( Tracer.isValidTraceParent( null ), is( false ) );
+    assertThat( Tracer.isValidTraceParent( "01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01" ), is( false ) );
+    assertThat( Tracer.isValidTraceParent( "00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01" ), is( false ) );
+    assertThat( Tracer.isValidTraceParent( "00-00000000000000000000000000000000-00f067aa0ba902b7-01" ), is( false ) );
+    assertThat( Tracer.isValidTraceParent( "00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01" ), is( false ) );
+
+    Tracer.setPolicy( "cluster", new TracePolicy( 1.0, -1 ) );
+    Trace trace = Tracer.begin( "cluster", "WEBHDFS", "GET", "/path", "garbage", System.nanoTime() );
+    assertThat( trace.getParentId(), nullValue() );
+    assertThat( trace.getTraceId(), not( is( "00000000000000000000000000000000" ) ) );
+    Tracer.end( trace, 200 );
+  }
+
+  @Test
+  public void testOnlySlowUnsampledTracesAreKept() {
+    Tracer.setPolicy( "fast", new TracePolicy( 0.0, 60000 ) );
+    Trace trace = Tracer.begin( "fast", "WEBHDFS", "GET", "/path", null, System.nanoTime() );
+    assertThat( trace, notNullValue() );
+    assertThat( trace.isSampled(), is( false ) );
+    Tracer.end( trace, 200 );
+    assertThat( Tracer.getTraces().size(), is( 0 ) );
+
+    Tracer.setPolicy( "slow", new TracePolicy( 0.0, 0 ) );
+    trace = Tracer.begin( "slow", "WEBHDFS", "GET", "/path", null, System.nanoTime() );
+    Tracer.end( trace, 500 );
+    assertThat( Tracer.getTraces().size(), is( 1 ) );
+    assertThat( Tracer.getTraces().get( 0 ).getTopology(), is( "slow" ) );
+  }
+
+  @Test
+  public void testSampleRate() {
+    TracePolicy policy = new TracePolicy( 0.25, -1 );
+    int sampled = 0;
+    for( int i = 0; i < 10000; i++ ) {
+      Tracer.setPolicy( "cluster", policy );
+      Trace trace = Tracer.begin( "cluster", "WEBHDFS", "GET", "/path", null, System.nanoTime() );
+      if( trace.isSampled() ) {
+        sampled++;
+      }
+      Tracer.end( trace, 200 );
+    }
+    assertThat( sampled > 2000 && sampled < 3000, is( true ) );
+  }
+
+  @Test
+  public void testBufferKeepsMostRecent() {
+    TraceBuffer buffer = new TraceBuffer( 3 );
+    Trace[] traces = new Trace[ 5 ];
+    for( int i = 0; i < traces.length; i++ ) {
+      traces[ i ] = new Trace( "t" + i, "r", "GET", "/", 1, 1, 0, 1, true, System.nanoTime() );
+      buffer.add( traces[ i ] );
+    }
+    List<Trace> list = buffer.getTraces();
+    assertThat( list.size(), is( 3 ) );
+    assertThat( list.get( 0 ), is( traces[ 2 ] ) );
+    assertThat( list.get( 2 ), is( traces[ 4 ] ) );
+  }
+
+  @Test
+  public void testFileExporter() throws IOException {
+    File file = new File( "target/TracerTest/traces.json" );
+    file.delete();
+    TraceFileExporter exporter = new TraceFileExporter( file );
+    Trace trace = new Trace( "cluster", "WEBHDFS", "GET", "/a\"b", 1, 2, 0, 3, true, System.nanoTime() );
+    trace.endSpan( trace.startSpan( "filter.dispatch" ) );
+    trace.end( 200, System.nanoTime() );
+    exporter.export( trace );
+    exporter.export( trace );
+    exporter.close();
+    BufferedReader reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), "UTF-8" ) );
+    try {
+      String line = reader.readLine();
+      assertThat( line, containsString( "\"trace_id\":\"00000000000000010000000000000002\"" ) );
+      assertThat( line, containsString( "\"path\":\"/a\\\"b\"" ) );
+      assertThat( line, containsString( "\"name\":\"filter.dispatch\"" ) );
+      assertThat( reader.readLine(), is( line ) );
+      assertThat( reader.readLine(), nullValue() );
+    } finally {
+      reader.close();
+    }
+  }
+
+}
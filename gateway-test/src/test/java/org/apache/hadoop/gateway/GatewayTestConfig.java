@@ -179,4 +179,44 @@ public class GatewayTestConfig implements GatewayConfig {
 //   this.kerberosLoginConfig = kerberosLoginConfig;
 //  }
   
+  @Override
+  public boolean isTimingEnabled() {
+    return true;
+  }
+
+  @Override
+  public boolean isServerTimingHeaderEnabled() {
+    return false;
+  }
+
+  @Override
+  public double getTraceSampleRate( String topology ) {
+    return 0.0;
+  }
+
+  @Override
+  public long getTraceSlowThreshold( String topology ) {
+    return -1;
+  }
+
+  @Override
+  public int getTraceBufferSize() {
+    return 100;
+  }
+
+  @Override
+  public String getTraceFile() {
+    return null;
+  }
+
+  @Override
+  public long getDnsCacheTtl() {
+    return 60000;
+  }
+
+  @Override
+  public long getDnsCacheNegativeTtl() {
+    return 10000;
+  }
+
 }
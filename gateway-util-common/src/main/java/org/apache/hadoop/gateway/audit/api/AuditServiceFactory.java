@@ -18,9 +18,16 @@
 package org.apache.hadoop.gateway.audit.api;
 
 import org.apache.hadoop.gateway.audit.log4j.audit.Log4jAuditService;
+import org.apache.log4j.helpers.LogLog;
 
 public abstract class AuditServiceFactory {
 
+  /**
+   * System property that names the AuditService implementation class to use.
+   * Defaults to the synchronous Log4jAuditService.
+   */
+  public static final String AUDIT_SERVICE_CLASS_PROPERTY = "gateway.audit.service.class";
+
   // The global audit service instance.
   private static AuditService auditService = null;
 
@@ -35,9 +42,24 @@ public abstract class AuditServiceFactory {
   public static AuditService getAuditService() {
     // Race condition acceptable and will only result in multiple service instantiations.
     if( auditService == null ) {
-      auditService = new Log4jAuditService();
+      auditService = createAuditService( System.getProperty( AUDIT_SERVICE_CLASS_PROPERTY ) );
     }
     return auditService;
   }
 
+  private static AuditService createAuditService( String className ) {
+    AuditService service = null;
+    if( className != null && className.trim().length() > 0 ) {
+      try {
+        service = (AuditService)Class.forName( className.trim() ).newInstance();
+      } catch( Exception e ) {
+        LogLog.error( "Failed to create audit service " + className + ", using the default.", e );
+      }
+    }
+    if( service == null ) {
+      service = new Log4jAuditService();
+    }
+    return service;
+  }
+
 }
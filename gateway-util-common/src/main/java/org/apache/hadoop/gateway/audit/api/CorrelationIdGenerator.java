@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.api;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates request ids for correlation contexts without touching the shared
+ * SecureRandom on every request the way UUID.randomUUID does.
+ * <p>
+ * An id is the current time in milliseconds, a random per process node prefix and
+ * a process wide sequence number, each as fixed width lower case hex separated by
+ * dashes.  For example 14a3b5c7d2e-9f3c01aa-00000000002a.  Ids from one process
+ * are unique and sort in the order they were generated within a millisecond and by
+ * time across milliseconds.
+ */
+public abstract class CorrelationIdGenerator {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final int TIME_DIGITS = 11;
+  private static final int NODE_DIGITS = 8;
+  private static final int SEQUENCE_DIGITS = 12;
+  private static final int LENGTH = TIME_DIGITS + 1 + NODE_DIGITS + 1 + SEQUENCE_DIGITS;
+
+  private static final char[] NODE = createNode();
+  private static final AtomicLong SEQUENCE = new AtomicLong( 0 );
+
+  // To prevent instantiation.
+  private CorrelationIdGenerator() {
+  }
+
+  public static String nextId() {
+    return createId( System.currentTimeMillis(), SEQUENCE.incrementAndGet() );
+  }
+
+  static String createId( long time, long sequence ) {
+    char[] chars = new char[ LENGTH ];
+    int index = appendHex( chars, 0, time, TIME_DIGITS );
+    chars[ index++ ] = '-';
+    System.arraycopy( NODE, 0, chars, index, NODE_DIGITS );
+    index += NODE_DIGITS;
+    chars[ index++ ] = '-';
+    appendHex( chars, index, sequence, SEQUENCE_DIGITS );
+    return new String( chars );
+  }
+
+  private static int appendHex( char[] chars, int offset, long value, int digits ) {
+    for( int i = digits - 1; i >= 0; i-- ) {
+      chars[ offset + i ] = HEX[ (int)( value & 0xF ) ];
+      value >>>= 4;
+    }
+    return offset + digits;
+  }
+
+  private static char[] createNode() {
+    char[] node = new char[ NODE_DIGITS ];
+    appendHex( node, 0, new SecureRandom().nextInt() & 0xFFFFFFFFL, NODE_DIGITS );
+    return node;
+  }
+
+}
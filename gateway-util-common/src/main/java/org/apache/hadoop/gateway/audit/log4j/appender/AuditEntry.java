@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.appender;
+
+import org.apache.hadoop.gateway.audit.api.AuditContext;
+import org.apache.hadoop.gateway.audit.api.CorrelationContext;
+import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
+import org.apache.hadoop.gateway.audit.log4j.audit.Log4jAuditService;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationService;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A single audit record as written by the {@link AuditFileAppender}.
+ * Holds the same values, in the same order, as the pipe delimited AuditLayout output.
+ */
+public final class AuditEntry {
+
+  public static final int ROOT_REQUEST_ID = 0;
+  public static final int PARENT_REQUEST_ID = 1;
+  public static final int REQUEST_ID = 2;
+  public static final int CHANNEL = 3;
+  public static final int TARGET_SERVICE = 4;
+  public static final int USERNAME = 5;
+  public static final int PROXY_USERNAME = 6;
+  public static final int SYSTEM_USERNAME = 7;
+  public static final int ACTION = 8;
+  public static final int RESOURCE_TYPE = 9;
+  public static final int RESOURCE_NAME = 10;
+  public static final int OUTCOME = 11;
+  public static final int MESSAGE = 12;
+
+  static final String[] FIELD_NAMES = {
+      "root_request_id", "parent_request_id", "request_id", "channel", "target_service",
+      "username", "proxy_username", "system_username", "action", "resource_type",
+      "resource_name", "outcome", "message" };
+
+  private static final String DATE_FORMAT = "yy/MM/dd HH:mm:ss";
+  private static final String SEPARATOR = "|";
+
+  private final long timestamp;
+  private final String[] fields;
+
+  AuditEntry( long timestamp, String[] fields ) {
+    this.timestamp = timestamp;
+    this.fields = fields;
+  }
+
+  public static AuditEntry fromEvent( LoggingEvent event ) {
+    CorrelationContext cc = (CorrelationContext)event.getMDC( Log4jCorrelationService.MDC_CORRELATION_CONTEXT_KEY );
+    AuditContext ac = (AuditContext)event.getMDC( Log4jAuditService.MDC_AUDIT_CONTEXT_KEY );
+    String[] fields = new String[ FIELD_NAMES.length ];
+    if( cc != null ) {
+      fields[ ROOT_REQUEST_ID ] = cc.getRootRequestId();
+      fields[ PARENT_REQUEST_ID ] = cc.getParentRequestId();
+      fields[ REQUEST_ID ] = cc.getRequestId();
+    }
+    fields[ CHANNEL ] = event.getLoggerName();
+    if( ac != null ) {
+      fields[ TARGET_SERVICE ] = ac.getTargetServiceName();
+      fields[ USERNAME ] = ac.getUsername();
+      fields[ PROXY_USERNAME ] = ac.getProxyUsername();
+      fields[ SYSTEM_USERNAME ] = ac.getSystemUsername();
+    }
+    fields[ ACTION ] = (String)event.getMDC( AuditConstants.MDC_ACTION_KEY );
+    fields[ RESOURCE_TYPE ] = (String)event.getMDC( AuditConstants.MDC_RESOURCE_TYPE_KEY );
+    fields[ RESOURCE_NAME ] = (String)event.getMDC( AuditConstants.MDC_RESOURCE_NAME_KEY );
+    fields[ OUTCOME ] = (String)event.getMDC( AuditConstants.MDC_OUTCOME_KEY );
+    fields[ MESSAGE ] = event.getRenderedMessage();
+    return new AuditEntry( event.getTimeStamp(), fields );
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public String get( int field ) {
+    return fields[ field ];
+  }
+
+  int getFieldCount() {
+    return fields.length;
+  }
+
+  @Override
+  public boolean equals( Object object ) {
+    boolean equal = false;
+    if( object instanceof AuditEntry ) {
+      AuditEntry other = (AuditEntry)object;
+      equal = timestamp == other.timestamp && Arrays.equals( fields, other.fields );
+    }
+    return equal;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int)( timestamp ^ ( timestamp >>> 32 ) ) * 31 + Arrays.hashCode( fields );
+  }
+
+  /**
+   * Formats the entry the same way the AuditLayout does.
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append( new SimpleDateFormat( DATE_FORMAT ).format( new Date( timestamp ) ) ).append( ' ' );
+    for( int i = 0; i < MESSAGE; i++ ) {
+      if( fields[ i ] != null ) {
+        sb.append( fields[ i ] );
+      }
+      sb.append( SEPARATOR );
+    }
+    sb.append( fields[ MESSAGE ] == null ? "" : fields[ MESSAGE ] );
+    return sb.toString();
+  }
+
+}
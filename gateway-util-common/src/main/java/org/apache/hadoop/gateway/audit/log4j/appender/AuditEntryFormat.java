@@ -0,0 +1,257 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.appender;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * The encodings the {@link AuditFileAppender} can write.
+ * <p>
+ * binary: each record is [int length][byte version][long timestamp][byte field count]
+ * followed by each field as [int length][UTF-8 bytes] with a length of -1 for null.
+ * <p>
+ * json: one JSON object per line with a numeric timestamp and the non-null fields.
+ */
+public abstract class AuditEntryFormat {
+
+  public static final AuditEntryFormat BINARY = new BinaryFormat();
+  public static final AuditEntryFormat JSON = new JsonFormat();
+
+  private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+  public static AuditEntryFormat forName( String name ) {
+    AuditEntryFormat format;
+    if( BINARY.getName().equalsIgnoreCase( name ) ) {
+      format = BINARY;
+    } else if( JSON.getName().equalsIgnoreCase( name ) ) {
+      format = JSON;
+    } else {
+      throw new IllegalArgumentException( name );
+    }
+    return format;
+  }
+
+  public abstract String getName();
+
+  abstract void write( AuditEntry entry, RecordBuffer buffer );
+
+  /**
+   * Reads the next entry from the input.
+   * @return The entry or null at the end of the input.
+   */
+  public abstract AuditEntry read( InputStream input ) throws IOException;
+
+  private static void readFully( InputStream input, byte[] bytes, int offset, int length ) throws IOException {
+    while( length > 0 ) {
+      int count = input.read( bytes, offset, length );
+      if( count < 0 ) {
+        throw new EOFException();
+      }
+      offset += count;
+      length -= count;
+    }
+  }
+
+  private static int getInt( byte[] bytes, int position ) {
+    return ( ( bytes[ position ] & 0xFF ) << 24 ) | ( ( bytes[ position + 1 ] & 0xFF ) << 16 ) |
+        ( ( bytes[ position + 2 ] & 0xFF ) << 8 ) | ( bytes[ position + 3 ] & 0xFF );
+  }
+
+  private static class BinaryFormat extends AuditEntryFormat {
+
+    private static final int VERSION = 1;
+
+    @Override
+    public String getName() {
+      return "binary";
+    }
+
+    @Override
+    void write( AuditEntry entry, RecordBuffer buffer ) {
+      int start = buffer.length();
+      buffer.writeInt( 0 );
+      buffer.writeByte( VERSION );
+      buffer.writeLong( entry.getTimestamp() );
+      int count = entry.getFieldCount();
+      buffer.writeByte( count );
+      for( int i = 0; i < count; i++ ) {
+        String field = entry.get( i );
+        if( field == null ) {
+          buffer.writeInt( -1 );
+        } else {
+          int position = buffer.length();
+          buffer.writeInt( 0 );
+          buffer.writeUtf8( field );
+          buffer.setInt( position, buffer.length() - position - 4 );
+        }
+      }
+      buffer.setInt( start, buffer.length() - start - 4 );
+    }
+
+    @Override
+    public AuditEntry read( InputStream input ) throws IOException {
+      AuditEntry entry = null;
+      int first = input.read();
+      if( first >= 0 ) {
+        byte[] header = new byte[ 4 ];
+        header[ 0 ] = (byte)first;
+        readFully( input, header, 1, 3 );
+        byte[] record = new byte[ getInt( header, 0 ) ];
+        readFully( input, record, 0, record.length );
+        if( record[ 0 ] != VERSION ) {
+          throw new IOException( "Unsupported audit record version " + record[ 0 ] );
+        }
+        long timestamp = ( (long)getInt( record, 1 ) << 32 ) | ( getInt( record, 5 ) & 0xFFFFFFFFL );
+        String[] fields = new String[ AuditEntry.FIELD_NAMES.length ];
+        int count = record[ 9 ] & 0xFF;
+        int position = 10;
+        for( int i = 0; i < count; i++ ) {
+          int length = getInt( record, position );
+          position += 4;
+          if( length >= 0 ) {
+            if( i < fields.length ) {
+              fields[ i ] = new String( record, position, length, UTF8 );
+            }
+            position += length;
+          }
+        }
+        entry = new AuditEntry( timestamp, fields );
+      }
+      return entry;
+    }
+
+  }
+
+  private static class JsonFormat extends AuditEntryFormat {
+
+    private static final String TIMESTAMP = "timestamp";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Override
+    public String getName() {
+      return "json";
+    }
+
+    @Override
+    void write( AuditEntry entry, RecordBuffer buffer ) {
+      buffer.writeAscii( "{\"" + TIMESTAMP + "\":" );
+      buffer.writeAscii( Long.toString( entry.getTimestamp() ) );
+      for( int i = 0; i < entry.getFieldCount(); i++ ) {
+        String field = entry.get( i );
+        if( field != null ) {
+          buffer.writeAscii( ",\"" );
+          buffer.writeAscii( AuditEntry.FIELD_NAMES[ i ] );
+          buffer.writeAscii( "\":\"" );
+          writeEscaped( field, buffer );
+          buffer.writeByte( '"' );
+        }
+      }
+      buffer.writeAscii( "}\n" );
+    }
+
+    private static void writeEscaped( String s, RecordBuffer buffer ) {
+      int start = 0;
+      int length = s.length();
+      for( int i = 0; i < length; i++ ) {
+        char c = s.charAt( i );
+        if( c < 0x20 || c == '"' || c == '\\' ) {
+          buffer.writeUtf8( s, start, i );
+          start = i + 1;
+          buffer.writeByte( '\\' );
+          switch( c ) {
+            case '"': buffer.writeByte( '"' ); break;
+            case '\\': buffer.writeByte( '\\' ); break;
+            case '\n': buffer.writeByte( 'n' ); break;
+            case '\r': buffer.writeByte( 'r' ); break;
+            case '\t': buffer.writeByte( 't' ); break;
+            default:
+              buffer.writeAscii( "u00" );
+              buffer.writeByte( HEX[ c >> 4 ] );
+              buffer.writeByte( HEX[ c & 0xF ] );
+          }
+        }
+      }
+      buffer.writeUtf8( s, start, length );
+    }
+
+    @Override
+    public AuditEntry read( InputStream input ) throws IOException {
+      AuditEntry entry = null;
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+      int b = input.read();
+      while( b >= 0 && b != '\n' ) {
+        line.write( b );
+        b = input.read();
+      }
+      if( b >= 0 || line.size() > 0 ) {
+        entry = parse( line.toByteArray() );
+      }
+      return entry;
+    }
+
+    private static AuditEntry parse( byte[] bytes ) throws IOException {
+      long timestamp = 0;
+      String[] fields = new String[ AuditEntry.FIELD_NAMES.length ];
+      JsonParser parser = JSON_FACTORY.createParser( bytes );
+      try {
+        if( parser.nextToken() != JsonToken.START_OBJECT ) {
+          throw new IOException( "Invalid audit record: " + new String( bytes, UTF8 ) );
+        }
+        while( parser.nextToken() == JsonToken.FIELD_NAME ) {
+          String name = parser.getCurrentName();
+          JsonToken token = parser.nextToken();
+          if( TIMESTAMP.equals( name ) ) {
+            timestamp = parser.getLongValue();
+          } else if( token == JsonToken.VALUE_STRING ) {
+            int index = indexOf( name );
+            if( index >= 0 ) {
+              fields[ index ] = parser.getText();
+            }
+          } else {
+            parser.skipChildren();
+          }
+        }
+      } finally {
+        parser.close();
+      }
+      return new AuditEntry( timestamp, fields );
+    }
+
+    private static int indexOf( String name ) {
+      int index = -1;
+      for( int i = 0; i < AuditEntry.FIELD_NAMES.length; i++ ) {
+        if( AuditEntry.FIELD_NAMES[ i ].equals( name ) ) {
+          index = i;
+          break;
+        }
+      }
+      return index;
+    }
+
+  }
+
+}
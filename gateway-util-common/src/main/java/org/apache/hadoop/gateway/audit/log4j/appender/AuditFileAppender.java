@@ -0,0 +1,208 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.appender;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.spi.ErrorCode;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes audit records as length prefixed binary or JSON lines records instead of
+ * formatted text.  The active file is rolled once it exceeds maxFileSize (bytes) or
+ * rolloverInterval (ms) and rolled files can be gzip compressed in the background.
+ * Without immediateFlush buffered records are still written every flushInterval (ms).
+ * Use {@link AuditFileReader} to read the files back.
+ */
+public class AuditFileAppender extends AppenderSkeleton {
+
+  public static final long DEFAULT_MAX_FILE_SIZE = 256L * 1024 * 1024;
+  public static final long DEFAULT_ROLLOVER_INTERVAL = 24L * 60 * 60 * 1000;
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  public static final long DEFAULT_FLUSH_INTERVAL = 1000L;
+
+  private String file;
+  private AuditEntryFormat format = AuditEntryFormat.BINARY;
+  private long maxFileSize = DEFAULT_MAX_FILE_SIZE;
+  private long rolloverInterval = DEFAULT_ROLLOVER_INTERVAL;
+  private int bufferSize = DEFAULT_BUFFER_SIZE;
+  private boolean compress = false;
+  private boolean immediateFlush = true;
+  private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+  private ScheduledExecutorService flusher;
+  private RollingRecordWriter writer;
+  private RecordBuffer record;
+
+  @Override
+  public boolean requiresLayout() {
+    return false;
+  }
+
+  public void setFile( String file ) {
+    this.file = file;
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  public void setFormat( String format ) {
+    this.format = AuditEntryFormat.forName( format );
+  }
+
+  public String getFormat() {
+    return format.getName();
+  }
+
+  public void setMaxFileSize( long maxFileSize ) {
+    this.maxFileSize = maxFileSize;
+  }
+
+  public long getMaxFileSize() {
+    return maxFileSize;
+  }
+
+  public void setRolloverInterval( long rolloverInterval ) {
+    this.rolloverInterval = rolloverInterval;
+  }
+
+  public long getRolloverInterval() {
+    return rolloverInterval;
+  }
+
+  public void setBufferSize( int bufferSize ) {
+    this.bufferSize = bufferSize;
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  public void setCompress( boolean compress ) {
+    this.compress = compress;
+  }
+
+  public boolean isCompress() {
+    return compress;
+  }
+
+  /**
+   * When false records are only written once the buffer fills, the file rolls or the appender is closed.
+   */
+  public void setImmediateFlush( boolean immediateFlush ) {
+    this.immediateFlush = immediateFlush;
+  }
+
+  public boolean isImmediateFlush() {
+    return immediateFlush;
+  }
+
+  /**
+   * The longest time in ms a record stays buffered when immediateFlush is false, zero or less to disable.
+   */
+  public void setFlushInterval( long flushInterval ) {
+    this.flushInterval = flushInterval;
+  }
+
+  public long getFlushInterval() {
+    return flushInterval;
+  }
+
+  @Override
+  public void activateOptions() {
+    try {
+      writer = new RollingRecordWriter( new File( file ), maxFileSize, rolloverInterval, bufferSize, compress );
+      record = new RecordBuffer( 1024 );
+    } catch( IOException e ) {
+      throw new IllegalStateException( e );
+    }
+    if( !immediateFlush && flushInterval > 0 ) {
+      flusher = new ScheduledThreadPoolExecutor( 1, new FlusherThreadFactory() );
+      flusher.scheduleWithFixedDelay( new Runnable() {
+        @Override
+        public void run() {
+          flush();
+        }
+      }, flushInterval, flushInterval, TimeUnit.MILLISECONDS );
+    }
+  }
+
+  // Appends hold the appender's monitor so taking it here keeps the writer single threaded.
+  synchronized void flush() {
+    if( writer != null ) {
+      try {
+        writer.flush();
+      } catch( IOException e ) {
+        errorHandler.error( "Failed to flush audit file " + file, e, ErrorCode.FLUSH_FAILURE );
+      }
+    }
+  }
+
+  @Override
+  protected void append( LoggingEvent event ) {
+    if( writer == null ) {
+      errorHandler.error( "No output file set for the appender named [" + name + "]." );
+    } else {
+      record.reset();
+      format.write( AuditEntry.fromEvent( event ), record );
+      try {
+        writer.write( record.bytes(), 0, record.length() );
+        if( immediateFlush ) {
+          writer.flush();
+        }
+      } catch( IOException e ) {
+        errorHandler.error( "Failed to write audit record to " + file, e, ErrorCode.WRITE_FAILURE );
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if( !closed ) {
+      closed = true;
+      if( flusher != null ) {
+        flusher.shutdownNow();
+        flusher = null;
+      }
+      if( writer != null ) {
+        try {
+          writer.close();
+        } catch( IOException e ) {
+          errorHandler.error( "Failed to close audit file " + file, e, ErrorCode.CLOSE_FAILURE );
+        }
+        writer = null;
+      }
+    }
+  }
+
+  private static class FlusherThreadFactory implements ThreadFactory {
+    @Override
+    public Thread newThread( Runnable runnable ) {
+      Thread thread = new Thread( runnable, "audit-file-flusher" );
+      thread.setDaemon( true );
+      return thread;
+    }
+  }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.appender;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the files written by the {@link AuditFileAppender}, compressed or not.
+ * <p>
+ * Usage: AuditFileReader [binary|json] file...
+ * prints the entries in the same format as the AuditLayout.
+ */
+public class AuditFileReader {
+
+  private final InputStream input;
+  private final AuditEntryFormat format;
+
+  public AuditFileReader( File file, AuditEntryFormat format ) throws IOException {
+    InputStream stream = new BufferedInputStream( new FileInputStream( file ), 64 * 1024 );
+    if( file.getName().endsWith( RollingRecordWriter.COMPRESSED_SUFFIX ) ) {
+      stream = new BufferedInputStream( new GZIPInputStream( stream, 64 * 1024 ), 64 * 1024 );
+    }
+    this.input = stream;
+    this.format = format;
+  }
+
+  /**
+   * @return The next entry or null at the end of the file.
+   */
+  public AuditEntry read() throws IOException {
+    return format.read( input );
+  }
+
+  public void close() throws IOException {
+    input.close();
+  }
+
+  public static void main( String[] args ) throws IOException {
+    if( args.length < 2 ) {
+      System.err.println( "Usage: " + AuditFileReader.class.getName() + " [binary|json] file..." );
+      System.exit( 1 );
+    }
+    AuditEntryFormat format = AuditEntryFormat.forName( args[ 0 ] );
+    for( int i = 1; i < args.length; i++ ) {
+      AuditFileReader reader = new AuditFileReader( new File( args[ i ] ), format );
+      try {
+        AuditEntry entry = reader.read();
+        while( entry != null ) {
+          System.out.println( entry );
+          entry = reader.read();
+        }
+      } finally {
+        reader.close();
+      }
+    }
+  }
+
+}
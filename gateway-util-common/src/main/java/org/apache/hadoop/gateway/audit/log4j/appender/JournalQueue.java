@@ -0,0 +1,498 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.appender;
+
+import org.apache.log4j.helpers.LogLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent FIFO queue that group commits entries to append only segment files.
+ * <p>
+ * Producers add entries to a lock free staging queue and return immediately.  A single
+ * committer thread writes the staged entries to the current segment and makes them
+ * visible to the consumer once per batch, either when batchSize entries are staged
+ * or every flushInterval milliseconds.  When sync is enabled each batch is forced to
+ * disk before it is made visible.  The consumer reads batches back from the segments
+ * and records its position after each successful batch so that unconsumed entries
+ * are delivered again after a restart.  Segments are deleted once fully consumed.
+ * <p>
+ * Each record is a length, a CRC32 of the data and the serialized entry.  A torn or
+ * corrupt record ends the segment it is found in.
+ */
+public class JournalQueue<E extends Serializable> {
+
+  public static final int DEFAULT_BATCH_SIZE = 512;
+  public static final long DEFAULT_FLUSH_INTERVAL = 50;
+  public static final long DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+  public static final int DEFAULT_CAPACITY = 64 * 1024;
+  public static final boolean DEFAULT_SYNC = true;
+
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final String POSITION_SUFFIX = ".pos";
+  private static final int HEADER_SIZE = 8;
+  private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private File base;
+  private int batchSize;
+  private long flushInterval;
+  private long segmentSize;
+  private boolean sync;
+  private int capacity;
+
+  // Producer side.
+  private volatile boolean open;
+  private ConcurrentLinkedQueue<E> staging;
+  private AtomicInteger staged;
+  private Thread committer;
+
+  // Only used by the committer thread.
+  private long writeSegment;
+  private long writeOffset;
+  private FileOutputStream writeFile;
+  private DataOutputStream writer;
+  private ByteArrayOutputStream record;
+  private CRC32 writeCrc;
+
+  // Guarded by this.
+  private long committedSegment;
+  private long committedOffset;
+  private boolean reading;
+  private long readSegment;
+  private long readOffset;
+  private DataInputStream reader;
+  private long ackSegment;
+  private long ackOffset;
+  private long oldestSegment;
+  private RandomAccessFile position;
+  private CRC32 readCrc;
+
+  public JournalQueue( File file ) throws IOException {
+    this( file, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL, DEFAULT_SEGMENT_SIZE, DEFAULT_SYNC, DEFAULT_CAPACITY );
+  }
+
+  public JournalQueue( File file, int batchSize, long flushInterval, long segmentSize, boolean sync, int capacity )
+      throws IOException {
+    this.base = file.getAbsoluteFile();
+    this.batchSize = Math.max( 1, batchSize );
+    this.flushInterval = Math.max( 1, flushInterval );
+    this.segmentSize = Math.max( 1, segmentSize );
+    this.sync = sync;
+    this.capacity = Math.max( this.batchSize, capacity );
+    this.staging = new ConcurrentLinkedQueue<E>();
+    this.staged = new AtomicInteger( 0 );
+    this.record = new ByteArrayOutputStream( 1024 );
+    this.writeCrc = new CRC32();
+    this.readCrc = new CRC32();
+    recover();
+    openSegment( writeSegment );
+    this.open = true;
+    this.reading = true;
+    this.committer = new Committer();
+    this.committer.setDaemon( true );
+    this.committer.start();
+  }
+
+  /**
+   * Stages an entry for the next group commit.  This only blocks when capacity
+   * entries are already staged and waiting to be written.
+   */
+  public void enqueue( E e ) throws IOException {
+    while( staged.get() >= capacity ) {
+      if( !open ) {
+        throw new IOException( "Queue closed: " + base );
+      }
+      LockSupport.unpark( committer );
+      LockSupport.parkNanos( this, TimeUnit.MILLISECONDS.toNanos( 1 ) );
+    }
+    if( !open ) {
+      throw new IOException( "Queue closed: " + base );
+    }
+    staging.offer( e );
+    if( staged.incrementAndGet() >= batchSize ) {
+      LockSupport.unpark( committer );
+    }
+  }
+
+  /**
+   * Removes and returns up to max committed entries, blocking until at least one is
+   * available.  Returns an empty list once stopped.
+   */
+  public synchronized List<E> dequeue( int max ) throws InterruptedException, IOException {
+    List<E> batch = next( max );
+    if( !batch.isEmpty() ) {
+      acknowledge();
+    }
+    return batch;
+  }
+
+  /**
+   * Passes the next batch of up to max entries to the consumer.  If the consumer
+   * returns true the batch is removed from the store otherwise it will be delivered
+   * again.  The consumer is called without holding any lock the committer needs.
+   * Returns true if a batch was consumed.
+   */
+  public boolean process( BatchConsumer<E> consumer, int max ) throws IOException {
+    boolean committed = false;
+    try {
+      List<E> batch = next( max );
+      if( !batch.isEmpty() && consumer.consume( batch ) ) {
+        committed = acknowledge();
+      }
+    } catch( RuntimeException e ) {
+      throw e;
+    } catch( IOException e ) {
+      throw e;
+    } catch( Throwable t ) {
+      throw new RuntimeException( t );
+    } finally {
+      if( !committed ) {
+        rewind();
+      }
+    }
+    return committed;
+  }
+
+  public boolean isStopped() {
+    return !open;
+  }
+
+  /**
+   * Stops accepting entries, commits any that are staged and releases the consumer.
+   */
+  public void stop() {
+    open = false;
+    LockSupport.unpark( committer );
+    try {
+      committer.join();
+    } catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized( this ) {
+      reading = false;
+      notifyAll();
+    }
+  }
+
+  public void close() throws IOException {
+    stop();
+    synchronized( this ) {
+      closeReader();
+      if( position != null ) {
+        position.close();
+        position = null;
+      }
+    }
+  }
+
+  // Committer thread ---------------------------------------------------------
+
+  private void commit() throws IOException {
+    int count = 0;
+    E e = staging.poll();
+    while( e != null ) {
+      staged.decrementAndGet();
+      write( e );
+      count++;
+      e = staging.poll();
+    }
+    if( count > 0 ) {
+      writer.flush();
+      if( sync ) {
+        writeFile.getFD().sync();
+      }
+      long segment = writeSegment;
+      long offset = writeOffset;
+      if( writeOffset >= segmentSize ) {
+        writer.close();
+        segment = writeSegment + 1;
+        offset = 0;
+        openSegment( segment );
+      }
+      publish( segment, offset );
+    }
+  }
+
+  private void write( E e ) throws IOException {
+    record.reset();
+    try {
+      ObjectOutputStream output = new ObjectOutputStream( record );
+      output.writeObject( e );
+      output.close();
+    } catch( IOException ex ) {
+      // The entry can't be serialized so there is nothing that could be stored.
+      LogLog.error( "Failed to serialize queue entry " + e, ex );
+      record.reset();
+    }
+    if( record.size() > 0 ) {
+      byte[] bytes = record.toByteArray();
+      writeCrc.reset();
+      writeCrc.update( bytes, 0, bytes.length );
+      writer.writeInt( bytes.length );
+      writer.writeInt( (int)writeCrc.getValue() );
+      writer.write( bytes );
+      writeOffset += HEADER_SIZE + bytes.length;
+    }
+  }
+
+  private void openSegment( long segment ) throws IOException {
+    writeSegment = segment;
+    writeOffset = 0;
+    writeFile = new FileOutputStream( segmentFile( segment ) );
+    writer = new DataOutputStream( new BufferedOutputStream( writeFile, BUFFER_SIZE ) );
+  }
+
+  private synchronized void publish( long segment, long offset ) {
+    committedSegment = segment;
+    committedOffset = offset;
+    notifyAll();
+  }
+
+  private class Committer extends Thread {
+
+    private Committer() {
+      super( "JournalQueue-" + base.getName() );
+    }
+
+    @Override
+    public void run() {
+      boolean running = true;
+      while( running ) {
+        running = open;
+        if( running && staged.get() < batchSize ) {
+          LockSupport.parkNanos( this, TimeUnit.MILLISECONDS.toNanos( flushInterval ) );
+        }
+        try {
+          commit();
+        } catch( IOException e ) {
+          LogLog.error( "Failed to commit queue entries to " + segmentFile( writeSegment ), e );
+        }
+      }
+      try {
+        writer.close();
+      } catch( IOException e ) {
+        LogLog.error( "Failed to close " + segmentFile( writeSegment ), e );
+      }
+    }
+
+  }
+
+  // Consumer side ------------------------------------------------------------
+
+  private synchronized List<E> next( int max ) throws InterruptedException, IOException {
+    List<E> batch = new ArrayList<E>( Math.min( max, batchSize ) );
+    read( batch, max );
+    while( reading && batch.isEmpty() ) {
+      wait();
+      read( batch, max );
+    }
+    if( !reading ) {
+      batch.clear();
+    }
+    return batch;
+  }
+
+  private void read( List<E> batch, int max ) throws IOException {
+    while( batch.size() < max && readSegment <= committedSegment ) {
+      long limit = readSegment < committedSegment ? Long.MAX_VALUE : committedOffset;
+      boolean found = false;
+      if( readOffset < limit ) {
+        if( reader == null ) {
+          openReader();
+        }
+        if( reader != null ) {
+          found = readRecord( batch );
+        }
+      }
+      if( !found ) {
+        if( readSegment < committedSegment ) {
+          // Either the end of a complete segment or a torn record left by a crash.
+          closeReader();
+          readSegment++;
+          readOffset = 0;
+        } else {
+          break;
+        }
+      }
+    }
+  }
+
+  // Reads the next record into the batch and returns false at the end of the segment.
+  private boolean readRecord( List<E> batch ) throws IOException {
+    boolean found = false;
+    try {
+      int length = reader.readInt();
+      int crc = reader.readInt();
+      if( length > 0 && length <= MAX_RECORD_SIZE ) {
+        byte[] bytes = new byte[ length ];
+        reader.readFully( bytes );
+        readCrc.reset();
+        readCrc.update( bytes, 0, length );
+        if( (int)readCrc.getValue() == crc ) {
+          readOffset += HEADER_SIZE + length;
+          found = true;
+          E e = deserialize( bytes );
+          if( e != null ) {
+            batch.add( e );
+          }
+        }
+      }
+    } catch( EOFException ex ) {
+      // Treated as the end of the segment.
+    }
+    return found;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private E deserialize( byte[] bytes ) {
+    E e = null;
+    try {
+      ObjectInputStream input = new ObjectInputStream( new ByteArrayInputStream( bytes ) );
+      e = (E)input.readObject();
+      input.close();
+    } catch( Exception ex ) {
+      // Skip the entry rather than blocking the queue on it forever.
+      LogLog.error( "Failed to deserialize queue entry from " + segmentFile( readSegment ), ex );
+    }
+    return e;
+  }
+
+  private void openReader() throws IOException {
+    File file = segmentFile( readSegment );
+    if( file.exists() ) {
+      FileInputStream input = new FileInputStream( file );
+      long skipped = 0;
+      while( skipped < readOffset ) {
+        skipped += input.skip( readOffset - skipped );
+      }
+      reader = new DataInputStream( new BufferedInputStream( input, BUFFER_SIZE ) );
+    }
+  }
+
+  private void closeReader() throws IOException {
+    if( reader != null ) {
+      reader.close();
+      reader = null;
+    }
+  }
+
+  private synchronized boolean acknowledge() throws IOException {
+    if( reading ) {
+      ackSegment = readSegment;
+      ackOffset = readOffset;
+      position.seek( 0 );
+      position.writeLong( ackSegment );
+      position.writeLong( ackOffset );
+      if( sync ) {
+        position.getFD().sync();
+      }
+      while( oldestSegment < ackSegment ) {
+        File file = segmentFile( oldestSegment );
+        if( file.exists() && !file.delete() ) {
+          LogLog.warn( "Failed to delete consumed queue segment " + file );
+        }
+        oldestSegment++;
+      }
+    }
+    return reading;
+  }
+
+  private synchronized void rewind() throws IOException {
+    if( reading ) {
+      closeReader();
+      readSegment = ackSegment;
+      readOffset = ackOffset;
+    }
+  }
+
+  // Recovery -----------------------------------------------------------------
+
+  // Finds the existing segments and the last acknowledged position.  New entries
+  // always go to a new segment so that a torn tail is never appended to.
+  private void recover() throws IOException {
+    File dir = base.getParentFile();
+    if( dir != null && !dir.exists() && !dir.mkdirs() ) {
+      throw new IOException( "Failed to create directory " + dir );
+    }
+    long min = Long.MAX_VALUE;
+    long max = 0;
+    String prefix = base.getName() + ".";
+    String[] names = dir == null ? null : dir.list();
+    if( names != null ) {
+      for( String name : names ) {
+        if( name.startsWith( prefix ) && name.endsWith( SEGMENT_SUFFIX ) ) {
+          try {
+            long segment = Long.parseLong( name.substring( prefix.length(), name.length() - SEGMENT_SUFFIX.length() ) );
+            min = Math.min( min, segment );
+            max = Math.max( max, segment );
+          } catch( NumberFormatException e ) {
+            // Not a segment.
+          }
+        }
+      }
+    }
+    writeSegment = max + 1;
+    oldestSegment = min == Long.MAX_VALUE ? writeSegment : min;
+    ackSegment = oldestSegment;
+    ackOffset = 0;
+    position = new RandomAccessFile( new File( base.getPath() + POSITION_SUFFIX ), "rw" );
+    if( position.length() >= 16 ) {
+      long segment = position.readLong();
+      long offset = position.readLong();
+      if( segment >= oldestSegment && segment <= writeSegment && offset >= 0 ) {
+        ackSegment = segment;
+        ackOffset = offset;
+      }
+    }
+    readSegment = ackSegment;
+    readOffset = ackOffset;
+    committedSegment = writeSegment;
+    committedOffset = 0;
+  }
+
+  private File segmentFile( long segment ) {
+    return new File( String.format( "%s.%012d%s", base.getPath(), segment, SEGMENT_SUFFIX ) );
+  }
+
+  public interface BatchConsumer<E> {
+    boolean consume( List<E> batch );
+  }
+
+}
@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.appender;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+ * Store and forward appender backed by a group committing {@link JournalQueue}.
+ * The durability trade-offs can be tuned with the batchSize, flushInterval (ms),
+ * segmentSize (bytes), sync and capacity options.
+ */
+public class JournalStoreAndForwardAppender extends AppenderSkeleton {
+
+  private File file;
+  private Thread forwarder;
+  private JournalQueue<LoggingEvent> queue;
+  private Logger forward;
+  private boolean fetchLocationInfo = true;
+  private int batchSize = JournalQueue.DEFAULT_BATCH_SIZE;
+  private long flushInterval = JournalQueue.DEFAULT_FLUSH_INTERVAL;
+  private long segmentSize = JournalQueue.DEFAULT_SEGMENT_SIZE;
+  private boolean sync = JournalQueue.DEFAULT_SYNC;
+  private int capacity = JournalQueue.DEFAULT_CAPACITY;
+
+  @Override
+  public boolean requiresLayout() {
+    return false;
+  }
+
+  public void setFile( String file ) {
+    this.file = new File( file );
+  }
+
+  public void setFetchLocationInfo( boolean fetchLocationInfo ) {
+    this.fetchLocationInfo = fetchLocationInfo;
+  }
+
+  public boolean isFetchLocationInfo() {
+    return fetchLocationInfo;
+  }
+
+  public void setBatchSize( int batchSize ) {
+    this.batchSize = batchSize;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setFlushInterval( long flushInterval ) {
+    this.flushInterval = flushInterval;
+  }
+
+  public long getFlushInterval() {
+    return flushInterval;
+  }
+
+  public void setSegmentSize( long segmentSize ) {
+    this.segmentSize = segmentSize;
+  }
+
+  public long getSegmentSize() {
+    return segmentSize;
+  }
+
+  public void setSync( boolean sync ) {
+    this.sync = sync;
+  }
+
+  public boolean isSync() {
+    return sync;
+  }
+
+  public void setCapacity( int capacity ) {
+    this.capacity = capacity;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  @Override
+  public void activateOptions() {
+    try {
+      queue = new JournalQueue<LoggingEvent>( file, batchSize, flushInterval, segmentSize, sync, capacity );
+    } catch ( IOException e ) {
+      throw new IllegalStateException( e );
+    }
+    forward = Logger.getLogger( "audit.forward" );
+    forward.setAdditivity( false );
+    forwarder = new Forwarder();
+    forwarder.setDaemon( true );
+    forwarder.start();
+  }
+
+  @Override
+  protected void append( LoggingEvent event ) {
+    try {
+      // The event is serialized on another thread so capture the thread specific state now.
+      event.getNDC();
+      event.getThreadName();
+      event.getMDCCopy();
+      if( fetchLocationInfo ) {
+        event.getLocationInformation();
+      }
+      queue.enqueue( event );
+    } catch ( IOException e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      queue.stop();
+      forwarder.join();
+      queue.close();
+    } catch( InterruptedException e ) {
+      throw new RuntimeException( e );
+    } catch( IOException e ) {
+      throw new RuntimeException( e );
+    }
+  }
+
+  private class Forwarder extends Thread {
+
+    public void run() {
+      JournalQueue.BatchConsumer<LoggingEvent> consumer = new JournalQueue.BatchConsumer<LoggingEvent>() {
+        @Override
+        public boolean consume( List<LoggingEvent> events ) {
+          try {
+            for( LoggingEvent event : events ) {
+              forward.callAppenders( event );
+            }
+            return true;
+          } catch ( Exception e ) {
+            e.printStackTrace();
+            return false;
+          }
+        }
+      };
+      while( !queue.isStopped() ) {
+        try {
+          queue.process( consumer, batchSize );
+        } catch ( ThreadDeath e ) {
+          throw e;
+        } catch ( Throwable t ) {
+          t.printStackTrace();
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.appender;
+
+/**
+ * A reusable, growable byte array that audit entries are encoded into.
+ * Strings are encoded as UTF-8 directly without the intermediate arrays String.getBytes creates.
+ */
+final class RecordBuffer {
+
+  private byte[] bytes;
+  private int length;
+
+  RecordBuffer( int capacity ) {
+    bytes = new byte[ capacity ];
+    length = 0;
+  }
+
+  void reset() {
+    length = 0;
+  }
+
+  int length() {
+    return length;
+  }
+
+  byte[] bytes() {
+    return bytes;
+  }
+
+  void writeByte( int b ) {
+    ensure( 1 );
+    bytes[ length++ ] = (byte)b;
+  }
+
+  void writeInt( int i ) {
+    ensure( 4 );
+    setInt( length, i );
+    length += 4;
+  }
+
+  void setInt( int position, int i ) {
+    bytes[ position ] = (byte)( i >>> 24 );
+    bytes[ position + 1 ] = (byte)( i >>> 16 );
+    bytes[ position + 2 ] = (byte)( i >>> 8 );
+    bytes[ position + 3 ] = (byte)i;
+  }
+
+  void writeLong( long l ) {
+    writeInt( (int)( l >>> 32 ) );
+    writeInt( (int)l );
+  }
+
+  void writeAscii( String s ) {
+    int count = s.length();
+    ensure( count );
+    for( int i = 0; i < count; i++ ) {
+      bytes[ length++ ] = (byte)s.charAt( i );
+    }
+  }
+
+  void writeUtf8( String s ) {
+    writeUtf8( s, 0, s.length() );
+  }
+
+  void writeUtf8( String s, int start, int end ) {
+    // Worst case is three bytes per char, surrogate pairs take four bytes for two chars.
+    ensure( ( end - start ) * 3 );
+    for( int i = start; i < end; i++ ) {
+      char c = s.charAt( i );
+      if( c < 0x80 ) {
+        bytes[ length++ ] = (byte)c;
+      } else if( c < 0x800 ) {
+        bytes[ length++ ] = (byte)( 0xC0 | ( c >> 6 ) );
+        bytes[ length++ ] = (byte)( 0x80 | ( c & 0x3F ) );
+      } else if( Character.isHighSurrogate( c ) && i + 1 < end && Character.isLowSurrogate( s.charAt( i + 1 ) ) ) {
+        int cp = Character.toCodePoint( c, s.charAt( ++i ) );
+        bytes[ length++ ] = (byte)( 0xF0 | ( cp >> 18 ) );
+        bytes[ length++ ] = (byte)( 0x80 | ( ( cp >> 12 ) & 0x3F ) );
+        bytes[ length++ ] = (byte)( 0x80 | ( ( cp >> 6 ) & 0x3F ) );
+        bytes[ length++ ] = (byte)( 0x80 | ( cp & 0x3F ) );
+      } else if( c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE ) {
+        bytes[ length++ ] = (byte)'?';
+      } else {
+        bytes[ length++ ] = (byte)( 0xE0 | ( c >> 12 ) );
+        bytes[ length++ ] = (byte)( 0x80 | ( ( c >> 6 ) & 0x3F ) );
+        bytes[ length++ ] = (byte)( 0x80 | ( c & 0x3F ) );
+      }
+    }
+  }
+
+  private void ensure( int count ) {
+    if( length + count > bytes.length ) {
+      byte[] grown = new byte[ Math.max( bytes.length * 2, length + count ) ];
+      System.arraycopy( bytes, 0, grown, 0, length );
+      bytes = grown;
+    }
+  }
+
+}
@@ -0,0 +1,203 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.appender;
+
+import org.apache.log4j.helpers.LogLog;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes records through a preallocated buffer to a file that is rolled over once it
+ * reaches a maximum size or age.  Rolled files are named after the time they were rolled,
+ * so they sort in the order they were written,
+ * and can be gzip compressed in the background.  Not thread safe.
+ */
+class RollingRecordWriter {
+
+  static final String COMPRESSED_SUFFIX = ".gz";
+
+  private static final String ROLLED_FORMAT = "yyyyMMdd-HHmmss.SSS";
+
+  private final File file;
+  private final long maxFileSize;
+  private final long rolloverInterval;
+  private final ByteBuffer buffer;
+  private final ExecutorService compressor;
+  private FileChannel channel;
+  private long written;
+  private long rolloverTime;
+  private long rolledTime;
+
+  /**
+   * @param file The active file.
+   * @param maxFileSize The size in bytes at which the file is rolled, zero or less to disable.
+   * @param rolloverInterval The age in ms at which the file is rolled, zero or less to disable.
+   * @param bufferSize The size in bytes of the preallocated write buffer.
+   * @param compress If rolled files should be gzip compressed.
+   */
+  RollingRecordWriter( File file, long maxFileSize, long rolloverInterval, int bufferSize, boolean compress ) throws IOException {
+    this.file = file;
+    this.maxFileSize = maxFileSize;
+    this.rolloverInterval = rolloverInterval;
+    this.buffer = ByteBuffer.allocateDirect( bufferSize );
+    this.compressor = compress ? Executors.newSingleThreadExecutor( new CompressorThreadFactory() ) : null;
+    File dir = file.getAbsoluteFile().getParentFile();
+    if( dir != null && !dir.exists() && !dir.mkdirs() ) {
+      throw new IOException( "Failed to create directory " + dir );
+    }
+    open( System.currentTimeMillis() );
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  void write( byte[] bytes, int offset, int length ) throws IOException {
+    long now = System.currentTimeMillis();
+    long size = written + buffer.position();
+    if( size > 0 && ( ( maxFileSize > 0 && size + length > maxFileSize ) || ( rolloverInterval > 0 && now >= rolloverTime ) ) ) {
+      roll( now );
+    }
+    if( length > buffer.remaining() ) {
+      flush();
+    }
+    if( length > buffer.capacity() ) {
+      ByteBuffer wrapped = ByteBuffer.wrap( bytes, offset, length );
+      while( wrapped.hasRemaining() ) {
+        written += channel.write( wrapped );
+      }
+    } else {
+      buffer.put( bytes, offset, length );
+    }
+  }
+
+  void flush() throws IOException {
+    buffer.flip();
+    while( buffer.hasRemaining() ) {
+      written += channel.write( buffer );
+    }
+    buffer.clear();
+  }
+
+  void close() throws IOException {
+    try {
+      flush();
+      channel.close();
+    } finally {
+      if( compressor != null ) {
+        compressor.shutdown();
+        try {
+          compressor.awaitTermination( Long.MAX_VALUE, TimeUnit.MILLISECONDS );
+        } catch( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  private void open( long now ) throws IOException {
+    channel = new FileOutputStream( file, true ).getChannel();
+    written = channel.size();
+    rolloverTime = now + rolloverInterval;
+  }
+
+  private File rolledFile( long time ) {
+    return new File( file.getPath() + "." + new SimpleDateFormat( ROLLED_FORMAT ).format( new Date( time ) ) );
+  }
+
+  private void roll( long now ) throws IOException {
+    flush();
+    channel.close();
+    // Rolled files must sort by name in the order they were written so never reuse a name.
+    long time = Math.max( now, rolledTime + 1 );
+    File rolled = rolledFile( time );
+    while( rolled.exists() || new File( rolled.getPath() + COMPRESSED_SUFFIX ).exists() ) {
+      rolled = rolledFile( ++time );
+    }
+    rolledTime = time;
+    if( !file.renameTo( rolled ) ) {
+      LogLog.error( "Failed to roll audit file " + file + " to " + rolled );
+    } else if( compressor != null ) {
+      compressor.execute( new Compression( rolled ) );
+    }
+    open( now );
+  }
+
+  private static class Compression implements Runnable {
+
+    private final File source;
+
+    private Compression( File source ) {
+      this.source = source;
+    }
+
+    @Override
+    public void run() {
+      File target = new File( source.getPath() + COMPRESSED_SUFFIX );
+      try {
+        InputStream input = new FileInputStream( source );
+        try {
+          OutputStream output = new GZIPOutputStream( new FileOutputStream( target ), 64 * 1024 );
+          try {
+            byte[] bytes = new byte[ 64 * 1024 ];
+            int count = input.read( bytes );
+            while( count >= 0 ) {
+              output.write( bytes, 0, count );
+              count = input.read( bytes );
+            }
+          } finally {
+            output.close();
+          }
+        } finally {
+          input.close();
+        }
+        if( !source.delete() ) {
+          LogLog.error( "Failed to delete compressed audit file " + source );
+        }
+      } catch( IOException e ) {
+        LogLog.error( "Failed to compress audit file " + source, e );
+        target.delete();
+      }
+    }
+
+  }
+
+  private static class CompressorThreadFactory implements ThreadFactory {
+    @Override
+    public Thread newThread( Runnable runnable ) {
+      Thread thread = new Thread( runnable, "audit-file-compressor" );
+      thread.setDaemon( true );
+      return thread;
+    }
+  }
+
+}
@@ -0,0 +1,53 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.audit;
+
+import org.apache.hadoop.gateway.audit.api.Auditor;
+
+/**
+ * An audit service whose auditors capture each event as an immutable record and
+ * leave the formatting and writing to a background thread.  Contexts are managed
+ * exactly as in Log4jAuditService.  Enable it by setting the
+ * {@link org.apache.hadoop.gateway.audit.api.AuditServiceFactory#AUDIT_SERVICE_CLASS_PROPERTY}
+ * system property to this class name.
+ */
+public class AsyncLog4jAuditService extends Log4jAuditService {
+
+  private AuditRecordWriter writer;
+
+  public AsyncLog4jAuditService() {
+    this( AuditRecordWriter.DEFAULT_CAPACITY );
+  }
+
+  public AsyncLog4jAuditService( int capacity ) {
+    writer = new AuditRecordWriter( capacity );
+  }
+
+  @Override
+  protected Auditor createAuditor( String auditorName, String componentName, String serviceName ) {
+    return new AsyncLog4jAuditor( writer, auditorName, componentName, serviceName );
+  }
+
+  /**
+   * Returns the number of records that have been audited but not yet written.
+   */
+  public int getPendingRecords() {
+    return writer.getPending();
+  }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.audit;
+
+import org.apache.hadoop.gateway.audit.api.AuditContext;
+import org.apache.hadoop.gateway.audit.api.AuditService;
+import org.apache.hadoop.gateway.audit.api.Auditor;
+import org.apache.hadoop.gateway.audit.api.CorrelationContext;
+import org.apache.hadoop.gateway.audit.api.CorrelationService;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationService;
+import org.apache.log4j.Logger;
+
+public class AsyncLog4jAuditor implements Auditor {
+
+  private Logger logger;
+  private String componentName;
+  private String serviceName;
+  private AuditRecordWriter writer;
+  private AuditService auditService = new Log4jAuditService();
+  private CorrelationService correlationService = new Log4jCorrelationService();
+
+  AsyncLog4jAuditor( AuditRecordWriter writer, String loggerName, String componentName, String serviceName ) {
+    logger = Logger.getLogger( loggerName );
+    logger.setAdditivity( false );
+    this.writer = writer;
+    this.componentName = componentName;
+    this.serviceName = serviceName;
+  }
+
+  @Override
+  public void audit( CorrelationContext correlationContext, AuditContext auditContext, String action, String resourceName, String resourceType, String outcome, String message ) {
+    // Like Log4jAuditor a missing context falls back to the one attached to the thread.
+    if( correlationContext == null ) {
+      correlationContext = correlationService.getContext();
+    }
+    if( auditContext == null ) {
+      auditContext = auditService.getContext();
+    }
+    auditLog( correlationContext, auditContext, action, resourceName, resourceType, outcome, message );
+  }
+
+  @Override
+  public void audit( String action, String resourceName, String resourceType, String outcome, String message ) {
+    auditLog( correlationService.getContext(), auditService.getContext(), action, resourceName, resourceType, outcome, message );
+  }
+
+  @Override
+  public void audit( String action, String resourceName, String resourceType, String outcome ) {
+    auditLog( correlationService.getContext(), auditService.getContext(), action, resourceName, resourceType, outcome, null );
+  }
+
+  private void auditLog( CorrelationContext correlationContext, AuditContext auditContext, String action, String resourceName, String resourceType, String outcome, String message ) {
+    if ( logger.isInfoEnabled() ) {
+      writer.add( new AuditRecord(
+          logger, componentName, serviceName, correlationContext, auditContext,
+          action, resourceName, resourceType, outcome, message ) );
+    }
+  }
+
+  @Override
+  public String getComponentName() {
+    return componentName;
+  }
+
+  @Override
+  public String getServiceName() {
+    return serviceName;
+  }
+
+  @Override
+  public String getAuditorName() {
+    return logger.getName();
+  }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.audit;
+
+import org.apache.hadoop.gateway.audit.api.AuditContext;
+import org.apache.hadoop.gateway.audit.api.CorrelationContext;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationContext;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationService;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of a single audit event.  The audit and correlation contexts
+ * are mutable and live on after the event so their values are copied when the record
+ * is created on the request thread.
+ */
+final class AuditRecord {
+
+  private static final String FQCN = AuditRecord.class.getName();
+
+  private final Logger logger;
+  private final long timestamp;
+  private final String threadName;
+  private final String componentName;
+  private final String serviceName;
+  private final String action;
+  private final String resourceName;
+  private final String resourceType;
+  private final String outcome;
+  private final String message;
+  private final boolean hasAuditContext;
+  private final String username;
+  private final String proxyUsername;
+  private final String systemUsername;
+  private final String targetServiceName;
+  private final String remoteIp;
+  private final String remoteHostname;
+  private final boolean hasCorrelationContext;
+  private final String requestId;
+  private final String parentRequestId;
+  private final String rootRequestId;
+
+  AuditRecord( Logger logger, String componentName, String serviceName,
+               CorrelationContext correlationContext, AuditContext auditContext,
+               String action, String resourceName, String resourceType, String outcome, String message ) {
+    this.logger = logger;
+    this.timestamp = System.currentTimeMillis();
+    this.threadName = Thread.currentThread().getName();
+    this.componentName = componentName;
+    this.serviceName = serviceName;
+    this.action = action;
+    this.resourceName = resourceName;
+    this.resourceType = resourceType;
+    this.outcome = outcome;
+    this.message = message;
+    this.hasAuditContext = auditContext != null;
+    this.username = hasAuditContext ? auditContext.getUsername() : null;
+    this.proxyUsername = hasAuditContext ? auditContext.getProxyUsername() : null;
+    this.systemUsername = hasAuditContext ? auditContext.getSystemUsername() : null;
+    this.targetServiceName = hasAuditContext ? auditContext.getTargetServiceName() : null;
+    this.remoteIp = hasAuditContext ? auditContext.getRemoteIp() : null;
+    this.remoteHostname = hasAuditContext ? peekRemoteHostname( auditContext ) : null;
+    this.hasCorrelationContext = correlationContext != null;
+    this.requestId = hasCorrelationContext ? correlationContext.getRequestId() : null;
+    this.parentRequestId = hasCorrelationContext ? correlationContext.getParentRequestId() : null;
+    this.rootRequestId = hasCorrelationContext ? correlationContext.getRootRequestId() : null;
+  }
+
+  Logger getLogger() {
+    return logger;
+  }
+
+  /**
+   * Creates the event the synchronous Log4jAuditor would have logged so that
+   * existing layouts and appenders see the same MDC values.
+   */
+  LoggingEvent toLoggingEvent() {
+    Map<String,Object> properties = new HashMap<String,Object>();
+    put( properties, AuditConstants.MDC_ACTION_KEY, action );
+    put( properties, AuditConstants.MDC_RESOURCE_NAME_KEY, resourceName );
+    put( properties, AuditConstants.MDC_RESOURCE_TYPE_KEY, resourceType );
+    put( properties, AuditConstants.MDC_OUTCOME_KEY, outcome );
+    put( properties, AuditConstants.MDC_SERVICE_KEY, serviceName );
+    put( properties, AuditConstants.MDC_COMPONENT_KEY, componentName );
+    if( hasAuditContext ) {
+      Log4jAuditContext context = new Log4jAuditContext();
+      context.setUsername( username );
+      context.setProxyUsername( proxyUsername );
+      context.setSystemUsername( systemUsername );
+      context.setTargetServiceName( targetServiceName );
+      context.setRemoteIp( remoteIp );
+      context.setRemoteHostname( remoteHostname );
+      properties.put( Log4jAuditService.MDC_AUDIT_CONTEXT_KEY, context );
+    }
+    if( hasCorrelationContext ) {
+      properties.put( Log4jCorrelationService.MDC_CORRELATION_CONTEXT_KEY,
+          new Log4jCorrelationContext( requestId, parentRequestId, rootRequestId ) );
+    }
+    return new LoggingEvent( FQCN, logger, timestamp, Level.INFO, message, threadName, null, null, null, properties );
+  }
+
+  // Leave resolving the hostname to whatever formats the event.
+  private static String peekRemoteHostname( AuditContext context ) {
+    String hostname;
+    if( context instanceof Log4jAuditContext ) {
+      hostname = ((Log4jAuditContext)context).peekRemoteHostname();
+    } else {
+      hostname = context.getRemoteHostname();
+    }
+    return hostname;
+  }
+
+  // The event copies the properties into a Hashtable which can't hold nulls.
+  private static void put( Map<String,Object> properties, String key, String value ) {
+    if( value != null ) {
+      properties.put( key, value );
+    }
+  }
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit.log4j.audit;
+
+import org.apache.log4j.helpers.LogLog;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands audit records from request threads to a single background thread that
+ * turns them into log4j events.  Adding a record never blocks.  If capacity records
+ * are already waiting the record is written on the calling thread instead so that
+ * audit events are never dropped.
+ */
+class AuditRecordWriter {
+
+  static final int DEFAULT_CAPACITY = 64 * 1024;
+
+  private static final long IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos( 100 );
+
+  private final ConcurrentLinkedQueue<AuditRecord> records;
+  private final AtomicInteger pending;
+  private final int capacity;
+  private final Thread writer;
+
+  AuditRecordWriter( int capacity ) {
+    this.records = new ConcurrentLinkedQueue<AuditRecord>();
+    this.pending = new AtomicInteger( 0 );
+    this.capacity = capacity;
+    this.writer = new Writer();
+    this.writer.setDaemon( true );
+    this.writer.start();
+    Runtime.getRuntime().addShutdownHook( new Thread( "AuditRecordWriter-shutdown" ) {
+      @Override
+      public void run() {
+        drain();
+      }
+    } );
+  }
+
+  void add( AuditRecord record ) {
+    int count = pending.incrementAndGet();
+    if( count > capacity ) {
+      pending.decrementAndGet();
+      write( record );
+    } else {
+      records.offer( record );
+      // Only wake the writer on the transition from idle.
+      if( count == 1 ) {
+        LockSupport.unpark( writer );
+      }
+    }
+  }
+
+  int getPending() {
+    return pending.get();
+  }
+
+  // Synchronized so that the shutdown hook and the writer thread never interleave events.
+  private synchronized void drain() {
+    AuditRecord record = records.poll();
+    while( record != null ) {
+      pending.decrementAndGet();
+      write( record );
+      record = records.poll();
+    }
+  }
+
+  private static void write( AuditRecord record ) {
+    try {
+      record.getLogger().callAppenders( record.toLoggingEvent() );
+    } catch( RuntimeException e ) {
+      LogLog.error( "Failed to write audit record.", e );
+    }
+  }
+
+  private class Writer extends Thread {
+
+    private Writer() {
+      super( "AuditRecordWriter" );
+    }
+
+    @Override
+    public void run() {
+      while( true ) {
+        if( pending.get() == 0 ) {
+          LockSupport.parkNanos( this, IDLE_WAIT );
+        }
+        drain();
+      }
+    }
+
+  }
+
+}
@@ -21,7 +21,12 @@ import java.io.Serializable;
 import java.util.Set;
 
 import org.apache.hadoop.gateway.audit.api.AuditContext;
+import org.apache.hadoop.gateway.util.AsyncHostnameResolver;
 
+/**
+ * Unless it is set explicitly the remote hostname is resolved from the remote IP when it is
+ * first asked for.  Resolution never blocks, the hostname is null until it has been resolved.
+ */
 public class Log4jAuditContext implements Serializable, AuditContext {
 
   private static final long serialVersionUID = 1L;
@@ -86,6 +91,16 @@ public class Log4jAuditContext implements Serializable, AuditContext {
   
   @Override
   public String getRemoteHostname() {
+    if( remoteHostname == null && remoteIp != null ) {
+      remoteHostname = AsyncHostnameResolver.getDefault().getHostname( remoteIp );
+    }
+    return remoteHostname;
+  }
+
+  /**
+   * @return The remote hostname without resolving it.
+   */
+  String peekRemoteHostname() {
     return remoteHostname;
   }
 
@@ -75,10 +75,14 @@ public class Log4jAuditService implements AuditService {
     String key = auditorName + componentName + serviceName;
     Auditor auditor = auditors.get( key );
     if( auditor == null ) {
-      auditor = new Log4jAuditor( auditorName, componentName, serviceName );
+      auditor = createAuditor( auditorName, componentName, serviceName );
       auditors.put( key, auditor );
     }
     return auditor;
   }
 
+  protected Auditor createAuditor( String auditorName, String componentName, String serviceName ) {
+    return new Log4jAuditor( auditorName, componentName, serviceName );
+  }
+
 }
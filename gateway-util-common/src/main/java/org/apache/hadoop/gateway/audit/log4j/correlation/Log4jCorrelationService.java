@@ -19,10 +19,12 @@ package org.apache.hadoop.gateway.audit.log4j.correlation;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
 import java.util.concurrent.Callable;
 
 import org.apache.hadoop.gateway.audit.api.CorrelationContext;
@@ -32,6 +34,8 @@ import org.apache.log4j.MDC;
 public class Log4jCorrelationService implements CorrelationService {
   
   public static final String MDC_CORRELATION_CONTEXT_KEY = "correlation_context";
+
+  private static final byte COMPACT_FORMAT_VERSION = 1;
   
   @Override
   public CorrelationContext createContext() {
@@ -88,6 +92,63 @@ public class Log4jCorrelationService implements CorrelationService {
 
   @Override
   public CorrelationContext readExternalizedContext(byte[] externalizedContext) {
+    CorrelationContext context;
+    if ( isSerialized( externalizedContext ) ) {
+      context = readSerializedContext( externalizedContext );
+    } else {
+      context = readCompactContext( externalizedContext );
+    }
+    return context;
+  }
+
+  @Override
+  public byte[] getExternalizedContext() {
+    CorrelationContext context = getContext();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream( 64 );
+    DataOutputStream out = new DataOutputStream( baos );
+    try {
+      out.writeByte( COMPACT_FORMAT_VERSION );
+      out.writeBoolean( context != null );
+      if ( context != null ) {
+        writeId( out, context.getRequestId() );
+        writeId( out, context.getParentRequestId() );
+        writeId( out, context.getRootRequestId() );
+      }
+      out.close();
+    } catch ( IOException e ) {
+      throw new RuntimeException( e );
+    }
+    return baos.toByteArray();
+  }
+
+  // Contexts externalized by earlier versions are Java serialization streams.
+  private static boolean isSerialized( byte[] bytes ) {
+    return bytes.length >= 2 &&
+        bytes[ 0 ] == (byte)( ObjectStreamConstants.STREAM_MAGIC >> 8 ) &&
+        bytes[ 1 ] == (byte)ObjectStreamConstants.STREAM_MAGIC;
+  }
+
+  private static CorrelationContext readCompactContext( byte[] externalizedContext ) {
+    CorrelationContext context = null;
+    DataInputStream in = new DataInputStream( new ByteArrayInputStream( externalizedContext ) );
+    try {
+      byte version = in.readByte();
+      if ( version != COMPACT_FORMAT_VERSION ) {
+        throw new IllegalArgumentException( "Unsupported correlation context version " + version );
+      }
+      if ( in.readBoolean() ) {
+        String requestId = readId( in );
+        String parentRequestId = readId( in );
+        String rootRequestId = readId( in );
+        context = new Log4jCorrelationContext( requestId, parentRequestId, rootRequestId );
+      }
+    } catch ( IOException e ) {
+      throw new IllegalArgumentException( e );
+    }
+    return context;
+  }
+
+  private static CorrelationContext readSerializedContext( byte[] externalizedContext ) {
     ByteArrayInputStream bais = new ByteArrayInputStream( externalizedContext );
     ObjectInput oi = null;
     CorrelationContext context = null;
@@ -111,18 +172,20 @@ public class Log4jCorrelationService implements CorrelationService {
     return context;
   }
 
-  @Override
-  public byte[] getExternalizedContext() {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    try {
-    ObjectOutputStream oos = new ObjectOutputStream( baos );
-    oos.writeObject( getContext() );
-    oos.close();
-    } catch ( IOException e ) {
-      throw new RuntimeException( e );
+  private static void writeId( DataOutputStream out, String id ) throws IOException {
+    out.writeBoolean( id != null );
+    if ( id != null ) {
+      out.writeUTF( id );
     }
-    return baos.toByteArray();
   }
-  
+
+  private static String readId( DataInputStream in ) throws IOException {
+    String id = null;
+    if ( in.readBoolean() ) {
+      id = in.readUTF();
+    }
+    return id;
+  }
+
 }
 
@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.util;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the host names of IP addresses without ever blocking the caller.  A lookup
+ * returns the cached name if there is one and otherwise schedules the reverse lookup on
+ * a background thread and returns null.  Names are cached for a TTL, failed lookups for a
+ * shorter one.  Expired names are still returned while they are being refreshed.
+ */
+public class AsyncHostnameResolver {
+
+  public static final long DEFAULT_TTL = 5 * 60 * 1000L;
+  public static final long DEFAULT_NEGATIVE_TTL = 30 * 1000L;
+  public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+  private static final int THREADS = 2;
+  private static final int QUEUE_SIZE = 1000;
+
+  private static final AsyncHostnameResolver DEFAULT = new AsyncHostnameResolver(
+      DEFAULT_TTL, DEFAULT_NEGATIVE_TTL, DEFAULT_MAX_ENTRIES );
+
+  private final long ttl;
+  private final long negativeTtl;
+  private final int maxEntries;
+  private final ConcurrentHashMap<String, Entry> cache;
+  private final Executor executor;
+
+  public AsyncHostnameResolver( long ttl, long negativeTtl, int maxEntries ) {
+    this.ttl = ttl;
+    this.negativeTtl = negativeTtl;
+    this.maxEntries = maxEntries;
+    this.cache = new ConcurrentHashMap<String, Entry>();
+    // Lookups that don't fit in the queue are discarded and retried by a later caller.
+    this.executor = new ThreadPoolExecutor( THREADS, THREADS, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>( QUEUE_SIZE ),
+        new ThreadFactory() {
+          @Override
+          public Thread newThread( Runnable runnable ) {
+            Thread thread = new Thread( runnable, "gateway-hostname-resolver" );
+            thread.setDaemon( true );
+            return thread;
+          }
+        },
+        new ThreadPoolExecutor.DiscardPolicy() );
+  }
+
+  public static AsyncHostnameResolver getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * @return The cached host name of the address or null if it isn't known yet.
+   */
+  public String getHostname( String address ) {
+    String hostname = null;
+    if( address != null ) {
+      long now = System.currentTimeMillis();
+      Entry entry = cache.get( address );
+      if( entry != null ) {
+        hostname = entry.hostname;
+      }
+      if( entry == null || now >= entry.expires ) {
+        schedule( address, entry, now );
+      }
+    }
+    return hostname;
+  }
+
+  /**
+   * Resolves the address, called on a background thread.
+   * @return The host name or null if it couldn't be resolved.
+   */
+  protected String lookup( String address ) {
+    String hostname = null;
+    // Anything but an IP literal would turn into a forward lookup.
+    if( isLiteral( address ) ) {
+      try {
+        String name = InetAddress.getByName( address ).getHostName();
+        // The address itself is returned when there is no name for it.
+        if( !address.equals( name ) ) {
+          hostname = name;
+        }
+      } catch( UnknownHostException e ) {
+        // Cached as a failed lookup.
+      } catch( SecurityException e ) {
+        // Cached as a failed lookup.
+      }
+    }
+    return hostname;
+  }
+
+  private void schedule( final String address, Entry current, long now ) {
+    // Only the caller that manages to replace the entry schedules the lookup.  Should the
+    // lookup be discarded the pending entry expires and a later caller tries again.
+    Entry pending = new Entry( current == null ? null : current.hostname, now + negativeTtl );
+    boolean claimed;
+    if( current == null ) {
+      if( cache.size() >= maxEntries ) {
+        evictExpired( now );
+      }
+      claimed = cache.size() < maxEntries && cache.putIfAbsent( address, pending ) == null;
+    } else {
+      claimed = cache.replace( address, current, pending );
+    }
+    if( claimed ) {
+      executor.execute( new Runnable() {
+        @Override
+        public void run() {
+          String hostname = lookup( address );
+          long expires = System.currentTimeMillis() + ( hostname == null ? negativeTtl : ttl );
+          cache.put( address, new Entry( hostname, expires ) );
+        }
+      } );
+    }
+  }
+
+  private static boolean isLiteral( String address ) {
+    boolean literal = address.indexOf( ':' ) >= 0;
+    if( !literal ) {
+      literal = address.length() > 0;
+      for( int i = 0; literal && i < address.length(); i++ ) {
+        char c = address.charAt( i );
+        literal = ( c >= '0' && c <= '9' ) || c == '.';
+      }
+    }
+    return literal;
+  }
+
+  private void evictExpired( long now ) {
+    Iterator<Entry> entries = cache.values().iterator();
+    while( entries.hasNext() ) {
+      Entry entry = entries.next();
+      if( now >= entry.expires ) {
+        entries.remove();
+      }
+    }
+  }
+
+  private static class Entry {
+
+    private final String hostname;
+    private final long expires;
+
+    private Entry( String hostname, long expires ) {
+      this.hostname = hostname;
+      this.expires = expires;
+    }
+
+  }
+
+}
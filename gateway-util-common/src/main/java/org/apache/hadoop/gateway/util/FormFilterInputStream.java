@@ -0,0 +1,269 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.Arrays;
+
+/**
+ * Filters an application/x-www-form-urlencoded body one name/value pair at a time.
+ * Only the values of pairs whose name is selected by {@link #isFiltered(String)} are
+ * decoded and buffered.  Every other pair is forwarded byte for byte as it is read so
+ * memory use is bounded by the longest name or filtered value rather than the body.
+ * The encoding must be ASCII compatible for the '&amp;' and '=' delimiters to be found.
+ */
+public class FormFilterInputStream extends InputStream {
+
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  private static final int STATE_NAME = 0;
+  private static final int STATE_COPY_VALUE = 1;
+  private static final int STATE_FILTER_VALUE = 2;
+
+  private InputStream stream;
+  private String encoding;
+  private byte[] input;
+  private Buffer name;
+  private Buffer value;
+  private Buffer output;
+  private int outputOffset;
+  private int state;
+  private boolean first;
+  private boolean eof;
+
+  public FormFilterInputStream( InputStream stream, String encoding ) {
+    this.stream = stream;
+    this.encoding = encoding;
+    this.input = new byte[ DEFAULT_BUFFER_SIZE ];
+    this.name = new Buffer();
+    this.value = new Buffer();
+    this.output = new Buffer();
+    this.outputOffset = 0;
+    this.state = STATE_NAME;
+    this.first = true;
+    this.eof = false;
+  }
+
+  /**
+   * Determines if the value of the pair with the given decoded name is passed to
+   * {@link #filterValue(String, String)}.  By default no pairs are filtered.
+   */
+  protected boolean isFiltered( String name ) {
+    return false;
+  }
+
+  /**
+   * Returns the decoded value to write for a filtered pair or null to drop the pair.
+   * Returning the value instance that was passed in forwards the original bytes.
+   */
+  protected String filterValue( String name, String value ) {
+    return value;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = -1;
+    if( fill() ) {
+      b = output.bytes[ outputOffset++ ] & 0xFF;
+    }
+    return b;
+  }
+
+  @Override
+  public int read( byte[] bytes, int offset, int length ) throws IOException {
+    int count = -1;
+    if( length == 0 ) {
+      count = 0;
+    } else if( fill() ) {
+      count = Math.min( length, output.length - outputOffset );
+      System.arraycopy( output.bytes, outputOffset, bytes, offset, count );
+      outputOffset += count;
+    }
+    return count;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return output.length - outputOffset;
+  }
+
+  @Override
+  public void close() throws IOException {
+    stream.close();
+  }
+
+  // Processes input until there is output to return or the input is exhausted.
+  private boolean fill() throws IOException {
+    while( outputOffset == output.length && !eof ) {
+      output.clear();
+      outputOffset = 0;
+      int count = stream.read( input );
+      if( count < 0 ) {
+        endPair();
+        eof = true;
+      } else {
+        scan( input, count );
+      }
+    }
+    return outputOffset < output.length;
+  }
+
+  private void scan( byte[] bytes, int count ) throws IOException {
+    int index = 0;
+    while( index < count ) {
+      if( state == STATE_COPY_VALUE ) {
+        int end = indexOf( bytes, index, count, '&' );
+        output.append( bytes, index, end - index );
+        index = end;
+        if( index < count ) {
+          endPair();
+          index++;
+        }
+      } else {
+        byte b = bytes[ index++ ];
+        if( b == '&' ) {
+          endPair();
+        } else if( b == '=' && state == STATE_NAME ) {
+          endName();
+        } else if( state == STATE_NAME ) {
+          name.append( b );
+        } else {
+          value.append( b );
+        }
+      }
+    }
+  }
+
+  private void endName() throws IOException {
+    String decoded = decode( name );
+    if( isFiltered( decoded ) ) {
+      state = STATE_FILTER_VALUE;
+    } else {
+      writeSeparator();
+      output.append( name.bytes, 0, name.length );
+      output.append( (byte)'=' );
+      name.clear();
+      state = STATE_COPY_VALUE;
+    }
+  }
+
+  private void endPair() throws IOException {
+    if( state == STATE_NAME ) {
+      // Ignore adjacent &s.
+      if( name.length > 0 ) {
+        String decoded = decode( name );
+        if( isFiltered( decoded ) ) {
+          writeFiltered( decoded, "" );
+        } else {
+          writeSeparator();
+          output.append( name.bytes, 0, name.length );
+        }
+      }
+    } else if( state == STATE_FILTER_VALUE ) {
+      writeFiltered( decode( name ), decode( value ) );
+    }
+    name.clear();
+    value.clear();
+    state = STATE_NAME;
+  }
+
+  private void writeFiltered( String decodedName, String decodedValue ) throws IOException {
+    String filtered = filterValue( decodedName, decodedValue );
+    if( filtered != null ) {
+      writeSeparator();
+      if( filtered == decodedValue ) {
+        output.append( name.bytes, 0, name.length );
+        if( state == STATE_FILTER_VALUE ) {
+          output.append( (byte)'=' );
+          output.append( value.bytes, 0, value.length );
+        }
+      } else {
+        output.append( encode( decodedName ) );
+        output.append( (byte)'=' );
+        output.append( encode( filtered ) );
+      }
+    }
+  }
+
+  private void writeSeparator() {
+    if( first ) {
+      first = false;
+    } else {
+      output.append( (byte)'&' );
+    }
+  }
+
+  private String decode( Buffer buffer ) throws IOException {
+    String string = new String( buffer.bytes, 0, buffer.length, encoding );
+    try {
+      string = URLDecoder.decode( string, encoding );
+    } catch( IllegalArgumentException e ) {
+      // Leave malformed escapes as they are.
+    }
+    return string;
+  }
+
+  private byte[] encode( String string ) throws IOException {
+    // The encoded form only contains ASCII characters.
+    return URLEncoder.encode( string, encoding ).getBytes( "US-ASCII" );
+  }
+
+  private static int indexOf( byte[] bytes, int from, int to, char c ) {
+    int index = from;
+    while( index < to && bytes[ index ] != c ) {
+      index++;
+    }
+    return index;
+  }
+
+  private static class Buffer {
+
+    private byte[] bytes = new byte[ 64 ];
+    private int length = 0;
+
+    private void append( byte b ) {
+      ensure( 1 );
+      bytes[ length++ ] = b;
+    }
+
+    private void append( byte[] source ) {
+      append( source, 0, source.length );
+    }
+
+    private void append( byte[] source, int offset, int count ) {
+      ensure( count );
+      System.arraycopy( source, offset, bytes, length, count );
+      length += count;
+    }
+
+    private void ensure( int count ) {
+      if( length + count > bytes.length ) {
+        bytes = Arrays.copyOf( bytes, Math.max( bytes.length * 2, length + count ) );
+      }
+    }
+
+    private void clear() {
+      length = 0;
+    }
+
+  }
+
+}
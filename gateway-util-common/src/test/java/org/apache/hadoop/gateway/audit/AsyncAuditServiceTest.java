@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit;
+
+import org.apache.hadoop.gateway.audit.api.AuditContext;
+import org.apache.hadoop.gateway.audit.api.Auditor;
+import org.apache.hadoop.gateway.audit.api.CorrelationContext;
+import org.apache.hadoop.gateway.audit.api.CorrelationService;
+import org.apache.hadoop.gateway.audit.api.CorrelationServiceFactory;
+import org.apache.hadoop.gateway.audit.log4j.audit.AsyncLog4jAuditService;
+import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
+import org.apache.hadoop.gateway.audit.log4j.audit.Log4jAuditService;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationService;
+import org.apache.hadoop.test.log.CollectAppender;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.PropertyConfigurator;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class AsyncAuditServiceTest {
+
+  private static AsyncLog4jAuditService auditService = new AsyncLog4jAuditService();
+  private static CorrelationService correlationService = CorrelationServiceFactory.getCorrelationService();
+  private static Auditor auditor = auditService.getAuditor( "audit.forward", AuditConstants.KNOX_COMPONENT_NAME, AuditConstants.KNOX_SERVICE_NAME );
+
+  @Before
+  public void setup() {
+    cleanup();
+  }
+
+  @After
+  public void cleanup() {
+    CollectAppender.queue.clear();
+    LogManager.shutdown();
+    PropertyConfigurator.configure( ClassLoader.getSystemResourceAsStream( "audit-log4j.properties" ) );
+  }
+
+  @Test( timeout = 60000 )
+  public void testEventsCaptureContextsAtAuditTime() throws InterruptedException {
+    int iterations = 1000;
+
+    AuditContext ac = auditService.createContext();
+    ac.setUsername( "user" );
+    ac.setRemoteIp( "127.0.0.1" );
+    ac.setTargetServiceName( "service" );
+    CorrelationContext cc = correlationService.createContext();
+    cc.setRequestId( "request" );
+    cc.setRootRequestId( "root" );
+
+    for( int i = 0; i < iterations; i++ ) {
+      auditor.audit( "action" + i, "resource" + i, "resource type" + i, "outcome" + i, "message" + i );
+    }
+    // Changes made after the events were audited must not show up in them.
+    ac.setUsername( "changed" );
+    cc.setRequestId( "changed" );
+
+    auditService.detachContext();
+    correlationService.detachContext();
+    while( CollectAppender.queue.size() < iterations ) {
+      Thread.sleep( 5 );
+    }
+    assertThat( auditService.getPendingRecords(), is( 0 ) );
+
+    Iterator<LoggingEvent> iterator = CollectAppender.queue.iterator();
+    int counter = 0;
+    while( iterator.hasNext() ) {
+      LoggingEvent event = iterator.next();
+      AuditContext context = (AuditContext)event.getMDC( Log4jAuditService.MDC_AUDIT_CONTEXT_KEY );
+      assertThat( context.getUsername(), is( "user" ) );
+      assertThat( context.getProxyUsername(), nullValue() );
+      assertThat( context.getRemoteIp(), is( "127.0.0.1" ) );
+      assertThat( context.getTargetServiceName(), is( "service" ) );
+      CorrelationContext correlation = (CorrelationContext)event.getMDC( Log4jCorrelationService.MDC_CORRELATION_CONTEXT_KEY );
+      assertThat( correlation.getRequestId(), is( "request" ) );
+      assertThat( correlation.getRootRequestId(), is( "root" ) );
+      assertThat( correlation.getParentRequestId(), nullValue() );
+      assertThat( (String)event.getMDC( AuditConstants.MDC_ACTION_KEY ), is( "action" + counter ) );
+      assertThat( (String)event.getMDC( AuditConstants.MDC_RESOURCE_NAME_KEY ), is( "resource" + counter ) );
+      assertThat( (String)event.getMDC( AuditConstants.MDC_RESOURCE_TYPE_KEY ), is( "resource type" + counter ) );
+      assertThat( (String)event.getMDC( AuditConstants.MDC_OUTCOME_KEY ), is( "outcome" + counter ) );
+      assertThat( (String)event.getMDC( AuditConstants.MDC_SERVICE_KEY ), is( AuditConstants.KNOX_SERVICE_NAME ) );
+      assertThat( (String)event.getMDC( AuditConstants.MDC_COMPONENT_KEY ), is( AuditConstants.KNOX_COMPONENT_NAME ) );
+      assertThat( event.getRenderedMessage(), is( "message" + counter ) );
+      counter++;
+    }
+    assertThat( counter, is( iterations ) );
+  }
+
+}
@@ -0,0 +1,191 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit;
+
+import org.apache.hadoop.gateway.audit.log4j.appender.AuditEntry;
+import org.apache.hadoop.gateway.audit.log4j.appender.AuditEntryFormat;
+import org.apache.hadoop.gateway.audit.log4j.appender.AuditFileAppender;
+import org.apache.hadoop.gateway.audit.log4j.appender.AuditFileReader;
+import org.apache.hadoop.gateway.audit.log4j.audit.AuditConstants;
+import org.apache.hadoop.gateway.audit.log4j.audit.Log4jAuditContext;
+import org.apache.hadoop.gateway.audit.log4j.audit.Log4jAuditService;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationContext;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationService;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AuditFileAppenderTest {
+
+  private static final String MESSAGE = "quote=\" slash=\\ newline=\n tab=\t control=\u0001 unicode=\u00e9\u4e2d\ud83d\ude00";
+
+  private File dir;
+
+  @Before
+  public void setup() throws IOException {
+    dir = new File( "target/AuditFileAppenderTest" );
+    cleanup();
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    File[] files = dir.listFiles();
+    if( files != null ) {
+      for( File f : files ) {
+        assertThat( "Failed to delete " + f, f.delete(), is( true ) );
+      }
+    }
+  }
+
+  @Test
+  public void testBinaryRoundTrip() throws IOException {
+    roundTrip( "binary" );
+  }
+
+  @Test
+  public void testJsonRoundTrip() throws IOException {
+    roundTrip( "json" );
+  }
+
+  @Test
+  public void testRollingAndCompression() throws IOException {
+    AuditFileAppender appender = createAppender( "binary" );
+    appender.setMaxFileSize( 1024 );
+    appender.setCompress( true );
+    appender.setImmediateFlush( false );
+    appender.setBufferSize( 256 );
+    appender.activateOptions();
+    int iterations = 100;
+    for( int i = 0; i < iterations; i++ ) {
+      appender.doAppend( createEvent( i, "message-" + i ) );
+    }
+    appender.close();
+
+    File[] files = dir.listFiles();
+    Arrays.sort( files );
+    assertThat( files.length > 2, is( true ) );
+    List<AuditEntry> entries = new ArrayList<AuditEntry>();
+    for( File file : files ) {
+      if( !file.getName().equals( "audit" ) ) {
+        assertThat( file.getName(), file.getName().endsWith( ".gz" ), is( true ) );
+        assertThat( file.length() <= 1024, is( true ) );
+        entries.addAll( read( file, AuditEntryFormat.BINARY ) );
+      }
+    }
+    entries.addAll( read( new File( dir, "audit" ), AuditEntryFormat.BINARY ) );
+    assertThat( entries.size(), is( iterations ) );
+    for( int i = 0; i < iterations; i++ ) {
+      assertThat( entries.get( i ).get( AuditEntry.MESSAGE ), is( "message-" + i ) );
+    }
+  }
+
+  @Test
+  public void testBufferedRecordsAreFlushedPeriodically() throws Exception {
+    AuditFileAppender appender = createAppender( "json" );
+    appender.setImmediateFlush( false );
+    appender.setFlushInterval( 50 );
+    appender.activateOptions();
+    try {
+      appender.doAppend( createEvent( 1, "message" ) );
+      File file = new File( dir, "audit" );
+      long deadline = System.currentTimeMillis() + 5000;
+      while( file.length() == 0 && System.currentTimeMillis() < deadline ) {
+        Thread.sleep( 10 );
+      }
+      List<AuditEntry> entries = read( file, AuditEntryFormat.JSON );
+      assertThat( entries.size(), is( 1 ) );
+      assertThat( entries.get( 0 ).get( AuditEntry.MESSAGE ), is( "message" ) );
+    } finally {
+      appender.close();
+    }
+  }
+
+  private void roundTrip( String format ) throws IOException {
+    AuditFileAppender appender = createAppender( format );
+    appender.activateOptions();
+    LoggingEvent first = createEvent( 1, MESSAGE );
+    LoggingEvent second = new LoggingEvent( null, Logger.getLogger( "audit" ), 2, Level.INFO, null, null );
+    appender.doAppend( first );
+    appender.doAppend( second );
+    appender.close();
+
+    List<AuditEntry> entries = read( new File( dir, "audit" ), AuditEntryFormat.forName( format ) );
+    assertThat( entries.size(), is( 2 ) );
+    assertThat( entries.get( 0 ), is( AuditEntry.fromEvent( first ) ) );
+    assertThat( entries.get( 0 ).get( AuditEntry.MESSAGE ), is( MESSAGE ) );
+    assertThat( entries.get( 0 ).get( AuditEntry.USERNAME ), is( "user" ) );
+    assertThat( entries.get( 0 ).get( AuditEntry.ROOT_REQUEST_ID ), is( "root" ) );
+    assertThat( entries.get( 0 ).get( AuditEntry.OUTCOME ), is( "success" ) );
+    assertThat( entries.get( 1 ), is( AuditEntry.fromEvent( second ) ) );
+    assertThat( entries.get( 1 ).get( AuditEntry.USERNAME ), nullValue() );
+    assertThat( entries.get( 1 ).getTimestamp(), is( 2L ) );
+  }
+
+  private AuditFileAppender createAppender( String format ) {
+    AuditFileAppender appender = new AuditFileAppender();
+    appender.setName( "audit-file" );
+    appender.setFile( new File( dir, "audit" ).getPath() );
+    appender.setFormat( format );
+    return appender;
+  }
+
+  private static LoggingEvent createEvent( long timestamp, String message ) {
+    Log4jAuditContext auditContext = new Log4jAuditContext();
+    auditContext.setUsername( "user" );
+    auditContext.setTargetServiceName( "WEBHDFS" );
+    Map<String,Object> properties = new HashMap<String,Object>();
+    properties.put( Log4jAuditService.MDC_AUDIT_CONTEXT_KEY, auditContext );
+    properties.put( Log4jCorrelationService.MDC_CORRELATION_CONTEXT_KEY, new Log4jCorrelationContext( "request", null, "root" ) );
+    properties.put( AuditConstants.MDC_ACTION_KEY, "access" );
+    properties.put( AuditConstants.MDC_RESOURCE_TYPE_KEY, "uri" );
+    properties.put( AuditConstants.MDC_RESOURCE_NAME_KEY, "/webhdfs/v1/tmp" );
+    properties.put( AuditConstants.MDC_OUTCOME_KEY, "success" );
+    return new LoggingEvent( null, Logger.getLogger( "audit" ), timestamp, Level.INFO, message, "thread", null, null, null, properties );
+  }
+
+  private static List<AuditEntry> read( File file, AuditEntryFormat format ) throws IOException {
+    List<AuditEntry> entries = new ArrayList<AuditEntry>();
+    AuditFileReader reader = new AuditFileReader( file, format );
+    try {
+      AuditEntry entry = reader.read();
+      while( entry != null ) {
+        entries.add( entry );
+        entry = reader.read();
+      }
+    } finally {
+      reader.close();
+    }
+    return entries;
+  }
+
+}
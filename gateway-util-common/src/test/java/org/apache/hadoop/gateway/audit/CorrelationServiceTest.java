@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit;
+
+import org.apache.hadoop.gateway.audit.api.CorrelationContext;
+import org.apache.hadoop.gateway.audit.api.CorrelationIdGenerator;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationContext;
+import org.apache.hadoop.gateway.audit.log4j.correlation.Log4jCorrelationService;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class CorrelationServiceTest {
+
+  private Log4jCorrelationService service = new Log4jCorrelationService();
+
+  @After
+  public void cleanup() {
+    service.detachContext();
+  }
+
+  @Test
+  public void testGeneratedIdsAreUniqueAndOrdered() {
+    Set<String> ids = new HashSet<String>();
+    String previous = CorrelationIdGenerator.nextId();
+    for( int i = 0; i < 10000; i++ ) {
+      String id = CorrelationIdGenerator.nextId();
+      assertThat( id.length(), is( previous.length() ) );
+      assertThat( id.compareTo( previous ) > 0, is( true ) );
+      assertThat( ids.add( id ), is( true ) );
+      previous = id;
+    }
+  }
+
+  @Test
+  public void testExternalizedContextRoundTrip() {
+    CorrelationContext context = service.createContext();
+    context.setRequestId( "request-id" );
+    context.setRootRequestId( "root-id" );
+    byte[] bytes = service.getExternalizedContext();
+    // Much smaller than the serialized form.
+    assertThat( bytes.length < 30, is( true ) );
+
+    CorrelationContext copy = service.readExternalizedContext( bytes );
+    assertThat( copy.getRequestId(), is( "request-id" ) );
+    assertThat( copy.getParentRequestId(), nullValue() );
+    assertThat( copy.getRootRequestId(), is( "root-id" ) );
+
+    service.detachContext();
+    assertThat( service.readExternalizedContext( service.getExternalizedContext() ), nullValue() );
+  }
+
+  @Test
+  public void testReadSerializedContext() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream output = new ObjectOutputStream( bytes );
+    output.writeObject( new Log4jCorrelationContext( "request-id", "parent-id", "root-id" ) );
+    output.close();
+
+    CorrelationContext context = service.readExternalizedContext( bytes.toByteArray() );
+    assertThat( context.getRequestId(), is( "request-id" ) );
+    assertThat( context.getParentRequestId(), is( "parent-id" ) );
+    assertThat( context.getRootRequestId(), is( "root-id" ) );
+  }
+
+}
@@ -0,0 +1,238 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.audit;
+
+import org.apache.hadoop.gateway.audit.log4j.appender.JdbmQueue;
+import org.apache.hadoop.gateway.audit.log4j.appender.JournalQueue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class JournalQueueTest {
+
+  private File dir;
+  private File file;
+  private JournalQueue<String> queue;
+
+  @Before
+  public void setup() throws IOException {
+    dir = new File( "target/JournalQueueTest" );
+    file = new File( dir, "queue" );
+    cleanup();
+    queue = new JournalQueue<String>( file, 16, 5, 1024, false, 64 );
+  }
+
+  @After
+  public void cleanup() throws IOException {
+    if( queue != null ) {
+      queue.close();
+      queue = null;
+    }
+    File[] files = dir.listFiles();
+    if( files != null ) {
+      for( File f : files ) {
+        assertThat( "Failed to delete " + f, f.delete(), is( true ) );
+      }
+    }
+  }
+
+  @Test
+  public void testSimple() throws IOException, InterruptedException {
+    queue.enqueue( "one" );
+    assertThat( queue.dequeue( 10 ), is( list( "one" ) ) );
+    queue.enqueue( "two" );
+    queue.enqueue( "three" );
+    List<String> batch = new ArrayList<String>();
+    while( batch.size() < 2 ) {
+      batch.addAll( queue.dequeue( 10 ) );
+    }
+    assertThat( batch, is( list( "two", "three" ) ) );
+  }
+
+  @Test
+  public void testRejectedBatchIsRedelivered() throws IOException, InterruptedException {
+    queue.enqueue( "one" );
+    final List<String> consumed = new ArrayList<String>();
+    assertThat( queue.process( new JournalQueue.BatchConsumer<String>() {
+      @Override
+      public boolean consume( List<String> batch ) {
+        return false;
+      }
+    }, 10 ), is( false ) );
+    assertThat( queue.process( new JournalQueue.BatchConsumer<String>() {
+      @Override
+      public boolean consume( List<String> batch ) {
+        consumed.addAll( batch );
+        return true;
+      }
+    }, 10 ), is( true ) );
+    assertThat( consumed, is( list( "one" ) ) );
+  }
+
+  @Test
+  public void testUnconsumedEntriesSurviveRestart() throws IOException, InterruptedException {
+    // Small segments force the entries across several files.
+    for( int i = 0; i < 100; i++ ) {
+      queue.enqueue( "entry-" + i );
+    }
+    List<String> consumed = new ArrayList<String>();
+    while( consumed.size() < 40 ) {
+      consumed.addAll( queue.dequeue( 40 - consumed.size() ) );
+    }
+    queue.close();
+
+    queue = new JournalQueue<String>( file, 16, 5, 1024, false, 64 );
+    queue.enqueue( "entry-100" );
+    while( consumed.size() < 101 ) {
+      consumed.addAll( queue.dequeue( 50 ) );
+    }
+    for( int i = 0; i <= 100; i++ ) {
+      assertThat( consumed.get( i ), is( "entry-" + i ) );
+    }
+  }
+
+  @Test( timeout = 120000 )
+  public void testConcurrentProcessor() throws InterruptedException, IOException {
+    int iterations = 1000;
+    final Set<String> consumed = new HashSet<String>();
+    Thread processor = new Thread() {
+      public void run() {
+        try {
+          while( !queue.isStopped() ) {
+            queue.process( new JournalQueue.BatchConsumer<String>() {
+              @Override
+              public boolean consume( List<String> batch ) {
+                synchronized( consumed ) {
+                  consumed.addAll( batch );
+                }
+                return true;
+              }
+            }, 32 );
+          }
+        } catch ( Throwable t ) {
+          t.printStackTrace();
+        }
+      }
+    };
+    processor.start();
+    Producer producer1 = new Producer( iterations );
+    producer1.start();
+    Producer producer2 = new Producer( iterations );
+    producer2.start();
+    producer1.join();
+    producer2.join();
+    while( size( consumed ) < iterations * 2 ) {
+      Thread.sleep( 5 );
+    }
+    queue.stop();
+    processor.join();
+    assertThat( size( consumed ), is( iterations * 2 ) );
+  }
+
+  @Ignore
+  @Test
+  public void testPerformanceAndStorageFootprint() throws IOException, InterruptedException {
+    System.out.println( "Running " + Thread.currentThread().getStackTrace()[1].getClassName() + "#" + Thread.currentThread().getStackTrace()[1].getMethodName() );
+
+    String fill = JdbmQueueTest.createFillString( 100 );
+    int iterations = 10000;
+
+    queue.close();
+    queue = new JournalQueue<String>( file );
+    long journalTime = enqueue( queue, fill, iterations );
+    queue.stop();
+    long journalSize = 0;
+    File[] files = dir.listFiles();
+    if( files != null ) {
+      for( File f : files ) {
+        journalSize += f.length();
+      }
+    }
+
+    File jdbmFile = new File( dir, "jdbm" );
+    JdbmQueue<String> jdbm = new JdbmQueue<String>( jdbmFile );
+    long jdbmTime = 0;
+    for( int i = 0; i < iterations; i++ ) {
+      String s = UUID.randomUUID().toString() + ":" + fill;
+      long before = System.nanoTime();
+      jdbm.enqueue( s );
+      jdbmTime += System.nanoTime() - before;
+    }
+    jdbm.close();
+    long jdbmSize = new File( jdbmFile.getPath() + ".db" ).length() + new File( jdbmFile.getPath() + ".lg" ).length();
+
+    System.out.println( String.format( "Journal: avg=%.6fs, tot=%.2fs, cnt=%d, size=%s",
+        journalTime / 1e9 / iterations, journalTime / 1e9, iterations, JdbmQueueTest.humanReadableSize( journalSize ) ) );
+    System.out.println( String.format( "Jdbm:    avg=%.6fs, tot=%.2fs, cnt=%d, size=%s",
+        jdbmTime / 1e9 / iterations, jdbmTime / 1e9, iterations, JdbmQueueTest.humanReadableSize( jdbmSize ) ) );
+  }
+
+  private static long enqueue( JournalQueue<String> queue, String fill, int iterations ) throws IOException {
+    long time = 0;
+    for( int i = 0; i < iterations; i++ ) {
+      String s = UUID.randomUUID().toString() + ":" + fill;
+      long before = System.nanoTime();
+      queue.enqueue( s );
+      time += System.nanoTime() - before;
+    }
+    return time;
+  }
+
+  private static int size( Set<String> set ) {
+    synchronized( set ) {
+      return set.size();
+    }
+  }
+
+  private static List<String> list( String... strings ) {
+    List<String> list = new ArrayList<String>();
+    for( String s : strings ) {
+      list.add( s );
+    }
+    return list;
+  }
+
+  private class Producer extends Thread {
+    private int iterations;
+    private Producer( int iterations ) {
+      this.iterations = iterations;
+    }
+    public void run() {
+      try {
+        for( int i = 0; i < iterations; i++ ) {
+          queue.enqueue( UUID.randomUUID().toString() );
+        }
+      } catch ( Throwable t ) {
+        t.printStackTrace();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AsyncHostnameResolverTest {
+
+  @Test( timeout = 10000 )
+  public void testLookupDoesNotBlockCaller() throws InterruptedException {
+    final CountDownLatch release = new CountDownLatch( 1 );
+    TestResolver resolver = new TestResolver( 60000, 60000 ) {
+      @Override
+      protected String lookup( String address ) {
+        try {
+          release.await();
+        } catch( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+        }
+        return super.lookup( address );
+      }
+    };
+    assertThat( resolver.getHostname( "1.2.3.4" ), nullValue() );
+    assertThat( resolver.getHostname( "1.2.3.4" ), nullValue() );
+    release.countDown();
+    assertThat( resolver.await( "1.2.3.4" ), is( "host-1.2.3.4" ) );
+    assertThat( resolver.getHostname( "1.2.3.4" ), is( "host-1.2.3.4" ) );
+    assertThat( resolver.lookups.get(), is( 1 ) );
+  }
+
+  @Test( timeout = 10000 )
+  public void testExpiredNameIsReturnedWhileRefreshing() throws InterruptedException {
+    TestResolver resolver = new TestResolver( 0, 60000 );
+    resolver.getHostname( "1.2.3.4" );
+    assertThat( resolver.await( "1.2.3.4" ), is( "host-1.2.3.4" ) );
+    // The entry is already expired so every call returns the old name and tries to refresh.
+    assertThat( resolver.getHostname( "1.2.3.4" ), is( "host-1.2.3.4" ) );
+    while( resolver.lookups.get() < 2 ) {
+      Thread.sleep( 5 );
+    }
+  }
+
+  @Test( timeout = 10000 )
+  public void testFailedLookupIsCached() throws InterruptedException {
+    TestResolver resolver = new TestResolver( 60000, 60000 );
+    assertThat( resolver.getHostname( "unknown" ), nullValue() );
+    while( resolver.lookups.get() < 1 ) {
+      Thread.sleep( 5 );
+    }
+    Thread.sleep( 50 );
+    assertThat( resolver.getHostname( "unknown" ), nullValue() );
+    Thread.sleep( 50 );
+    assertThat( resolver.lookups.get(), is( 1 ) );
+  }
+
+  @Test
+  public void testNonLiteralAddressIsNotResolved() {
+    assertThat( new AsyncHostnameResolver( 0, 0, 1 ).lookup( "localhost" ), nullValue() );
+  }
+
+  private static class TestResolver extends AsyncHostnameResolver {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private TestResolver( long ttl, long negativeTtl ) {
+      super( ttl, negativeTtl, 100 );
+    }
+
+    @Override
+    protected String lookup( String address ) {
+      lookups.incrementAndGet();
+      return address.equals( "unknown" ) ? null : "host-" + address;
+    }
+
+    private String await( String address ) throws InterruptedException {
+      String hostname = getHostname( address );
+      while( hostname == null ) {
+        TimeUnit.MILLISECONDS.sleep( 5 );
+        hostname = getHostname( address );
+      }
+      return hostname;
+    }
+
+  }
+
+}
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class FormFilterInputStreamTest {
+
+  @Test
+  public void testUnfilteredPairsAreForwardedUnchanged() throws IOException {
+    String input = "Name=Jonathan+Doe&Formula=a+%2B+b+%3D%3D+13%25%21&flag&url=http://host/path?a=b";
+    assertThat( filter( new FormFilterInputStream( stream( input ), "UTF-8" ) ), is( input ) );
+    assertThat( filter( new FormFilterInputStream( stream( "" ), "UTF-8" ) ), is( "" ) );
+    // Adjacent &s are collapsed.
+    assertThat( filter( new FormFilterInputStream( stream( "&a=1&&b=2&" ), "UTF-8" ) ), is( "a=1&b=2" ) );
+  }
+
+  @Test
+  public void testFilteredPairsAreRewrittenOrDropped() throws IOException {
+    String input = "user.name=input-user&jar=%2Ftmp%2Fa.jar&doAs=other&arg=x%3Dy&user%2Ename=second&doAs";
+    FormFilterInputStream stream = new FormFilterInputStream( stream( input ), "UTF-8" ) {
+      @Override
+      protected boolean isFiltered( String name ) {
+        return name.equals( "user.name" ) || name.equals( "doAs" );
+      }
+      @Override
+      protected String filterValue( String name, String value ) {
+        return name.equals( "doAs" ) ? null : "output user";
+      }
+    };
+    assertThat( filter( stream ), is( "user.name=output+user&jar=%2Ftmp%2Fa.jar&arg=x%3Dy&user.name=output+user" ) );
+  }
+
+  @Test
+  public void testUnchangedFilteredValuesAreForwardedUnchanged() throws IOException {
+    String input = "a=%7Evalue&b=%7Eother&c";
+    FormFilterInputStream stream = new FormFilterInputStream( stream( input ), "UTF-8" ) {
+      @Override
+      protected boolean isFiltered( String name ) {
+        return true;
+      }
+    };
+    assertThat( filter( stream ), is( input ) );
+  }
+
+  @Test
+  public void testPairsSpanningReads() throws IOException {
+    StringBuilder input = new StringBuilder();
+    StringBuilder expect = new StringBuilder();
+    for( int i = 0; i < 2000; i++ ) {
+      input.append( "name" ).append( i ).append( "=value" ).append( i ).append( "&secret=" ).append( i ).append( '&' );
+      expect.append( "name" ).append( i ).append( "=value" ).append( i ).append( "&secret=hidden&" );
+    }
+    expect.setLength( expect.length() - 1 );
+    FormFilterInputStream stream = new FormFilterInputStream( stream( input.toString() ), "UTF-8" ) {
+      @Override
+      protected boolean isFiltered( String name ) {
+        return name.equals( "secret" );
+      }
+      @Override
+      protected String filterValue( String name, String value ) {
+        return "hidden";
+      }
+    };
+    assertThat( filter( stream ), is( expect.toString() ) );
+  }
+
+  private static InputStream stream( String string ) throws IOException {
+    return new ByteArrayInputStream( string.getBytes( "UTF-8" ) );
+  }
+
+  private static String filter( InputStream stream ) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] buffer = new byte[ 7 ];
+    int count = stream.read( buffer );
+    while( count >= 0 ) {
+      output.write( buffer, 0, count );
+      count = stream.read( buffer );
+    }
+    stream.close();
+    return output.toString( "UTF-8" );
+  }
+
+}
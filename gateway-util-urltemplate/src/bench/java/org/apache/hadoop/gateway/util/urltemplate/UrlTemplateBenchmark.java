@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.gateway.util.urltemplate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parse, match and expand using URLs and rule templates like those of the bundled services.
+ * Run with: mvn -Pbenchmark test-compile exec:java
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+public class UrlTemplateBenchmark {
+
+  private static final String[] URLS = {
+      "https://gateway-host:8443/gateway/sandbox/webhdfs/v1/user/guest/example/file.txt?op=OPEN&user.name=guest",
+      "http://namenode-host:50070/webhdfs/v1/tmp/data?op=LISTSTATUS",
+      "http://datanode-host:50075/webhdfs/v1/user/guest/part-00000?op=OPEN&namenoderpcaddress=namenode-host:8020&offset=0",
+      "hdfs://namenode-host:8020/user/guest/example",
+      "https://gateway-host:8443/gateway/sandbox/oozie/v1/jobs?jobtype=wf&len=100&offset=1",
+      "https://gateway-host:8443/gateway/sandbox/templeton/v1/status",
+      "/gateway/sandbox/hbase/table/schema"
+  };
+
+  private static final String[] RULES = {
+      "*://*:*/**/webhdfs/{version}/?{**}",
+      "*://*:*/**/webhdfs/{version}/{path=**}?{**}",
+      "*://*:*/**/webhdfs/{version}/~/{path=**}?{**}",
+      "*://*:*/**/oozie/{**}?{**}",
+      "*://*:*/**/templeton/{version}/{path=**}?{**}",
+      "*://*:*/**/hbase/{path=**}?{**}",
+      "hdfs://*:*/{path=**}?{**}",
+      "webhdfs://*:*/{path=**}?{**}",
+      "{scheme}://{host}:{port}/{path=**}?{**}"
+  };
+
+  private static final String EXPAND =
+      "https://gateway-host:8443/gateway/sandbox/webhdfs/data/v1/{path=**}?{scheme}?host={host}?{port}?{**}";
+
+  @Param( { "0", "1", "2", "3", "4", "5", "6" } )
+  public int url;
+
+  private String input;
+  private Template template;
+  private Matcher<String> matcher;
+  private Params params;
+  private Template expand;
+
+  @Setup
+  public void setup() throws URISyntaxException {
+    input = URLS[ url ];
+    template = Parser.parse( input );
+    matcher = new Matcher<String>();
+    for( String rule : RULES ) {
+      matcher.add( Parser.parse( rule ), rule );
+    }
+    MockParams mock = new MockParams();
+    mock.addValue( "scheme", "http" );
+    mock.addValue( "host", "datanode-host" );
+    mock.addValue( "port", "50075" );
+    mock.addValue( "path", "user" );
+    mock.addValue( "path", "guest" );
+    mock.addValue( "path", "part-00000" );
+    mock.addValue( "op", "OPEN" );
+    params = mock;
+    expand = Parser.parse( EXPAND );
+  }
+
+  @Benchmark
+  public Template parse() throws URISyntaxException {
+    return Parser.parse( input );
+  }
+
+  @Benchmark
+  public Matcher<String>.Match match() {
+    return matcher.match( template );
+  }
+
+  @Benchmark
+  public Matcher<String>.Match parseAndMatch() throws URISyntaxException {
+    return matcher.match( Parser.parse( input ) );
+  }
+
+  @Benchmark
+  public String expand() {
+    return Expander.expandToString( expand, params, null );
+  }
+
+}
@@ -171,6 +171,10 @@ public class Builder {
         fragment, hasFragment );
   }
 
+  void setOriginal( String original ) {
+    this.original = original;
+  }
+
   public boolean getHashScheme() {
     return this.hasScheme;
   }
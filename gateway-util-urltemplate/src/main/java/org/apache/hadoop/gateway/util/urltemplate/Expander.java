@@ -25,12 +25,19 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class Expander {
 
   private static Params EMPTY_PARAMS = new EmptyParams();
 
+  // Characters that would move a component boundary if they appeared in an expanded value.
+  private static final String SCHEME_DELIMITERS = ":/?#{}";
+  private static final String AUTHORITY_DELIMITERS = ":/?#@{}*";
+  private static final String PATH_DELIMITERS = "/?#{}";
+  private static final String QUERY_NAME_DELIMITERS = "&?#={}";
+  private static final String QUERY_VALUE_DELIMITERS = "&?#{}";
+  private static final String FRAGMENT_DELIMITERS = "{}\n\r\u0085\u2028\u2029";
+
   public static URI expand( Template template, Params params, Evaluator evaluator ) throws URISyntaxException {
     return new Expander().expandToUri( template, params, evaluator );
   }
@@ -39,65 +46,110 @@ public class Expander {
     return new URI( expandToString( template, params, evaluator ) );
   }
 
+  // The template is built while expanding so the result doesn't need to be parsed again.
+  // Values that would change how the expanded string parses fall back to parsing it.
   public static Template expandToTemplate( Template template, Params params, Evaluator evaluator ) throws URISyntaxException {
-    //TODO: This could be much more efficient if it didn't create and then parse a string.
-    return Parser.parse( expandToString( template, params, evaluator ) );
+    Expansion expansion = expand( template, params, evaluator, new Builder() );
+    Template result;
+    if( expansion.target != null ) {
+      expansion.target.setOriginal( expansion.string.toString() );
+      result = expansion.target.build();
+    } else {
+      result = Parser.parse( expansion.string.toString() );
+    }
+    return result;
   }
 
   public static String expandToString( Template template, Params params, Evaluator evaluator ) {
-    StringBuilder builder = new StringBuilder();
+    return expand( template, params, evaluator, null ).string.toString();
+  }
+
+  private static Expansion expand( Template template, Params params, Evaluator evaluator, Builder target ) {
+    Expansion expansion = new Expansion( target );
     if( params == null ) {
       params = EMPTY_PARAMS;
     }
     Set<String> names = new HashSet<String>( params.getNames() );
-    expandScheme( template, names, params, evaluator, builder );
-    expandAuthority( template, names, params, evaluator, builder );
-    expandPath( template, names, params, evaluator, builder );
-    expandQuery( template, names, params, evaluator, builder );
-    expandFragment( template, names, params, evaluator, builder );
-    return builder.toString();
+    expandScheme( template, names, params, evaluator, expansion );
+    expandAuthority( template, names, params, evaluator, expansion );
+    expandPath( template, names, params, evaluator, expansion );
+    expandQuery( template, names, params, evaluator, expansion );
+    expandFragment( template, names, params, evaluator, expansion );
+    return expansion;
   }
 
-  private static void expandScheme( Template template, Set<String> names, Params params, Evaluator evaluator, StringBuilder builder ) {
+  private static void expandScheme( Template template, Set<String> names, Params params, Evaluator evaluator, Expansion expansion ) {
     Segment segment = template.getScheme();
     if( segment != null ) {
-      expandSingleValue( template.getScheme(), names, params, evaluator, builder );
-      builder.append( ":" );
+      String scheme = expandSingleValue( template.getScheme(), names, params, evaluator, expansion );
+      expansion.string.append( ":" );
+      // A scheme without an authority may be reinterpreted as host:port so leave that to the parser.
+      if( expansion.isLiteral( scheme, SCHEME_DELIMITERS ) && template.hasAuthority() ) {
+        expansion.target.setScheme( Parser.parseTemplateToken( scheme, Segment.STAR_PATTERN ) );
+      } else {
+        expansion.fallback();
+      }
     }
   }
 
-  private static void expandAuthority( Template template, Set<String> names, Params params, Evaluator evaluator, StringBuilder builder ) {
+  private static void expandAuthority( Template template, Set<String> names, Params params, Evaluator evaluator, Expansion expansion ) {
     if( template.hasAuthority() ) {
+      StringBuilder builder = expansion.string;
       if( !template.isAuthorityOnly() ) {
         builder.append( "//" );
+      } else {
+        expansion.fallback();
+      }
+      if( expansion.target != null ) {
+        expansion.target.setHasAuthority( true );
       }
       Segment username = template.getUsername();
       Segment password = template.getPassword();
       Segment host = template.getHost();
       Segment port = template.getPort();
-      expandSingleValue( username, names, params, evaluator, builder );
+      if( username != null ) {
+        String value = expandSingleValue( username, names, params, evaluator, expansion );
+        if( expansion.isLiteral( value, AUTHORITY_DELIMITERS ) ) {
+          expansion.target.setUsername( Parser.parseTemplateToken( value, Segment.STAR_PATTERN ) );
+        }
+      }
       if( password != null ) {
         builder.append( ":" );
-        expandSingleValue( password, names, params, evaluator, builder );
+        String value = expandSingleValue( password, names, params, evaluator, expansion );
+        if( expansion.isLiteral( value, AUTHORITY_DELIMITERS ) ) {
+          expansion.target.setPassword( Parser.parseTemplateToken( value, Segment.STAR_PATTERN ) );
+        }
       }
       if( username != null || password != null ) {
         builder.append( "@" );
       }
       if( host != null ) {
-        expandSingleValue( host, names, params, evaluator, builder );
+        String value = expandSingleValue( host, names, params, evaluator, expansion );
+        if( expansion.isLiteral( value, AUTHORITY_DELIMITERS ) ) {
+          expansion.target.setHost( Parser.parseTemplateToken( value, Segment.STAR_PATTERN ) );
+        }
       }
       if( port != null ) {
         builder.append( ":" );
-        expandSingleValue( port, names, params, evaluator, builder );
+        String value = expandSingleValue( port, names, params, evaluator, expansion );
+        if( expansion.isLiteral( value, AUTHORITY_DELIMITERS ) ) {
+          expansion.target.setPort( Parser.parseTemplateToken( value, Segment.STAR_PATTERN ) );
+        }
       }
     }
   }
 
-  private static void expandPath( Template template, Set<String> names, Params params, Evaluator evaluator, StringBuilder builder ) {
+  private static void expandPath( Template template, Set<String> names, Params params, Evaluator evaluator, Expansion expansion ) {
+    StringBuilder builder = expansion.string;
+    List<Path> path = template.getPath();
     if( template.isAbsolute() ) {
       builder.append( "/" );
+    } else if( template.hasAuthority() && !path.isEmpty() ) {
+      // The first segment would be appended to the authority.
+      expansion.fallback();
     }
-    List<Path> path = template.getPath();
+    // Without a scheme or authority a colon in the first segment would make it a scheme.
+    boolean colonIsDelimiter = !template.isAbsolute() && template.getScheme() == null && !template.hasAuthority();
     for( int i=0, n=path.size(); i<n; i++ ) {
       if( i > 0 ) {
         builder.append( "/" );
@@ -111,23 +163,30 @@ public class Expander {
         case( Segment.STATIC ):
           String pattern = value.getOriginalPattern();
           builder.append( pattern );
+          expansion.addPath( pattern, colonIsDelimiter && i == 0 );
           break;
         case( Segment.DEFAULT ):
         case( Segment.STAR ):
         case( Segment.GLOB ):
         case( Segment.REGEX ):
           List<String> values = function.evaluate( params, evaluator );
-          expandPathValues( segment, values, builder );
+          expandPathValues( segment, values, expansion, colonIsDelimiter && i == 0 );
           break;
       }
     }
     if( template.isDirectory() && path.size() > 0 ) {
       builder.append( "/" );
     }
+    if( expansion.target != null ) {
+      expansion.target.setIsAbsolute( template.isAbsolute() );
+      // An absolute empty path expands to / which parses as a directory.
+      expansion.target.setIsDirectory( path.size() > 0 ? template.isDirectory() : template.isAbsolute() );
+    }
   }
 
   //TODO: This needs to handle multiple values but only to the limit of the segment.
-  private static void expandPathValues( Path segment, List<String> values, StringBuilder builder ) {
+  private static void expandPathValues( Path segment, List<String> values, Expansion expansion, boolean first ) {
+    StringBuilder builder = expansion.string;
     if( values != null && values.size() > 0 ) {
       int type = segment.getFirstValue().getType();
       if( type == Segment.GLOB || type == Segment.DEFAULT ) {
@@ -136,37 +195,39 @@ public class Expander {
             builder.append( "/" );
           }
           builder.append( values.get( i ) );
+          expansion.addPath( values.get( i ), first && i == 0 );
         }
       } else {
         builder.append( values.get( 0 ) );
+        expansion.addPath( values.get( 0 ), first );
       }
     } else {
       builder.append( segment.getFirstValue().getOriginalPattern() );
+      expansion.addPath( segment.getFirstValue().getOriginalPattern(), first );
     }
   }
 
-  private static void expandQuery( Template template, Set<String> names, Params params, Evaluator evaluator, StringBuilder builder ) {
-    AtomicInteger index = new AtomicInteger( 0 );
-    expandExplicitQuery( template, names, params, evaluator, builder, index );
-    expandExtraQuery( template, names, params, builder, index );
+  private static void expandQuery( Template template, Set<String> names, Params params, Evaluator evaluator, Expansion expansion ) {
+    expandExplicitQuery( template, names, params, evaluator, expansion );
+    expandExtraQuery( template, names, params, expansion );
     //Kevin: I took this out because it causes '?' to be added to expanded templates when there are not query params.
 //    if( template.hasQuery() && index.get() == 0 ) {
 //      builder.append( '?' );
 //    }
   }
 
-  private static void expandExplicitQuery( Template template, Set<String> names, Params params, Evaluator evaluator, StringBuilder builder, AtomicInteger index ) {
+  private static void expandExplicitQuery( Template template, Set<String> names, Params params, Evaluator evaluator, Expansion expansion ) {
+    StringBuilder builder = expansion.string;
     Collection<Query> query = template.getQuery().values();
     if( !query.isEmpty() ) {
       Iterator<Query> iterator = query.iterator();
       while( iterator.hasNext() ) {
-        int i = index.incrementAndGet();
-        if( i == 1 ) {
-          builder.append( "?" );
-        } else {
-          builder.append( "&" );
-        }
+        expansion.appendQuerySeparator();
         Query segment = iterator.next();
+        if( segment.getValues().size() > 1 ) {
+          // The values are appended without separators so the parser decides how they split.
+          expansion.fallback();
+        }
         String queryName = segment.getQueryName();
         String paramName = segment.getParamName();
         Function function = new Function( paramName );
@@ -180,13 +241,14 @@ public class Expander {
                 builder.append( "=" );
                 builder.append( pattern );
               }
+              expansion.addQuery( queryName, pattern );
               break;
             case( Segment.DEFAULT ):
             case( Segment.GLOB ):
             case( Segment.STAR ):
             case( Segment.REGEX ):
               List<String> values = function.evaluate( params, evaluator );
-              expandQueryValues( segment, queryName, values, builder );
+              expandQueryValues( segment, queryName, values, expansion );
               break;
             default:
           }
@@ -195,7 +257,8 @@ public class Expander {
     }
   }
 
-  private static void expandExtraQuery( Template template, Set<String> names, Params params, StringBuilder builder, AtomicInteger index ) {
+  private static void expandExtraQuery( Template template, Set<String> names, Params params, Expansion expansion ) {
+    StringBuilder builder = expansion.string;
     Query extra = template.getExtra();
     if( extra != null ) {
       // Need to copy to an array because we are going to modify the set while iterating.
@@ -206,24 +269,22 @@ public class Expander {
         List<String> values = params.resolve( name );
         if( values != null ) {
           for( String value: values ) {
-            int i = index.incrementAndGet();
-            if( i == 1 ) {
-              builder.append( "?" );
-            } else {
-              builder.append( "&" );
-            }
+            expansion.appendQuerySeparator();
             builder.append( name );
             builder.append( "=" );
             builder.append( value );
+            expansion.addQuery( name, String.valueOf( value ) );
           }
         }
       }
     }
   }
 
-  private static void expandQueryValues( Query segment, String queryName, List<String> values, StringBuilder builder ) {
+  private static void expandQueryValues( Query segment, String queryName, List<String> values, Expansion expansion ) {
+    StringBuilder builder = expansion.string;
     if( values == null || values.size() == 0 ) {
       builder.append( queryName );
+      expansion.addQuery( queryName, null );
     } else {
       int type = segment.getFirstValue().getType();
       if( type == Segment.GLOB || type == Segment.DEFAULT ) {
@@ -234,29 +295,44 @@ public class Expander {
           builder.append( queryName );
           builder.append( "=" );
           builder.append( values.get( i ) );
+          expansion.addQuery( queryName, String.valueOf( values.get( i ) ) );
         }
       } else {
         builder.append( queryName );
         builder.append( "=" );
         builder.append( values.get( 0 ) );
+        expansion.addQuery( queryName, String.valueOf( values.get( 0 ) ) );
       }
     }
   }
 
-  private static void expandFragment( Template template, Set<String> names, Params params, Evaluator evaluator, StringBuilder builder ) {
+  private static void expandFragment( Template template, Set<String> names, Params params, Evaluator evaluator, Expansion expansion ) {
     if( template.hasFragment() ) {
-      builder.append( "#" );
+      expansion.string.append( "#" );
+      if( expansion.target != null ) {
+        expansion.target.setHasFragment( true );
+      }
+    }
+    Segment fragment = template.getFragment();
+    if( fragment != null ) {
+      String value = expandSingleValue( fragment, names, params, evaluator, expansion );
+      if( !template.hasFragment() ) {
+        expansion.fallback();
+      } else if( value != null && value.isEmpty() ) {
+        // An empty fragment parses as no fragment segment.
+      } else if( expansion.isLiteral( value, FRAGMENT_DELIMITERS ) ) {
+        expansion.target.setFragment( Parser.parseTemplateToken( value, Segment.STAR_PATTERN ) );
+      }
     }
-    expandSingleValue( template.getFragment(), names, params, evaluator, builder );
   }
 
-  private static void expandSingleValue( Segment segment, Set<String> names, Params params, Evaluator evaluator, StringBuilder builder ) {
+  private static String expandSingleValue( Segment segment, Set<String> names, Params params, Evaluator evaluator, Expansion expansion ) {
+    String str = null;
     if( segment != null ) {
       String paramName = segment.getParamName();
       Function function = new Function( paramName );
       names.remove( function.getParameterName() );
       Segment.Value value = segment.getFirstValue();
-      String str;
       switch( value.getType() ) {
         case Segment.DEFAULT:
         case Segment.STAR:
@@ -275,8 +351,78 @@ public class Expander {
           str = value.getOriginalPattern();
           break;
       }
-      builder.append( str );
+      expansion.string.append( str );
     }
+    return str;
+  }
+
+  // Accumulates the expanded string and, until a value is found that the parser would split
+  // differently, the equivalent template.
+  private static class Expansion {
+
+    private StringBuilder string;
+    private Builder target;
+    private int queryCount;
+
+    private Expansion( Builder target ) {
+      this.string = new StringBuilder();
+      this.target = target;
+      this.queryCount = 0;
+    }
+
+    private void fallback() {
+      target = null;
+    }
+
+    private boolean isLiteral( String value, String delimiters ) {
+      if( target != null ) {
+        if( value == null || value.isEmpty() ) {
+          target = null;
+        } else {
+          for( int i=0, n=value.length(); i<n; i++ ) {
+            if( delimiters.indexOf( value.charAt( i ) ) >= 0 ) {
+              target = null;
+              break;
+            }
+          }
+        }
+      }
+      return target != null;
+    }
+
+    private void addPath( String value, boolean first ) {
+      if( isLiteral( value, PATH_DELIMITERS ) && !( first && value.indexOf( ':' ) >= 0 ) ) {
+        target.addPath( Parser.parseTemplateToken( value, Segment.GLOB_PATTERN ) );
+      } else {
+        target = null;
+      }
+    }
+
+    private void appendQuerySeparator() {
+      queryCount++;
+      if( queryCount == 1 ) {
+        string.append( "?" );
+        if( target != null ) {
+          target.setHasQuery( true );
+        }
+      } else {
+        string.append( "&" );
+      }
+    }
+
+    // A null value is a query name without a value.
+    private void addQuery( String name, String value ) {
+      if( isLiteral( name, QUERY_NAME_DELIMITERS ) ) {
+        if( value == null ) {
+          target.addQuery( name, new Token( Segment.ANONYMOUS_PARAM, null ) );
+        } else if( value.isEmpty() ) {
+          target.addQuery( name, Parser.parseTemplateToken( value, Segment.GLOB_PATTERN ) );
+        } else if( isLiteral( value, QUERY_VALUE_DELIMITERS ) ) {
+          target.addQuery( name, Parser.parseTemplateToken( value, Segment.GLOB_PATTERN ) );
+        }
+      }
+    }
+
   }
 
   private static class EmptyParams implements Params {
@@ -20,9 +20,6 @@ package org.apache.hadoop.gateway.util.urltemplate;
 import org.apache.hadoop.gateway.i18n.resources.ResourcesFactory;
 
 import java.net.URISyntaxException;
-import java.util.StringTokenizer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 //NOTE: Instances Not thread safe but reusable.  Static parse method is thread safe.
 //NOTE: Ignores matrix parameters at this point.
@@ -60,6 +57,10 @@ public class Parser {
       path      = $5
       query     = $7
       fragment  = $9
+
+   The template is split into these components by a single forward scan
+   that finds the same boundaries as the expression above without running
+   a regex or allocating substrings for the components themselves.
    */
 
   private static final Resources RES = ResourcesFactory.get( Resources.class );
@@ -68,17 +69,13 @@ public class Parser {
   public static final char TEMPLATE_CLOSE_MARKUP = '}';
   public static final char NAME_PATTERN_SEPARATOR = '=';
 
-  private static final int MATCH_GROUP_SCHEME = 1;
-  private static final int MATCH_GROUP_SCHEME_NAKED = 2;
-  private static final int MATCH_GROUP_AUTHORITY = 3;
-  private static final int MATCH_GROUP_AUTHORITY_NAKED = 4;
-  private static final int MATCH_GROUP_PATH = 5;
-  private static final int MATCH_GROUP_QUERY = 6;
-  private static final int MATCH_GROUP_QUERY_NAKED = 7;
-  private static final int MATCH_GROUP_FRAGMENT = 8;
-  private static final int MATCH_GROUP_FRAGMENT_NAKED = 9;
-
-  private static Pattern PATTERN = Pattern.compile( "^(([^:/?#]+):)?(//([^/?#]*))?([^?#]*)(\\?([^#]*))?(#(.*))?" );
+  // Literal tokens such as schemes, hosts and path segments repeat across requests so they are shared.
+  // The table is direct mapped by hash so a colliding literal simply replaces the older one, which
+  // keeps it bounded and lets literals only seen in a few request URLs age out without any locking.
+  // Token's fields are final so a token read from the table by another thread is always complete.
+  private static final int INTERN_SLOTS = 4096; // Must be a power of two.
+  private static final int INTERN_MAX_LENGTH = 64;
+  private static final Token[] LITERALS = new Token[ INTERN_SLOTS ];
 
   private String template; // Kept this for debugging.
   private Builder builder;
@@ -97,17 +94,13 @@ public class Parser {
     builder.setIsDirectory( false ); // Assume a file path until found otherwise.  If true, will cause trailing / in output URL.
     builder.setHasQuery( false ); // Assume no ? until found otherwise.  If true, will cause ? in output URL.
     builder.setHasFragment( false ); // Assume no # until found otherwise.  If true, will cause # in output URL.
-    Matcher match = PATTERN.matcher( template );
-    if( match.matches() ) {
-      consumeSchemeMatch( match );
-      consumeAuthorityMatch( match );
-      consumePathMatch( match );
-      consumeQueryMatch( match );
-      consumeFragmentMatch( match );
-      fixNakedAuthority();
-    } else {
-      throw new URISyntaxException( template, RES.parseTemplateFailureReason( template ) );
-    }
+    int length = template.length();
+    int index = consumeScheme( template, length );
+    index = consumeAuthority( template, index, length );
+    index = consumePath( template, index, length );
+    index = consumeQuery( template, index, length );
+    consumeFragment( template, index, length );
+    fixNakedAuthority();
     return builder.build();
   }
 
@@ -143,145 +136,183 @@ public class Parser {
 //    return pattern;
 //  }
 
-  private void consumeSchemeMatch( Matcher match ) {
-    if( match.group( MATCH_GROUP_SCHEME ) != null ) {
+  // Returns the index after the scheme's colon or zero if there is no scheme.
+  private int consumeScheme( String s, int length ) {
+    int end = indexOfAny( s, 0, length, ":/?#" );
+    int index = 0;
+    if( end > 0 && s.charAt( end ) == ':' ) {
       builder.setHasScheme( true );
-      consumeSchemeToken( match.group( MATCH_GROUP_SCHEME_NAKED ) );
-    }
-  }
-
-  private void consumeSchemeToken( String token ) {
-    if( token != null ) {
-      Token t = parseTemplateToken( token, Segment.STAR_PATTERN );
+      Token t = parseTemplateToken( s.substring( 0, end ), Segment.STAR_PATTERN );
       builder.setScheme( t );
+      index = end + 1;
     }
+    return index;
   }
 
-  private void consumeAuthorityMatch( Matcher match ) {
-    if( match.group( MATCH_GROUP_AUTHORITY ) != null ) {
+  private int consumeAuthority( String s, int index, int length ) {
+    if( s.startsWith( "//", index ) ) {
       builder.setHasAuthority( true );
-      consumeAuthorityToken( match.group( MATCH_GROUP_AUTHORITY_NAKED ) );
+      int start = index + 2;
+      index = indexOfAny( s, start, length, "/?#" );
+      if( index < 0 ) {
+        index = length;
+      }
+      consumeAuthorityToken( s.substring( start, index ) );
     }
+    return index;
   }
 
   private void consumeAuthorityToken( String token ) {
-    if( token != null ) {
-      Token paramPattern;
-      String[] usernamePassword=null, hostPort;
-      String[] userAddr = split( token, '@' );
-      if( userAddr.length == 1 ) {
-        hostPort = split( userAddr[ 0 ], ':' );
-      } else {
-        usernamePassword = split( userAddr[ 0 ], ':' );
-        hostPort = split( userAddr[ 1 ], ':' );
-      }
-      if( usernamePassword != null ) {
-        if( usernamePassword[ 0 ].length() > 0 ) {
-          paramPattern = makeTokenSingular( parseTemplateToken( usernamePassword[ 0 ], Segment.STAR_PATTERN ) );
-          builder.setUsername( paramPattern );
-        }
-        if( usernamePassword.length > 1 && usernamePassword[ 1 ].length() > 0 ) {
-          paramPattern = makeTokenSingular( parseTemplateToken( usernamePassword[ 1 ], Segment.STAR_PATTERN ) );
-          builder.setPassword( paramPattern );
-        }
-      }
-      if( hostPort[ 0 ].length() > 0 ) {
-        paramPattern = makeTokenSingular( parseTemplateToken( hostPort[ 0 ], Segment.STAR_PATTERN ) );
-        builder.setHost( paramPattern );
+    Token paramPattern;
+    String[] usernamePassword=null, hostPort;
+    String[] userAddr = split( token, '@' );
+    if( userAddr.length == 1 ) {
+      hostPort = split( userAddr[ 0 ], ':' );
+    } else {
+      usernamePassword = split( userAddr[ 0 ], ':' );
+      hostPort = split( userAddr[ 1 ], ':' );
+    }
+    if( usernamePassword != null ) {
+      if( usernamePassword[ 0 ].length() > 0 ) {
+        paramPattern = makeTokenSingular( parseTemplateToken( usernamePassword[ 0 ], Segment.STAR_PATTERN ) );
+        builder.setUsername( paramPattern );
       }
-      if( hostPort.length > 1 && hostPort[ 1 ].length() > 0 ) {
-        paramPattern = makeTokenSingular( parseTemplateToken( hostPort[ 1 ], Segment.STAR_PATTERN ) );
-        builder.setPort( paramPattern );
+      if( usernamePassword.length > 1 && usernamePassword[ 1 ].length() > 0 ) {
+        paramPattern = makeTokenSingular( parseTemplateToken( usernamePassword[ 1 ], Segment.STAR_PATTERN ) );
+        builder.setPassword( paramPattern );
       }
     }
-  }
-
-  private void consumePathMatch( Matcher match ) {
-    String path = match.group( MATCH_GROUP_PATH );
-    if( path != null ) {
-      builder.setIsAbsolute( path.startsWith( "/" ) );
-      builder.setIsDirectory( path.endsWith( "/" ) );
-      consumePathToken( path );
+    if( hostPort[ 0 ].length() > 0 ) {
+      paramPattern = makeTokenSingular( parseTemplateToken( hostPort[ 0 ], Segment.STAR_PATTERN ) );
+      builder.setHost( paramPattern );
+    }
+    if( hostPort.length > 1 && hostPort[ 1 ].length() > 0 ) {
+      paramPattern = makeTokenSingular( parseTemplateToken( hostPort[ 1 ], Segment.STAR_PATTERN ) );
+      builder.setPort( paramPattern );
     }
   }
 
-  private void consumePathToken( String token ) {
-    if( token != null ) {
-      StringTokenizer tokenizer = new StringTokenizer( token, "/" );
-      while( tokenizer.hasMoreTokens() ) {
-        consumePathSegment( tokenizer.nextToken() );
+  // The path is always present although it may be empty.
+  private int consumePath( String s, int index, int length ) {
+    int end = indexOfAny( s, index, length, "?#" );
+    if( end < 0 ) {
+      end = length;
+    }
+    if( end > index ) {
+      builder.setIsAbsolute( s.charAt( index ) == '/' );
+      builder.setIsDirectory( s.charAt( end - 1 ) == '/' );
+    }
+    // Empty segments are skipped, ie a//b has two segments.
+    int start = index;
+    for( int i = index; i <= end; i++ ) {
+      if( i == end || s.charAt( i ) == '/' ) {
+        if( i > start ) {
+          consumePathSegment( s.substring( start, i ) );
+        }
+        start = i + 1;
       }
     }
+    return end;
   }
 
   private void consumePathSegment( String token ) {
-    if( token != null ) {
-      Token t = parseTemplateToken( token, Segment.GLOB_PATTERN );
-      builder.addPath( t );
-    }
+    Token t = parseTemplateToken( token, Segment.GLOB_PATTERN );
+    builder.addPath( t );
   }
 
-  private void consumeQueryMatch( Matcher match ) {
-    if( match.group( MATCH_GROUP_QUERY ) != null ) {
+  private int consumeQuery( String s, int index, int length ) {
+    if( index < length && s.charAt( index ) == '?' ) {
       builder.setHasQuery( true );
-      consumeQueryToken( match.group( MATCH_GROUP_QUERY_NAKED ) );
+      int end = s.indexOf( '#', index );
+      if( end < 0 ) {
+        end = length;
+      }
+      // Both ? and & separate query segments and empty segments are skipped.
+      int start = index + 1;
+      for( int i = start; i <= end; i++ ) {
+        if( i == end || s.charAt( i ) == '&' || s.charAt( i ) == '?' ) {
+          if( i > start ) {
+            consumeQuerySegment( s.substring( start, i ) );
+          }
+          start = i + 1;
+        }
+      }
+      index = end;
     }
+    return index;
   }
 
-  private void consumeQueryToken( String token ) {
-    if( token != null ) {
-      StringTokenizer tokenizer = new StringTokenizer( token, "?&" );
-      while( tokenizer.hasMoreTokens() ) {
-        consumeQuerySegment( tokenizer.nextToken() );
+  private void consumeQuerySegment( String token ) {
+    // Shorthand format {queryParam} == queryParam={queryParam=*}
+    if( TEMPLATE_OPEN_MARKUP == token.charAt( 0 ) ) {
+      Token paramPattern = parseTemplateToken( token, Segment.GLOB_PATTERN );
+      String paramName = paramPattern.parameterName;
+      if( paramPattern.originalPattern == null ) {
+        builder.addQuery( paramName, new Token( paramName, null, Segment.GLOB_PATTERN ) );
+      } else {
+        builder.addQuery( paramName, new Token( paramName, paramPattern.originalPattern ) );
+      }
+    } else {
+      String nameValue[] = split( token, '=' );
+      if( nameValue.length == 1 ) {
+        String queryName = nameValue[ 0 ];
+        builder.addQuery( queryName, new Token( Segment.ANONYMOUS_PARAM, null ) );
+      } else {
+        String queryName = nameValue[ 0 ];
+        Token paramPattern = parseTemplateToken( nameValue[ 1 ], Segment.GLOB_PATTERN );
+        builder.addQuery( queryName, paramPattern );
       }
     }
   }
 
-  private void consumeQuerySegment( String token ) {
-    if( token != null && token.length() > 0 ) {
-      // Shorthand format {queryParam} == queryParam={queryParam=*}
-      if( TEMPLATE_OPEN_MARKUP == token.charAt( 0 ) ) {
-        Token paramPattern = parseTemplateToken( token, Segment.GLOB_PATTERN );
-        String paramName = paramPattern.parameterName;
-        if( paramPattern.originalPattern == null ) {
-          builder.addQuery( paramName, new Token( paramName, null, Segment.GLOB_PATTERN ) );
-//          if( Segment.STAR_PATTERN.equals( paramName ) || Segment.GLOB_PATTERN.equals( paramName ) ) {
-//            builder.addQuery( paramName, new Token( paramName, null, Segment.GLOB_PATTERN ) );
-//          } else {
-//            builder.addQuery( paramName, new Token( paramName, null, Segment.GLOB_PATTERN ) );
-//          }
-        } else {
-          builder.addQuery( paramName, new Token( paramName, paramPattern.originalPattern ) );
-        }
-      } else {
-        String nameValue[] = split( token, '=' );
-        if( nameValue.length == 1 ) {
-          String queryName = nameValue[ 0 ];
-          builder.addQuery( queryName, new Token( Segment.ANONYMOUS_PARAM, null ) );
-        } else {
-          String queryName = nameValue[ 0 ];
-          Token paramPattern = parseTemplateToken( nameValue[ 1 ], Segment.GLOB_PATTERN );
-          builder.addQuery( queryName, paramPattern );
+  private void consumeFragment( String s, int index, int length ) throws URISyntaxException {
+    if( index < length ) {
+      builder.setHasFragment( true );
+      // The fragment pattern (.*) never matched line terminators so they remain a format error.
+      for( int i = index + 1; i < length; i++ ) {
+        if( isLineTerminator( s.charAt( i ) ) ) {
+          throw new URISyntaxException( template, RES.parseTemplateFailureReason( template ) );
         }
       }
+      if( length > index + 1 ) {
+        Token t = parseTemplateToken( s.substring( index + 1 ), Segment.STAR_PATTERN );
+        builder.setFragment( t );
+      }
     }
   }
 
-  private void consumeFragmentMatch( Matcher match ) {
-    if( match.group( MATCH_GROUP_FRAGMENT ) != null ) {
-      builder.setHasFragment( true );
-      consumeFragmentToken( match.group( MATCH_GROUP_FRAGMENT_NAKED ) );
+  private static boolean isLineTerminator( char c ) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  private static int indexOfAny( String s, int start, int end, String chars ) {
+    int index = -1;
+    for( int i = start; i < end; i++ ) {
+      if( chars.indexOf( s.charAt( i ) ) >= 0 ) {
+        index = i;
+        break;
+      }
     }
+    return index;
   }
 
-  private void consumeFragmentToken( String token ) {
-    if( token != null && token.length() > 0 ) {
-      Token t = parseTemplateToken( token, Segment.STAR_PATTERN );
-      builder.setFragment( t );
+  // Only plain literals are shared since parameter tokens are only found in templates parsed at deployment.
+  private static Token internLiteral( String s ) {
+    if( s.length() > INTERN_MAX_LENGTH ) {
+      return new Token( Segment.ANONYMOUS_PARAM, s, s );
     }
+    int h = s.hashCode();
+    int slot = ( h ^ ( h >>> 16 ) ) & ( INTERN_SLOTS - 1 );
+    Token token = LITERALS[ slot ];
+    if( token == null || !s.equals( token.originalPattern ) ) {
+      token = new Token( Segment.ANONYMOUS_PARAM, s, s );
+      LITERALS[ slot ] = token;
+    }
+    return token;
   }
 
   static Token parseTemplateToken( String s, String defaultEffectivePattern ) {
+    Token token;
     String paramName, actualPattern, effectivePattern;
     int l = s.length();
     // If the token isn't the empty string, then
@@ -306,19 +337,18 @@ public class Parser {
           actualPattern = s.substring( i+1, e );
           effectivePattern = actualPattern;
         }
+        token = new Token( paramName, actualPattern, effectivePattern );
       // Otherwise it is just a pattern.
       } else {
-        paramName = Segment.ANONYMOUS_PARAM;
-        actualPattern = s;
-        effectivePattern = actualPattern;
+        token = internLiteral( s );
       }
     // Otherwise the token has no value.
     } else {
       paramName = Segment.ANONYMOUS_PARAM;
       actualPattern = null;
       effectivePattern = actualPattern;
+      token = new Token( paramName, actualPattern, effectivePattern );
     }
-    Token token = new Token( paramName, actualPattern, effectivePattern );
     return token;
   }
 
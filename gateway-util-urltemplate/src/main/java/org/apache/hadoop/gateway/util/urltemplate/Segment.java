@@ -18,6 +18,7 @@
 package org.apache.hadoop.gateway.util.urltemplate;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -43,6 +44,8 @@ abstract class Segment {
 
 //  private String paramName; // ?queryName={paramName=value}
   private Token token;
+  // Almost every segment has exactly one value so the map is only created when a second is added.
+  private Value value;
   private Map<String,Value> values;
 
 //  protected Segment( String paramName, String valuePattern ) {
@@ -53,8 +56,8 @@ abstract class Segment {
 
   protected Segment( Token token ) {
     this.token = token;
-    this.values = new LinkedHashMap<String,Value>();
-    this.values.put( token.effectivePattern, new Value( token ) );
+    this.value = new Value( token );
+    this.values = null;
   }
 
 //  protected Segment( Segment that ) {
@@ -81,10 +84,10 @@ abstract class Segment {
     boolean equal = false;
     if( obj instanceof Segment ) {
       Segment that = (Segment)obj;
-      equal = ( this.token.parameterName.equals( that.token.parameterName ) && this.values.size() == that.values.size() );
+      equal = ( this.token.parameterName.equals( that.token.parameterName ) && this.getValueCount() == that.getValueCount() );
       if( equal ) {
-        for( String pattern: this.values.keySet() ) {
-          equal = that.values.containsKey( pattern );
+        for( Value thisValue: this.getValues() ) {
+          equal = that.hasValue( thisValue.getEffectivePattern() );
           if( !equal ) {
             break;
           }
@@ -99,12 +102,34 @@ abstract class Segment {
   }
 
   public Collection<Value> getValues() {
-    return values.values();
+    Collection<Value> result;
+    if( values == null ) {
+      result = Collections.singletonList( value );
+    } else {
+      result = values.values();
+    }
+    return result;
+  }
+
+  private int getValueCount() {
+    return values == null ? 1 : values.size();
+  }
+
+  private boolean hasValue( String effectivePattern ) {
+    boolean has;
+    if( values == null ) {
+      has = ( effectivePattern == null ) ? value.getEffectivePattern() == null : effectivePattern.equals( value.getEffectivePattern() );
+    } else {
+      has = values.containsKey( effectivePattern );
+    }
+    return has;
   }
 
   public Value getFirstValue() {
-    Value first = null;
-    if( !values.isEmpty() ) {
+    Value first;
+    if( values == null ) {
+      first = value;
+    } else {
       first = values.values().iterator().next();
     }
     return first;
@@ -112,8 +137,8 @@ abstract class Segment {
 
   public boolean matches( Segment that ) {
     if( getClass().isInstance( that ) ) {
-      for( Value thisValue: this.values.values() ) {
-        for( Value thatValue: that.values.values() ) {
+      for( Value thisValue: this.getValues() ) {
+        for( Value thatValue: that.getValues() ) {
           if( thisValue.matches( thatValue ) ) {
             return true;
           }
@@ -124,8 +149,11 @@ abstract class Segment {
   }
 
   void addValue( Token token ) {
-    Value value = new Value( token );
-    values.put( token.effectivePattern, value );
+    if( values == null ) {
+      values = new LinkedHashMap<String,Value>();
+      values.put( value.getEffectivePattern(), value );
+    }
+    values.put( token.effectivePattern, new Value( token ) );
   }
 
 //  void addValue( String valuePattern ) {
@@ -19,9 +19,9 @@ package org.apache.hadoop.gateway.util.urltemplate;
 
 final class Token {
 
-  String parameterName = null;
-  String originalPattern = null;
-  String effectivePattern = null;
+  final String parameterName;
+  final String originalPattern;
+  final String effectivePattern;
 
   Token( String parameterName, String originalPattern, String effectivePattern ) {
     this.parameterName = parameterName;
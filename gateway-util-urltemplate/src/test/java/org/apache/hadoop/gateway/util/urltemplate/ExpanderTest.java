@@ -335,4 +335,36 @@ public class ExpanderTest {
         equalTo( "schemeA://host/pathA/pathB?server=host&query=queryA&query=queryB&host=hostA&extra=extraA" ) );
   }
 
+  @Test
+  public void testExpandToTemplateMatchesParsedString() throws URISyntaxException {
+    MockParams params = new MockParams();
+    params.addValue( "scheme", "http" );
+    params.addValue( "host", "test-host" );
+    params.addValue( "port", "777" );
+    params.addValue( "path", "dir" );
+    params.addValue( "path", "file" );
+    params.addValue( "op", "OPEN" );
+    params.addValue( "extra", "a:b/c" );
+
+    String[] texts = {
+        "{scheme}://{host}:{port}/{path=**}?{**}",
+        "{scheme}://{host}:{port}/{path=**}/?op={op}#{fragment}",
+        "/{path=**}?{op}",
+        "{path=**}",
+        "{host}:{port}",
+        "{scheme}://{host}/?{path}&{path}" };
+    for( String text : texts ) {
+      Template template = Parser.parse( text );
+      Template direct = Expander.expandToTemplate( template, params, null );
+      Template parsed = Parser.parse( Expander.expandToString( template, params, null ) );
+      assertThat( direct.toString(), equalTo( parsed.toString() ) );
+      assertThat( direct.getPattern(), equalTo( parsed.getPattern() ) );
+      assertThat( direct.isAbsolute(), equalTo( parsed.isAbsolute() ) );
+      assertThat( direct.isDirectory(), equalTo( parsed.isDirectory() ) );
+      assertThat( direct.hasQuery(), equalTo( parsed.hasQuery() ) );
+      assertThat( direct.getPath().size(), equalTo( parsed.getPath().size() ) );
+      assertThat( direct.getQuery().keySet(), equalTo( parsed.getQuery().keySet() ) );
+    }
+  }
+
 }
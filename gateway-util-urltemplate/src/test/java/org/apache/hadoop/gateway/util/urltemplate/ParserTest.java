@@ -28,7 +28,9 @@ import java.util.Iterator;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 @Category( { UnitTests.class, FastTests.class } )
 public class ParserTest {
@@ -1255,4 +1257,55 @@ public class ParserTest {
     assertThat( output.getEffectivePattern(), is( "$" ) );
   }
 
+  @Test
+  public void testScannerEdgeCases() throws URISyntaxException {
+    String text;
+    Template template;
+
+    text = "/a//b///c/";
+    template = Parser.parse( text );
+    assertBasics( template, true, true, false, 3, 0 );
+    assertPath( template, 2, "", "c" );
+
+    text = "?&&a=1??b";
+    template = Parser.parse( text );
+    assertBasics( template, false, false, true, 0, 2 );
+    assertQuery( template, "a", "", "1" );
+
+    text = "a:b/c#frag";
+    template = Parser.parse( text );
+    assertThat( template.hasScheme(), is( true ) );
+    assertThat( template.getScheme().getFirstValue().getPattern(), is( "a" ) );
+    assertThat( template.hasFragment(), is( true ) );
+    assertThat( template.getFragment().getFirstValue().getPattern(), is( "frag" ) );
+
+    try {
+      Parser.parse( "/path#line\nbreak" );
+      fail( "Expected URISyntaxException" );
+    } catch( URISyntaxException e ) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testLiteralTokensAreShared() throws URISyntaxException {
+    Template one = Parser.parse( "http://test-host:42/test-path" );
+    Template two = Parser.parse( "http://test-host:42/test-path" );
+    assertThat( one.getHost().getToken(), sameInstance( two.getHost().getToken() ) );
+    assertThat( one.getPath().get( 0 ).getToken(), sameInstance( two.getPath().get( 0 ).getToken() ) );
+    assertThat( one.toString(), is( two.toString() ) );
+  }
+
+  @Test
+  public void testLiteralTokensStayBounded() throws URISyntaxException {
+    for( int i = 0; i < 20000; i++ ) {
+      Parser.parse( "http://host-" + i + "/path-" + i );
+    }
+    Template one = Parser.parse( "http://host-7/path-7" );
+    Template two = Parser.parse( "http://host-7/path-7" );
+    assertThat( one.getHost().getFirstValue().getPattern(), is( "host-7" ) );
+    assertThat( one.getHost().getToken(), sameInstance( two.getHost().getToken() ) );
+    assertThat( one.getPath().get( 0 ).getFirstValue().getPattern(), is( "path-7" ) );
+  }
+
 }